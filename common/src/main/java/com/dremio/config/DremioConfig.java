@@ -90,6 +90,7 @@ public class DremioConfig extends NestedConfig {
    */
   public static final String PLAN_CACHE_TIMEOUT_MINUTES = "dremio.plan.cache.timeout_minutes";
   public static final String PLAN_CACHE_MAX_ENTRIES = "dremio.plan.cache.max_entries";
+  public static final String PLAN_CACHE_MAX_SIZE_BYTES = "dremio.plan.cache.max_size_bytes";
 
   /**
    * Config values related to statistics caching
@@ -77,6 +77,21 @@ public interface AsyncByteReader extends AutoCloseable {
         });
   }
 
+  /**
+   * Read several ranges of the underlying data. The default implementation issues one read per range, see
+   * {@link CoalescingAsyncByteReader} to merge close ranges into fewer requests.
+   * @param ranges The ranges to read, each with the buffer to read it into.
+   * @return A CompletableFuture that will be informed when all the ranges are read.
+   */
+  default CompletableFuture<Void> readFully(List<ReadRange> ranges) {
+    final CompletableFuture<?>[] futures = new CompletableFuture<?>[ranges.size()];
+    for (int i = 0; i < futures.length; i++) {
+      final ReadRange range = ranges.get(i);
+      futures[i] = readFully(range.getOffset(), range.getDst(), range.getDstOffset(), range.getLength());
+    }
+    return CompletableFuture.allOf(futures);
+  }
+
   /**
    * Read data and return as a byte array.
    * @param offset File offset to read from
@@ -125,6 +140,43 @@ public interface AsyncByteReader extends AutoCloseable {
     public void setValue(double newValue) { value = newValue;}
   }
 
+  /**
+   * A range of the underlying data, and the buffer to read it into.
+   */
+  final class ReadRange {
+    private final long offset;
+    private final int length;
+    private final ByteBuf dst;
+    private final int dstOffset;
+
+    public ReadRange(long offset, int length, ByteBuf dst, int dstOffset) {
+      this.offset = offset;
+      this.length = length;
+      this.dst = dst;
+      this.dstOffset = dstOffset;
+    }
+
+    public long getOffset() {
+      return offset;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    public long getEnd() {
+      return offset + length;
+    }
+
+    public ByteBuf getDst() {
+      return dst;
+    }
+
+    public int getDstOffset() {
+      return dstOffset;
+    }
+  }
+
   /**
    * Interface to exchange all properties associated with the file or object for which the async reader
    * is required.  The full path, version, and file type should completely qualify this file or object
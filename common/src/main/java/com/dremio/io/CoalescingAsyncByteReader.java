@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.io;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.NettyArrowBuf;
+
+/**
+ * Decorator over AsyncByteReader merging the ranges of a vectored read into fewer, larger requests.
+ *
+ * Ranges separated by at most {@code maxGap} bytes are read with a single request, as long as the merged request
+ * reads at most {@code maxMergedSize} bytes. The merged requests are issued concurrently, and the bytes of each
+ * range are copied from the merged request into the buffer of the range. The bytes of the gaps are read and
+ * discarded: on object stores, reading them costs less than the latency of another request.
+ */
+public class CoalescingAsyncByteReader implements AsyncByteReader {
+  public static final String NUM_REQUESTS_STAT = "numRequests";
+  public static final String NUM_RANGES_STAT = "numRanges";
+  public static final String BYTES_REQUESTED_STAT = "bytesRequested";
+  public static final String BYTES_OVER_READ_STAT = "bytesOverRead";
+
+  private final AsyncByteReader inner;
+  private final BufferAllocator allocator;
+  private final long maxGap;
+  private final long maxMergedSize;
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong ranges = new AtomicLong();
+  private final AtomicLong bytesRequested = new AtomicLong();
+  private final AtomicLong bytesOverRead = new AtomicLong();
+
+  /**
+   * @param inner reader of the file
+   * @param allocator allocator of the buffers of the merged requests
+   * @param maxGap max number of bytes read between two merged ranges
+   * @param maxMergedSize max number of bytes read by a merged request
+   */
+  public CoalescingAsyncByteReader(AsyncByteReader inner, BufferAllocator allocator, long maxGap, long maxMergedSize) {
+    Preconditions.checkArgument(maxGap >= 0, "Invalid max gap %s", maxGap);
+    Preconditions.checkArgument(maxMergedSize > 0 && maxMergedSize <= Integer.MAX_VALUE,
+      "Invalid max merged size %s", maxMergedSize);
+    this.inner = inner;
+    this.allocator = allocator;
+    this.maxGap = maxGap;
+    this.maxMergedSize = maxMergedSize;
+  }
+
+  @Override
+  public CompletableFuture<Void> readFully(long offset, ByteBuf dst, int dstOffset, int len) {
+    requests.incrementAndGet();
+    ranges.incrementAndGet();
+    bytesRequested.addAndGet(len);
+    return inner.readFully(offset, dst, dstOffset, len);
+  }
+
+  @Override
+  public CompletableFuture<Void> readFully(List<ReadRange> readRanges) {
+    final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (List<ReadRange> group : coalesce(readRanges, maxGap, maxMergedSize)) {
+      futures.add(readMerged(group));
+    }
+    return futures.size() == 1 ? futures.get(0) : CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+  }
+
+  private CompletableFuture<Void> readMerged(List<ReadRange> group) {
+    if (group.size() == 1) {
+      final ReadRange range = group.get(0);
+      return readFully(range.getOffset(), range.getDst(), range.getDstOffset(), range.getLength());
+    }
+
+    final long start = group.get(0).getOffset();
+    long end = start;
+    long requested = 0;
+    long overRead = 0;
+    for (ReadRange range : group) {
+      overRead += Math.max(0, range.getOffset() - end);
+      end = Math.max(end, range.getEnd());
+      requested += range.getLength();
+    }
+    final int length = (int) (end - start);
+    requests.incrementAndGet();
+    ranges.addAndGet(group.size());
+    bytesRequested.addAndGet(requested);
+    bytesOverRead.addAndGet(overRead);
+
+    final ByteBuf buf = NettyArrowBuf.unwrapBuffer(allocator.buffer(length));
+    final CompletableFuture<Void> read;
+    try {
+      read = inner.readFully(start, buf, 0, length);
+    } catch (RuntimeException e) {
+      buf.release();
+      throw e;
+    }
+    return read.whenComplete((v, e) -> {
+      try {
+        if (e == null) {
+          for (ReadRange range : group) {
+            range.getDst().setBytes(range.getDstOffset(), buf, (int) (range.getOffset() - start), range.getLength());
+          }
+        }
+      } finally {
+        buf.release();
+      }
+    });
+  }
+
+  /**
+   * Group the ranges read by a single request.
+   *
+   * @return the groups of ranges, each sorted by offset
+   */
+  @VisibleForTesting
+  static List<List<ReadRange>> coalesce(List<ReadRange> readRanges, long maxGap, long maxMergedSize) {
+    final List<ReadRange> sorted = new ArrayList<>(readRanges);
+    sorted.sort(Comparator.comparingLong(ReadRange::getOffset));
+
+    final List<List<ReadRange>> groups = new ArrayList<>();
+    List<ReadRange> group = null;
+    long groupStart = 0;
+    long groupEnd = 0;
+    for (ReadRange range : sorted) {
+      if (group != null
+        && range.getOffset() - groupEnd <= maxGap
+        && Math.max(groupEnd, range.getEnd()) - groupStart <= maxMergedSize) {
+        group.add(range);
+        groupEnd = Math.max(groupEnd, range.getEnd());
+        continue;
+      }
+      group = new ArrayList<>();
+      group.add(range);
+      groups.add(group);
+      groupStart = range.getOffset();
+      groupEnd = range.getEnd();
+    }
+    return groups;
+  }
+
+  @Override
+  public CompletableFuture<Void> checkVersion(String version) {
+    return inner.checkVersion(version);
+  }
+
+  @Override
+  public List<ReaderStat> getStats() {
+    final List<ReaderStat> stats = new ArrayList<>(inner.getStats());
+    stats.add(new ReaderStat(NUM_REQUESTS_STAT, requests.get()));
+    stats.add(new ReaderStat(NUM_RANGES_STAT, ranges.get()));
+    stats.add(new ReaderStat(BYTES_REQUESTED_STAT, bytesRequested.get()));
+    stats.add(new ReaderStat(BYTES_OVER_READ_STAT, bytesOverRead.get()));
+    return stats;
+  }
+
+  @Override
+  public void close() throws Exception {
+    inner.close();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.io.AsyncByteReader.ReadRange;
+import com.dremio.test.AllocatorRule;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Tests for {@link CoalescingAsyncByteReader}
+ */
+public class CoalescingAsyncByteReaderTest {
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private static final byte[] DATA = new byte[1000];
+  static {
+    for (int i = 0; i < DATA.length; i++) {
+      DATA[i] = (byte) i;
+    }
+  }
+
+  private static ReadRange range(long offset, int length) {
+    return new ReadRange(offset, length, Unpooled.buffer(length), 0);
+  }
+
+  private static double stat(AsyncByteReader reader, String name) {
+    return reader.getStats().stream().filter(s -> s.getName().equals(name)).findFirst().get().getValue();
+  }
+
+  @Test
+  public void testCoalesce() {
+    final List<ReadRange> ranges = Arrays.asList(range(500, 10), range(0, 10), range(15, 10), range(30, 80),
+      range(115, 10));
+
+    final List<List<ReadRange>> groups = CoalescingAsyncByteReader.coalesce(ranges, 10, 120);
+    // merging the range at 115 would read more than 120 bytes, and the gap before 500 is too large
+    assertEquals(3, groups.size());
+    assertEquals(3, groups.get(0).size());
+    assertEquals(0, groups.get(0).get(0).getOffset());
+    assertEquals(115, groups.get(1).get(0).getOffset());
+    assertEquals(500, groups.get(2).get(0).getOffset());
+  }
+
+  @Test
+  public void testVectoredRead() throws Exception {
+    final List<long[]> requests = new ArrayList<>();
+    final AsyncByteReader source = (offset, dst, dstOffset, len) -> {
+      synchronized (requests) {
+        requests.add(new long[] {offset, len});
+      }
+      dst.setBytes(dstOffset, DATA, (int) offset, len);
+      return CompletableFuture.completedFuture(null);
+    };
+
+    final List<ReadRange> ranges = Arrays.asList(range(100, 20), range(130, 5), range(132, 10), range(600, 50));
+    final CoalescingAsyncByteReader reader;
+    try (BufferAllocator allocator = allocatorRule.newAllocator("test-coalescing", 0, Long.MAX_VALUE)) {
+      reader = new CoalescingAsyncByteReader(source, allocator, 16, 1000);
+      reader.readFully(ranges).get();
+      // the merged requests are released
+      assertEquals(0, allocator.getAllocatedMemory());
+    }
+
+    assertEquals(2, requests.size());
+    for (ReadRange range : ranges) {
+      final byte[] bytes = new byte[range.getLength()];
+      range.getDst().getBytes(0, bytes);
+      assertArrayEquals(Arrays.copyOfRange(DATA, (int) range.getOffset(), (int) range.getEnd()), bytes);
+    }
+    assertEquals(2, stat(reader, CoalescingAsyncByteReader.NUM_REQUESTS_STAT), 0);
+    assertEquals(4, stat(reader, CoalescingAsyncByteReader.NUM_RANGES_STAT), 0);
+    assertEquals(85, stat(reader, CoalescingAsyncByteReader.BYTES_REQUESTED_STAT), 0);
+    assertEquals(10, stat(reader, CoalescingAsyncByteReader.BYTES_OVER_READ_STAT), 0);
+  }
+
+  @Test
+  public void testDefaultVectoredRead() throws Exception {
+    final AsyncByteReader reader = (offset, dst, dstOffset, len) -> {
+      dst.setBytes(dstOffset, DATA, (int) offset, len);
+      return CompletableFuture.completedFuture(null);
+    };
+    final ByteBuf dst = Unpooled.buffer(20);
+    reader.readFully(Arrays.asList(new ReadRange(10, 10, dst, 10), new ReadRange(0, 10, dst, 0))).get();
+
+    final byte[] bytes = new byte[20];
+    dst.getBytes(0, bytes);
+    assertArrayEquals(Arrays.copyOfRange(DATA, 0, 20), bytes);
+  }
+}
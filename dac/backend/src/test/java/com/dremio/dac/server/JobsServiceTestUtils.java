@@ -31,6 +31,7 @@ import com.dremio.dac.model.job.JobDataFragment;
 import com.dremio.dac.model.job.JobDataWrapper;
 import com.dremio.dac.server.test.SampleDataPopulator;
 import com.dremio.exec.proto.UserBitShared;
+import com.dremio.sabot.op.scan.ScanOperator;
 import com.dremio.service.job.CancelJobRequest;
 import com.dremio.service.job.DownloadSettings;
 import com.dremio.service.job.JobEvent;
@@ -207,6 +208,36 @@ public final class JobsServiceTestUtils {
         .build());
   }
 
+  /**
+   * Sums a scan operator metric over all the scans of a completed job.
+   */
+  static long getScanMetric(JobsService jobsService, JobId jobId, String userName, ScanOperator.Metric metric)
+    throws Exception {
+    final UserBitShared.QueryProfile profile = jobsService.getProfile(
+      QueryProfileRequest.newBuilder()
+        .setJobId(JobsProtoUtil.toBuf(jobId))
+        .setUserName(userName)
+        .setAttempt(0)
+        .build());
+    long value = 0;
+    for (UserBitShared.MajorFragmentProfile major : profile.getFragmentProfileList()) {
+      for (UserBitShared.MinorFragmentProfile minor : major.getMinorFragmentProfileList()) {
+        for (UserBitShared.OperatorProfile operator : minor.getOperatorProfileList()) {
+          if (operator.getOperatorType() != UserBitShared.CoreOperatorType.PARQUET_ROW_GROUP_SCAN_VALUE
+            && operator.getOperatorType() != UserBitShared.CoreOperatorType.TABLE_FUNCTION_VALUE) {
+            continue;
+          }
+          for (UserBitShared.MetricValue metricValue : operator.getMetricList()) {
+            if (metricValue.getMetricId() == metric.metricId()) {
+              value += metricValue.getLongValue();
+            }
+          }
+        }
+      }
+    }
+    return value;
+  }
+
   public static void setSystemOption(JobsService jobsService, String optionName, String optionValue) {
     final String query = String.format("ALTER SYSTEM SET \"%s\"=%s", optionName, optionValue);
     submitJobAndWaitUntilCompletion(jobsService,
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.dac.server;
+
+import static com.dremio.dac.server.JobsServiceTestUtils.getScanMetric;
+import static com.dremio.dac.server.JobsServiceTestUtils.resetSystemOption;
+import static com.dremio.dac.server.JobsServiceTestUtils.setSystemOption;
+import static com.dremio.dac.server.JobsServiceTestUtils.submitJobAndWaitUntilCompletion;
+import static com.dremio.exec.util.TestUtilities.DFS_TEST_PLUGIN_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.dac.explore.model.DatasetPath;
+import com.dremio.dac.model.job.JobDataFragment;
+import com.dremio.dac.model.job.JobDataWrapper;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.catalog.CatalogServiceImpl;
+import com.dremio.exec.store.CatalogService;
+import com.dremio.exec.util.TestUtilities;
+import com.dremio.sabot.op.scan.ScanOperator;
+import com.dremio.service.job.proto.JobId;
+import com.dremio.service.job.proto.QueryType;
+import com.dremio.service.jobs.JobRequest;
+import com.dremio.service.jobs.JobsService;
+import com.dremio.service.jobs.SqlQuery;
+import com.dremio.service.namespace.dataset.DatasetVersion;
+
+/**
+ * Test the pages skipped by the row-wise parquet reader using the page indexes, over a table with many pages
+ * per column chunk.
+ */
+public class TestParquetPageSkipping extends BaseTestServer {
+  private static final String TABLE = DFS_TEST_PLUGIN_NAME + ".parquet_page_skipping";
+  private static final int MAX_ROWS = 100_000;
+
+  @ClassRule
+  public static final TemporaryFolder temp = new TemporaryFolder();
+
+  private BufferAllocator allocator;
+
+  @BeforeClass
+  public static void createTable() throws Exception {
+    TestUtilities.updateDfsTestTmpSchemaLocation((CatalogServiceImpl) l(CatalogService.class), temp.getRoot().toString());
+    final String pageRowCountLimit = ExecConstants.PARQUET_WRITER_PAGE_ROW_COUNT_LIMIT.getOptionName();
+    setSystemOption(l(JobsService.class), pageRowCountLimit, "100");
+    try {
+      // many pages per column chunk, each holding a range of ids
+      submitJobAndWaitUntilCompletion(l(JobsService.class), newRequest(String.format(
+        "CREATE TABLE %s LOCALSORT BY (id) AS " +
+          "SELECT l_orderkey * 10 + l_linenumber AS id, l_comment AS comment FROM cp.\"tpch/lineitem.parquet\"",
+        TABLE)));
+    } finally {
+      resetSystemOption(l(JobsService.class), pageRowCountLimit);
+    }
+    // the row-wise reader skips the pages
+    setSystemOption(l(JobsService.class), ExecConstants.PARQUET_READER_VECTORIZE.getOptionName(), "false");
+  }
+
+  @AfterClass
+  public static void resetOptions() {
+    resetSystemOption(l(JobsService.class), ExecConstants.PARQUET_READER_VECTORIZE.getOptionName());
+  }
+
+  @Before
+  public void setup() {
+    allocator = getSabotContext().getAllocator().newChildAllocator(getClass().getName(), 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void cleanup() {
+    allocator.close();
+  }
+
+  private static JobRequest newRequest(String sql) {
+    return JobRequest.newBuilder()
+      .setSqlQuery(new SqlQuery(sql, DEFAULT_USERNAME))
+      .setQueryType(QueryType.UI_RUN)
+      .setDatasetPath(DatasetPath.NONE.toNamespaceKey())
+      .setDatasetVersion(DatasetVersion.NONE)
+      .build();
+  }
+
+  /**
+   * Runs the query with and without page skipping, and checks that they return the same rows.
+   *
+   * @return the number of pages skipped
+   */
+  private long runWithAndWithoutPageSkipping(String where) throws Exception {
+    final String sql = String.format("SELECT id, comment FROM %s WHERE %s ORDER BY id", TABLE, where);
+
+    final List<String> expected;
+    setSystemOption(l(JobsService.class), ExecConstants.PARQUET_READER_PAGE_SKIPPING.getOptionName(), "false");
+    try {
+      final JobId jobId = submitJobAndWaitUntilCompletion(l(JobsService.class), newRequest(sql));
+      assertEquals(0, getPagesPruned(jobId));
+      expected = getRows(jobId);
+    } finally {
+      resetSystemOption(l(JobsService.class), ExecConstants.PARQUET_READER_PAGE_SKIPPING.getOptionName());
+    }
+
+    final JobId jobId = submitJobAndWaitUntilCompletion(l(JobsService.class), newRequest(sql));
+    assertEquals(expected, getRows(jobId));
+    return getPagesPruned(jobId);
+  }
+
+  private List<String> getRows(JobId jobId) throws Exception {
+    final List<String> rows = new ArrayList<>();
+    try (JobDataFragment data = JobDataWrapper.getJobData(l(JobsService.class), allocator, jobId, 0, MAX_ROWS)) {
+      for (int i = 0; i < data.getReturnedRowCount(); i++) {
+        rows.add(data.extractValue("id", i) + ":" + data.extractValue("comment", i));
+      }
+    }
+    return rows;
+  }
+
+  private static long getPagesPruned(JobId jobId) throws Exception {
+    return getScanMetric(l(JobsService.class), jobId, DEFAULT_USERNAME, ScanOperator.Metric.NUM_PAGES_PRUNED);
+  }
+
+  @Test
+  public void testEquality() throws Exception {
+    assertTrue(runWithAndWithoutPageSkipping("id = 327691") > 0);
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    assertTrue(runWithAndWithoutPageSkipping("id > 100000 AND id < 100500") > 0);
+  }
+
+  @Test
+  public void testLessThan() throws Exception {
+    assertTrue(runWithAndWithoutPageSkipping("id < 2000") > 0);
+  }
+
+  @Test
+  public void testGreaterThan() throws Exception {
+    assertTrue(runWithAndWithoutPageSkipping("id >= 590000") > 0);
+  }
+
+  @Test
+  public void testNoMatch() throws Exception {
+    // within the min and max of the row group, but only of its first page
+    assertTrue(runWithAndWithoutPageSkipping("id = 18") > 0);
+  }
+
+  @Test
+  public void testAllPagesMatch() throws Exception {
+    assertEquals(0, runWithAndWithoutPageSkipping("id > 0"));
+  }
+}
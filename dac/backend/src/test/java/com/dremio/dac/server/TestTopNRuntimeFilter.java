@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.dac.server;
+
+import static com.dremio.dac.server.JobsServiceTestUtils.getScanMetric;
+import static com.dremio.dac.server.JobsServiceTestUtils.resetSystemOption;
+import static com.dremio.dac.server.JobsServiceTestUtils.setSystemOption;
+import static com.dremio.dac.server.JobsServiceTestUtils.submitJobAndWaitUntilCompletion;
+import static com.dremio.exec.util.TestUtilities.DFS_TEST_PLUGIN_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.dac.explore.model.DatasetPath;
+import com.dremio.dac.model.job.JobDataFragment;
+import com.dremio.dac.model.job.JobDataWrapper;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.catalog.CatalogServiceImpl;
+import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.store.CatalogService;
+import com.dremio.exec.util.TestUtilities;
+import com.dremio.sabot.op.scan.ScanOperator;
+import com.dremio.service.job.proto.JobId;
+import com.dremio.service.job.proto.QueryType;
+import com.dremio.service.jobs.JobRequest;
+import com.dremio.service.jobs.JobsService;
+import com.dremio.service.jobs.SqlQuery;
+import com.dremio.service.namespace.dataset.DatasetVersion;
+
+/**
+ * Test the range filters sent by TopN operators to the scans, over a table with many small row groups each
+ * holding a range of ids.
+ */
+public class TestTopNRuntimeFilter extends BaseTestServer {
+  private static final String TABLE = DFS_TEST_PLUGIN_NAME + ".topn_runtime_filter";
+  private static final int LIMIT = 10;
+
+  @ClassRule
+  public static final TemporaryFolder temp = new TemporaryFolder();
+
+  private BufferAllocator allocator;
+
+  @BeforeClass
+  public static void createTable() throws Exception {
+    TestUtilities.updateDfsTestTmpSchemaLocation((CatalogServiceImpl) l(CatalogService.class), temp.getRoot().toString());
+    final String minRecordsForFlush = ExecConstants.PARQUET_MIN_RECORDS_FOR_FLUSH_VALIDATOR.getOptionName();
+    setSystemOption(l(JobsService.class), ExecConstants.PARQUET_BLOCK_SIZE, "16384");
+    setSystemOption(l(JobsService.class), minRecordsForFlush, "1000");
+    try {
+      // the first line of each order has null nullable ids
+      submitJobAndWaitUntilCompletion(l(JobsService.class), newRequest(String.format(
+        "CREATE TABLE %s LOCALSORT BY (id) AS SELECT id, -id AS neg_id, " +
+          "CASE WHEN l_linenumber = 1 THEN NULL ELSE id END AS nullable_id, " +
+          "CASE WHEN l_linenumber = 1 THEN NULL ELSE -id END AS nullable_neg_id " +
+          "FROM (SELECT l_orderkey * 10 + l_linenumber AS id, l_linenumber FROM cp.\"tpch/lineitem.parquet\")",
+        TABLE)));
+    } finally {
+      resetSystemOption(l(JobsService.class), ExecConstants.PARQUET_BLOCK_SIZE);
+      resetSystemOption(l(JobsService.class), minRecordsForFlush);
+    }
+    // check the boundary of the heap after every batch
+    setSystemOption(l(JobsService.class), ExecConstants.TOPN_RUNTIME_FILTER_BATCH_INTERVAL.getOptionName(), "1");
+  }
+
+  @AfterClass
+  public static void resetOptions() {
+    resetSystemOption(l(JobsService.class), ExecConstants.TOPN_RUNTIME_FILTER_BATCH_INTERVAL.getOptionName());
+  }
+
+  @Before
+  public void setup() {
+    allocator = getSabotContext().getAllocator().newChildAllocator(getClass().getName(), 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void cleanup() {
+    allocator.close();
+  }
+
+  private static JobRequest newRequest(String sql) {
+    return JobRequest.newBuilder()
+      .setSqlQuery(new SqlQuery(sql, DEFAULT_USERNAME))
+      .setQueryType(QueryType.UI_RUN)
+      .setDatasetPath(DatasetPath.NONE.toNamespaceKey())
+      .setDatasetVersion(DatasetVersion.NONE)
+      .build();
+  }
+
+  /**
+   * Runs the query with and without the range filters, and checks that they return the same rows.
+   *
+   * @return the number of row groups skipped with the range filters
+   */
+  private long runWithAndWithoutFilter(String orderBy, String... columns) throws Exception {
+    final String sql = String.format("SELECT %s FROM %s ORDER BY %s LIMIT %d",
+      String.join(", ", columns), TABLE, orderBy, LIMIT);
+
+    final List<String> expected;
+    setSystemOption(l(JobsService.class), PlannerSettings.ENABLE_TOPN_RUNTIME_FILTER.getOptionName(), "false");
+    try {
+      final JobId jobId = submitJobAndWaitUntilCompletion(l(JobsService.class), newRequest(sql));
+      assertEquals(0, getRowGroupsPruned(jobId));
+      expected = getRows(jobId, columns);
+    } finally {
+      resetSystemOption(l(JobsService.class), PlannerSettings.ENABLE_TOPN_RUNTIME_FILTER.getOptionName());
+    }
+    assertEquals(LIMIT, expected.size());
+
+    final JobId jobId = submitJobAndWaitUntilCompletion(l(JobsService.class), newRequest(sql));
+    assertEquals(expected, getRows(jobId, columns));
+    return getRowGroupsPruned(jobId);
+  }
+
+  private List<String> getRows(JobId jobId, String... columns) throws Exception {
+    final List<String> rows = new ArrayList<>();
+    try (JobDataFragment data = JobDataWrapper.getJobData(l(JobsService.class), allocator, jobId, 0, LIMIT + 1)) {
+      for (int i = 0; i < data.getReturnedRowCount(); i++) {
+        final List<Object> row = new ArrayList<>();
+        for (String column : columns) {
+          row.add(data.extractValue(column, i));
+        }
+        rows.add(row.toString());
+      }
+    }
+    return rows;
+  }
+
+  private static long getRowGroupsPruned(JobId jobId) throws Exception {
+    return getScanMetric(l(JobsService.class), jobId, DEFAULT_USERNAME,
+      ScanOperator.Metric.NUM_ROW_GROUPS_PRUNED_BY_RANGE_FILTER);
+  }
+
+  @Test
+  public void testAscending() throws Exception {
+    assertTrue(runWithAndWithoutFilter("id", "id") > 0);
+  }
+
+  @Test
+  public void testDescending() throws Exception {
+    assertTrue(runWithAndWithoutFilter("neg_id DESC", "neg_id") > 0);
+  }
+
+  @Test
+  public void testAscendingNullsLast() throws Exception {
+    // the row groups holding nulls can still be skipped, nulls sort after the bound
+    assertTrue(runWithAndWithoutFilter("nullable_id ASC NULLS LAST", "nullable_id", "id") > 0);
+  }
+
+  @Test
+  public void testDescendingNullsLast() throws Exception {
+    assertTrue(runWithAndWithoutFilter("nullable_neg_id DESC NULLS LAST", "nullable_neg_id", "id") > 0);
+  }
+
+  @Test
+  public void testAscendingNullsFirst() throws Exception {
+    // the heap only holds nulls, there is no bound to send
+    assertEquals(0, runWithAndWithoutFilter("nullable_id ASC NULLS FIRST, id", "nullable_id", "id"));
+  }
+
+  @Test
+  public void testDescendingNullsFirst() throws Exception {
+    assertEquals(0, runWithAndWithoutFilter("nullable_neg_id DESC NULLS FIRST, id", "nullable_neg_id", "id"));
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+
+/**
+ * Synthetic Arrow vectors the benchmarks run on.
+ * <p>
+ * Key widths of 4 and 8 bytes are int and bigint vectors, any other width is a varchar vector whose values all
+ * have that many bytes.
+ */
+public final class BenchmarkVectors {
+
+  private BenchmarkVectors() {
+  }
+
+  /**
+   * Create an empty key vector.
+   *
+   * @param name      The name of the vector.
+   * @param keyWidth  The width of the values, in bytes.
+   * @param allocator The allocator of the vector.
+   */
+  public static FieldVector newKeyVector(String name, int keyWidth, BufferAllocator allocator) {
+    switch (keyWidth) {
+      case 4:
+        return new IntVector(name, allocator);
+      case 8:
+        return new BigIntVector(name, allocator);
+      default:
+        return new VarCharVector(name, allocator);
+    }
+  }
+
+  /**
+   * Create a key vector filled by {@link #fillKeys(FieldVector, int, int, int, double, Random)}.
+   */
+  public static FieldVector newKeyVector(String name, int keyWidth, BufferAllocator allocator, int count,
+                                         int cardinality, double nullDensity, Random random) {
+    final FieldVector vector = newKeyVector(name, keyWidth, allocator);
+    fillKeys(vector, keyWidth, count, cardinality, nullDensity, random);
+    return vector;
+  }
+
+  /**
+   * Fill a key vector with values drawn uniformly among a number of distinct ones.
+   *
+   * @param vector      The vector, created by {@link #newKeyVector(String, int, BufferAllocator)}.
+   * @param keyWidth    The width of the values, in bytes.
+   * @param count       The number of values.
+   * @param cardinality The number of distinct non null values.
+   * @param nullDensity The fraction of null values.
+   * @param random      The source of the values.
+   */
+  public static void fillKeys(FieldVector vector, int keyWidth, int count, int cardinality, double nullDensity,
+                              Random random) {
+    if (vector instanceof IntVector) {
+      final IntVector ints = (IntVector) vector;
+      ints.allocateNew(count);
+      for (int i = 0; i < count; i++) {
+        if (random.nextDouble() < nullDensity) {
+          ints.setNull(i);
+        } else {
+          ints.set(i, random.nextInt(cardinality));
+        }
+      }
+    } else if (vector instanceof BigIntVector) {
+      final BigIntVector bigInts = (BigIntVector) vector;
+      bigInts.allocateNew(count);
+      for (int i = 0; i < count; i++) {
+        if (random.nextDouble() < nullDensity) {
+          bigInts.setNull(i);
+        } else {
+          // spread the values over the high bits too
+          bigInts.set(i, random.nextInt(cardinality) * 0x9E3779B97F4A7C15L);
+        }
+      }
+    } else {
+      final VarCharVector varChars = (VarCharVector) vector;
+      varChars.allocateNew((long) keyWidth * count, count);
+      final String format = "%0" + keyWidth + "d";
+      for (int i = 0; i < count; i++) {
+        if (random.nextDouble() < nullDensity) {
+          varChars.setNull(i);
+        } else {
+          varChars.setSafe(i, String.format(format, random.nextInt(cardinality)).getBytes(StandardCharsets.UTF_8));
+        }
+      }
+    }
+    vector.setValueCount(count);
+  }
+}
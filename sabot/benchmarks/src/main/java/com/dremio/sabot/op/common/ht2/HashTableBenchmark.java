@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.ht2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.SimpleBigIntVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.benchmarks.BenchmarkVectors;
+import com.koloboke.collect.hash.HashConfig;
+
+/**
+ * Benchmarks {@link LBlockHashTable#add} and {@link LBlockHashTable#find} over batches of pivoted keys.
+ * <p>
+ * {@code add} starts each iteration from an empty table and goes through the batches in a loop, so it measures the
+ * insertion of new keys, the resizes, and then the lookup of existing keys, as an aggregation does. {@code find}
+ * looks up the keys in a table holding all of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashTableBenchmark {
+  private static final int BATCHES = 16;
+  private static final int VARIABLE_LENGTH_ESTIMATE = 15;
+
+  @Param({"4", "8", "16", "64"})
+  private int keyWidth;
+
+  @Param({"0", "0.1"})
+  private double nullDensity;
+
+  @Param({"1024", "1048576"})
+  private int cardinality;
+
+  @Param({"990", "4095"})
+  private int batchSize;
+
+  private BufferAllocator allocator;
+  private final List<AutoCloseable> closeables = new ArrayList<>();
+  private PivotDef pivot;
+  private long[] fixedAddrs;
+  private long[] varAddrs;
+  private SimpleBigIntVector[] hashes;
+
+  private LBlockHashTable lookupTable;
+  private LBlockHashTable table;
+  private int nextBatch;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    final Random random = new Random(0);
+    fixedAddrs = new long[BATCHES];
+    varAddrs = new long[BATCHES];
+    hashes = new SimpleBigIntVector[BATCHES];
+    for (int b = 0; b < BATCHES; b++) {
+      final FieldVector keys = BenchmarkVectors.newKeyVector("key", keyWidth, allocator, batchSize, cardinality,
+        nullDensity, random);
+      closeables.add(keys);
+      final PivotDef batchPivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(keys, keys));
+      final FixedBlockVector fixed = new FixedBlockVector(allocator, batchPivot.getBlockWidth());
+      closeables.add(fixed);
+      final VariableBlockVector variable = new VariableBlockVector(allocator, batchPivot.getVariableCount());
+      closeables.add(variable);
+      Pivots.pivot(batchPivot, batchSize, fixed, variable);
+
+      hashes[b] = new SimpleBigIntVector("hashes", allocator);
+      closeables.add(hashes[b]);
+      hashes[b].allocateNew(batchSize);
+      final boolean fixedOnly = batchPivot.getVariableCount() == 0;
+      HashComputation.computeHash(new BlockChunk(fixed.getMemoryAddress(), variable.getMemoryAddress(), fixedOnly,
+        batchPivot.getBlockWidth(), batchSize, hashes[b].getBufferAddress(), 0));
+
+      pivot = batchPivot;
+      fixedAddrs[b] = fixed.getMemoryAddress();
+      varAddrs[b] = variable.getMemoryAddress();
+    }
+
+    lookupTable = newTable();
+    for (int b = 0; b < BATCHES; b++) {
+      add(lookupTable, b);
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void setupIteration() throws Exception {
+    AutoCloseables.close(table);
+    table = newTable();
+    nextBatch = 0;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    AutoCloseables.close(table, lookupTable);
+    AutoCloseables.close(closeables);
+    closeables.clear();
+    allocator.close();
+  }
+
+  private LBlockHashTable newTable() {
+    return new LBlockHashTable(HashConfig.getDefault(), pivot, allocator, batchSize, VARIABLE_LENGTH_ESTIMATE, true,
+      ResizeListener.NO_OP, batchSize);
+  }
+
+  private int add(LBlockHashTable table, int batch) {
+    final long fixedAddr = fixedAddrs[batch];
+    final long varAddr = varAddrs[batch];
+    final SimpleBigIntVector batchHashes = hashes[batch];
+    int ordinals = 0;
+    for (int i = 0; i < batchSize; i++) {
+      ordinals += table.add(fixedAddr, varAddr, i, (int) batchHashes.get(i));
+    }
+    return ordinals;
+  }
+
+  @Benchmark
+  public int add() {
+    final int batch = nextBatch;
+    nextBatch = (nextBatch + 1) % BATCHES;
+    return add(table, batch);
+  }
+
+  @Benchmark
+  public int find() {
+    final int batch = nextBatch;
+    nextBatch = (nextBatch + 1) % BATCHES;
+    final long fixedAddr = fixedAddrs[batch];
+    final long varAddr = varAddrs[batch];
+    final SimpleBigIntVector batchHashes = hashes[batch];
+    int ordinals = 0;
+    for (int i = 0; i < batchSize; i++) {
+      ordinals += lookupTable.find(fixedAddr, varAddr, i, (int) batchHashes.get(i));
+    }
+    return ordinals;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.ht2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.benchmarks.BenchmarkVectors;
+
+/**
+ * Benchmarks {@link Pivots#pivot} and {@link Unpivots#unpivot} of a batch of keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PivotBenchmark {
+  private static final int KEY_COLUMNS = 2;
+
+  @Param({"4", "8", "16", "64"})
+  private int keyWidth;
+
+  @Param({"0", "0.1", "0.5"})
+  private double nullDensity;
+
+  @Param({"1024", "1048576"})
+  private int cardinality;
+
+  @Param({"990", "4095"})
+  private int batchSize;
+
+  private BufferAllocator allocator;
+  private final List<AutoCloseable> closeables = new ArrayList<>();
+  private PivotDef pivot;
+  private FixedBlockVector fixed;
+  private VariableBlockVector variable;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    final Random random = new Random(0);
+    final List<FieldVectorPair> keys = new ArrayList<>();
+    for (int i = 0; i < KEY_COLUMNS; i++) {
+      final FieldVector incoming = BenchmarkVectors.newKeyVector("key" + i, keyWidth, allocator, batchSize,
+        cardinality, nullDensity, random);
+      closeables.add(incoming);
+      final FieldVector outgoing = BenchmarkVectors.newKeyVector("key" + i, keyWidth, allocator);
+      closeables.add(outgoing);
+      keys.add(new FieldVectorPair(incoming, outgoing));
+    }
+    pivot = PivotBuilder.getBlockDefinition(keys);
+    fixed = new FixedBlockVector(allocator, pivot.getBlockWidth(), batchSize, true);
+    closeables.add(fixed);
+    variable = new VariableBlockVector(allocator, pivot.getVariableCount());
+    closeables.add(variable);
+    Pivots.pivot(pivot, batchSize, fixed, variable);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    AutoCloseables.close(closeables);
+    closeables.clear();
+    allocator.close();
+  }
+
+  @Benchmark
+  public long pivot() {
+    Pivots.pivot(pivot, batchSize, fixed, variable);
+    return fixed.getMemoryAddress();
+  }
+
+  @Benchmark
+  public long unpivot() {
+    Unpivots.unpivot(pivot, fixed, variable, 0, batchSize);
+    return pivot.getOutputVectors().get(0).getDataBufferAddress();
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.ht2;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link XXH64#xxHash64} of each row of a batch of fixed width keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XXH64Benchmark {
+
+  @Param({"4", "8", "16", "64"})
+  private int keyWidth;
+
+  @Param({"990", "4095"})
+  private int batchSize;
+
+  private BufferAllocator allocator;
+  private ArrowBuf keys;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    final byte[] bytes = new byte[keyWidth * batchSize];
+    new Random(0).nextBytes(bytes);
+    keys = allocator.buffer(bytes.length);
+    keys.setBytes(0, bytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    keys.close();
+    allocator.close();
+  }
+
+  @Benchmark
+  public long xxHash64() {
+    final long max = keys.memoryAddress() + (long) keyWidth * batchSize;
+    long hashes = 0;
+    for (long addr = keys.memoryAddress(); addr < max; addr += keyWidth) {
+      hashes += XXH64.xxHash64(addr, keyWidth, 0);
+    }
+    return hashes;
+  }
+}
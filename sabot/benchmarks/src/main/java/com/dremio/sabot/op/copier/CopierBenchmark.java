@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.copier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.benchmarks.BenchmarkVectors;
+
+/**
+ * Benchmarks the copy of a column through a selection vector, with {@link FieldBufferCopier} (2 byte offsets, as
+ * after a filter), and with {@link ConditionalFieldBufferCopier6} (6 byte links to several batches, some of them
+ * skipped, as in the hash join output).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CopierBenchmark {
+  private static final int BATCHES = 16;
+  private static final double SELECTIVITY = 0.5;
+  private static final double SKIPPED_LINKS = 0.1;
+  private static final int SV2_SIZE = 2;
+  private static final int LINK_SIZE = 6;
+
+  @Param({"4", "8", "16", "64"})
+  private int keyWidth;
+
+  @Param({"0", "0.1", "0.5"})
+  private double nullDensity;
+
+  @Param({"1024", "1048576"})
+  private int cardinality;
+
+  @Param({"990", "4095"})
+  private int batchSize;
+
+  private BufferAllocator allocator;
+  private final List<AutoCloseable> closeables = new ArrayList<>();
+
+  private List<FieldBufferCopier> copiers;
+  private ArrowBuf sv2;
+  private int selected;
+
+  private List<FieldBufferCopier> conditionalCopiers;
+  private ArrowBuf links;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    final Random random = new Random(0);
+
+    final FieldVector[] sources = new FieldVector[BATCHES];
+    for (int b = 0; b < BATCHES; b++) {
+      sources[b] = BenchmarkVectors.newKeyVector("key", keyWidth, allocator, batchSize, cardinality, nullDensity,
+        random);
+      closeables.add(sources[b]);
+    }
+
+    // filter like selection of the first batch, in increasing order
+    sv2 = allocator.buffer((long) SV2_SIZE * batchSize);
+    closeables.add(sv2);
+    selected = 0;
+    for (int i = 0; i < batchSize; i++) {
+      if (random.nextDouble() < SELECTIVITY) {
+        sv2.setShort((long) SV2_SIZE * selected++, i);
+      }
+    }
+    final FieldVector target = BenchmarkVectors.newKeyVector("key", keyWidth, allocator);
+    closeables.add(target);
+    copiers = FieldBufferCopier.getCopiers(Collections.singletonList(sources[0]), Collections.singletonList(target));
+
+    // links to random rows of all the batches
+    links = allocator.buffer((long) LINK_SIZE * batchSize);
+    closeables.add(links);
+    for (int i = 0; i < batchSize; i++) {
+      final long linkOffset = (long) LINK_SIZE * i;
+      if (random.nextDouble() < SKIPPED_LINKS) {
+        links.setInt(linkOffset, -1);
+      } else {
+        links.setInt(linkOffset, random.nextInt(BATCHES));
+        links.setShort(linkOffset + 4, random.nextInt(batchSize));
+      }
+    }
+    final FieldVector conditionalTarget = BenchmarkVectors.newKeyVector("key", keyWidth, allocator);
+    closeables.add(conditionalTarget);
+    conditionalCopiers = ConditionalFieldBufferCopier6.getFourByteCopiers(Collections.singletonList(sources),
+      Collections.singletonList(conditionalTarget));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    AutoCloseables.close(closeables);
+    closeables.clear();
+    allocator.close();
+  }
+
+  @Benchmark
+  public int copy() {
+    final long sv2Addr = sv2.memoryAddress();
+    for (FieldBufferCopier copier : copiers) {
+      copier.copy(sv2Addr, selected);
+    }
+    return selected;
+  }
+
+  @Benchmark
+  public int conditionalCopy6() {
+    final long linksAddr = links.memoryAddress();
+    for (FieldBufferCopier copier : conditionalCopiers) {
+      copier.copy(linksAddr, batchSize);
+    }
+    return batchSize;
+  }
+}
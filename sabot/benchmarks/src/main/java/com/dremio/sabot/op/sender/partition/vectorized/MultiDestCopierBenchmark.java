@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sender.partition.vectorized;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.benchmarks.BenchmarkVectors;
+import com.google.common.base.Stopwatch;
+
+/**
+ * Benchmarks {@link MultiDestCopier}, which scatters the rows of a batch to the outgoing batches of the partition
+ * sender, each row going to a random destination.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiDestCopierBenchmark {
+  private static final int NULL_BUFFER_ORDINAL = 0;
+  private static final int COMPOUND_SIZE = 4;
+
+  @Param({"4", "8", "16", "64"})
+  private int keyWidth;
+
+  @Param({"0", "0.1", "0.5"})
+  private double nullDensity;
+
+  @Param({"1024", "1048576"})
+  private int cardinality;
+
+  @Param({"990", "4095"})
+  private int batchSize;
+
+  @Param({"4", "64"})
+  private int destinations;
+
+  private BufferAllocator allocator;
+  private final List<AutoCloseable> closeables = new ArrayList<>();
+  private final List<MultiDestCopier> copiers = new ArrayList<>();
+  private ArrowBuf compound;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    final Random random = new Random(0);
+
+    final FieldVector source = BenchmarkVectors.newKeyVector("key", keyWidth, allocator, batchSize, cardinality,
+      nullDensity, random);
+    closeables.add(source);
+    final FieldVector[] targets = new FieldVector[destinations];
+    for (int d = 0; d < destinations; d++) {
+      targets[d] = BenchmarkVectors.newKeyVector("key", keyWidth, allocator);
+      closeables.add(targets[d]);
+      // any destination may get all the rows
+      if (targets[d] instanceof VarCharVector) {
+        ((VarCharVector) targets[d]).allocateNew((long) keyWidth * batchSize, batchSize);
+      } else {
+        ((BaseFixedWidthVector) targets[d]).allocateNew(batchSize);
+      }
+    }
+
+    // same copiers as MultiDestCopier.getCopiers() for the key types
+    final Stopwatch copyWatch = Stopwatch.createUnstarted();
+    if (source instanceof VarCharVector) {
+      copiers.add(new MultiDestCopier.VariableCopier(source, 0, targets, copyWatch));
+    } else if (source instanceof IntVector) {
+      copiers.add(new MultiDestCopier.FourByteCopier(source, 0, targets, copyWatch));
+    } else {
+      copiers.add(new MultiDestCopier.EightByteCopier(source, 0, targets, copyWatch));
+    }
+    copiers.add(new MultiDestCopier.BitCopier(source, 0, targets, NULL_BUFFER_ORDINAL, copyWatch));
+
+    // (destination, row in destination) of each row
+    compound = allocator.buffer((long) COMPOUND_SIZE * batchSize);
+    closeables.add(compound);
+    final int[] rows = new int[destinations];
+    for (int i = 0; i < batchSize; i++) {
+      final int destination = random.nextInt(destinations);
+      compound.setInt((long) COMPOUND_SIZE * i, (destination << 16) | rows[destination]++);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    AutoCloseables.close(closeables);
+    closeables.clear();
+    allocator.close();
+  }
+
+  @Benchmark
+  public int copy() {
+    final long compoundAddr = compound.memoryAddress();
+    for (MultiDestCopier copier : copiers) {
+      copier.copy(compoundAddr, 0, batchSize);
+    }
+    return batchSize;
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.ExpandableHyperContainer;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.selection.SelectionVector4;
+import com.dremio.sabot.benchmarks.BenchmarkVectors;
+import com.dremio.sabot.exec.context.FunctionContext;
+
+/**
+ * Benchmarks the final sort of {@link QuickSorterTemplate} over the batches of a sort run, ordering on a single key
+ * with nulls last. The comparison is hand written here, as generated code would do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuickSorterBenchmark {
+  private static final int BATCHES = 16;
+
+  @Param({"4", "8", "16", "64"})
+  private int keyWidth;
+
+  @Param({"0", "0.1", "0.5"})
+  private double nullDensity;
+
+  @Param({"1024", "1048576"})
+  private int cardinality;
+
+  @Param({"990", "4095"})
+  private int batchSize;
+
+  private BufferAllocator allocator;
+  private QuickSorterTemplate sorter;
+  private SimpleIntVector indexes;
+  private int[] unsortedIndexes;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    final Random random = new Random(0);
+
+    sorter = new KeySorter();
+    indexes = new SimpleIntVector("indexes", allocator);
+    indexes.allocateNew(BATCHES * batchSize);
+    sorter.setDataBuffer(indexes);
+    for (int b = 0; b < BATCHES; b++) {
+      try (VectorContainer batch = new VectorContainer(allocator)) {
+        batch.add(BenchmarkVectors.newKeyVector("key", keyWidth, allocator, batchSize, cardinality, nullDensity,
+          random));
+        batch.setRecordCount(batchSize);
+        batch.buildSchema(SelectionVectorMode.NONE);
+        if (b == 0) {
+          sorter.init(null, new ExpandableHyperContainer(allocator, batch.getSchema()));
+        }
+        sorter.add(new RecordBatchData(batch, allocator));
+      }
+    }
+
+    unsortedIndexes = new int[BATCHES * batchSize];
+    for (int i = 0; i < unsortedIndexes.length; i++) {
+      unsortedIndexes[i] = indexes.get(i);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void unsort() {
+    for (int i = 0; i < unsortedIndexes.length; i++) {
+      indexes.set(i, unsortedIndexes[i]);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    AutoCloseables.close(sorter, indexes);
+    allocator.close();
+  }
+
+  @Benchmark
+  public int sort() {
+    try (SelectionVector4 sorted = sorter.getFinalSort(allocator, batchSize)) {
+      return sorted.getCount();
+    }
+  }
+
+  /**
+   * Ascending order of the first column, nulls last.
+   */
+  public static class KeySorter extends QuickSorterTemplate {
+    private FieldVector[] keys;
+
+    @Override
+    public void doSetup(FunctionContext context, VectorAccessible incoming, VectorAccessible outgoing) {
+      keys = incoming.getValueAccessorById(FieldVector.class, 0).getValueVectors();
+    }
+
+    @Override
+    public int doEval(int leftIndex, int rightIndex) {
+      final FieldVector left = keys[leftIndex >>> 16];
+      final FieldVector right = keys[rightIndex >>> 16];
+      final int leftRow = leftIndex & 65535;
+      final int rightRow = rightIndex & 65535;
+
+      final boolean leftNull = left.isNull(leftRow);
+      final boolean rightNull = right.isNull(rightRow);
+      if (leftNull || rightNull) {
+        return Boolean.compare(leftNull, rightNull);
+      }
+
+      if (left instanceof IntVector) {
+        return Integer.compare(((IntVector) left).get(leftRow), ((IntVector) right).get(rightRow));
+      } else if (left instanceof BigIntVector) {
+        return Long.compare(((BigIntVector) left).get(leftRow), ((BigIntVector) right).get(rightRow));
+      } else {
+        final byte[] leftBytes = ((VarCharVector) left).get(leftRow);
+        final byte[] rightBytes = ((VarCharVector) right).get(rightRow);
+        final int length = Math.min(leftBytes.length, rightBytes.length);
+        for (int i = 0; i < length; i++) {
+          final int cmp = Byte.compare(leftBytes[i], rightBytes[i]);
+          if (cmp != 0) {
+            return cmp;
+          }
+        }
+        return Integer.compare(leftBytes.length, rightBytes.length);
+      }
+    }
+  }
+}
@@ -184,6 +184,16 @@ public interface ExecConstants {
   String PARQUET_MAX_FOOTER_LEN = "store.parquet.max_footer_length";
   LongValidator PARQUET_MAX_FOOTER_LEN_VALIDATOR = new LongValidator(PARQUET_MAX_FOOTER_LEN, 16*1024*1024);
 
+  // Executor wide cache of the parquet footers read by the scans, bounded by the estimated heap size of the footers
+  BooleanValidator PARQUET_FOOTER_CACHE_ENABLED = new BooleanValidator("store.parquet.footer_cache.enabled", true);
+  LongValidator PARQUET_FOOTER_CACHE_MAX_SIZE = new RangeLongValidator("store.parquet.footer_cache.max_size",
+    1024 * 1024, Long.MAX_VALUE, 256 * 1024 * 1024);
+
+  // Executor wide read-through cache of the blocks of the files read asynchronously, on the local disks of the executor
+  BooleanValidator BLOCK_CACHE_ENABLED = new BooleanValidator("store.block_cache.enabled", true);
+  LongValidator BLOCK_CACHE_BLOCK_SIZE = new RangeLongValidator("store.block_cache.block_size",
+    64 * 1024, 64 * 1024 * 1024, 1024 * 1024);
+
   String PARQUET_MEMORY_THRESHOLD = "store.parquet.memory_threshold";
   LongValidator PARQUET_MEMORY_THRESHOLD_VALIDATOR = new LongValidator(PARQUET_MEMORY_THRESHOLD, 512*1024*1024);
 
@@ -206,6 +216,24 @@ public interface ExecConstants {
 
   LongValidator PARQUET_MIN_RECORDS_FOR_FLUSH_VALIDATOR = new LongValidator("store.parquet.min_records_for_flush", 25000);
 
+  // Max length of the min/max values in the column indexes written with the pages, longer values are truncated
+  LongValidator PARQUET_WRITER_COLUMN_INDEX_TRUNCATE_LENGTH = new RangeLongValidator(
+    "store.parquet.writer.column_index_truncate_length", 1, Integer.MAX_VALUE, 64);
+
+  // Max number of rows in a page, on top of the page size. Smaller pages make the page indexes more selective
+  LongValidator PARQUET_WRITER_PAGE_ROW_COUNT_LIMIT = new RangeLongValidator(
+    "store.parquet.writer.page_row_count_limit", 1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+  // Comma separated list of the top level columns to write a split block Bloom filter for, in each row group
+  StringValidator PARQUET_WRITER_BLOOM_FILTER_COLUMNS = new StringValidator("store.parquet.writer.bloom_filter.columns", "");
+
+  // Expected number of distinct values per row group of the Bloom filter columns, 0 to size the filters to the max size
+  LongValidator PARQUET_WRITER_BLOOM_FILTER_NDV = new RangeLongValidator(
+    "store.parquet.writer.bloom_filter.ndv", 0, Long.MAX_VALUE, 0);
+
+  LongValidator PARQUET_WRITER_BLOOM_FILTER_MAX_BYTES = new RangeLongValidator(
+    "store.parquet.writer.bloom_filter.max_bytes", 1024, 128 * 1024 * 1024, 1024 * 1024);
+
   String PARQUET_NEW_RECORD_READER = "store.parquet.use_new_reader";
   BooleanValidator PARQUET_RECORD_READER_IMPLEMENTATION_VALIDATOR = new BooleanValidator(PARQUET_NEW_RECORD_READER, false);
 
@@ -213,6 +241,8 @@ public interface ExecConstants {
   BooleanValidator PARQUET_AUTO_CORRECT_DATES_VALIDATOR = new BooleanValidator(PARQUET_AUTO_CORRECT_DATES, true);
 
   BooleanValidator PARQUET_READER_VECTORIZE = new BooleanValidator("store.parquet.vectorize", true);
+  // skip the pages without any row matching the pushed down filter conditions, using the page indexes
+  BooleanValidator PARQUET_READER_PAGE_SKIPPING = new BooleanValidator("store.parquet.reader.page_skipping.enabled", true);
   BooleanValidator ENABLED_PARQUET_TRACING = new BooleanValidator("store.parquet.vectorize.tracing.enable", false);
 
   String PARQUET_READER_INT96_AS_TIMESTAMP = "store.parquet.reader.int96_as_timestamp";
@@ -228,6 +258,9 @@ public interface ExecConstants {
   DoubleValidator TEXT_ESTIMATED_ROW_SIZE = new RangeDoubleValidator(
       "store.text.estimated_row_size_bytes", 1, Long.MAX_VALUE, 10.0);
 
+  // read the next chunk of a text file in the background while the current one is parsed
+  BooleanValidator TEXT_READ_AHEAD_ENABLED = new BooleanValidator("store.text.read_ahead.enabled", true);
+
   /**
    * The column label (for directory levels) in results when querying files in a directory
    * E.g.  labels: dir0   dir1
@@ -368,6 +401,9 @@ public interface ExecConstants {
 
   String BOOTSTRAP_STORAGE_PLUGINS_FILE = "bootstrap-storage-plugins.json";
   String MAX_LOADING_CACHE_SIZE_CONFIG = "dremio.exec.compile.cache_max_size";
+  String PERSISTENT_CODE_CACHE_ENABLED_CONFIG = "dremio.exec.compile.persistent_cache.enabled";
+  String PERSISTENT_CODE_CACHE_PATH_CONFIG = "dremio.exec.compile.persistent_cache.path";
+  String PERSISTENT_CODE_CACHE_MAX_SIZE_CONFIG = "dremio.exec.compile.persistent_cache.max_size";
 
   String ENABLE_WINDOW_FUNCTIONS = "window.enable";
   OptionValidator ENABLE_WINDOW_FUNCTIONS_VALIDATOR = new BooleanValidator(ENABLE_WINDOW_FUNCTIONS, true);
@@ -410,6 +446,19 @@ public interface ExecConstants {
   BooleanValidator PARQUET_CACHED_ENTITY_SET_FILE_SIZE = new BooleanValidator("store.parquet.set_file_length",true);
   BooleanValidator PARQUET_COLUMN_ORDERING = new BooleanValidator("store.parquet.column_ordering", false);
 
+  // read the column chunks of a row group with vectored reads, merging the chunks closer than the max gap in
+  // requests of at most the max size, as long as the row group buffers at most the max buffered size. The merged
+  // requests are read into buffers of their own before being copied into the chunks, so reading a row group can
+  // take up to twice the max buffered size of direct memory.
+  // Disabled by default until the prefetched chunks are exercised by the scans of asynchronous sources.
+  BooleanValidator PARQUET_VECTORED_READ_ENABLED = new BooleanValidator("store.parquet.vectored_read.enabled", false);
+  LongValidator PARQUET_VECTORED_READ_MAX_GAP = new RangeLongValidator("store.parquet.vectored_read.max_gap",
+    0, 16 * 1024 * 1024, 128 * 1024);
+  LongValidator PARQUET_VECTORED_READ_MAX_SIZE = new RangeLongValidator("store.parquet.vectored_read.max_size",
+    64 * 1024, Integer.MAX_VALUE, 8 * 1024 * 1024);
+  LongValidator PARQUET_VECTORED_READ_MAX_BUFFERED = new RangeLongValidator("store.parquet.vectored_read.max_buffered",
+    0, Integer.MAX_VALUE, 64 * 1024 * 1024);
+
   BooleanValidator HIVE_COMPLEXTYPES_ENABLED = new BooleanValidator("store.hive.parquet.support_complex_types", true);
   String PARQUET_LIST_ITEMS_KEY = "store.parquet.list_items.threshold";
   LongValidator PARQUET_LIST_ITEMS_THRESHOLD = new LongValidator(PARQUET_LIST_ITEMS_KEY, 128);
@@ -434,6 +483,7 @@ public interface ExecConstants {
 
   BooleanValidator EXTERNAL_SORT_COMPRESS_SPILL_FILES = new BooleanValidator("exec.operator.sort.external.compress_spill_files", true);
   BooleanValidator EXTERNAL_SORT_ENABLE_SPLAY_SORT = new BooleanValidator("exec.operator.sort.external.enable_splay_sort", false);
+  BooleanValidator EXTERNAL_SORT_NORMALIZED_KEYS = new BooleanValidator("exec.operator.sort.external.normalized_keys", true);
   BooleanValidator EXTERNAL_SORT_ENABLE_MICRO_SPILL = new BooleanValidator("exec.operator.sort.external.enable_micro_spill", true);
   PositiveLongValidator SORT_MAX_WRITE_BATCH = new PositiveLongValidator("exec.operator.sort.external.spill_batch_records", Character.MAX_VALUE, Character.MAX_VALUE);
   BooleanValidator EXTERNAL_SORT_ARROW_ENCODING = new BooleanValidator("exec.operator.sort.external.arrow_encoding", true);
@@ -443,6 +493,9 @@ public interface ExecConstants {
 
   PositiveLongValidator EXTERNAL_SORT_BATCHSIZE_MULTIPLIER = new PositiveLongValidator("exec.operator.sort.external.batchsize_multiplier", Character.MAX_VALUE, 2);
 
+  // number of incoming batches between two checks of the heap boundary sent to the scans by a TopN
+  PositiveLongValidator TOPN_RUNTIME_FILTER_BATCH_INTERVAL = new PositiveLongValidator("exec.operator.topn.runtime_filter.batch_interval", Integer.MAX_VALUE, 4);
+
   LongValidator VOTING_SCHEDULE = new PositiveLongValidator("vote.schedule.millis", Long.MAX_VALUE, 0);
   PositiveLongValidator LAST_SEARCH_REINDEX  = new PositiveLongValidator("dac.search.last_reindex",  Long.MAX_VALUE, 0);
   PositiveLongValidator SEARCH_MANAGER_REFRESH_MILLIS  = new PositiveLongValidator("dac.search.refresh",  Long.MAX_VALUE, TimeUnit.MINUTES.toMillis(1));
@@ -511,6 +564,9 @@ public interface ExecConstants {
   BooleanValidator ENABLE_BOOSTING = new BooleanValidator("exec.storage.enable_arrow_caching", true);
   BooleanValidator ENABLE_BOOST_FILTERING_READER = new BooleanValidator("exec.storage.enable_arrow_filtering_reader", true);
   BooleanValidator ENABLE_BOOST_DELTA_READER = new BooleanValidator("exec.storage.enable_arrow_delta_reader", true);
+  // space of the local disks of an executor used by the boost files of its sources
+  LongValidator BOOST_LOCAL_MAX_SPACE = new RangeLongValidator("exec.storage.arrow_caching.max_space",
+    0, Long.MAX_VALUE, 10L * 1024 * 1024 * 1024);
 
   // hive parallelism and timeout options for signature validation process
   LongValidator HIVE_SIGNATURE_VALIDATION_PARALLELISM = new TypeValidators.RangeLongValidator("store.hive.signature_validation.parallelism", 1, 32, 16);
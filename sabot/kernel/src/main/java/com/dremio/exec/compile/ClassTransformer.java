@@ -172,38 +172,68 @@ public class ClassTransformer {
     return getExtendedImplementationClass(classLoader, templateDefinition, entireClass, materializedClassName);
   }
 
-  private Class<?> getExtendedImplementationClass(
+  /**
+   * Compile the generated source of a template implementation.
+   *
+   * @return the byte code of the implementation class and of its inner classes
+   */
+  public ClassBytes[] compile(
       final QueryClassLoader classLoader,
       final TemplateClassDefinition<?> templateDefinition,
       final String entireClass,
       final String materializedClassName) throws ClassTransformationException {
-
     try {
       final long t1 = System.nanoTime();
       final ClassSet set = new ClassSet(null, templateDefinition.getTemplateClassName(), materializedClassName);
       final ClassBytes[] implementationClasses = classLoader.getClassByteCode(set.generated, entireClass);
 
-      long totalBytecodeSize = 0;
+      if (logger.isDebugEnabled()) {
+        long totalBytecodeSize = 0;
+        for (ClassBytes clazz : implementationClasses) {
+          totalBytecodeSize += clazz.getBytes().length;
+        }
+        logger.debug("Done compiling (bytecode size={}, time:{} millis).", DremioStringUtils.readable(totalBytecodeSize), (System.nanoTime() - t1) / 1000000);
+      }
+      return implementationClasses;
+    } catch (CompileException | IOException | ClassNotFoundException e) {
+      if (optionManager.getOption(ExecConstants.JAVA_CODE_DUMP)) {
+        logger.info(String.format("Failure generating transformation classes for value: \n %s", entireClass));
+      }
+      throw new ClassTransformationException("Failure generating transformation classes.", e);
+    }
+  }
+
+  /**
+   * Define already compiled classes in the class loader, and load the template implementation.
+   */
+  public Class<?> loadImplementationClass(
+      final QueryClassLoader classLoader,
+      final TemplateClassDefinition<?> templateDefinition,
+      final ClassBytes[] implementationClasses,
+      final String materializedClassName) throws ClassTransformationException {
+    try {
       for (ClassBytes clazz : implementationClasses) {
-        totalBytecodeSize += clazz.getBytes().length;
         classLoader.injectByteCode(clazz.getName(), clazz.getBytes());
       }
 
-      Class<?> c = classLoader.findClass(set.generated.dot);
+      Class<?> c = classLoader.findClass(materializedClassName);
       if (templateDefinition.getExternalInterface().isAssignableFrom(c)) {
-        if (logger.isDebugEnabled()) {
-          logger.debug("Done compiling (bytecode size={}, time:{} millis).", DremioStringUtils.readable(totalBytecodeSize), (System.nanoTime() - t1) / 1000000);
-        }
         return c;
       }
 
       throw new ClassTransformationException("The requested class did not implement the expected interface.");
-    } catch (CompileException | IOException | ClassNotFoundException e) {
-      if (optionManager.getOption(ExecConstants.JAVA_CODE_DUMP)) {
-        logger.info(String.format("Failure generating transformation classes for value: \n %s", entireClass));
-      }
+    } catch (IOException | ClassNotFoundException e) {
       throw new ClassTransformationException("Failure generating transformation classes.", e);
     }
   }
 
+  private Class<?> getExtendedImplementationClass(
+      final QueryClassLoader classLoader,
+      final TemplateClassDefinition<?> templateDefinition,
+      final String entireClass,
+      final String materializedClassName) throws ClassTransformationException {
+    final ClassBytes[] implementationClasses = compile(classLoader, templateDefinition, entireClass, materializedClassName);
+    return loadImplementationClass(classLoader, templateDefinition, implementationClasses, materializedClassName);
+  }
+
 }
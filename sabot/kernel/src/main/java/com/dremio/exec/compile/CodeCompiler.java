@@ -16,25 +16,37 @@
 package com.dremio.exec.compile;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import com.dremio.common.config.SabotConfig;
 import com.dremio.exec.ExecConstants;
+import com.dremio.exec.compile.PersistentCodeCache.CachedClasses;
 import com.dremio.exec.exception.ClassTransformationException;
 import com.dremio.exec.expr.CodeGenerator;
 import com.dremio.options.OptionManager;
+import com.dremio.telemetry.api.metrics.Counter;
+import com.dremio.telemetry.api.metrics.Metrics;
+import com.dremio.telemetry.api.metrics.Metrics.ResetType;
+import com.dremio.telemetry.api.metrics.Timer;
+import com.dremio.telemetry.api.metrics.Timer.TimerContext;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 
 public class CodeCompiler {
-//  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CodeCompiler.class);
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CodeCompiler.class);
+
+  private static final Counter PERSISTENT_CACHE_HITS = Metrics.newCounter(Metrics.join("compile", "persistent_cache", "hits"), ResetType.NEVER);
+  private static final Counter PERSISTENT_CACHE_MISSES = Metrics.newCounter(Metrics.join("compile", "persistent_cache", "misses"), ResetType.NEVER);
+  private static final Timer COMPILE_TIMER = Metrics.newTimer(Metrics.join("compile", "compile_time"), ResetType.NEVER);
 
   private final ClassTransformer transformer;
   private final ClassCompilerSelector selector;
   private final LoadingCache<CodeGenerator<?>, GeneratedClassEntry> cache;
+  private final PersistentCodeCache persistentCache;
 
   public CodeCompiler(final SabotConfig config, final OptionManager optionManager) {
     transformer = new ClassTransformer(optionManager);
@@ -44,6 +56,20 @@ public class CodeCompiler {
         .softValues()
         .maximumSize(cacheMaxSize)
         .build(new Loader());
+    persistentCache = createPersistentCache(config);
+  }
+
+  private static PersistentCodeCache createPersistentCache(final SabotConfig config) {
+    if (!config.getBoolean(ExecConstants.PERSISTENT_CODE_CACHE_ENABLED_CONFIG)) {
+      return null;
+    }
+    try {
+      return new PersistentCodeCache(Paths.get(config.getString(ExecConstants.PERSISTENT_CODE_CACHE_PATH_CONFIG)),
+          config.getBytes(ExecConstants.PERSISTENT_CODE_CACHE_MAX_SIZE_CONFIG));
+    } catch (IOException e) {
+      logger.warn("Failed to open the persistent cache of generated classes, generated classes will not be cached on disk", e);
+      return null;
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -70,8 +96,29 @@ public class CodeCompiler {
     @Override
     public GeneratedClassEntry load(final CodeGenerator<?> cg) throws Exception {
       final QueryClassLoader loader = new QueryClassLoader(selector);
-      final Class<?> c = transformer.getImplementationClass(loader, cg.getDefinition(),
-          cg.getGeneratedCode(), cg.getMaterializedClassName());
+      if (persistentCache == null) {
+        try (TimerContext ignored = COMPILE_TIMER.start()) {
+          final Class<?> c = transformer.getImplementationClass(loader, cg.getDefinition(),
+              cg.getGeneratedCode(), cg.getMaterializedClassName());
+          return new GeneratedClassEntry(c);
+        }
+      }
+
+      // classes compiled by a previous run keep the name they were given then, each one gets its own class loader
+      final String key = persistentCache.getKey(cg.getDefinition(), cg.getGenerifiedCode());
+      CachedClasses cached = persistentCache.get(key);
+      if (cached != null) {
+        PERSISTENT_CACHE_HITS.increment();
+      } else {
+        PERSISTENT_CACHE_MISSES.increment();
+        try (TimerContext ignored = COMPILE_TIMER.start()) {
+          cached = new CachedClasses(cg.getMaterializedClassName(), transformer.compile(loader, cg.getDefinition(),
+              cg.getGeneratedCode(), cg.getMaterializedClassName()));
+        }
+        persistentCache.put(key, cached);
+      }
+      final Class<?> c = transformer.loadImplementationClass(loader, cg.getDefinition(), cached.getClasses(),
+          cached.getClassName());
       return new GeneratedClassEntry(c);
     }
   }
@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.dremio.common.util.DremioVersionInfo;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+
+/**
+ * On-disk cache of the byte code of generated classes, so that executors don't compile again, after a restart, the
+ * classes they compiled before.
+ *
+ * Entries are keyed by a hash of the generified source code (before the class gets its unique name) and of the byte
+ * code of its template, and are stored in a directory per Dremio version. Directories of other versions are removed
+ * when the cache is opened. The total size of the entries is bounded, the least recently used ones being evicted
+ * first: the last modified time of an entry file is updated on every hit, so the recency survives a restart.
+ */
+public class PersistentCodeCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PersistentCodeCache.class);
+
+  private static final int FORMAT_VERSION = 1;
+  private static final String ENTRY_SUFFIX = ".bytecode";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path directory;
+  private final long maxSize;
+  private final Map<String, String> templateHashes = new ConcurrentHashMap<>();
+
+  // size of each entry file, in access order
+  private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+
+  /**
+   * Compiled classes of a generated source: the name of the class implementing the template, and all the classes
+   * (including inner classes) compiled from the source.
+   */
+  public static final class CachedClasses {
+    private final String className;
+    private final ClassBytes[] classes;
+
+    public CachedClasses(String className, ClassBytes[] classes) {
+      this.className = className;
+      this.classes = classes;
+    }
+
+    public String getClassName() {
+      return className;
+    }
+
+    public ClassBytes[] getClasses() {
+      return classes;
+    }
+  }
+
+  public PersistentCodeCache(Path root, long maxSize) throws IOException {
+    this(root, DremioVersionInfo.getVersion(), maxSize);
+  }
+
+  @VisibleForTesting
+  PersistentCodeCache(Path root, String version, long maxSize) throws IOException {
+    this.directory = root.resolve(version);
+    this.maxSize = maxSize;
+
+    Files.createDirectories(directory);
+    deleteOtherVersions(root);
+    loadEntries();
+  }
+
+  /**
+   * @return the cache key of a generated source, stable across restarts.
+   */
+  public String getKey(TemplateClassDefinition<?> definition, String generifiedCode) {
+    final String templateClassName = definition.getTemplateClassName();
+    final String templateHash = templateHashes.computeIfAbsent(templateClassName, PersistentCodeCache::hashTemplate);
+    final Hasher hasher = Hashing.sha256().newHasher()
+      .putInt(FORMAT_VERSION)
+      .putString(templateClassName, StandardCharsets.UTF_8)
+      .putString(templateHash, StandardCharsets.UTF_8)
+      .putString(generifiedCode, StandardCharsets.UTF_8);
+    return hasher.hash().toString();
+  }
+
+  /**
+   * @return the classes stored under the given key, or null if there are none.
+   */
+  public CachedClasses get(String key) {
+    synchronized (this) {
+      if (entries.get(key) == null) {
+        return null;
+      }
+    }
+
+    final Path file = getEntryFile(key);
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (input.readInt() != FORMAT_VERSION) {
+        throw new IOException("Unexpected format version");
+      }
+      final String className = input.readUTF();
+      final ClassBytes[] classes = new ClassBytes[input.readInt()];
+      for (int i = 0; i < classes.length; i++) {
+        final String name = input.readUTF();
+        final byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        classes[i] = new ClassBytes(name, bytes);
+      }
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      return new CachedClasses(className, classes);
+    } catch (NoSuchFileException e) {
+      // evicted in the meantime
+      remove(key);
+      return null;
+    } catch (IOException e) {
+      logger.warn("Failed to read cached classes from {}, removing them", file, e);
+      remove(key);
+      return null;
+    }
+  }
+
+  /**
+   * Store the classes compiled from a generated source, evicting the least recently used entries if the cache went
+   * over its size.
+   */
+  public void put(String key, CachedClasses cached) {
+    final Path file = getEntryFile(key);
+    final Path temp = directory.resolve(key + TEMP_SUFFIX + "." + Thread.currentThread().getId());
+    final long fileSize;
+    try {
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeUTF(cached.getClassName());
+        output.writeInt(cached.getClasses().length);
+        for (ClassBytes clazz : cached.getClasses()) {
+          output.writeUTF(clazz.getName());
+          output.writeInt(clazz.getBytes().length);
+          output.write(clazz.getBytes());
+        }
+      }
+      fileSize = Files.size(temp);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warn("Failed to store cached classes in {}", file, e);
+      deleteQuietly(temp);
+      return;
+    }
+
+    synchronized (this) {
+      final Long previous = entries.put(key, fileSize);
+      size += fileSize - (previous == null ? 0 : previous);
+      evict();
+    }
+  }
+
+  @VisibleForTesting
+  synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  @VisibleForTesting
+  synchronized long getSize() {
+    return size;
+  }
+
+  private synchronized void remove(String key) {
+    final Long previous = entries.remove(key);
+    if (previous != null) {
+      size -= previous;
+      deleteQuietly(getEntryFile(key));
+    }
+  }
+
+  private synchronized void evict() {
+    final Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      final Map.Entry<String, Long> eldest = iterator.next();
+      iterator.remove();
+      size -= eldest.getValue();
+      deleteQuietly(getEntryFile(eldest.getKey()));
+    }
+  }
+
+  private Path getEntryFile(String key) {
+    return directory.resolve(key + ENTRY_SUFFIX);
+  }
+
+  /**
+   * Index the entries left by a previous run, least recently used first.
+   */
+  private void loadEntries() throws IOException {
+    final List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path file : stream) {
+        final String name = file.getFileName().toString();
+        if (name.endsWith(ENTRY_SUFFIX)) {
+          files.add(file);
+        } else if (name.contains(TEMP_SUFFIX)) {
+          // left over by an interrupted write
+          deleteQuietly(file);
+        }
+      }
+    }
+    files.sort(Comparator.comparing(PersistentCodeCache::getLastModifiedTime));
+
+    synchronized (this) {
+      for (Path file : files) {
+        final String name = file.getFileName().toString();
+        final long fileSize = Files.size(file);
+        entries.put(name.substring(0, name.length() - ENTRY_SUFFIX.length()), fileSize);
+        size += fileSize;
+      }
+      evict();
+    }
+    logger.info("Loaded {} cached generated classes ({} bytes) from {}", entries.size(), size, directory);
+  }
+
+  /**
+   * Remove the entries of other Dremio versions, as their byte code may not match the current templates.
+   */
+  private void deleteOtherVersions(Path root) throws IOException {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
+      for (Path versionDirectory : stream) {
+        if (versionDirectory.equals(directory)) {
+          continue;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(versionDirectory)) {
+          for (Path file : files) {
+            final String name = file.getFileName().toString();
+            if (name.endsWith(ENTRY_SUFFIX) || name.contains(TEMP_SUFFIX)) {
+              deleteQuietly(file);
+            }
+          }
+        }
+        try {
+          Files.deleteIfExists(versionDirectory);
+        } catch (IOException e) {
+          logger.debug("Not removing {}, it contains files that are not cached classes", versionDirectory, e);
+        }
+      }
+    }
+  }
+
+  private static String hashTemplate(String templateClassName) {
+    final URL url = PersistentCodeCache.class.getResource("/" + templateClassName.replace('.', '/') + ".class");
+    if (url == null) {
+      return "";
+    }
+    try {
+      return Hashing.sha256().hashBytes(Resources.toByteArray(url)).toString();
+    } catch (IOException e) {
+      // fall back to keying on the template name only
+      logger.warn("Failed to read template class {}", templateClassName, e);
+      return "";
+    }
+  }
+
+  private static FileTime getLastModifiedTime(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.debug("Failed to delete {}", file, e);
+    }
+  }
+}
@@ -109,6 +109,13 @@ public class CodeGenerator<T> {
     return generifiedCode.replaceAll("GenericGenerated", this.className);
   }
 
+  /**
+   * @return the generated code before the class is given its unique name.
+   */
+  public String getGenerifiedCode() {
+    return generifiedCode;
+  }
+
   public TemplateClassDefinition<T> getDefinition() {
     return definition;
   }
@@ -45,6 +45,7 @@ import com.dremio.sabot.op.sender.roundrobin.RoundRobinOperator;
 import com.dremio.sabot.op.sender.single.SingleSenderOperator;
 import com.dremio.sabot.op.sort.external.ExternalSortOperator;
 import com.dremio.sabot.op.tablefunction.TableFunctionOperator;
+import com.dremio.sabot.op.windowframe.WindowFrameOperator;
 import com.dremio.sabot.op.writer.WriterCommitterOperator;
 import com.dremio.sabot.op.writer.WriterOperator;
 
@@ -84,6 +85,7 @@ public class OperatorMetricRegistry {
     register(builder, CoreOperatorType.DIR_LISTING_SUB_SCAN_VALUE,  ScanOperator.Metric.class);
     register(builder, CoreOperatorType.MANIFEST_WRITER_VALUE, ParquetRecordWriter.Metric.class);
     register(builder, CoreOperatorType.WRITER_COMMITTER_VALUE, WriterCommitterOperator.Metric.class);
+    register(builder, CoreOperatorType.WINDOW_VALUE, WindowFrameOperator.Metric.class);
     CORE_OPERATOR_TYPE_METRICS_MAP = builder.build();
   }
 
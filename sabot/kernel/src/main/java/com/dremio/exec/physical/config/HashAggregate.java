@@ -32,12 +32,16 @@ import com.google.common.annotations.VisibleForTesting;
 @JsonTypeName("hash-aggregate")
 public class HashAggregate extends AbstractSingle {
 
+  private static final int DEFAULT_HASHTABLE_BATCH_SIZE = 3968;
+
   private final List<NamedExpression> groupByExprs;
   private final List<NamedExpression> aggrExprs;
   private final boolean vectorize;
   private final boolean useSpill;
   private final float cardinality;
   private final int hashTableBatchSize;
+  // first phase of a two phase aggregation, whose output is aggregated again downstream
+  private final boolean partial;
 
   /* testing related parameters */
   private VectorizedHashAggSpillStats spillStats;
@@ -51,7 +55,8 @@ public class HashAggregate extends AbstractSingle {
       @JsonProperty("vectorize") boolean vectorize,
       @JsonProperty("useSpill") boolean useSpill,
       @JsonProperty("cardinality") float cardinality,
-      @JsonProperty("hashTableBatchSize") int hashTableBatchSize
+      @JsonProperty("hashTableBatchSize") int hashTableBatchSize,
+      @JsonProperty("partial") boolean partial
       ) {
     super(props, child);
     this.groupByExprs = groupByExprs;
@@ -60,6 +65,19 @@ public class HashAggregate extends AbstractSingle {
     this.useSpill = useSpill;
     this.cardinality = cardinality;
     this.hashTableBatchSize = hashTableBatchSize;
+    this.partial = partial;
+  }
+
+  public HashAggregate(
+    OpProps props,
+    PhysicalOperator child,
+    List<NamedExpression> groupByExprs,
+    List<NamedExpression> aggrExprs,
+    boolean vectorize,
+    boolean useSpill,
+    float cardinality,
+    int hashTableBatchSize) {
+    this(props, child, groupByExprs, aggrExprs, vectorize, useSpill, cardinality, hashTableBatchSize, false);
   }
 
   // for testing only
@@ -71,7 +89,7 @@ public class HashAggregate extends AbstractSingle {
     boolean vectorize,
     boolean useSpill,
     float cardinality) {
-    this(props, child, groupByExprs, aggrExprs, vectorize, useSpill, cardinality, 3968);
+    this(props, child, groupByExprs, aggrExprs, vectorize, useSpill, cardinality, DEFAULT_HASHTABLE_BATCH_SIZE);
   }
 
   public boolean isVectorize(){
@@ -94,6 +112,10 @@ public class HashAggregate extends AbstractSingle {
     return cardinality;
   }
 
+  public boolean isPartial() {
+    return partial;
+  }
+
   @Override
   public <T, X, E extends Throwable> T accept(PhysicalVisitor<T, X, E> physicalVisitor, X value) throws E{
     return physicalVisitor.visitHashAggregate(this, value);
@@ -101,7 +123,8 @@ public class HashAggregate extends AbstractSingle {
 
   @Override
   protected PhysicalOperator getNewWithChild(PhysicalOperator child) {
-    return new HashAggregate(props, child, groupByExprs, aggrExprs, vectorize, useSpill, cardinality);
+    return new HashAggregate(props, child, groupByExprs, aggrExprs, vectorize, useSpill, cardinality,
+      DEFAULT_HASHTABLE_BATCH_SIZE, partial);
   }
 
   @Override
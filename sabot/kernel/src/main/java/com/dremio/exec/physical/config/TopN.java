@@ -15,12 +15,17 @@
  */
 package com.dremio.exec.physical.config;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.dremio.common.logical.data.Order.Ordering;
 import com.dremio.exec.physical.base.OpProps;
 import com.dremio.exec.physical.base.PhysicalOperator;
 import com.dremio.exec.physical.base.PhysicalVisitor;
+import com.dremio.exec.planner.physical.filter.RuntimeFilterEntry;
+import com.dremio.exec.planner.physical.filter.RuntimeFilterInfo;
 import com.dremio.exec.proto.UserBitShared.CoreOperatorType;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -30,6 +35,11 @@ import com.fasterxml.jackson.annotation.JsonTypeName;
 public class TopN extends AbstractSort {
 
   private final int limit;
+  private final RuntimeFilterInfo runtimeFilterInfo;
+
+  public TopN(OpProps props, PhysicalOperator child, int limit, List<Ordering> orderings, boolean reverse) {
+    this(props, child, limit, orderings, reverse, null);
+  }
 
   @JsonCreator
   public TopN(
@@ -37,10 +47,12 @@ public class TopN extends AbstractSort {
       @JsonProperty("child") PhysicalOperator child,
       @JsonProperty("limit") int limit,
       @JsonProperty("orderings") List<Ordering> orderings,
-      @JsonProperty("reverse") boolean reverse
+      @JsonProperty("reverse") boolean reverse,
+      @JsonProperty("runtimeFilterInfo") RuntimeFilterInfo runtimeFilterInfo
       ) {
     super(props, child, orderings, reverse);
     this.limit = limit;
+    this.runtimeFilterInfo = runtimeFilterInfo;
   }
 
   @Override
@@ -57,6 +69,13 @@ public class TopN extends AbstractSort {
     return limit;
   }
 
+  /**
+   * @return the scans that receive the boundary of the heap as a range filter, or null
+   */
+  public RuntimeFilterInfo getRuntimeFilterInfo() {
+    return runtimeFilterInfo;
+  }
+
   @Override
   public <T, X, E extends Throwable> T accept(PhysicalVisitor<T, X, E> physicalVisitor, X value) throws E{
     return physicalVisitor.visitSort(this, value);
@@ -64,7 +83,16 @@ public class TopN extends AbstractSort {
 
   @Override
   protected PhysicalOperator getNewWithChild(PhysicalOperator child) {
-    return new TopN(props, child, limit, orderings, reverse);
+    return new TopN(props, child, limit, orderings, reverse, runtimeFilterInfo);
+  }
+
+  @Override
+  public Set<Integer> getExtCommunicableMajorFragments() {
+    if (runtimeFilterInfo == null) {
+      return Collections.emptySet();
+    }
+    return runtimeFilterInfo.getNonPartitionJoinColumns().stream()
+      .map(RuntimeFilterEntry::getProbeScanMajorFragmentId).collect(Collectors.toSet());
   }
 
   @Override
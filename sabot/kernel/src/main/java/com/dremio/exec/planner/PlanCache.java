@@ -15,76 +15,260 @@
  */
 package com.dremio.exec.planner;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.dremio.exec.catalog.Catalog;
 import com.dremio.exec.catalog.DremioTable;
 import com.dremio.exec.planner.logical.ViewTable;
 import com.dremio.exec.store.NamespaceTable;
+import com.dremio.service.namespace.NamespaceKey;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
-import com.google.common.collect.Multimap;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
 
+/**
+ * Cache of the physical plans of the queries, shared by all the queries of the coordinator.
+ *
+ * Plans are keyed by the normalized text of the query, and by the context the query is resolved in (workload type,
+ * user and default schema), comparing the full key so that two queries never share a plan by a hash collision.
+ * The cache is bounded by the estimated size of the plans, and by a number of plans.
+ *
+ * A reverse index maps each dataset to the plans reading it, so that changing a dataset only invalidates the
+ * plans reading it. The datasets of each plan are kept as well, so that removing a plan updates the index in
+ * time proportional to the number of datasets of the plan.
+ */
 public class PlanCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PlanCache.class);
 
-  private final Cache<Long, CachedPlan> cachePlans;
-  private static Multimap<String, Long> datasetMap;
+  private final Cache<Key, CachedPlan> cachePlans;
+  // id of a dataset to the plans reading it
+  private final ConcurrentMap<String, Set<Key>> datasetMap = new ConcurrentHashMap<>();
+  // plan to the ids of the datasets it reads
+  private final ConcurrentMap<Key, Set<String>> planDatasets = new ConcurrentHashMap<>();
+  private final AtomicLong invalidationCount = new AtomicLong();
+  // each plan weighs at least this much, so that at most maxEntries plans are cached
+  private final int minWeight;
 
-  public PlanCache(Cache<Long, CachedPlan> cachePlans, Multimap<String, Long> map) {
-    this.cachePlans = cachePlans;
-    this.datasetMap = map;
+  /**
+   * @param maxEntries max number of cached plans
+   * @param maxSizeBytes max estimated size of the cached plans, in bytes
+   * @param expireAfterAccessMinutes time after which a plan that was not used is removed
+   */
+  public PlanCache(long maxEntries, long maxSizeBytes, long expireAfterAccessMinutes) {
+    this.minWeight = (int) Math.min(Math.max(1, maxSizeBytes / Math.max(1, maxEntries)), Integer.MAX_VALUE);
+    this.cachePlans = CacheBuilder.newBuilder()
+      .maximumWeight(maxSizeBytes)
+      .weigher((Weigher<Key, CachedPlan>) this::weigh)
+      // plan caches are memory intensive. If there is memory pressure,
+      // let GC release them as last resort before running OOM.
+      .softValues()
+      .removalListener((RemovalListener<Key, CachedPlan>) notification -> {
+        // a replaced plan reads the same datasets as the plan replacing it
+        if (notification.getCause() != RemovalCause.REPLACED) {
+          removeFromDatasetMap(notification.getKey());
+        }
+      })
+      .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+      .recordStats()
+      .build();
   }
 
-  public Multimap<String, Long> getDatasetMap() {
-    return datasetMap;
+  /**
+   * Generate the key of a query.
+   *
+   * @param sql normalized text of the query, as unparsed from its parse tree
+   * @param workLoadType workload type of the query
+   * @param user user running the query
+   * @param defaultSchema schema the unqualified names of the query are resolved in, may be null
+   */
+  public static Key generateCacheKey(String sql, String workLoadType, String user, NamespaceKey defaultSchema) {
+    return new Key(sql, workLoadType, user, defaultSchema == null ? "" : defaultSchema.getSchemaPath());
   }
 
-  public Cache<Long, CachedPlan> getCachePlans() {
-    return cachePlans;
+  /**
+   * Get the plan of a query, if it is cached and none of the datasets of the query changed since it was planned.
+   */
+  public CachedPlan getIfPresentAndValid(Catalog catalog, Key key) {
+    final CachedPlan cachedPlan = cachePlans.getIfPresent(key);
+    if (cachedPlan == null) {
+      return null;
+    }
+    Iterable<DremioTable> datasets = catalog.getAllRequestedTables();
+    for (DremioTable dataset : datasets) {
+      if (dataset instanceof NamespaceTable || dataset instanceof ViewTable) {
+        DatasetConfig config = dataset.getDatasetConfig();
+        if (config.getLastModified() > cachedPlan.getCreationTime()) {
+          // for this case, we can only invalidate this cache entry, other cache entries may still be valid
+          invalidate(key);
+          return null;
+        }
+      }
+    }
+    return cachedPlan;
   }
 
-  public void addCacheToDatasetMap(String datasetId, Long cacheId) {
-    synchronized (datasetMap) {
-      datasetMap.put(datasetId, cacheId);
+  /**
+   * Cache the plan of a query.
+   *
+   * @param datasetIds ids of the datasets read by the plan, invalidating it when they change
+   */
+  public void putPlan(Key key, CachedPlan plan, Iterable<String> datasetIds) {
+    final Set<String> ids = ImmutableSet.copyOf(datasetIds);
+    planDatasets.put(key, ids);
+    for (String datasetId : ids) {
+      datasetMap.compute(datasetId, (id, keys) -> {
+        final Set<Key> newKeys = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+        newKeys.add(key);
+        return newKeys;
+      });
     }
+    cachePlans.put(key, plan);
   }
 
-  public static long generateCacheKey(String sql, String workLoadType) {
-    return sql.concat(workLoadType).hashCode();
+  /**
+   * Invalidate the plans reading a dataset.
+   */
+  public void invalidateCacheOnDataset(String datasetId) {
+    final Set<Key> keys = datasetMap.remove(datasetId);
+    if (keys == null) {
+      return;
+    }
+    logger.debug("Invalidating {} plans reading dataset {}", keys.size(), datasetId);
+    for (Key key : keys) {
+      invalidate(key);
+    }
   }
 
-  public CachedPlan getIfPresentAndValid(Catalog catalog, long cacheId) {
-    if (cachePlans == null) {
-      return null;
+  /**
+   * Invalidate all the plans.
+   */
+  public void invalidateAll() {
+    invalidationCount.addAndGet(cachePlans.size());
+    cachePlans.invalidateAll();
+  }
+
+  private void invalidate(Key key) {
+    if (cachePlans.asMap().remove(key) != null) {
+      invalidationCount.incrementAndGet();
     }
-    CachedPlan cachedPlan = cachePlans.getIfPresent(cacheId);
-    if (cachedPlan != null) {
-      Iterable<DremioTable> datasets = catalog.getAllRequestedTables();
-      for (DremioTable dataset : datasets) {
-        if (dataset instanceof NamespaceTable || dataset instanceof ViewTable) {
-          DatasetConfig config = dataset.getDatasetConfig();
-          if (config.getLastModified() > cachedPlan.getCreationTime()) {
-            // for this case, we can only invalidate this cach entry, other cache entries may still be valid
-            cachePlans.invalidate(cacheId);
-            return null;
-          }
-        }
-      }
+  }
+
+  private void removeFromDatasetMap(Key key) {
+    final Set<String> ids = planDatasets.remove(key);
+    if (ids == null) {
+      return;
+    }
+    for (String datasetId : ids) {
+      datasetMap.computeIfPresent(datasetId, (id, keys) -> {
+        keys.remove(key);
+        return keys.isEmpty() ? null : keys;
+      });
     }
-    return cachePlans.getIfPresent(cacheId);
   }
 
-  public void invalidateCacheOnDataset(String datasetId) {
-    List<Long> affectedCaches = datasetMap.get(datasetId).stream().collect(Collectors.toList());
-    for(Long cacheId: affectedCaches) {
-      cachePlans.invalidate(cacheId);
+  private int weigh(Key key, CachedPlan plan) {
+    long weight = plan.getEstimatedSize() + key.getEstimatedSize();
+    if (plan.getTextPlan() != null) {
+      weight += (long) Character.BYTES * plan.getTextPlan().length();
     }
+    return (int) Math.min(Math.max(weight, minWeight), Integer.MAX_VALUE);
   }
 
-  public static void clearDatasetMapOnCacheGC(Long cacheId) {
-    synchronized (datasetMap) {
-      datasetMap.entries().removeIf(datasetMapEntry -> datasetMapEntry.getValue().equals(cacheId));
+  public CacheStats getStats() {
+    return cachePlans.stats();
+  }
+
+  public long getInvalidationCount() {
+    return invalidationCount.get();
+  }
+
+  public long getEntryCount() {
+    return cachePlans.size();
+  }
+
+  @VisibleForTesting
+  Set<Key> getPlansOfDataset(String datasetId) {
+    final Set<Key> keys = datasetMap.get(datasetId);
+    return keys == null ? ImmutableSet.of() : ImmutableSet.copyOf(keys);
+  }
+
+  /**
+   * Key of a cached plan. Keys are compared on all their fields.
+   */
+  public static final class Key {
+    private final String sql;
+    private final String workloadType;
+    private final String user;
+    private final String defaultSchema;
+    private final int hash;
+
+    private Key(String sql, String workloadType, String user, String defaultSchema) {
+      this.sql = Objects.requireNonNull(sql);
+      this.workloadType = Objects.toString(workloadType, "");
+      this.user = Objects.toString(user, "");
+      this.defaultSchema = defaultSchema;
+      this.hash = Objects.hash(sql, this.workloadType, this.user, defaultSchema);
+    }
+
+    /**
+     * @return a 64 bit fingerprint of the key, to identify it in the query profiles
+     */
+    public long getFingerprint() {
+      return Hashing.murmur3_128().newHasher()
+        .putString(sql, StandardCharsets.UTF_8)
+        .putString(workloadType, StandardCharsets.UTF_8)
+        .putString(user, StandardCharsets.UTF_8)
+        .putString(defaultSchema, StandardCharsets.UTF_8)
+        .hash()
+        .asLong();
+    }
+
+    private long getEstimatedSize() {
+      return (long) Character.BYTES * (sql.length() + workloadType.length() + user.length() + defaultSchema.length());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return hash == key.hash
+        && sql.equals(key.sql)
+        && workloadType.equals(key.workloadType)
+        && user.equals(key.user)
+        && defaultSchema.equals(key.defaultSchema);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return "Key{" +
+        "user=" + user +
+        ", defaultSchema=" + defaultSchema +
+        ", workloadType=" + workloadType +
+        ", sql=" + sql +
+        '}';
     }
   }
 }
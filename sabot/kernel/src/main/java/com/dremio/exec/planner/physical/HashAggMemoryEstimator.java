@@ -22,6 +22,7 @@ import java.util.stream.Collectors;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
 
 import com.dremio.common.expression.CompleteType;
@@ -129,8 +130,6 @@ public class HashAggMemoryEstimator {
          final VectorContainer incoming = new VectorContainer(allocator)) {
       incoming.addSchema(childSchema);
 
-      final int hashTableBatchSize = computeHashTableSize(options, schema);
-
       // construct pivot info using the group-by exprs.
       final List<LogicalExpression> materializedGroupByExprs = materializeExprs(groupByExpressions,
         childSchema,
@@ -145,6 +144,8 @@ public class HashAggMemoryEstimator {
         AccumulatorBuilder.getAccumulatorTypesFromMaterializedExpressions(
           aggregateExpressions, materializedAggExprs, incoming);
 
+      final int hashTableBatchSize = computeHashTableSize(options, schema, accumulatorTypes);
+
       return create(pivotInfo, accumulatorTypes, hashTableBatchSize, options);
     }
   }
@@ -260,7 +261,7 @@ public class HashAggMemoryEstimator {
   private int computeAccumulatorSizeForSinglePartition() {
     int validitySize = 0;
     int dataSize = 0;
-    for (Field field : materializedAggExpressions.getOutputVectorFields()) {
+    for (Field field : materializedAggExpressions.getAccumulatorVectorFields()) {
       TypeProtos.MinorType minorType = CompleteType.fromField(field).toMinorType();
       switch (minorType) {
         case BIT:
@@ -292,6 +293,12 @@ public class HashAggMemoryEstimator {
           validitySize += getValidityBufferSizeFromCount(hashTableBatchSize);
           dataSize += (16 * hashTableBatchSize);
           break;
+
+        /* NDV sketch accumulator */
+        case FIXEDSIZEBINARY:
+          validitySize += getValidityBufferSizeFromCount(hashTableBatchSize);
+          dataSize += (((ArrowType.FixedSizeBinary) field.getType()).getByteWidth() * hashTableBatchSize);
+          break;
       }
     }
 
@@ -314,7 +321,8 @@ public class HashAggMemoryEstimator {
   }
 
   private static int computeHashTableSize(final OptionManager options,
-    final BatchSchema schema) {
+    final BatchSchema schema,
+    final MaterializedAggExpressionsResult materializedAggExpressions) {
 
     /*
      * Estimate the outgoing record size. This is proportional to the sum of the accumulator and
@@ -322,7 +330,17 @@ public class HashAggMemoryEstimator {
      */
     final int listSizeEstimate = (int)options.getOption(ExecConstants.BATCH_LIST_SIZE_ESTIMATE);
     final int estimatedVariableWidthKeySize = (int)options.getOption(VectorizedHashAggOperator.VARIABLE_FIELD_SIZE_ESTIMATE);
-    final int estimatedRecordSize = schema.estimateRecordSize(listSizeEstimate, estimatedVariableWidthKeySize);
+    int estimatedRecordSize = schema.estimateRecordSize(listSizeEstimate, estimatedVariableWidthKeySize);
+
+    /*
+     * NDV accumulators keep a sketch of a few KB for each group, which the outgoing
+     * (compact) sketches don't account for.
+     */
+    for (Field field : materializedAggExpressions.getAccumulatorVectorFields()) {
+      if (field.getType() instanceof ArrowType.FixedSizeBinary) {
+        estimatedRecordSize += ((ArrowType.FixedSizeBinary) field.getType()).getByteWidth();
+      }
+    }
 
     /*
      * Compute the max hash table batch size, based on the estimated record size.
@@ -62,6 +62,7 @@ public class HashAggPrel extends AggPrelBase implements Prel{
   public static final LongValidator LOW_LIMIT = new PositiveLongValidator("planner.op.hashagg.low_limit_bytes", Long.MAX_VALUE, 300_000_000);
   public static final DoubleValidator FACTOR = new RangeDoubleValidator("planner.op.hashagg.factor", 0.0, 1000.0, 1.0d);
   public static final BooleanValidator BOUNDED = new BooleanValidator("planner.op.hashagg.bounded", true);
+  public static final BooleanValidator SPILL_NDV = new BooleanValidator("planner.op.hashagg.spill_ndv", true);
 
 
   private Boolean canVectorize;
@@ -174,6 +175,7 @@ public class HashAggPrel extends AggPrelBase implements Prel{
       return false;
     }
     boolean useSpill = true;
+    final boolean spillNdv = creator.getContext().getOptions().getOption(SPILL_NDV);
     final BatchSchema childSchema = child.getProps().getSchema();
     for(NamedExpression ne : aggExprs) {
       final LogicalExpression expr = ExpressionTreeMaterializer.materializeAndCheckErrors(ne.getExpr(), childSchema, creator.getContext().getFunctionRegistry());
@@ -181,7 +183,7 @@ public class HashAggPrel extends AggPrelBase implements Prel{
         final String functionName = ((FunctionHolderExpr) expr).getName();
         final boolean isMinMaxFn = (functionName.equals("min") || functionName.equals("max"));
         final boolean isNDVFn = (functionName.equals("hll") || functionName.equals("hll_merge"));
-        if (isNDVFn || (isMinMaxFn && expr.getCompleteType().isVariableWidthScalar())) {
+        if ((isNDVFn && !spillNdv) || (isMinMaxFn && expr.getCompleteType().isVariableWidthScalar())) {
           useSpill = false;
           break;
         }
@@ -344,7 +346,8 @@ public class HashAggPrel extends AggPrelBase implements Prel{
         canVectorize,
         canSpill,
         1.0f,
-        hashTableBatchSize);
+        hashTableBatchSize,
+        getOperatorPhase() == OperatorPhase.PHASE_1of2);
   }
 
 
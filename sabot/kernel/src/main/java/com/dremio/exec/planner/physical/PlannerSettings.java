@@ -115,6 +115,7 @@ public class PlannerSettings implements Context{
   public static final BooleanValidator TRANSITIVE_FILTER_JOIN_PUSHDOWN = new BooleanValidator("planner.filter.transitive_pushdown", true);
   public static final BooleanValidator TRANSITIVE_FILTER_NOT_NULL_EXPR_PUSHDOWN = new BooleanValidator("planner.filter.transitive_pushdown_not_null_expr", false); // Until DX-26452 is fixes
   public static final BooleanValidator ENABLE_RUNTIME_FILTER = new BooleanValidator("planner.filter.runtime_filter", true);
+  public static final BooleanValidator ENABLE_TOPN_RUNTIME_FILTER = new BooleanValidator("planner.filter.topn_runtime_filter", true);
   public static final BooleanValidator ENABLE_TRANSPOSE_PROJECT_FILTER_LOGICAL = new BooleanValidator("planner.experimental.tpf_logical", false);
   public static final BooleanValidator ENABLE_PROJECT_CLEANUP_LOGICAL = new BooleanValidator("planner.experimental.pclean_logical", false);
   public static final BooleanValidator ENABLE_CROSS_JOIN = new BooleanValidator("planner.enable_cross_join", true);
@@ -444,6 +445,10 @@ public class PlannerSettings implements Context{
     return options.getOption(ENABLE_RUNTIME_FILTER);
   }
 
+  public boolean isTopNRuntimeFilterEnabled() {
+    return options.getOption(ENABLE_TOPN_RUNTIME_FILTER);
+  }
+
   public boolean isTransposeProjectFilterLogicalEnabled() {
     return options.getOption(ENABLE_TRANSPOSE_PROJECT_FILTER_LOGICAL);
   }
@@ -31,6 +31,7 @@ import com.dremio.exec.physical.base.PhysicalOperator;
 import com.dremio.exec.physical.config.TopN;
 import com.dremio.exec.planner.cost.DremioCost;
 import com.dremio.exec.planner.cost.DremioCost.Factory;
+import com.dremio.exec.planner.physical.filter.RuntimeFilterInfo;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.options.Options;
 import com.dremio.options.TypeValidators.LongValidator;
@@ -43,16 +44,23 @@ public class TopNPrel extends SinglePrel {
 
   protected int limit;
   protected final RelCollation collation;
+  private RuntimeFilterInfo runtimeFilterInfo;
 
   public TopNPrel(RelOptCluster cluster, RelTraitSet traitSet, RelNode child, int limit, RelCollation collation) {
+    this(cluster, traitSet, child, limit, collation, null);
+  }
+
+  private TopNPrel(RelOptCluster cluster, RelTraitSet traitSet, RelNode child, int limit, RelCollation collation,
+                   RuntimeFilterInfo runtimeFilterInfo) {
     super(cluster, traitSet, child);
     this.limit = limit;
     this.collation = collation;
+    this.runtimeFilterInfo = runtimeFilterInfo;
   }
 
   @Override
   public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
-    return new TopNPrel(getCluster(), traitSet, sole(inputs), this.limit, this.collation);
+    return new TopNPrel(getCluster(), traitSet, sole(inputs), this.limit, this.collation, this.runtimeFilterInfo);
   }
 
   @Override
@@ -66,7 +74,8 @@ public class TopNPrel extends SinglePrel {
         childPOP,
         limit,
         PrelUtil.getOrdering(this.collation, getInput().getRowType()),
-        false
+        false,
+        runtimeFilterInfo
         );
    }
 
@@ -93,7 +102,20 @@ public class TopNPrel extends SinglePrel {
   @Override
   public RelWriter explainTerms(RelWriter pw) {
     return super.explainTerms(pw)
-        .item("limit", limit);
+        .item("limit", limit)
+        .itemIf("runtimeFilter", runtimeFilterInfo, runtimeFilterInfo != null);
+  }
+
+  public RelCollation getCollation() {
+    return collation;
+  }
+
+  public RuntimeFilterInfo getRuntimeFilterInfo() {
+    return runtimeFilterInfo;
+  }
+
+  public void setRuntimeFilterInfo(RuntimeFilterInfo runtimeFilterInfo) {
+    this.runtimeFilterInfo = runtimeFilterInfo;
   }
 
   @Override
@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Objects;
 
 import org.apache.arrow.util.Preconditions;
+import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.core.JoinInfo;
 import org.apache.calcite.rel.core.JoinRelType;
@@ -43,6 +44,7 @@ import com.dremio.exec.planner.physical.ProjectPrel;
 import com.dremio.exec.planner.physical.ScanPrelBase;
 import com.dremio.exec.planner.physical.SelectionVectorRemoverPrel;
 import com.dremio.exec.planner.physical.TableFunctionPrel;
+import com.dremio.exec.planner.physical.TopNPrel;
 import com.dremio.exec.planner.physical.UnionPrel;
 import com.dremio.exec.planner.physical.explain.PrelSequencer;
 import com.dremio.exec.planner.physical.filter.RuntimeFilterEntry;
@@ -55,6 +57,8 @@ import com.google.common.collect.ImmutableList;
  * This visitor does two major things:
  * 1) check with HashJoinPrel should use runtime filter
  * 2) build plan time RuntimeFilterInfo for HashJoinPrel
+ *
+ * A second pass, see {@link #addRuntimeFilterToTopN(Prel)}, builds the RuntimeFilterInfo of TopNPrel.
  */
 public class RuntimeFilterVisitor extends BasePrelVisitor<Prel, Void, RuntimeException> {
   static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RuntimeFilterVisitor.class);
@@ -69,6 +73,14 @@ public class RuntimeFilterVisitor extends BasePrelVisitor<Prel, Void, RuntimeExc
     return prel.accept(instance, null);
   }
 
+  /**
+   * Find the scans that produce the first ordering column of each TopNPrel, so that the TopN operator
+   * can send them the boundary of its heap as a range filter.
+   */
+  public static Prel addRuntimeFilterToTopN(Prel prel) {
+    return prel.accept(new TopNRuntimeFilterVisitor(PrelSequencer.getIdMap(prel)), null);
+  }
+
   public Prel visitPrel(Prel prel, Void value) throws RuntimeException {
     List<RelNode> children = new ArrayList<>();
     for (Prel child : prel) {
@@ -180,6 +192,57 @@ public class RuntimeFilterVisitor extends BasePrelVisitor<Prel, Void, RuntimeExc
 
   }
 
+  private static class TopNRuntimeFilterVisitor extends BasePrelVisitor<Prel, Void, RuntimeException> {
+    private final Map<Prel, PrelSequencer.OpId> prelOpIdMap;
+
+    private TopNRuntimeFilterVisitor(Map<Prel, PrelSequencer.OpId> prelOpIdMap) {
+      this.prelOpIdMap = prelOpIdMap;
+    }
+
+    @Override
+    public Prel visitPrel(Prel prel, Void value) throws RuntimeException {
+      if (prel instanceof TopNPrel) {
+        final TopNPrel topNPrel = (TopNPrel) prel;
+        final RuntimeFilterInfo runtimeFilterInfo = generateRuntimeFilterInfo(topNPrel);
+        if (runtimeFilterInfo != null) {
+          topNPrel.setRuntimeFilterInfo(runtimeFilterInfo);
+        }
+      }
+      List<RelNode> children = new ArrayList<>();
+      for (Prel child : prel) {
+        children.add(child.accept(this, value));
+      }
+      return (Prel) prel.copy(prel.getTraitSet(), children);
+    }
+
+    /**
+     * Only the first ordering column is used: the values of the others are only compared on ties.
+     * Partition columns are left out, the scans only skip row groups based on column statistics.
+     */
+    private RuntimeFilterInfo generateRuntimeFilterInfo(TopNPrel topNPrel) {
+      final List<RelFieldCollation> fieldCollations = topNPrel.getCollation().getFieldCollations();
+      if (fieldCollations.isEmpty() || !(topNPrel.getInput() instanceof Prel)) {
+        return null;
+      }
+      final int fieldIndex = fieldCollations.get(0).getFieldIndex();
+      final String fieldName = topNPrel.getInput().getRowType().getFieldNames().get(fieldIndex);
+      final List<RuntimeFilterEntry> columns = new ArrayList<>();
+      ((Prel) topNPrel.getInput()).accept(new FindScanVisitor(), fieldIndex).stream()
+        .filter(Objects::nonNull)
+        .filter(columnOrigin -> !isPartitionColumn(columnOrigin.getScan(), columnOrigin.getField()))
+        .forEach(columnOrigin -> {
+          PrelSequencer.OpId opId = prelOpIdMap.get(columnOrigin.getScan());
+          columns.add(new RuntimeFilterEntry(columnOrigin.getField(), fieldName, opId.getFragmentId(), opId.getAsSingleInt()));
+        });
+      if (columns.isEmpty()) {
+        return null;
+      }
+      return new RuntimeFilterInfo.Builder()
+        .nonPartitionJoinColumns(columns)
+        .build();
+    }
+  }
+
   private static class ColumnOriginScan extends Pair<Prel,String> {
 
     /**
@@ -324,7 +387,7 @@ public class RuntimeFilterVisitor extends BasePrelVisitor<Prel, Void, RuntimeExc
     }
   }
 
-  private boolean isPartitionColumn(Prel scanPrel, String fieldName) {
+  private static boolean isPartitionColumn(Prel scanPrel, String fieldName) {
     Preconditions.checkArgument(scanPrel instanceof ScanRelBase || scanPrel instanceof TableFunctionPrel,
             "Incorrect data scan prel {}", scanPrel.getClass().getName());
     TableMetadata tableMetadata = (scanPrel instanceof ScanRelBase) ? ((ScanRelBase) scanPrel).getTableMetadata() : ((TableFunctionPrel) scanPrel).getTableMetadata();
@@ -837,6 +837,9 @@ public class PrelTransformer {
      */
     if (plannerSettings.isRuntimeFilterEnabled()) {
       phyRelNode = RuntimeFilterVisitor.addRuntimeFilterToHashJoin(phyRelNode);
+      if (plannerSettings.isTopNRuntimeFilterEnabled()) {
+        phyRelNode = RuntimeFilterVisitor.addRuntimeFilterToTopN(phyRelNode);
+      }
     }
 
     final String textPlan;
@@ -104,7 +104,7 @@ public class SetOptionHandler extends SimpleDirectHandler {
     //with option changes, invalidate all cache entries;
     //also make sure the option is not to modify plan cache itself
     if (!name.equalsIgnoreCase(PlannerSettings.QUERY_PLAN_CACHE_ENABLED.getOptionName())) {
-      context.getPlanCache().getCachePlans().invalidateAll();
+      context.getPlanCache().invalidateAll();
     }
     return Collections.singletonList(SimpleCommandResult.successful("%s updated.", name));
   }
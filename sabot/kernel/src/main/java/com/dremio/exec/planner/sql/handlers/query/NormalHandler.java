@@ -17,6 +17,8 @@ package com.dremio.exec.planner.sql.handlers.query;
 
 import static com.dremio.exec.planner.physical.PlannerSettings.STORE_QUERY_RESULTS;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
@@ -47,7 +49,6 @@ import com.dremio.exec.planner.sql.handlers.ViewAccessEvaluator;
 import com.dremio.exec.store.NamespaceTable;
 import com.dremio.options.OptionManager;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
-import com.google.common.cache.Cache;
 
 /**
  * The default handler for queries.
@@ -62,10 +63,10 @@ public class NormalHandler implements SqlToPlanHandler {
     try{
       final PlannerSettings plannerSettings = config.getContext().getPlannerSettings();
       final PlanCache planCache = config.getContext().getPlanCache();
-      final Cache<Long, CachedPlan> cachedPlans = (planCache != null) ? planCache.getCachePlans():null;
-      final long cachedKey = planCache.generateCacheKey(sqlNode.toSqlString(CalciteSqlDialect.DEFAULT).getSql(),
-        config.getContext().getWorkloadType().name());
-      config.getObserver().setCacheKey(cachedKey);
+      final PlanCache.Key cachedKey = PlanCache.generateCacheKey(sqlNode.toSqlString(CalciteSqlDialect.DEFAULT).getSql(),
+        config.getContext().getWorkloadType().name(), config.getContext().getQueryUserName(),
+        config.getContext().getSession().getDefaultSchemaPath());
+      config.getObserver().setCacheKey(cachedKey.getFingerprint());
       final ConvertedRelNode convertedRelNode = PrelTransformer.validateAndConvert(config, sqlNode);
       final RelDataType validatedRowType = convertedRelNode.getValidatedRowType();
       final RelNode queryRelNode = convertedRelNode.getConvertedNode();
@@ -76,7 +77,7 @@ public class NormalHandler implements SqlToPlanHandler {
         config.getContext().getExecutorService().submit(viewAccessEvaluator);
       }
       final Catalog catalog = config.getContext().getCatalog();
-      CachedPlan cachedPlan = (cachedPlans != null) ? planCache.getIfPresentAndValid(catalog, cachedKey) : null;
+      CachedPlan cachedPlan = (planCache != null) ? planCache.getIfPresentAndValid(catalog, cachedKey) : null;
       Prel prel;
       boolean supportPlanCache = config.getConverter().getFunctionContext().getContextInformation().isPlanCacheable();
       if (!plannerSettings.isPlanCacheEnabled() || cachedPlan == null) {
@@ -87,22 +88,21 @@ public class NormalHandler implements SqlToPlanHandler {
         textPlan = convertToPrel.getValue();
 
         //after we generate a physical plan, save it in the plan cache if plan cache is present
-        if(plannerSettings.isPlanCacheEnabled() && planCache!= null && cachedPlans!= null && supportPlanCache) {
-          boolean isPlanCacheable = false;
+        if(plannerSettings.isPlanCacheEnabled() && planCache!= null && supportPlanCache) {
+          final List<String> datasetIds = new ArrayList<>();
           Iterable<DremioTable> datasets = catalog.getAllRequestedTables();
           for (DremioTable dataset : datasets) {
             if (dataset instanceof NamespaceTable) {
               DatasetConfig datasetConfig = dataset.getDatasetConfig();
               if (datasetConfig.getPhysicalDataset() != null) {
-                planCache.addCacheToDatasetMap(datasetConfig.getId().getId(), cachedKey);
-                isPlanCacheable = true;
+                datasetIds.add(datasetConfig.getId().getId());
               }
             }
           }
-          if (isPlanCacheable) {
+          if (!datasetIds.isEmpty()) {
             CachedPlan newCachedPlan = CachedPlan.createCachedPlan(sql, prel, textPlan, prel.getEstimatedSize());
             config.getObserver().setCachedAccelDetails(newCachedPlan);
-            cachedPlans.put(cachedKey, newCachedPlan);
+            planCache.putPlan(cachedKey, newCachedPlan, datasetIds);
           }
         }
       } else {
@@ -27,8 +27,10 @@ import org.apache.arrow.vector.VectorUnloader;
 import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.types.pojo.Field;
 
+import com.dremio.exec.proto.ExecRPC.BatchCompressionCodec;
 import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
 import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.google.common.base.Function;
 import com.google.common.collect.FluentIterable;
 import com.google.flatbuffers.FlatBufferBuilder;
@@ -64,6 +66,28 @@ public class FragmentWritableBatch{
     );
   }
 
+  public static FragmentWritableBatch create(
+    final QueryId queryId,
+    final int sendMajorFragmentId,
+    final int sendMinorFragmentId,
+    final int receiveMajorFragmentId,
+    final VectorAccessible batch,
+    final BatchCompressor compressor,
+    final int receiveMinorFragmentId) {
+
+    ArrowRecordBatch recordBatch = compressor.compress(getArrowRecordBatch(batch));
+
+    return new FragmentWritableBatch(
+      queryId,
+      sendMajorFragmentId,
+      sendMinorFragmentId,
+      receiveMajorFragmentId,
+      recordBatch,
+      compressor.getLastCodec(),
+      receiveMinorFragmentId
+    );
+  }
+
   public static ArrowRecordBatch getArrowRecordBatch(final VectorAccessible batch) {
     VectorSchemaRoot root = getVectorSchemaRoot(batch);
     VectorUnloader unloader = new VectorUnloader(root, false, false);
@@ -102,6 +126,22 @@ public class FragmentWritableBatch{
       final int receiveMajorFragmentId,
       ArrowRecordBatch recordBatch,
       final int... receiveMinorFragmentId){
+    this(queryId, sendMajorFragmentId, sendMinorFragmentId, receiveMajorFragmentId, recordBatch,
+      BatchCompressionCodec.UNCOMPRESSED, receiveMinorFragmentId);
+  }
+
+  /**
+   * @param compressionCodec codec used to compress the buffers of the record batch,
+   *                         see {@link BatchCompressor}
+   */
+  public FragmentWritableBatch(
+      final QueryId queryId,
+      final int sendMajorFragmentId,
+      final int sendMinorFragmentId,
+      final int receiveMajorFragmentId,
+      ArrowRecordBatch recordBatch,
+      final BatchCompressionCodec compressionCodec,
+      final int... receiveMinorFragmentId){
     this.buffers = recordBatch.getBuffers().stream().map(buf -> NettyArrowBuf.unwrapBuffer(buf)).collect
       (Collectors.toList()).toArray(new ByteBuf[0]);
     this.recordCount = recordBatch.getLength();
@@ -119,6 +159,10 @@ public class FragmentWritableBatch{
       builder.addReceivingMinorFragmentId(i);
     }
 
+    if (compressionCodec != BatchCompressionCodec.UNCOMPRESSED) {
+      builder.setCompressionCodec(compressionCodec);
+    }
+
     this.header = builder.build();
   }
 
@@ -48,6 +48,7 @@ import com.dremio.exec.planner.observer.QueryObserverFactory;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.server.options.SystemOptionManager;
 import com.dremio.exec.store.CatalogService;
+import com.dremio.exec.store.cache.BlockCacheFileSystemWrapper;
 import com.dremio.exec.store.dfs.FileSystemWrapper;
 import com.dremio.exec.store.sys.accel.AccelerationListManager;
 import com.dremio.exec.store.sys.accel.AccelerationManager;
@@ -215,7 +216,7 @@ public class SabotContext implements AutoCloseable {
     this.fileSystemWrapper = config.getInstance(
       FileSystemWrapper.FILE_SYSTEM_WRAPPER_CLASS,
       FileSystemWrapper.class,
-      (fs, storageId, conf, operatorContext, enableAsync, isMetadataEnabled) -> fs,
+      defaultFileSystemWrapper(dremioConfig, optionManager, roles, endpoint, allocator),
       dremioConfig,
       this.optionManager,
       allocator,
@@ -598,6 +599,18 @@ public class SabotContext implements AutoCloseable {
     return viewCreatorFactory.get().get(userName);
   }
 
+  /**
+   * Executors cache the blocks of the files read asynchronously on their local disks, unless disabled.
+   */
+  private static FileSystemWrapper defaultFileSystemWrapper(DremioConfig dremioConfig, OptionManager optionManager,
+                                                            Collection<Role> roles, NodeEndpoint endpoint,
+                                                            BufferAllocator allocator) {
+    if (dremioConfig != null && roles.contains(Role.EXECUTOR) && dremioConfig.getBoolean(DremioConfig.CACHE_ENABLED)) {
+      return new BlockCacheFileSystemWrapper(dremioConfig, optionManager, endpoint, allocator);
+    }
+    return (fs, storageId, conf, operatorContext, enableAsync, isMetadataEnabled) -> fs;
+  }
+
   public FileSystemWrapper getFileSystemWrapper() {
     return fileSystemWrapper;
   }
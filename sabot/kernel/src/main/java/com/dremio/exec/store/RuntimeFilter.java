@@ -43,11 +43,18 @@ public class RuntimeFilter implements AutoCloseable {
   private static Logger logger = LoggerFactory.getLogger(RuntimeFilter.class);
   private CompositeColumnFilter partitionColumnFilter;
   private List<CompositeColumnFilter> nonPartitionColumnFilters;
+  private RuntimeRangeFilter rangeFilter;
   private String senderInfo;
 
   public RuntimeFilter(CompositeColumnFilter partitionColumnFilter, List<CompositeColumnFilter> nonPartitionColumnFilters, String senderInfo) {
+    this(partitionColumnFilter, nonPartitionColumnFilters, null, senderInfo);
+  }
+
+  public RuntimeFilter(CompositeColumnFilter partitionColumnFilter, List<CompositeColumnFilter> nonPartitionColumnFilters,
+                       RuntimeRangeFilter rangeFilter, String senderInfo) {
     this.partitionColumnFilter = partitionColumnFilter;
     this.nonPartitionColumnFilters = nonPartitionColumnFilters;
+    this.rangeFilter = rangeFilter;
     this.senderInfo = senderInfo;
   }
 
@@ -59,6 +66,13 @@ public class RuntimeFilter implements AutoCloseable {
     return nonPartitionColumnFilters;
   }
 
+  /**
+   * @return the range filter sent by a TopN operator, or null
+   */
+  public RuntimeRangeFilter getRangeFilter() {
+    return rangeFilter;
+  }
+
   public String getSenderInfo() {
     return senderInfo;
   }
@@ -117,7 +131,32 @@ public class RuntimeFilter implements AutoCloseable {
 
   public static RuntimeFilter getInstanceWithNewNonPartitionColFiltersList(RuntimeFilter filter) {
     return new RuntimeFilter(filter.getPartitionColumnFilter(), new ArrayList<>(filter.getNonPartitionColumnFilters()),
-      filter.getSenderInfo());
+      filter.getRangeFilter(), filter.getSenderInfo());
+  }
+
+  /**
+   * Tighten the range filter already received from the same sender on the same column, or create a new one.
+   * Range filters are sent again by the TopN operator every time its boundary gets better, and an existing filter
+   * is tightened in place so that the readers it was added to see the new bound.
+   *
+   * @param filters filters already received
+   * @param protoFilter range filter received
+   * @param senderInfo sender of the range filter
+   * @return the filter to add to the readers, or null if an existing filter was tightened
+   */
+  public static RuntimeFilter getInstanceOrTightenRangeFilter(final List<RuntimeFilter> filters,
+                                                              final ExecProtos.RangeColumnFilter protoFilter,
+                                                              final String senderInfo) {
+    for (RuntimeFilter filter : filters) {
+      if (filter.getRangeFilter() != null && filter.getSenderInfo().equals(senderInfo)
+        && filter.getRangeFilter().getColumn().equals(protoFilter.getColumn())) {
+        if (filter.getRangeFilter().tighten(protoFilter)) {
+          logger.debug("Range filter from {} tightened", senderInfo);
+        }
+        return null;
+      }
+    }
+    return new RuntimeFilter(null, new ArrayList<>(0), new RuntimeRangeFilter(protoFilter), senderInfo);
   }
 
   /**
@@ -146,6 +185,7 @@ public class RuntimeFilter implements AutoCloseable {
     return "RuntimeFilter{" +
             "partitionColumnFilter=" + partitionColumnFilter +
             ", nonPartitionColumnFilters=" + nonPartitionColumnFilters +
+            ", rangeFilter=" + rangeFilter +
             ", senderInfo='" + senderInfo + '\'' +
             '}';
   }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store;
+
+import com.dremio.exec.proto.ExecProtos;
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * A POJO helper class for the protobuf struct RangeColumnFilter.
+ *
+ * The filter is sent by a TopN operator with the current boundary of its heap, and tightened in place every time
+ * the operator sends a better boundary, so that the readers it was given to see the latest bound. Values are
+ * compared strictly: a value equal to the bound may still make it into the result.
+ */
+public class RuntimeRangeFilter {
+  private ExecProtos.RangeColumnFilter filter;
+
+  public RuntimeRangeFilter(ExecProtos.RangeColumnFilter filter) {
+    this.filter = filter;
+  }
+
+  public String getColumn() {
+    return filter.getColumn();
+  }
+
+  public boolean isUpperBound() {
+    return filter.getUpperBound();
+  }
+
+  public boolean isNullsPass() {
+    return filter.getNullsPass();
+  }
+
+  /**
+   * Replace the bound if the given filter, on the same column, has a tighter one.
+   *
+   * @return true if the bound was replaced
+   */
+  public boolean tighten(ExecProtos.RangeColumnFilter newFilter) {
+    if (!newFilter.getColumn().equals(filter.getColumn()) || newFilter.getUpperBound() != filter.getUpperBound()) {
+      return false;
+    }
+    final int cmp = compareBounds(newFilter, filter);
+    if (filter.getUpperBound() ? cmp < 0 : cmp > 0) {
+      filter = newFilter;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return whether no value in [min, max] can make it into the result
+   */
+  public boolean isOutOfRange(long min, long max) {
+    if (!filter.hasLongBound()) {
+      return false;
+    }
+    return filter.getUpperBound() ? min > filter.getLongBound() : max < filter.getLongBound();
+  }
+
+  /**
+   * @return whether no value in [min, max] can make it into the result
+   */
+  public boolean isOutOfRange(double min, double max) {
+    if (!filter.hasDoubleBound() || Double.isNaN(min) || Double.isNaN(max)) {
+      return false;
+    }
+    return filter.getUpperBound() ? min > filter.getDoubleBound() : max < filter.getDoubleBound();
+  }
+
+  /**
+   * @return whether no value in [min, max], compared as unsigned bytes, can make it into the result
+   */
+  public boolean isOutOfRange(byte[] min, byte[] max) {
+    if (!filter.hasBytesBound()) {
+      return false;
+    }
+    final byte[] bound = filter.getBytesBound().toByteArray();
+    return filter.getUpperBound()
+      ? UnsignedBytes.lexicographicalComparator().compare(min, bound) > 0
+      : UnsignedBytes.lexicographicalComparator().compare(max, bound) < 0;
+  }
+
+  private static int compareBounds(ExecProtos.RangeColumnFilter left, ExecProtos.RangeColumnFilter right) {
+    if (left.hasLongBound() && right.hasLongBound()) {
+      return Long.compare(left.getLongBound(), right.getLongBound());
+    }
+    if (left.hasDoubleBound() && right.hasDoubleBound()) {
+      return Double.compare(left.getDoubleBound(), right.getDoubleBound());
+    }
+    if (left.hasBytesBound() && right.hasBytesBound()) {
+      return UnsignedBytes.lexicographicalComparator()
+        .compare(left.getBytesBound().toByteArray(), right.getBytesBound().toByteArray());
+    }
+    // not comparable, keep the current bound
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return "RuntimeRangeFilter{" +
+      "column=" + filter.getColumn() +
+      ", upperBound=" + filter.getUpperBound() +
+      ", nullsPass=" + filter.getNullsPass() +
+      '}';
+  }
+}
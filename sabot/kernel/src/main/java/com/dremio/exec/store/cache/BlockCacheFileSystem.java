@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dremio.common.utils.PathUtils;
+import com.dremio.io.AsyncByteReader;
+import com.dremio.io.AsyncByteReader.FileKey;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.FilterFileSystem;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.google.common.base.Strings;
+
+/**
+ * File system reading the versioned files of a source through the local block cache.
+ */
+class BlockCacheFileSystem extends FilterFileSystem {
+  private static final Logger logger = LoggerFactory.getLogger(BlockCacheFileSystem.class);
+
+  private final LocalBlockCache cache;
+  private final String storageId;
+  private final int limitPct;
+  private final OperatorContext context;
+
+  BlockCacheFileSystem(FileSystem fs, LocalBlockCache cache, String storageId, int limitPct, OperatorContext context) {
+    super(fs);
+    this.cache = cache;
+    this.storageId = storageId;
+    this.limitPct = limitPct;
+    this.context = context;
+  }
+
+  @Override
+  public AsyncByteReader getAsyncByteReader(FileKey fileKey) throws IOException {
+    final AsyncByteReader reader = super.getAsyncByteReader(fileKey);
+    final String version = fileKey.getVersion();
+    if (Strings.isNullOrEmpty(version)) {
+      // without a version, a rewritten file could not be told apart from its cached blocks
+      return reader;
+    }
+
+    final String path = fileKey.getPath().toString();
+    final long fileLength;
+    try {
+      fileLength = cache.getFileLength(storageId, path, version, () -> getFileAttributes(fileKey.getPath()).size());
+    } catch (IOException e) {
+      logger.debug("Failed to get the length of {}, reading it without the block cache", path, e);
+      return reader;
+    }
+
+    final String dataset = fileKey.getDatasetKey() == null ? "" : PathUtils.constructFullPath(fileKey.getDatasetKey());
+    return new CachingAsyncByteReader(reader, cache, storageId, path, version, dataset, fileLength, limitPct, context);
+  }
+}
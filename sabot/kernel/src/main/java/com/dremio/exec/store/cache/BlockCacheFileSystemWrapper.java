@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.rocksdb.RocksIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.store.dfs.AsyncStreamConf;
+import com.dremio.exec.store.dfs.CacheProperties;
+import com.dremio.exec.store.dfs.FileSystemWrapper;
+import com.dremio.exec.store.sys.CacheManagerStatsProvider;
+import com.dremio.exec.work.CacheManagerDatasetInfo;
+import com.dremio.exec.work.CacheManagerFilesInfo;
+import com.dremio.exec.work.CacheManagerMountPointInfo;
+import com.dremio.exec.work.CacheManagerStoragePluginInfo;
+import com.dremio.io.file.FileSystem;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.exec.context.OperatorContext;
+
+/**
+ * Wraps the file systems of the sources requesting caching, so that their asynchronous reads go through the
+ * {@link LocalBlockCache} of the executor. The cache is created on the first wrapped file system.
+ *
+ * When boosting is enabled, the file systems also keep the boost files of their parquet files in the
+ * {@link LocalBoostCache} of the executor, created on the first wrapped file system as well.
+ */
+public class BlockCacheFileSystemWrapper implements FileSystemWrapper, CacheManagerStatsProvider {
+  private static final Logger logger = LoggerFactory.getLogger(BlockCacheFileSystemWrapper.class);
+
+  private final DremioConfig config;
+  private final OptionManager options;
+  private final NodeEndpoint endpoint;
+  private final BufferAllocator allocator;
+
+  private volatile LocalBlockCache cache;
+  private boolean initFailed;
+  private volatile LocalBoostCache boostCache;
+  private boolean boostInitFailed;
+
+  public BlockCacheFileSystemWrapper(DremioConfig config, OptionManager options, NodeEndpoint endpoint,
+                                     BufferAllocator allocator) {
+    this.config = config;
+    this.options = options;
+    this.endpoint = endpoint;
+    this.allocator = allocator;
+  }
+
+  @Override
+  public FileSystem wrap(FileSystem fs, String storageId, AsyncStreamConf conf, OperatorContext context,
+                         boolean enableAsync, boolean isMetadataRefresh) throws IOException {
+    final FileSystem cachingFs = wrapCaching(fs, storageId, conf, context, enableAsync, isMetadataRefresh);
+    if (isMetadataRefresh || storageId == null || !options.getOption(ExecConstants.ENABLE_BOOSTING)) {
+      return cachingFs;
+    }
+    final LocalBoostCache boostCache = getOrCreateBoostCache();
+    return boostCache == null ? cachingFs : new BoostingFileSystem(cachingFs, boostCache, storageId);
+  }
+
+  private FileSystem wrapCaching(FileSystem fs, String storageId, AsyncStreamConf conf, OperatorContext context,
+                                 boolean enableAsync, boolean isMetadataRefresh) {
+    if (!enableAsync || isMetadataRefresh || conf == null || !options.getOption(ExecConstants.BLOCK_CACHE_ENABLED)) {
+      return fs;
+    }
+    final CacheProperties cacheProperties = conf.getCacheProperties();
+    if (!cacheProperties.isCachingEnabled(options)) {
+      return fs;
+    }
+
+    final LocalBlockCache cache = getOrCreateCache();
+    if (cache == null) {
+      return fs;
+    }
+    return new BlockCacheFileSystem(fs, cache, storageId, cacheProperties.cacheMaxSpaceLimitPct(), context);
+  }
+
+  private LocalBlockCache getOrCreateCache() {
+    LocalBlockCache cache = this.cache;
+    if (cache != null) {
+      return cache;
+    }
+    synchronized (this) {
+      if (this.cache == null && !initFailed) {
+        try {
+          this.cache = LocalBlockCache.create(config, endpoint, allocator,
+            (int) options.getOption(ExecConstants.BLOCK_CACHE_BLOCK_SIZE));
+        } catch (IOException | RuntimeException e) {
+          // reads go straight to the sources
+          logger.warn("Failed to create the block cache, caching is disabled", e);
+          initFailed = true;
+        }
+      }
+      return this.cache;
+    }
+  }
+
+  private LocalBoostCache getOrCreateBoostCache() {
+    LocalBoostCache boostCache = this.boostCache;
+    if (boostCache != null) {
+      return boostCache;
+    }
+    synchronized (this) {
+      if (this.boostCache == null && !boostInitFailed) {
+        try {
+          this.boostCache = LocalBoostCache.create(config, endpoint,
+            options.getOption(ExecConstants.BOOST_LOCAL_MAX_SPACE));
+        } catch (IOException | RuntimeException e) {
+          // columns are not boosted
+          logger.warn("Failed to create the boost file store, boosting is disabled", e);
+          boostInitFailed = true;
+        }
+      }
+      return this.boostCache;
+    }
+  }
+
+  @Override
+  public List<CacheManagerMountPointInfo> getMountPointStats() {
+    final LocalBlockCache cache = this.cache;
+    return cache == null ? Collections.emptyList() : cache.getMountPointStats();
+  }
+
+  @Override
+  public List<CacheManagerStoragePluginInfo> getStoragePluginStats() {
+    final LocalBlockCache cache = this.cache;
+    return cache == null ? Collections.emptyList() : cache.getStoragePluginStats();
+  }
+
+  /**
+   * The index of the cache is in memory, all the datasets are returned at once.
+   */
+  @Override
+  public RocksIterator getDatasetIterator() {
+    return null;
+  }
+
+  @Override
+  public List<CacheManagerDatasetInfo> getDatasetStats(RocksIterator dsIterator) {
+    final LocalBlockCache cache = this.cache;
+    return cache == null ? Collections.emptyList() : cache.getDatasetStats();
+  }
+
+  /**
+   * The index of the cache is in memory, all the files are returned at once.
+   */
+  @Override
+  public RocksIterator getCachedFilesIterator() {
+    return null;
+  }
+
+  @Override
+  public List<CacheManagerFilesInfo> getCachedFilesStats(RocksIterator fileIterator) {
+    final LocalBlockCache cache = this.cache;
+    return cache == null ? Collections.emptyList() : cache.getCachedFilesStats();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      AutoCloseables.close(cache, boostCache);
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dremio.exec.store.cache.LocalBlockCache.BlockKey;
+import com.dremio.io.AsyncByteReader;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.ScanOperator;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Reads a version of a file through the local block cache: the blocks found in the cache are read from the local
+ * disk, and the missing blocks are read as a whole from the underlying reader and added to the cache.
+ */
+public class CachingAsyncByteReader implements AsyncByteReader {
+  private final AsyncByteReader delegate;
+  private final LocalBlockCache cache;
+  private final String pluginId;
+  private final String path;
+  private final String version;
+  private final String dataset;
+  private final long fileLength;
+  private final int limitPct;
+  private final OperatorContext context;
+
+  private final AtomicLong hitBytes = new AtomicLong();
+  private final AtomicLong missBytes = new AtomicLong();
+
+  /**
+   * @param delegate reader of the file
+   * @param cache cache of the executor
+   * @param pluginId id of the source of the file
+   * @param path path of the file
+   * @param version version of the file
+   * @param dataset name of the dataset of the file
+   * @param fileLength length of the version of the file
+   * @param limitPct share of the cache the source may use
+   * @param context context of the operator reading the file, may be null
+   */
+  public CachingAsyncByteReader(AsyncByteReader delegate, LocalBlockCache cache, String pluginId, String path,
+                                String version, String dataset, long fileLength, int limitPct, OperatorContext context) {
+    this.delegate = delegate;
+    this.cache = cache;
+    this.pluginId = pluginId;
+    this.path = path;
+    this.version = version;
+    this.dataset = dataset;
+    this.fileLength = fileLength;
+    this.limitPct = limitPct;
+    this.context = context;
+  }
+
+  @Override
+  public CompletableFuture<Void> readFully(long offset, ByteBuf dst, int dstOffset, int len) {
+    if (len == 0 || offset < 0 || offset + len > fileLength) {
+      // the file changed since its length was read, let the underlying reader fail or read it as it is
+      return delegate.readFully(offset, dst, dstOffset, len);
+    }
+
+    final int blockSize = cache.getBlockSize();
+    final long end = offset + len;
+    final List<CompletableFuture<Void>> misses = new ArrayList<>();
+    for (long blockIndex = offset / blockSize; blockIndex * blockSize < end; blockIndex++) {
+      final long blockStart = blockIndex * blockSize;
+      final int blockLength = (int) Math.min(blockSize, fileLength - blockStart);
+      final long rangeStart = Math.max(offset, blockStart);
+      final int offsetInBlock = (int) (rangeStart - blockStart);
+      final int rangeLength = (int) (Math.min(end, blockStart + blockLength) - rangeStart);
+      final int rangeDstOffset = dstOffset + (int) (rangeStart - offset);
+
+      final BlockKey key = new BlockKey(pluginId, path, version, blockIndex);
+      if (cache.read(key, offsetInBlock, dst, rangeDstOffset, rangeLength)) {
+        hitBytes.addAndGet(rangeLength);
+        continue;
+      }
+
+      missBytes.addAndGet(blockLength);
+      misses.add(readBlock(key, blockStart, blockLength, offsetInBlock, dst, rangeDstOffset, rangeLength));
+    }
+
+    if (misses.isEmpty()) {
+      return completedFuture;
+    }
+    return misses.size() == 1 ? misses.get(0) : CompletableFuture.allOf(misses.toArray(new CompletableFuture[0]));
+  }
+
+  /**
+   * Read a whole block from the underlying reader, copy the requested range and hand the block over to the cache.
+   * The block is allocated from the cache, as it is written after the operator reading the file may be closed.
+   */
+  private CompletableFuture<Void> readBlock(BlockKey key, long blockStart, int blockLength, int offsetInBlock,
+                                            ByteBuf dst, int dstOffset, int length) {
+    final ByteBuf block = cache.allocateBlock(blockLength);
+    if (block == null) {
+      // too many blocks are buffered, read the range without caching it
+      return delegate.readFully(blockStart + offsetInBlock, dst, dstOffset, length);
+    }
+    final CompletableFuture<Void> read;
+    try {
+      read = delegate.readFully(blockStart, block, 0, blockLength);
+    } catch (RuntimeException e) {
+      block.release();
+      throw e;
+    }
+    return read.whenComplete((v, e) -> {
+      if (e != null) {
+        block.release();
+        return;
+      }
+      try {
+        dst.setBytes(dstOffset, block, offsetInBlock, length);
+      } catch (RuntimeException ex) {
+        block.release();
+        throw ex;
+      }
+      cache.putAsync(key, dataset, block, blockLength, limitPct);
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> checkVersion(String version) {
+    return delegate.checkVersion(version);
+  }
+
+  @Override
+  public List<ReaderStat> getStats() {
+    final List<ReaderStat> stats = new ArrayList<>(delegate.getStats());
+    stats.add(new ReaderStat("blockCacheHitBytes", hitBytes.get()));
+    stats.add(new ReaderStat("blockCacheMissBytes", missBytes.get()));
+    return stats;
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (context != null && context.getStats() != null) {
+      context.getStats().addLongStat(ScanOperator.Metric.BLOCK_CACHE_HIT_BYTES, hitBytes.getAndSet(0));
+      context.getStats().addLongStat(ScanOperator.Metric.BLOCK_CACHE_MISS_BYTES, missBytes.getAndSet(0));
+    }
+    delegate.close();
+  }
+}
@@ -0,0 +1,757 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dremio.common.concurrent.NamedThreadFactory;
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.work.CacheManagerDatasetInfo;
+import com.dremio.exec.work.CacheManagerFilesInfo;
+import com.dremio.exec.work.CacheManagerMountPointInfo;
+import com.dremio.exec.work.CacheManagerStoragePluginInfo;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.NettyArrowBuf;
+
+/**
+ * Executor wide read-through cache of the blocks of remote files, stored on the local disks of the executor.
+ *
+ * Files are split in fixed size blocks, identified by the source, path and version of the file and the index of
+ * the block. A new version of a file never hits the blocks of the previous one, which age out of the cache.
+ *
+ * Each mount point is bounded by its quota of the disk and keeps a minimum of free space on it, and each source
+ * is bounded by its share of the space of all the mount points. Blocks are evicted with a segmented LRU policy,
+ * per mount point and source: blocks read once are evicted before blocks read again, so that a single large scan
+ * does not flush the blocks read repeatedly.
+ *
+ * The index of the blocks is kept in memory, the blocks left on disk by a previous run are deleted on startup.
+ */
+public class LocalBlockCache implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(LocalBlockCache.class);
+
+  static final String CACHE_DIR_NAME = "block-cache";
+  private static final int SUB_DIR_COUNT = 256;
+  private static final int MAX_PENDING_WRITES = 64;
+  // blocks read from the sources or waiting to be written, beyond them reads skip the cache
+  private static final int MAX_BUFFERED_BLOCKS = 2 * MAX_PENDING_WRITES;
+  private static final int MAX_FILE_LENGTHS = 100_000;
+  // share of the space of a segmented LRU given to the blocks read more than once
+  private static final double PROTECTED_RATIO = 0.8;
+
+  private final String hostname;
+  private final int blockSize;
+  private final List<MountPoint> mountPoints;
+  private final long totalMaxSpace;
+  private final Executor writeExecutor;
+  private final BufferAllocator allocator;
+  private final AtomicLong nextFileId = new AtomicLong();
+  private final Cache<FileVersion, Long> fileLengths = CacheBuilder.newBuilder()
+    .maximumSize(MAX_FILE_LENGTHS)
+    .build();
+
+  // guarded by this
+  private final Map<BlockKey, Block> blocks = new HashMap<>();
+  private final Map<String, PluginUsage> plugins = new HashMap<>();
+
+  @VisibleForTesting
+  LocalBlockCache(String hostname, int blockSize, List<MountPoint> mountPoints, Executor writeExecutor,
+                  BufferAllocator allocator) {
+    this.hostname = hostname;
+    this.blockSize = blockSize;
+    this.mountPoints = mountPoints;
+    this.totalMaxSpace = mountPoints.stream().mapToLong(mountPoint -> mountPoint.maxSpace).sum();
+    this.writeExecutor = writeExecutor;
+    this.allocator = allocator;
+  }
+
+  /**
+   * Create the cache on the file system mount points of the executor.
+   *
+   * @param config config of the node, listing the mount points and their quotas
+   * @param endpoint endpoint of the executor
+   * @param parentAllocator allocator of the node, the blocks read from the sources are allocated from a child of it
+   * @param blockSize size of the cached blocks
+   */
+  public static LocalBlockCache create(DremioConfig config, NodeEndpoint endpoint, BufferAllocator parentAllocator,
+                                       int blockSize) throws IOException {
+    final List<String> paths = config.getStringList(DremioConfig.CACHE_FS_PATH_LIST);
+    final List<Integer> quotas = config.getIntList(DremioConfig.CACHE_FS_QUOTA_LIST);
+    final List<Integer> ensureFree = config.getIntList(DremioConfig.CACHE_FS_ENSURE_FREE_SPACE_LIST);
+    final boolean isYarnDeployment = config.getBoolean(DremioConfig.YARN_ENABLED_BOOL);
+
+    final List<MountPoint> mountPoints = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      Path baseDir = Paths.get(paths.get(i));
+      if (isYarnDeployment) {
+        baseDir = baseDir.resolve(Integer.toString(endpoint.getFabricPort()));
+      }
+      final Path dir = baseDir.resolve(CACHE_DIR_NAME);
+      mountPoints.add(MountPoint.create(i, dir, getOrLast(quotas, i, 100), getOrLast(ensureFree, i, 0)));
+    }
+    if (mountPoints.isEmpty()) {
+      throw new IOException("No mount point configured for the block cache");
+    }
+
+    final ThreadPoolExecutor writeExecutor = new ThreadPoolExecutor(mountPoints.size(), mountPoints.size(),
+      60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_PENDING_WRITES), new NamedThreadFactory("block-cache-writer-"));
+    writeExecutor.allowCoreThreadTimeOut(true);
+    final BufferAllocator allocator = parentAllocator.newChildAllocator(CACHE_DIR_NAME, 0,
+      (long) MAX_BUFFERED_BLOCKS * blockSize);
+    return new LocalBlockCache(endpoint.getAddress(), blockSize, mountPoints, writeExecutor, allocator);
+  }
+
+  /**
+   * @return the setting of a mount point, the last one if fewer settings than mount points are listed
+   */
+  private static int getOrLast(List<Integer> settings, int index, int defaultValue) {
+    if (settings.isEmpty()) {
+      return defaultValue;
+    }
+    return settings.get(Math.min(index, settings.size() - 1));
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Allocate a buffer for a block read from its source, and then handed over to {@link #putAsync}.
+   *
+   * @return the buffer, or null if too many blocks are already buffered
+   */
+  public ByteBuf allocateBlock(int length) {
+    try {
+      return NettyArrowBuf.unwrapBuffer(allocator.buffer(length));
+    } catch (OutOfMemoryException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Get the length of a version of a file, loading it if it is not known yet.
+   */
+  public long getFileLength(String pluginId, String path, String version, Callable<Long> loader) throws IOException {
+    try {
+      return fileLengths.get(new FileVersion(pluginId, path, version), loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException("Failed to get the length of " + path, e.getCause());
+    }
+  }
+
+  /**
+   * Read a range of a block from the cache.
+   *
+   * @param key block to read
+   * @param offset offset of the range in the block
+   * @param dst buffer to read into
+   * @param dstOffset offset in the buffer
+   * @param length length of the range
+   * @return false if the block is not cached, nothing is read in that case
+   */
+  public boolean read(BlockKey key, int offset, ByteBuf dst, int dstOffset, int length) {
+    final Block block;
+    synchronized (this) {
+      block = blocks.get(key);
+      if (block == null || !block.ready || offset + length > block.length) {
+        return false;
+      }
+      block.lastAccess = System.currentTimeMillis();
+      block.mountPoint.slru(key.pluginId).access(block);
+    }
+
+    final long start = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(block.file, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = dst.nioBuffer(dstOffset, length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, offset + buffer.position()) < 0) {
+          throw new IOException("Unexpected end of cached block " + block.file);
+        }
+      }
+    } catch (IOException e) {
+      // most likely evicted since it was looked up
+      logger.debug("Failed to read cached block {}", key, e);
+      remove(block);
+      return false;
+    }
+    block.mountPoint.reads.incrementAndGet();
+    block.mountPoint.readNanos.addAndGet(System.nanoTime() - start);
+    return true;
+  }
+
+  /**
+   * Add a block to the cache in the background. Takes ownership of the buffer, released once the block is written.
+   *
+   * @param key block to add
+   * @param dataset name of the dataset of the file
+   * @param data content of the block
+   * @param length length of the block
+   * @param limitPct share of the cache the source of the file may use
+   */
+  public void putAsync(BlockKey key, String dataset, ByteBuf data, int length, int limitPct) {
+    try {
+      writeExecutor.execute(() -> {
+        try {
+          put(key, dataset, data, length, limitPct);
+        } finally {
+          data.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // too many blocks waiting to be written, skip this one
+      data.release();
+    }
+  }
+
+  @VisibleForTesting
+  void put(BlockKey key, String dataset, ByteBuf data, int length, int limitPct) {
+    final MountPoint mountPoint = mountPoints.get(Math.floorMod(key.hashCode(), mountPoints.size()));
+    final long usableSpace = mountPoint.getUsableSpace();
+    final List<Block> victims = new ArrayList<>();
+    final Block block;
+    synchronized (this) {
+      if (blocks.containsKey(key)) {
+        return;
+      }
+      final PluginUsage usage = plugins.computeIfAbsent(key.pluginId, PluginUsage::new);
+      usage.limitPct = limitPct;
+      final long pluginMaxSpace = usage.getMaxSpace(totalMaxSpace);
+      if (length > pluginMaxSpace || length > mountPoint.maxSpace) {
+        return;
+      }
+
+      long freed = 0;
+      while (usage.usedSpace + length > pluginMaxSpace) {
+        final Block victim = pluginVictim(key.pluginId);
+        if (victim == null) {
+          break;
+        }
+        evict(victim, victims);
+        if (victim.mountPoint == mountPoint) {
+          freed += victim.length;
+        }
+      }
+      while (mountPoint.usedSpace + length > mountPoint.maxSpace
+        || usableSpace + freed - length < mountPoint.ensureFreeSpace) {
+        final Block victim = mountPoint.victim();
+        if (victim == null) {
+          break;
+        }
+        evict(victim, victims);
+        freed += victim.length;
+      }
+
+      if (usage.usedSpace + length > pluginMaxSpace || mountPoint.usedSpace + length > mountPoint.maxSpace
+        || usableSpace + freed - length < mountPoint.ensureFreeSpace) {
+        block = null;
+      } else {
+        block = new Block(key, dataset, mountPoint, mountPoint.newFile(nextFileId.incrementAndGet()), length);
+        blocks.put(key, block);
+        mountPoint.add(block);
+        usage.add(block);
+      }
+    }
+
+    deleteFiles(victims);
+    if (block == null) {
+      return;
+    }
+
+    final long start = System.nanoTime();
+    final Path tmpFile = block.file.resolveSibling(block.file.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+        final ByteBuffer buffer = data.nioBuffer(0, length);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(tmpFile, block.file, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warn("Failed to write block {} to {}", key, block.file, e);
+      deleteQuietly(tmpFile);
+      remove(block);
+      return;
+    }
+    mountPoint.writes.incrementAndGet();
+    mountPoint.writeNanos.addAndGet(System.nanoTime() - start);
+    final boolean evicted;
+    synchronized (this) {
+      evicted = blocks.get(key) != block;
+      block.ready = !evicted;
+    }
+    if (evicted) {
+      // evicted while it was written
+      deleteQuietly(block.file);
+    }
+  }
+
+  private Block pluginVictim(String pluginId) {
+    Block victim = null;
+    for (MountPoint mountPoint : mountPoints) {
+      final Slru slru = mountPoint.slrus.get(pluginId);
+      victim = Slru.older(victim, slru == null ? null : slru.victim());
+    }
+    return victim;
+  }
+
+  private void evict(Block victim, List<Block> victims) {
+    removeFromIndex(victim);
+    victim.mountPoint.latestEvictionTime = System.currentTimeMillis();
+    victim.mountPoint.latestEvictedBytes = victim.length;
+    victims.add(victim);
+  }
+
+  private void remove(Block block) {
+    final boolean removed;
+    synchronized (this) {
+      removed = blocks.get(block.key) == block;
+      if (removed) {
+        removeFromIndex(block);
+      }
+    }
+    if (removed) {
+      deleteQuietly(block.file);
+    }
+  }
+
+  // guarded by this
+  private void removeFromIndex(Block block) {
+    blocks.remove(block.key);
+    block.mountPoint.remove(block);
+    plugins.get(block.key.pluginId).remove(block);
+  }
+
+  private static void deleteFiles(List<Block> victims) {
+    for (Block victim : victims) {
+      deleteQuietly(victim.file);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.debug("Failed to delete {}", file, e);
+    }
+  }
+
+  public List<CacheManagerMountPointInfo> getMountPointStats() {
+    final List<CacheManagerMountPointInfo> stats = new ArrayList<>();
+    for (MountPoint mountPoint : mountPoints) {
+      final long usedSpace;
+      final long fileCount;
+      synchronized (this) {
+        usedSpace = mountPoint.usedSpace;
+        fileCount = mountPoint.fileCount;
+      }
+      final long freeSpace = mountPoint.getUsableSpace();
+      stats.add(new CacheManagerMountPointInfo(hostname, mountPoint.dir.toString(), mountPoint.id, SUB_DIR_COUNT,
+        fileCount, mountPoint.maxSpace, usedSpace, average(mountPoint.readNanos, mountPoint.reads),
+        average(mountPoint.writeNanos, mountPoint.writes), "ENABLED",
+        usedSpace >= mountPoint.maxSpace || freeSpace <= mountPoint.ensureFreeSpace ? "FULL" : "AVAILABLE",
+        mountPoint.totalSpace, freeSpace, mountPoint.latestEvictionTime, mountPoint.latestEvictedBytes));
+    }
+    return stats;
+  }
+
+  public synchronized List<CacheManagerStoragePluginInfo> getStoragePluginStats() {
+    final List<CacheManagerStoragePluginInfo> stats = new ArrayList<>();
+    for (PluginUsage usage : plugins.values()) {
+      stats.add(new CacheManagerStoragePluginInfo(hostname, usage.pluginId, usage.fileCount, usage.usedSpace,
+        usage.getMaxSpace(totalMaxSpace)));
+    }
+    return stats;
+  }
+
+  /**
+   * @return the cached datasets, with the access times of the most recently read 25, 50, 75 and 100% of their blocks
+   */
+  public List<CacheManagerDatasetInfo> getDatasetStats() {
+    final Map<List<String>, List<Block>> datasets = new HashMap<>();
+    synchronized (this) {
+      for (Block block : blocks.values()) {
+        if (block.ready) {
+          datasets.computeIfAbsent(Arrays.asList(block.key.pluginId, block.dataset), k -> new ArrayList<>()).add(block);
+        }
+      }
+    }
+
+    final List<CacheManagerDatasetInfo> stats = new ArrayList<>();
+    for (Map.Entry<List<String>, List<Block>> dataset : datasets.entrySet()) {
+      final List<Block> datasetBlocks = dataset.getValue();
+      datasetBlocks.sort(Comparator.comparingLong((Block block) -> block.lastAccess).reversed());
+      final Set<String> files = new HashSet<>();
+      long totalBytes = 0;
+      for (Block block : datasetBlocks) {
+        files.add(block.key.path);
+        totalBytes += block.length;
+      }
+      final Timestamp[] percentiles = new Timestamp[4];
+      long bytes = 0;
+      int next = 0;
+      for (Block block : datasetBlocks) {
+        bytes += block.length;
+        while (next < percentiles.length && bytes * percentiles.length >= totalBytes * (next + 1)) {
+          percentiles[next++] = new Timestamp(block.lastAccess);
+        }
+      }
+      stats.add(new CacheManagerDatasetInfo(hostname, dataset.getKey().get(1), dataset.getKey().get(0), files.size(),
+        percentiles[0], percentiles[1], percentiles[2], percentiles[3]));
+    }
+    return stats;
+  }
+
+  public synchronized List<CacheManagerFilesInfo> getCachedFilesStats() {
+    final List<CacheManagerFilesInfo> stats = new ArrayList<>();
+    for (Block block : blocks.values()) {
+      if (block.ready) {
+        stats.add(new CacheManagerFilesInfo(hostname, block.key.pluginId, block.dataset, block.key.path,
+          block.key.version, block.key.blockIndex * blockSize, new Timestamp(block.lastAccess)));
+      }
+    }
+    return stats;
+  }
+
+  private static long average(AtomicLong total, AtomicLong count) {
+    final long n = count.get();
+    return n == 0 ? 0 : total.get() / n;
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (writeExecutor instanceof ExecutorService) {
+      ((ExecutorService) writeExecutor).shutdown();
+      if (!((ExecutorService) writeExecutor).awaitTermination(10, TimeUnit.SECONDS)) {
+        logger.warn("Blocks are still being written to the cache, not closing its allocator");
+        return;
+      }
+    }
+    allocator.close();
+  }
+
+  /**
+   * Identifies a block of a version of a file.
+   */
+  public static final class BlockKey {
+    private final String pluginId;
+    private final String path;
+    private final String version;
+    private final long blockIndex;
+
+    public BlockKey(String pluginId, String path, String version, long blockIndex) {
+      this.pluginId = pluginId;
+      this.path = path;
+      this.version = version;
+      this.blockIndex = blockIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final BlockKey that = (BlockKey) o;
+      return blockIndex == that.blockIndex && pluginId.equals(that.pluginId) && path.equals(that.path)
+        && version.equals(that.version);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(pluginId, path, version, blockIndex);
+    }
+
+    @Override
+    public String toString() {
+      return pluginId + ":" + path + "@" + version + "#" + blockIndex;
+    }
+  }
+
+  private static final class FileVersion {
+    private final String pluginId;
+    private final String path;
+    private final String version;
+
+    private FileVersion(String pluginId, String path, String version) {
+      this.pluginId = pluginId;
+      this.path = path;
+      this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final FileVersion that = (FileVersion) o;
+      return pluginId.equals(that.pluginId) && path.equals(that.path) && version.equals(that.version);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(pluginId, path, version);
+    }
+  }
+
+  private static final class Block {
+    private final BlockKey key;
+    private final String dataset;
+    private final MountPoint mountPoint;
+    private final Path file;
+    private final int length;
+    // guarded by the cache
+    private boolean ready;
+    private boolean protectedSegment;
+    private long lastAccess = System.currentTimeMillis();
+
+    private Block(BlockKey key, String dataset, MountPoint mountPoint, Path file, int length) {
+      this.key = key;
+      this.dataset = dataset;
+      this.mountPoint = mountPoint;
+      this.file = file;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Space used by a source in the cache, guarded by the cache.
+   */
+  private static final class PluginUsage {
+    private final String pluginId;
+    private int limitPct = 100;
+    private long usedSpace;
+    private long fileCount;
+
+    private PluginUsage(String pluginId) {
+      this.pluginId = pluginId;
+    }
+
+    private long getMaxSpace(long totalMaxSpace) {
+      return totalMaxSpace * limitPct / 100;
+    }
+
+    private void add(Block block) {
+      usedSpace += block.length;
+      fileCount++;
+    }
+
+    private void remove(Block block) {
+      usedSpace -= block.length;
+      fileCount--;
+    }
+  }
+
+  /**
+   * Segmented LRU of the blocks of a source on a mount point, guarded by the cache. Blocks enter the probationary
+   * segment and move to the protected segment when read again. The protected segment is bounded to a share of the
+   * space, its least recently used blocks going back to the probationary segment.
+   */
+  private static final class Slru {
+    private final LinkedHashMap<BlockKey, Block> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<BlockKey, Block> protectedBlocks = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedSpace;
+    private long protectedSpace;
+
+    private void add(Block block) {
+      probation.put(block.key, block);
+      usedSpace += block.length;
+    }
+
+    private void access(Block block) {
+      if (block.protectedSegment) {
+        protectedBlocks.get(block.key);
+        return;
+      }
+      probation.remove(block.key);
+      protectedBlocks.put(block.key, block);
+      block.protectedSegment = true;
+      protectedSpace += block.length;
+
+      final Iterator<Block> iterator = protectedBlocks.values().iterator();
+      while (protectedSpace > usedSpace * PROTECTED_RATIO && iterator.hasNext()) {
+        final Block demoted = iterator.next();
+        iterator.remove();
+        demoted.protectedSegment = false;
+        protectedSpace -= demoted.length;
+        probation.put(demoted.key, demoted);
+      }
+    }
+
+    private void remove(Block block) {
+      if (block.protectedSegment) {
+        protectedBlocks.remove(block.key);
+        protectedSpace -= block.length;
+      } else {
+        probation.remove(block.key);
+      }
+      usedSpace -= block.length;
+    }
+
+    private Block victim() {
+      final Map<BlockKey, Block> segment = probation.isEmpty() ? protectedBlocks : probation;
+      return segment.isEmpty() ? null : segment.values().iterator().next();
+    }
+
+    /**
+     * @return the block to evict first out of two candidates: a probationary block before a protected one, and the
+     * least recently used one otherwise
+     */
+    private static Block older(Block a, Block b) {
+      if (a == null || b == null) {
+        return a == null ? b : a;
+      }
+      if (a.protectedSegment != b.protectedSegment) {
+        return a.protectedSegment ? b : a;
+      }
+      return a.lastAccess <= b.lastAccess ? a : b;
+    }
+  }
+
+  /**
+   * Directory of a local disk holding cached blocks.
+   */
+  @VisibleForTesting
+  static final class MountPoint {
+    private final int id;
+    private final Path dir;
+    private final long totalSpace;
+    private final long maxSpace;
+    private final long ensureFreeSpace;
+    // guarded by the cache
+    private final Map<String, Slru> slrus = new HashMap<>();
+    private long usedSpace;
+    private long fileCount;
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong readNanos = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private volatile long latestEvictionTime;
+    private volatile long latestEvictedBytes;
+
+    @VisibleForTesting
+    MountPoint(int id, Path dir, long totalSpace, long maxSpace, long ensureFreeSpace) throws IOException {
+      this.id = id;
+      this.dir = dir;
+      this.totalSpace = totalSpace;
+      this.maxSpace = maxSpace;
+      this.ensureFreeSpace = ensureFreeSpace;
+      prepare();
+    }
+
+    private static MountPoint create(int id, Path dir, int quotaPct, int ensureFreePct) throws IOException {
+      Files.createDirectories(dir);
+      final long totalSpace = dir.toFile().getTotalSpace();
+      return new MountPoint(id, dir, totalSpace, totalSpace * quotaPct / 100, totalSpace * ensureFreePct / 100);
+    }
+
+    /**
+     * Delete the blocks left by a previous run, and create the sub directories spreading the blocks.
+     */
+    private void prepare() throws IOException {
+      if (Files.exists(dir)) {
+        try (Stream<Path> files = Files.walk(dir)) {
+          files.sorted(Comparator.reverseOrder())
+            .filter(path -> !path.equals(dir))
+            .forEach(LocalBlockCache::deleteQuietly);
+        }
+      }
+      for (int i = 0; i < SUB_DIR_COUNT; i++) {
+        Files.createDirectories(dir.resolve(String.format("%02x", i)));
+      }
+      logger.info("Caching blocks in {}, using up to {} bytes", dir, maxSpace);
+    }
+
+    private Path newFile(long fileId) {
+      return dir.resolve(String.format("%02x", fileId % SUB_DIR_COUNT)).resolve(Long.toString(fileId));
+    }
+
+    private long getUsableSpace() {
+      return dir.toFile().getUsableSpace();
+    }
+
+    private Slru slru(String pluginId) {
+      return slrus.computeIfAbsent(pluginId, k -> new Slru());
+    }
+
+    private void add(Block block) {
+      slru(block.key.pluginId).add(block);
+      usedSpace += block.length;
+      fileCount++;
+    }
+
+    private void remove(Block block) {
+      slrus.get(block.key.pluginId).remove(block);
+      usedSpace -= block.length;
+      fileCount--;
+    }
+
+    private Block victim() {
+      Block victim = null;
+      for (Slru slru : slrus.values()) {
+        victim = Slru.older(victim, slru.victim());
+      }
+      return victim;
+    }
+  }
+}
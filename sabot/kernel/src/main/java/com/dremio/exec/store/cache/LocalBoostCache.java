@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dremio.common.collections.Tuple;
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.io.AsyncByteReader.ReaderStat;
+import com.dremio.io.FSInputStream;
+import com.dremio.io.FSOutputStream;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Executor wide store of the boost files of the sources, the columns of the row groups of parquet files written in
+ * arrow format by the boost operator, stored on the local disks of the executor.
+ *
+ * Boost files are identified by the source and path of the parquet file, the row group and the column, and record
+ * the version of the parquet file they were written from. A boost file is only served for that version: once a
+ * newer version of the parquet file is read, all its boost files are deleted.
+ *
+ * A boost file is written to a temporary file, and only becomes visible once committed. The boost files are bounded
+ * by a maximum space, the least recently read ones being evicted first.
+ *
+ * The index of the boost files is kept in memory, the files left on disk by a previous run are deleted on startup.
+ */
+public class LocalBoostCache implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(LocalBoostCache.class);
+
+  static final String BOOST_DIR_NAME = "boost-cache";
+  // stats added by the streams over the boost files
+  public static final String BYTES_READ_STAT = "boostedBytesRead";
+  public static final String READ_TIME_STAT = "boostedReadTimeNs";
+  private static final String TMP_SUFFIX = ".tmp";
+
+  private final List<Path> dirs;
+  private final long maxSpace;
+  private final AtomicLong nextFileId = new AtomicLong();
+
+  // guarded by this, committed files in access order
+  private final LinkedHashMap<BoostKey, BoostFile> files = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<BoostKey, BoostFile> inFlight = new HashMap<>();
+  private long usedSpace;
+
+  @VisibleForTesting
+  LocalBoostCache(List<Path> dirs, long maxSpace) throws IOException {
+    this.dirs = dirs;
+    this.maxSpace = maxSpace;
+    for (Path dir : dirs) {
+      prepare(dir);
+    }
+    logger.info("Storing boost files in {}, using up to {} bytes", dirs, maxSpace);
+  }
+
+  /**
+   * Create the store on the file system mount points of the executor.
+   *
+   * @param config config of the node, listing the mount points
+   * @param endpoint endpoint of the executor
+   * @param maxSpace space of all the boost files
+   */
+  public static LocalBoostCache create(DremioConfig config, NodeEndpoint endpoint, long maxSpace) throws IOException {
+    final boolean isYarnDeployment = config.getBoolean(DremioConfig.YARN_ENABLED_BOOL);
+    final List<Path> dirs = new ArrayList<>();
+    for (String path : config.getStringList(DremioConfig.CACHE_FS_PATH_LIST)) {
+      Path baseDir = Paths.get(path);
+      if (isYarnDeployment) {
+        baseDir = baseDir.resolve(Integer.toString(endpoint.getFabricPort()));
+      }
+      dirs.add(baseDir.resolve(BOOST_DIR_NAME));
+    }
+    if (dirs.isEmpty()) {
+      throw new IOException("No mount point configured for the boost files");
+    }
+    return new LocalBoostCache(dirs, maxSpace);
+  }
+
+  /**
+   * Delete the boost files left by a previous run.
+   */
+  private static void prepare(Path dir) throws IOException {
+    if (Files.exists(dir)) {
+      try (Stream<Path> paths = Files.walk(dir)) {
+        paths.sorted(Comparator.reverseOrder())
+          .filter(path -> !path.equals(dir))
+          .forEach(LocalBoostCache::deleteQuietly);
+      }
+    }
+    Files.createDirectories(dir);
+  }
+
+  /**
+   * Start writing a boost file, visible once committed.
+   *
+   * @throws IOException if the boost file is already being written
+   */
+  public FSOutputStream create(BoostKey key, String version) throws IOException {
+    final Path dir = dirs.get(Math.floorMod(key.hashCode(), dirs.size()));
+    final BoostFile boostFile = new BoostFile(key, version, dir.resolve(Long.toString(nextFileId.incrementAndGet())));
+    synchronized (this) {
+      if (inFlight.containsKey(key)) {
+        throw new IOException("Boost file " + key + " is already being written");
+      }
+      inFlight.put(key, boostFile);
+    }
+
+    try {
+      return new BoostFileOutputStream(FileChannel.open(boostFile.tmpFile(), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE));
+    } catch (IOException | RuntimeException e) {
+      synchronized (this) {
+        inFlight.remove(key);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Make a boost file written with {@link #create(BoostKey, String)} visible, evicting the least recently read boost
+   * files to make room for it.
+   */
+  public void commit(BoostKey key, String version) throws IOException {
+    final BoostFile boostFile = takeInFlight(key, version);
+    final List<BoostFile> victims = new ArrayList<>();
+    try {
+      boostFile.length = Files.size(boostFile.tmpFile());
+      if (boostFile.length > maxSpace) {
+        throw new IOException(String.format("Boost file %s of %d bytes exceeds the space of the boost files",
+          key, boostFile.length));
+      }
+      Files.move(boostFile.tmpFile(), boostFile.file, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      deleteQuietly(boostFile.tmpFile());
+      throw e;
+    }
+
+    synchronized (this) {
+      final BoostFile previous = files.remove(key);
+      if (previous != null) {
+        usedSpace -= previous.length;
+        victims.add(previous);
+      }
+      final Iterator<BoostFile> lru = files.values().iterator();
+      while (usedSpace + boostFile.length > maxSpace && lru.hasNext()) {
+        final BoostFile victim = lru.next();
+        lru.remove();
+        usedSpace -= victim.length;
+        victims.add(victim);
+      }
+      files.put(key, boostFile);
+      usedSpace += boostFile.length;
+    }
+    deleteFiles(victims);
+  }
+
+  /**
+   * Discard a boost file written with {@link #create(BoostKey, String)}.
+   */
+  public void abort(BoostKey key, String version) throws IOException {
+    deleteQuietly(takeInFlight(key, version).tmpFile());
+  }
+
+  private synchronized BoostFile takeInFlight(BoostKey key, String version) throws IOException {
+    final BoostFile boostFile = inFlight.get(key);
+    if (boostFile == null || !boostFile.version.equals(version)) {
+      throw new IOException("Boost file " + key + "@" + version + " is not being written");
+    }
+    inFlight.remove(key);
+    return boostFile;
+  }
+
+  /**
+   * Open a boost file for reading.
+   *
+   * @param key boost file to open
+   * @param version version of the parquet file being read
+   * @param stats stats of the reads, completed when the stream is closed
+   * @return the stream and the length of the boost file, or null if there is no boost file for that version
+   */
+  public Tuple<FSInputStream, Long> open(BoostKey key, String version, List<ReaderStat> stats) {
+    final BoostFile boostFile;
+    synchronized (this) {
+      boostFile = files.get(key);
+      if (boostFile == null) {
+        return null;
+      }
+    }
+    if (!boostFile.version.equals(version)) {
+      // the parquet file was rewritten, its other boost files are stale too
+      invalidate(key.pluginId, key.path, version);
+      return null;
+    }
+
+    try {
+      final FileChannel channel = FileChannel.open(boostFile.file, StandardOpenOption.READ);
+      return Tuple.of(new BoostFileInputStream(channel, boostFile.length, stats), boostFile.length);
+    } catch (NoSuchFileException e) {
+      // evicted since it was looked up
+      return null;
+    } catch (IOException e) {
+      logger.debug("Failed to open boost file {}", boostFile.file, e);
+      remove(boostFile);
+      return null;
+    }
+  }
+
+  private void invalidate(String pluginId, String path, String version) {
+    final List<BoostFile> victims = new ArrayList<>();
+    synchronized (this) {
+      final Iterator<BoostFile> iterator = files.values().iterator();
+      while (iterator.hasNext()) {
+        final BoostFile boostFile = iterator.next();
+        if (boostFile.key.pluginId.equals(pluginId) && boostFile.key.path.equals(path)
+          && !boostFile.version.equals(version)) {
+          iterator.remove();
+          usedSpace -= boostFile.length;
+          victims.add(boostFile);
+        }
+      }
+    }
+    deleteFiles(victims);
+  }
+
+  private void remove(BoostFile boostFile) {
+    final boolean removed;
+    synchronized (this) {
+      removed = files.get(boostFile.key) == boostFile;
+      if (removed) {
+        files.remove(boostFile.key);
+        usedSpace -= boostFile.length;
+      }
+    }
+    if (removed) {
+      deleteQuietly(boostFile.file);
+    }
+  }
+
+  @VisibleForTesting
+  synchronized long getUsedSpace() {
+    return usedSpace;
+  }
+
+  private static void deleteFiles(List<BoostFile> victims) {
+    for (BoostFile victim : victims) {
+      deleteQuietly(victim.file);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.debug("Failed to delete {}", file, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    final List<BoostFile> pending;
+    synchronized (this) {
+      pending = new ArrayList<>(inFlight.values());
+      inFlight.clear();
+    }
+    for (BoostFile boostFile : pending) {
+      deleteQuietly(boostFile.tmpFile());
+    }
+  }
+
+  /**
+   * Identifies the boost file of a column of a row group of a parquet file.
+   */
+  public static final class BoostKey {
+    private final String pluginId;
+    private final String path;
+    private final long rowGroupIndex;
+    private final String column;
+
+    public BoostKey(String pluginId, String path, long rowGroupIndex, String column) {
+      this.pluginId = pluginId;
+      this.path = path;
+      this.rowGroupIndex = rowGroupIndex;
+      this.column = column;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final BoostKey that = (BoostKey) o;
+      return rowGroupIndex == that.rowGroupIndex && pluginId.equals(that.pluginId) && path.equals(that.path)
+        && column.equals(that.column);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(pluginId, path, rowGroupIndex, column);
+    }
+
+    @Override
+    public String toString() {
+      return pluginId + ":" + path + "#" + rowGroupIndex + "." + column;
+    }
+  }
+
+  private static final class BoostFile {
+    private final BoostKey key;
+    private final String version;
+    private final Path file;
+    private long length;
+
+    private BoostFile(BoostKey key, String version, Path file) {
+      this.key = key;
+      this.version = version;
+      this.file = file;
+    }
+
+    private Path tmpFile() {
+      return file.resolveSibling(file.getFileName() + TMP_SUFFIX);
+    }
+  }
+
+  private static final class BoostFileOutputStream extends FSOutputStream {
+    private final FileChannel channel;
+
+    private BoostFileOutputStream(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+      return channel.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /**
+   * Stream over a boost file, adding the number of bytes read and the time spent reading them to the stats when
+   * closed.
+   */
+  private static final class BoostFileInputStream extends FSInputStream {
+    private final FileChannel channel;
+    private final long length;
+    private final List<ReaderStat> stats;
+    private long position;
+    private long bytesRead;
+    private long readNanos;
+    private boolean closed;
+
+    private BoostFileInputStream(FileChannel channel, long length, List<ReaderStat> stats) {
+      this.channel = channel;
+      this.length = length;
+      this.stats = stats;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return read(ByteBuffer.wrap(b, off, len));
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      final int n = read(position, dst);
+      if (n > 0) {
+        position += n;
+      }
+      return n;
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) throws IOException {
+      if (position >= length) {
+        return -1;
+      }
+      final long start = System.nanoTime();
+      final int n = channel.read(dst, position);
+      readNanos += System.nanoTime() - start;
+      if (n > 0) {
+        bytesRead += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long getPosition() {
+      return position;
+    }
+
+    @Override
+    public void setPosition(long position) throws IOException {
+      if (position > length) {
+        throw new EOFException("Cannot move past the end of the boost file");
+      }
+      this.position = position;
+    }
+
+    @Override
+    public long skip(long n) {
+      final long skipped = Math.max(0, Math.min(n, length - position));
+      position += skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, length - position);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      channel.close();
+      if (stats != null) {
+        stats.add(new ReaderStat(BYTES_READ_STAT, bytesRead));
+        stats.add(new ReaderStat(READ_TIME_STAT, readNanos));
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.dremio.common.collections.Tuple;
+import com.dremio.exec.store.cache.LocalBoostCache.BoostKey;
+import com.dremio.io.AsyncByteReader.FileKey;
+import com.dremio.io.AsyncByteReader.ReaderStat;
+import com.dremio.io.FSInputStream;
+import com.dremio.io.FSOutputStream;
+import com.dremio.io.file.BoostedFileSystem;
+import com.google.common.base.Strings;
+
+/**
+ * Boost files of a source, stored in the {@link LocalBoostCache} of the executor.
+ */
+class LocalBoostedFileSystem implements BoostedFileSystem {
+  private final LocalBoostCache cache;
+  private final String storageId;
+
+  LocalBoostedFileSystem(LocalBoostCache cache, String storageId) {
+    this.cache = cache;
+    this.storageId = storageId;
+  }
+
+  @Override
+  public FSOutputStream createBoostFile(FileKey fileKey, long offset, String columnName) throws IOException {
+    return cache.create(key(fileKey, offset, columnName), version(fileKey));
+  }
+
+  @Override
+  public Tuple<FSInputStream, Long> getBoostFile(FileKey fileKey, long offset, String columnName,
+                                                 List<ReaderStat> stats, BufferAllocator allocator) {
+    if (Strings.isNullOrEmpty(fileKey.getVersion())) {
+      // without a version, a rewritten file could not be told apart from its boost files
+      return null;
+    }
+    return cache.open(key(fileKey, offset, columnName), fileKey.getVersion(), stats);
+  }
+
+  @Override
+  public void commitBoostFile(FileKey fileKey, long offset, String columnName) throws IOException {
+    cache.commit(key(fileKey, offset, columnName), version(fileKey));
+  }
+
+  @Override
+  public void abortBoostFile(FileKey fileKey, long offset, String columnName) throws IOException {
+    cache.abort(key(fileKey, offset, columnName), version(fileKey));
+  }
+
+  private BoostKey key(FileKey fileKey, long offset, String columnName) {
+    return new BoostKey(storageId, fileKey.getPath().toString(), offset, columnName.toLowerCase());
+  }
+
+  private static String version(FileKey fileKey) throws IOException {
+    if (Strings.isNullOrEmpty(fileKey.getVersion())) {
+      throw new IOException("Cannot boost " + fileKey.getPath() + " without a version");
+    }
+    return fileKey.getVersion();
+  }
+}
@@ -20,6 +20,7 @@ import java.util.List;
 import com.dremio.exec.catalog.conf.ConnectionConf;
 import com.dremio.exec.catalog.conf.Property;
 import com.dremio.io.file.Path;
+import com.dremio.options.OptionManager;
 
 public abstract class FileSystemConf<C extends FileSystemConf<C, P>, P extends FileSystemPlugin<C>> extends ConnectionConf<C, P> implements AsyncStreamConf {
   public abstract Path getPath();
@@ -66,6 +67,11 @@ public abstract class FileSystemConf<C extends FileSystemConf<C, P>, P extends F
      */
     public static CacheProperties of(boolean enabled, int limitPct) {
       return new CacheProperties() {
+        @Override
+        public boolean isCachingEnabled(OptionManager optionManager) {
+          return enabled;
+        }
+
         @Override
         public int cacheMaxSpaceLimitPct() {
           return limitPct;
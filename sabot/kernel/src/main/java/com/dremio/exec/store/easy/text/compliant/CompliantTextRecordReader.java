@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.memory.OutOfMemoryException;
@@ -65,6 +66,8 @@ public class CompliantTextRecordReader extends AbstractRecordReader {
   private TextReader reader;
   // input buffer
   private ArrowBuf readBuffer;
+  // staging buffer of the chunk read ahead, null when the input is not read ahead
+  private ArrowBuf readAheadBuffer;
   // working buffer to handle whitespaces
   private ArrowBuf whitespaceBuffer;
   private final CompressionCodecFactory codecFactory;
@@ -128,10 +131,15 @@ public class CompliantTextRecordReader extends AbstractRecordReader {
 
       readBuffer = this.context.getAllocator().buffer(READ_BUFFER);
       whitespaceBuffer = this.context.getAllocator().buffer(WHITE_SPACE_BUFFER);
+      final ExecutorService readAheadExecutor = getReadAheadExecutor();
+      if (readAheadExecutor != null) {
+        readAheadBuffer = this.context.getAllocator().buffer(READ_BUFFER);
+      }
 
       // setup Input using InputStream
       FSInputStream stream = FileSystemUtils.openPossiblyCompressedStream(codecFactory, dfs, Path.of(split.getPath().toUri()));
-      TextInput input = new TextInput(settings, stream, readBuffer, split.getStart(), split.getStart() + split.getLength());
+      TextInput input = new TextInput(settings, stream, readBuffer, split.getStart(), split.getStart() + split.getLength(),
+        readAheadExecutor, readAheadBuffer);
 
       // setup Reader using Input and Output
       reader = new TextReader(settings, input, output, whitespaceBuffer);
@@ -153,6 +161,21 @@ public class CompliantTextRecordReader extends AbstractRecordReader {
     }
   }
 
+  /**
+   * @return the executor reading the input ahead, null if the input should be read synchronously
+   */
+  private ExecutorService getReadAheadExecutor() {
+    if (!context.getOptions().getOption(ExecConstants.TEXT_READ_AHEAD_ENABLED)) {
+      return null;
+    }
+    try {
+      return context.getExecutor();
+    } catch (UnsupportedOperationException e) {
+      // contexts created outside of a fragment have no executor
+      return null;
+    }
+  }
+
   private String[] readFirstLineForColumnNames() throws ExecutionSetupException, SchemaChangeException, IOException {
     // setup Output using OutputMutator
     // we should use a separate output mutator to avoid reshaping query output with header data
@@ -292,10 +315,11 @@ public class CompliantTextRecordReader extends AbstractRecordReader {
   @Override
   public void close() throws Exception {
     try {
-      AutoCloseables.close(reader, readBuffer, whitespaceBuffer);
+      AutoCloseables.close(reader, readBuffer, readAheadBuffer, whitespaceBuffer);
     } finally {
       reader = null;
       readBuffer = null;
+      readAheadBuffer = null;
       whitespaceBuffer = null;
     }
   }
@@ -21,6 +21,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.vector.VarCharVector;
 import org.apache.arrow.vector.types.Types.MinorType;
 import org.apache.arrow.vector.types.pojo.Field;
@@ -150,6 +151,20 @@ class FieldVarCharOutput extends TextOutput {
     fieldBytes[currentDataPointer++] = data;
   }
 
+  @Override
+  public void append(ArrowBuf buffer, int index, int length) {
+    if (!collect) {
+      return;
+    }
+
+    if (currentDataPointer + length > MAX_FIELD_LENGTH) {
+      throw FieldSizeLimitExceptionHelper.createFieldSizeLimitException(MAX_FIELD_LENGTH, MAX_FIELD_LENGTH, currentFieldIndex, logger);
+    }
+
+    buffer.getBytes(index, fieldBytes, currentDataPointer, length);
+    currentDataPointer += length;
+  }
+
   @Override
   public boolean endField() {
     fieldOpen = false;
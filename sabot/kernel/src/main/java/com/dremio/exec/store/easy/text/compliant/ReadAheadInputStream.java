@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.text.compliant;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.util.LargeMemoryUtil;
+
+import com.dremio.io.FSInputStream;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Stream that reads the next chunk of the underlying stream in the background, while the caller parses the
+ * current one. Together with the buffer of the caller, the staging buffer makes a double buffer: the underlying
+ * stream is read into the staging buffer by the executor, and copied into the buffer of the caller on the next read.
+ *
+ * Works on top of any stream, including decompressing ones. Only sequential reads are read ahead.
+ *
+ * The staging buffer belongs to the caller, and is released once the stream is closed. Closing the stream cancels
+ * the read ahead if it didn't start yet, and waits for it to finish otherwise, even when interrupted.
+ */
+final class ReadAheadInputStream extends FSInputStream {
+  private final FSInputStream input;
+  private final ExecutorService executor;
+  private final ByteBuffer staging;
+
+  // read of the underlying stream into the staging buffer, null if none is in flight
+  private ReadAhead pendingRead;
+  private Future<Integer> pending;
+  private boolean endOfStream;
+  // position of the next byte returned to the caller, the underlying stream is ahead of it
+  private long position;
+
+  ReadAheadInputStream(FSInputStream input, ExecutorService executor, ArrowBuf stagingBuffer) throws IOException {
+    this.input = input;
+    this.executor = executor;
+    this.staging = stagingBuffer.nioBuffer(0, LargeMemoryUtil.checkedCastToInt(stagingBuffer.capacity()));
+    this.staging.limit(0);
+    this.position = input.getPosition();
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    awaitReadAhead();
+    if (!staging.hasRemaining()) {
+      if (endOfStream) {
+        return -1;
+      }
+      // nothing was read ahead yet, read this chunk synchronously and the next one in the background
+      final int n = input.read(dst);
+      if (n < 0) {
+        endOfStream = true;
+        return n;
+      }
+      position += n;
+      startReadAhead();
+      return n;
+    }
+
+    final int n = Math.min(dst.remaining(), staging.remaining());
+    final int limit = staging.limit();
+    staging.limit(staging.position() + n);
+    dst.put(staging);
+    staging.limit(limit);
+    position += n;
+    if (!staging.hasRemaining() && !endOfStream) {
+      startReadAhead();
+    }
+    return n;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    return read(ByteBuffer.wrap(b, off, len));
+  }
+
+  @Override
+  public int read() throws IOException {
+    final byte[] b = new byte[1];
+    int n;
+    do {
+      n = read(b, 0, 1);
+    } while (n == 0);
+    return n < 0 ? -1 : b[0] & 0xFF;
+  }
+
+  @Override
+  public int read(long position, ByteBuffer dst) throws IOException {
+    awaitReadAhead();
+    return input.read(position, dst);
+  }
+
+  @Override
+  public long getPosition() throws IOException {
+    return position;
+  }
+
+  @Override
+  public void setPosition(long position) throws IOException {
+    awaitReadAhead();
+    staging.limit(0);
+    endOfStream = false;
+    input.setPosition(position);
+    this.position = position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (pending != null) {
+        pendingRead.cancelOrAwait();
+        pending.cancel(false);
+        pending = null;
+        pendingRead = null;
+      }
+    } finally {
+      input.close();
+    }
+  }
+
+  private void startReadAhead() {
+    staging.clear();
+    pendingRead = new ReadAhead();
+    pending = executor.submit(pendingRead);
+  }
+
+  /**
+   * Read of the underlying stream into the staging buffer. Unlike the future of the task, it tells when the read
+   * is over once cancelled.
+   */
+  private final class ReadAhead implements Callable<Integer> {
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    @Override
+    public Integer call() throws IOException {
+      if (!started.compareAndSet(false, true)) {
+        // cancelled
+        return -1;
+      }
+      try {
+        return input.read(staging);
+      } finally {
+        finished.countDown();
+      }
+    }
+
+    /**
+     * Cancels the read if it didn't start yet, or waits for it to finish. The interrupt status of the thread is
+     * restored once the read is over.
+     */
+    private void cancelOrAwait() {
+      if (started.compareAndSet(false, true)) {
+        return;
+      }
+      Uninterruptibles.awaitUninterruptibly(finished);
+    }
+  }
+
+  private void awaitReadAhead() throws IOException {
+    if (pending == null) {
+      return;
+    }
+    final int n;
+    try {
+      n = pending.get();
+    } catch (InterruptedException e) {
+      // the read is still in flight, it is waited for on the next read or on closing the stream
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading ahead");
+    } catch (ExecutionException e) {
+      pending = null;
+      pendingRead = null;
+      staging.limit(0);
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException("Failure while reading ahead", e.getCause());
+    }
+    pending = null;
+    pendingRead = null;
+    if (n < 0) {
+      endOfStream = true;
+      staging.limit(0);
+    } else {
+      staging.flip();
+    }
+  }
+}
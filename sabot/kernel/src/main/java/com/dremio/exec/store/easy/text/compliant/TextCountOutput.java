@@ -17,6 +17,7 @@ package com.dremio.exec.store.easy.text.compliant;
 
 
 import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.memory.ArrowBuf;
 
 import com.dremio.exec.exception.SchemaChangeException;
 
@@ -59,6 +60,11 @@ public class TextCountOutput extends TextOutput  {
     // no-op
   }
 
+  @Override
+  public void append(ArrowBuf buffer, int index, int length) {
+    // no-op
+  }
+
   @Override
   public void finishRecord() {
     if (fieldOpen) {
@@ -34,6 +34,8 @@ package com.dremio.exec.store.easy.text.compliant;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.memory.BoundsChecking;
@@ -54,11 +56,20 @@ import io.netty.util.internal.PlatformDependent;
 final class TextInput {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TextInput.class);
 
+  private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+  private static final long LOW_BITS = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+
 //  private static final int READ_CHARS_LIMIT = 1024*64;
   private final byte[] lineSeparator;
   private final byte normalizedLineSeparator;
   private final TextParsingSettings settings;
 
+  // bytes ending a run of plain value bytes, repeated in each byte of a word
+  private final long delimiterPattern;
+  private final long newLinePattern;
+  private final long lineSeparatorPattern;
+
   private long lineCount;
   private long charCount;
 
@@ -103,6 +114,16 @@ final class TextInput {
    * normalizedLineSeparator the normalized newline character (as defined in {@link Format#getNormalizedNewline()}) that is used to replace any lineSeparator sequence found in the input.
    */
   public TextInput(TextParsingSettings settings, FSInputStream input, ArrowBuf readBuffer, long startPos, long endPos) {
+    this(settings, input, readBuffer, startPos, endPos, null, null);
+  }
+
+  /**
+   * Creates a new instance reading the input ahead in the background when an executor is given.
+   * @param executor executor reading the next chunk of the input while the current one is parsed, may be null
+   * @param readAheadBuffer buffer of the same size as readBuffer, staging the chunk read ahead, may be null
+   */
+  public TextInput(TextParsingSettings settings, FSInputStream input, ArrowBuf readBuffer, long startPos, long endPos,
+                   ExecutorService executor, ArrowBuf readAheadBuffer) {
     this.lineSeparator = settings.getNewLineDelimiter();
     byte normalizedLineSeparator = settings.getNormalizedNewLine();
     boolean isCompressed = input instanceof CompressedFSInputStream ;
@@ -113,8 +134,19 @@ final class TextInput {
       endPos = Long.MAX_VALUE;
     }
 
+    if (executor != null && readAheadBuffer != null) {
+      try {
+        input = new ReadAheadInputStream(input, executor, readAheadBuffer);
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Unable to read ahead the text input", e);
+      }
+    }
+
     this.input = input;
     this.settings = settings;
+    this.delimiterPattern = LOW_BITS * (settings.getDelimiter() & 0xFF);
+    this.newLinePattern = LOW_BITS * (normalizedLineSeparator & 0xFF);
+    this.lineSeparatorPattern = LOW_BITS * (lineSeparator[0] & 0xFF);
 
     this.startPos = startPos;
     this.endPos = endPos;
@@ -350,6 +382,43 @@ final class TextInput {
     return byteChar;
   }
 
+  /**
+   * Append to the output the run of bytes following the current one, up to the next delimiter, new line or first
+   * byte of the line separator, scanning the buffer a word at a time. The run stops before the last byte of the
+   * buffer, so that the next call to {@link #nextChar()} still refills the buffer and checks the line separators.
+   * @param output output receiving the bytes of the run
+   */
+  public final void appendPlainBytes(TextOutput output) {
+    final int start = bufferPtr - 1;
+    final int end = length - 1;
+    int pos = start;
+    while (pos + Long.BYTES <= end) {
+      // first byte of the input in the lowest byte of the word
+      final long word = LITTLE_ENDIAN ? PlatformDependent.getLong(bStart + pos)
+        : Long.reverseBytes(PlatformDependent.getLong(bStart + pos));
+      final long matches = matches(word, delimiterPattern) | matches(word, newLinePattern)
+        | matches(word, lineSeparatorPattern);
+      if (matches != 0) {
+        pos += Long.numberOfTrailingZeros(matches) >>> 3;
+        break;
+      }
+      pos += Long.BYTES;
+    }
+    if (pos > start) {
+      output.append(buffer, start, pos - start);
+      bufferPtr += pos - start;
+    }
+  }
+
+  /**
+   * Sets the high bit of the bytes of the word equal to the repeated byte. Bytes above the lowest match may be
+   * falsely flagged, only the lowest one is exact.
+   */
+  private static long matches(long word, long pattern) {
+    final long x = word ^ pattern;
+    return (x - LOW_BITS) & ~x & HIGH_BITS;
+  }
+
   /**
    * Number of lines read since the start of this split.
    * @return
@@ -15,6 +15,8 @@
  */
 package com.dremio.exec.store.easy.text.compliant;
 
+import org.apache.arrow.memory.ArrowBuf;
+
 /* Base class for producing output record batches while dealing with
  * Text files.
  */
@@ -61,6 +63,18 @@ abstract class TextOutput {
    */
   public abstract void append(byte data);
 
+  /**
+   * This function appends a run of bytes to the output character data buffer
+   * @param buffer  buffer holding the bytes read
+   * @param index  index of the first byte of the run in the buffer
+   * @param length  number of bytes in the run
+   */
+  public void append(ArrowBuf buffer, int index, int length) {
+    for (int i = 0; i < length; i++) {
+      append(buffer.getByte(index + i));
+    }
+  }
+
   /**
    * Completes the processing of a given record. Also completes the processing of the
    * last field being read.
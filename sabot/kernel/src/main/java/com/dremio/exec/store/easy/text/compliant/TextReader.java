@@ -210,6 +210,7 @@ final class TextReader implements AutoCloseable {
     byte ch = this.ch;
     while (ch != delimiter && ch != newLine) {
       output.append(ch);
+      input.appendPlainBytes(output);
       ch = input.nextChar();
     }
     this.ch = ch;
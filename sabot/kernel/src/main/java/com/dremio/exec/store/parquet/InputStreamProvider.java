@@ -52,6 +52,13 @@ public interface InputStreamProvider extends AutoCloseable {
    */
   boolean isSingleStream();
 
+  /**
+   * Reads the chunks of the given columns ahead of the {@link #getStream} calls for them, so that they can be read
+   * with a few merged requests rather than a request per chunk. Providers without an AsyncByteReader stream them.
+   */
+  default void prefetchColumns(List<ColumnChunkMetaData> columns) throws IOException {
+  }
+
   /**
    * Returns the AsyncByteReader associated with this object
    */
@@ -19,7 +19,11 @@ import java.io.IOException;
 import java.util.List;
 import java.util.function.Function;
 
+import org.apache.arrow.memory.BufferAllocator;
+
 import com.dremio.exec.ExecConstants;
+import com.dremio.io.AsyncByteReader;
+import com.dremio.io.CoalescingAsyncByteReader;
 import com.dremio.io.file.FileSystem;
 import com.dremio.io.file.Path;
 import com.dremio.options.OptionManager;
@@ -56,10 +60,36 @@ public interface InputStreamProviderFactory {
               readFullFile;
 
       final long maxFooterLen = context.getOptions().getOption(ExecConstants.PARQUET_MAX_FOOTER_LEN_VALIDATOR);
+      if (footerIfKnown == null && !readFullFile && mTime > 0 && fileLength > 0
+        && options.getOption(ExecConstants.PARQUET_FOOTER_CACHE_ENABLED)) {
+        footerIfKnown = new MutableParquetMetadata(ParquetFooterCache.getInstance(options.getOption(ExecConstants.PARQUET_FOOTER_CACHE_MAX_SIZE))
+          .getFooter(path.toString(), fileLength, mTime,
+            () -> SingletonParquetFooterCache.readFooter(fs, path, fileLength, maxFooterLen), context));
+      }
+      final AsyncByteReader asyncReader = createVectoredReader(fs, options, context.getAllocator(), path, readFullFile,
+        dataset, mTime);
       return useSingleStream
-        ? new SingleStreamProvider(fs, path, fileLength, maxFooterLen, readFullFile, footerIfKnown, context, readColumnIndices)
-        : new StreamPerColumnProvider(fs, path, fileLength, maxFooterLen, footerIfKnown, context, readColumnIndices);
+        ? new SingleStreamProvider(fs, path, fileLength, maxFooterLen, readFullFile, footerIfKnown, context, readColumnIndices, asyncReader)
+        : new StreamPerColumnProvider(fs, path, fileLength, maxFooterLen, footerIfKnown, context, readColumnIndices, asyncReader);
     }
   };
 
+  /**
+   * Create the reader prefetching the column chunks of a file with vectored reads, if the file system reads
+   * asynchronously.
+   *
+   * @return the reader, or null if the column chunks are streamed
+   */
+  static AsyncByteReader createVectoredReader(FileSystem fs, OptionManager options, BufferAllocator allocator, Path path,
+                                              boolean readFullFile, List<String> dataset, long mTime) throws IOException {
+    if (readFullFile || mTime <= 0 || !fs.supportsAsync() || !options.getOption(ExecConstants.PARQUET_VECTORED_READ_ENABLED)) {
+      return null;
+    }
+    final AsyncByteReader reader = fs.getAsyncByteReader(
+      AsyncByteReader.FileKey.of(path, Long.toString(mTime), AsyncByteReader.FileKey.FileType.PARQUET, dataset));
+    return new CoalescingAsyncByteReader(reader, allocator,
+      options.getOption(ExecConstants.PARQUET_VECTORED_READ_MAX_GAP),
+      options.getOption(ExecConstants.PARQUET_VECTORED_READ_MAX_SIZE));
+  }
+
 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.ScanOperator;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Executor wide cache of the parquet footers, shared by all the readers of all the fragments.
+ *
+ * Footers are keyed by path, size and modification time, so that a rewritten file is never served a stale footer,
+ * and the cache is bounded by the estimated heap size of the footers, evicting the least recently used ones.
+ * Concurrent loads of the same footer are deduplicated: only one of the readers reads the file.
+ *
+ * Readers trim the footers they get (see {@link MutableParquetMetadata}), so each of them gets its own copy of the
+ * list of row groups.
+ */
+public final class ParquetFooterCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ParquetFooterCache.class);
+
+  // rough heap sizes of the parsed footer objects
+  private static final long FOOTER_OVERHEAD = 4096;
+  private static final long BLOCK_OVERHEAD = 256;
+  private static final long COLUMN_CHUNK_SIZE = 512;
+
+  private static ParquetFooterCache instance;
+
+  private final long maxSize;
+  private final AtomicLong estimatedSize = new AtomicLong();
+  private final Cache<Key, ParquetMetadata> cache;
+
+  @VisibleForTesting
+  ParquetFooterCache(long maxSize) {
+    this.maxSize = maxSize;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxSize)
+      .weigher((Weigher<Key, ParquetMetadata>) (key, footer) -> (int) Math.min(key.weight, Integer.MAX_VALUE))
+      .removalListener((RemovalListener<Key, ParquetMetadata>) notification ->
+        estimatedSize.addAndGet(-notification.getKey().weight))
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * Get the cache of the executor, recreated if its max size changed.
+   *
+   * @param maxSize max estimated heap size of the cached footers
+   */
+  public static synchronized ParquetFooterCache getInstance(long maxSize) {
+    if (instance == null || instance.maxSize != maxSize) {
+      if (instance != null) {
+        instance.cache.invalidateAll();
+      }
+      instance = new ParquetFooterCache(maxSize);
+    }
+    return instance;
+  }
+
+  /**
+   * @return the cache of the executor, null if no footer was cached yet
+   */
+  public static synchronized ParquetFooterCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Get the footer of a file, loading it if it is not cached.
+   *
+   * @param path path of the file
+   * @param fileLength size of the file
+   * @param mTime modification time of the file
+   * @param loader reads the footer of the file
+   * @param context context of the operator, used to report hits and misses, may be null
+   * @return a copy of the cached footer, that can be trimmed by the caller
+   */
+  public ParquetMetadata getFooter(String path, long fileLength, long mTime, Callable<ParquetMetadata> loader,
+                                   OperatorContext context) throws IOException {
+    final Key key = new Key(path, fileLength, mTime);
+    final boolean[] loaded = {false};
+    final ParquetMetadata footer;
+    try {
+      footer = cache.get(key, () -> {
+        final ParquetMetadata newFooter = loader.call();
+        loaded[0] = true;
+        key.weight = estimateSize(newFooter);
+        estimatedSize.addAndGet(key.weight);
+        return newFooter;
+      });
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException("Failed to read parquet footer for file " + path, e.getCause());
+    }
+
+    if (context != null && context.getStats() != null) {
+      context.getStats().addLongStat(loaded[0]
+        ? ScanOperator.Metric.NUM_FOOTER_CACHE_MISSES
+        : ScanOperator.Metric.NUM_FOOTER_CACHE_HITS, 1);
+    }
+    logger.trace("Footer of {} {}", path, loaded[0] ? "loaded" : "found in cache");
+    return new ParquetMetadata(footer.getFileMetaData(), new ArrayList<>(footer.getBlocks()));
+  }
+
+  @VisibleForTesting
+  static long estimateSize(ParquetMetadata footer) {
+    long size = FOOTER_OVERHEAD;
+    for (BlockMetaData block : footer.getBlocks()) {
+      size += BLOCK_OVERHEAD + COLUMN_CHUNK_SIZE * block.getColumns().size();
+    }
+    return size;
+  }
+
+  /**
+   * @return the current state of the cache
+   */
+  public CacheInfo getInfo(String hostname, long fabricPort) {
+    final CacheStats stats = cache.stats();
+    final CacheInfo info = new CacheInfo();
+    info.hostname = hostname;
+    info.fabric_port = fabricPort;
+    info.entries = cache.size();
+    info.estimated_size = estimatedSize.get();
+    info.max_size = maxSize;
+    info.hit_count = stats.hitCount();
+    info.miss_count = stats.missCount();
+    info.eviction_count = stats.evictionCount();
+    info.load_failure_count = stats.loadExceptionCount();
+    return info;
+  }
+
+  /**
+   * State of the footer cache of an executor, exposed by sys.parquet_footer_cache.
+   */
+  public static class CacheInfo {
+    public String hostname;
+    public long fabric_port;
+    public long entries;
+    public long estimated_size;
+    public long max_size;
+    public long hit_count;
+    public long miss_count;
+    public long eviction_count;
+    public long load_failure_count;
+  }
+
+  private static final class Key {
+    private final String path;
+    private final long fileLength;
+    private final long mTime;
+    // set when the footer is loaded, not part of the identity of the key
+    private volatile long weight;
+
+    private Key(String path, long fileLength, long mTime) {
+      this.path = path;
+      this.fileLength = fileLength;
+      this.mTime = mTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return fileLength == key.fileLength && mTime == key.mTime && path.equals(key.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, fileLength, mTime);
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.internal.filter2.columnindex.ColumnIndexFilter;
+import org.apache.parquet.internal.filter2.columnindex.ColumnIndexStore;
+import org.apache.parquet.internal.filter2.columnindex.RowRanges;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.expression.ValueExpressions;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Evaluates the pushed down filter conditions against the page indexes (ColumnIndex and OffsetIndex) of a row
+ * group, to find the ranges of rows that may match. Pages without any of these rows can be skipped by the readers.
+ *
+ * Only comparisons of a top level column with a literal of a matching type are evaluated, other conditions are
+ * ignored: the row ranges are a superset of the matching rows, the conditions still have to be applied to them.
+ */
+public final class ParquetPageFilter {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ParquetPageFilter.class);
+
+  private static final Map<String, String> COMPARISONS = ImmutableMap.<String, String>builder()
+    .put("equal", "=")
+    .put("=", "=")
+    .put("==", "=")
+    .put("less_than", "<")
+    .put("<", "<")
+    .put("less_than_or_equal_to", "<=")
+    .put("<=", "<=")
+    .put("greater_than", ">")
+    .put(">", ">")
+    .put("greater_than_or_equal_to", ">=")
+    .put(">=", ">=")
+    .build();
+
+  private static final Map<String, String> MIRRORED_COMPARISONS = ImmutableMap.of(
+    "=", "=",
+    "<", ">",
+    "<=", ">=",
+    ">", "<",
+    ">=", "<=");
+
+  private final RowRanges rowRanges;
+  private final OffsetIndexProvider offsetIndexProvider;
+
+  private ParquetPageFilter(RowRanges rowRanges, OffsetIndexProvider offsetIndexProvider) {
+    this.rowRanges = rowRanges;
+    this.offsetIndexProvider = offsetIndexProvider;
+  }
+
+  /**
+   * @return the rows of the row group that may match the filter conditions
+   */
+  public RowRanges getRowRanges() {
+    return rowRanges;
+  }
+
+  /**
+   * @return the offset index of a column chunk of the row group, giving the location and first row of each page
+   */
+  public OffsetIndex getOffsetIndex(ColumnChunkMetaData column) {
+    return offsetIndexProvider.getOffsetIndex(column);
+  }
+
+  /**
+   * Evaluate the filter conditions against the page indexes of a row group.
+   *
+   * @param conditions filter conditions pushed down into the scan
+   * @param columnResolver resolver of the table column names into the file column names
+   * @param fileSchema schema of the file
+   * @param block row group
+   * @param inputStreamProvider provider reading the page indexes
+   * @return the page filter, or null if the page indexes are missing or no page can be skipped
+   */
+  public static ParquetPageFilter create(List<ParquetFilterCondition> conditions, ParquetColumnResolver columnResolver,
+                                         MessageType fileSchema, BlockMetaData block,
+                                         InputStreamProvider inputStreamProvider) {
+    if (conditions == null || conditions.isEmpty() || block.getRowCount() == 0) {
+      return null;
+    }
+    FilterPredicate predicate = null;
+    for (ParquetFilterCondition condition : conditions) {
+      predicate = and(predicate, toPredicate(condition.getExpr(), columnResolver, fileSchema));
+    }
+    if (predicate == null) {
+      return null;
+    }
+
+    final List<ColumnChunkMetaData> columns = block.getColumns();
+    final OffsetIndexProvider offsetIndexProvider = inputStreamProvider.getOffsetIndexProvider(columns);
+    final ColumnIndexProvider columnIndexProvider = inputStreamProvider.getColumnIndexProvider(columns);
+    if (offsetIndexProvider == null || columnIndexProvider == null) {
+      return null;
+    }
+    try {
+      // pages can only be skipped if all the columns can be synchronized on row indexes
+      final Map<ColumnPath, ColumnChunkMetaData> chunks = new HashMap<>();
+      for (ColumnChunkMetaData column : columns) {
+        if (offsetIndexProvider.getOffsetIndex(column) == null) {
+          return null;
+        }
+        chunks.put(column.getPath(), column);
+      }
+
+      final ColumnIndexStore columnIndexStore = new ColumnIndexStore() {
+        @Override
+        public ColumnIndex getColumnIndex(ColumnPath column) {
+          final ColumnChunkMetaData chunk = chunks.get(column);
+          return chunk == null ? null : columnIndexProvider.getColumnIndex(chunk);
+        }
+
+        @Override
+        public OffsetIndex getOffsetIndex(ColumnPath column) {
+          final ColumnChunkMetaData chunk = chunks.get(column);
+          if (chunk == null) {
+            throw new MissingOffsetIndexException(column);
+          }
+          return offsetIndexProvider.getOffsetIndex(chunk);
+        }
+      };
+      final RowRanges rowRanges = ColumnIndexFilter.calculateRowRanges(FilterCompat.get(predicate), columnIndexStore,
+        chunks.keySet(), block.getRowCount());
+      if (rowRanges.rowCount() == block.getRowCount()) {
+        return null;
+      }
+      logger.debug("Filter {} selects {} rows out of {}", predicate, rowRanges.rowCount(), block.getRowCount());
+      return new ParquetPageFilter(rowRanges, offsetIndexProvider);
+    } finally {
+      columnIndexProvider.close();
+    }
+  }
+
+  private static FilterPredicate and(FilterPredicate left, FilterPredicate right) {
+    if (left == null) {
+      return right;
+    }
+    return right == null ? left : FilterApi.and(left, right);
+  }
+
+  private static FilterPredicate toPredicate(LogicalExpression expr, ParquetColumnResolver columnResolver,
+                                             MessageType fileSchema) {
+    if (!(expr instanceof FunctionCall)) {
+      return null;
+    }
+    final FunctionCall call = (FunctionCall) expr;
+    final String name = call.getName().toLowerCase(Locale.ROOT);
+    if (name.equals("booleanand")) {
+      FilterPredicate predicate = null;
+      for (LogicalExpression arg : call.args) {
+        predicate = and(predicate, toPredicate(arg, columnResolver, fileSchema));
+      }
+      return predicate;
+    }
+
+    String comparison = COMPARISONS.get(name);
+    if (comparison == null || call.args.size() != 2) {
+      return null;
+    }
+    LogicalExpression column = call.args.get(0);
+    LogicalExpression literal = call.args.get(1);
+    if (!(column instanceof SchemaPath)) {
+      column = call.args.get(1);
+      literal = call.args.get(0);
+      comparison = MIRRORED_COMPARISONS.get(comparison);
+    }
+    if (!(column instanceof SchemaPath) || !((SchemaPath) column).isSimplePath()) {
+      return null;
+    }
+
+    final String parquetColumnName = columnResolver.getParquetColumnName(((SchemaPath) column).getRootSegment().getPath());
+    if (parquetColumnName == null) {
+      return null;
+    }
+    for (Type field : fileSchema.getFields()) {
+      if (field.isPrimitive() && field.getName().equalsIgnoreCase(parquetColumnName) && !field.getName().contains(".")) {
+        return toPredicate(field.asPrimitiveType(), comparison, literal);
+      }
+    }
+    return null;
+  }
+
+  private static FilterPredicate toPredicate(PrimitiveType type, String comparison, LogicalExpression literal) {
+    final String name = type.getName();
+    final OriginalType originalType = type.getOriginalType();
+    switch (type.getPrimitiveTypeName()) {
+      case INT32:
+        if (originalType == null || originalType == OriginalType.INT_8 || originalType == OriginalType.INT_16
+          || originalType == OriginalType.INT_32) {
+          final Long value = getLong(literal);
+          if (value != null && value == value.intValue()) {
+            return compare(FilterApi.intColumn(name), value.intValue(), comparison);
+          }
+        } else if (originalType == OriginalType.DATE && literal instanceof ValueExpressions.DateExpression) {
+          final long millis = ((ValueExpressions.DateExpression) literal).getDate();
+          if (millis % TimeUnit.DAYS.toMillis(1) == 0) {
+            return compare(FilterApi.intColumn(name), (int) TimeUnit.MILLISECONDS.toDays(millis), comparison);
+          }
+        } else if (originalType == OriginalType.TIME_MILLIS && literal instanceof ValueExpressions.TimeExpression) {
+          return compare(FilterApi.intColumn(name), ((ValueExpressions.TimeExpression) literal).getTime(), comparison);
+        }
+        return null;
+      case INT64:
+        if (originalType == null || originalType == OriginalType.INT_64) {
+          final Long value = getLong(literal);
+          return value == null ? null : compare(FilterApi.longColumn(name), value, comparison);
+        } else if (originalType == OriginalType.TIMESTAMP_MILLIS && literal instanceof ValueExpressions.TimeStampExpression) {
+          return compare(FilterApi.longColumn(name), ((ValueExpressions.TimeStampExpression) literal).getTimeStamp(), comparison);
+        }
+        return null;
+      case FLOAT:
+        if (literal instanceof ValueExpressions.FloatExpression) {
+          return compare(FilterApi.floatColumn(name), ((ValueExpressions.FloatExpression) literal).getFloat(), comparison);
+        }
+        return null;
+      case DOUBLE:
+        if (literal instanceof ValueExpressions.DoubleExpression) {
+          return compare(FilterApi.doubleColumn(name), ((ValueExpressions.DoubleExpression) literal).getDouble(), comparison);
+        }
+        return null;
+      case BINARY:
+        if (originalType == OriginalType.UTF8 && literal instanceof ValueExpressions.QuotedString) {
+          return compare(FilterApi.binaryColumn(name),
+            Binary.fromString(((ValueExpressions.QuotedString) literal).getString()), comparison);
+        }
+        return null;
+      default:
+        return null;
+    }
+  }
+
+  private static Long getLong(LogicalExpression literal) {
+    if (literal instanceof ValueExpressions.IntExpression) {
+      return (long) ((ValueExpressions.IntExpression) literal).getInt();
+    }
+    if (literal instanceof ValueExpressions.LongExpression) {
+      return ((ValueExpressions.LongExpression) literal).getLong();
+    }
+    return null;
+  }
+
+  private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt>
+  FilterPredicate compare(C column, T value, String comparison) {
+    switch (comparison) {
+      case "=":
+        return FilterApi.eq(column, value);
+      case "<":
+        return FilterApi.lt(column, value);
+      case "<=":
+        return FilterApi.ltEq(column, value);
+      case ">":
+        return FilterApi.gt(column, value);
+      case ">=":
+        return FilterApi.gtEq(column, value);
+      default:
+        return null;
+    }
+  }
+}
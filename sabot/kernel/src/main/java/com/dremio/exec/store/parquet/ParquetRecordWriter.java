@@ -22,7 +22,6 @@ import static com.dremio.exec.store.iceberg.IcebergUtils.convertSchemaMilliToMic
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
-import static org.apache.parquet.column.ParquetProperties.DEFAULT_COLUMN_INDEX_TRUNCATE_LENGTH;
 import static org.apache.parquet.hadoop.ParquetWriter.DEFAULT_BLOCK_SIZE;
 import static org.apache.parquet.hadoop.ParquetWriter.MAX_PADDING_SIZE_DEFAULT;
 import static org.apache.parquet.schema.Type.Repetition.OPTIONAL;
@@ -30,7 +29,10 @@ import static org.apache.parquet.schema.Type.Repetition.OPTIONAL;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
@@ -113,6 +115,7 @@ import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.store.iceberg.proto.IcebergProtobuf;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.protobuf.InvalidProtocolBufferException;
@@ -163,6 +166,11 @@ public class ParquetRecordWriter extends ParquetOutputRecordWriter {
   private boolean enableDictionaryForBinary = false;
   private CompressionCodecName codec = CompressionCodecName.SNAPPY;
   private WriterVersion writerVersion = WriterVersion.PARQUET_1_0;
+  private final int columnIndexTruncateLength;
+  private final int pageRowCountLimit;
+  private final Set<String> bloomFilterColumns;
+  private final long bloomFilterNdv;
+  private final int bloomFilterMaxBytes;
   private CompressionCodecFactory codecFactory;
   private FileSystem fs;
   private Path path;
@@ -263,6 +271,14 @@ public class ParquetRecordWriter extends ParquetOutputRecordWriter {
     minRecordsForFlush = context.getOptions().getOption(ExecConstants.PARQUET_MIN_RECORDS_FOR_FLUSH_VALIDATOR);
     parquetFileWriteTimeThresholdMilliSecs = (int)context.getOptions().getOption(ExecConstants.PARQUET_WRITE_TIME_THRESHOLD_MILLI_SECS_VALIDATOR);
     parquetFileWriteIoRateThresholdMbps = context.getOptions().getOption(ExecConstants.PARQUET_WRITE_IO_RATE_THRESHOLD_MBPS_VALIDATOR);
+    columnIndexTruncateLength = (int) context.getOptions().getOption(ExecConstants.PARQUET_WRITER_COLUMN_INDEX_TRUNCATE_LENGTH);
+    pageRowCountLimit = (int) context.getOptions().getOption(ExecConstants.PARQUET_WRITER_PAGE_ROW_COUNT_LIMIT);
+    bloomFilterColumns = Splitter.on(',').trimResults().omitEmptyStrings()
+      .splitToList(context.getOptions().getOption(ExecConstants.PARQUET_WRITER_BLOOM_FILTER_COLUMNS)).stream()
+      .map(c -> c.toLowerCase(Locale.ROOT))
+      .collect(Collectors.toSet());
+    bloomFilterNdv = context.getOptions().getOption(ExecConstants.PARQUET_WRITER_BLOOM_FILTER_NDV);
+    bloomFilterMaxBytes = (int) context.getOptions().getOption(ExecConstants.PARQUET_WRITER_BLOOM_FILTER_MAX_BYTES);
   }
 
   @Override
@@ -306,7 +322,7 @@ public class ParquetRecordWriter extends ParquetOutputRecordWriter {
 
     this.path = fs.canonicalizePath(partition.qualified(location, prefix + "_" + index + "." + extension));
     parquetFileWriter = new ParquetFileWriter(OutputFile.of(fs, path), checkNotNull(schema), ParquetFileWriter.Mode.CREATE, DEFAULT_BLOCK_SIZE,
-        MAX_PADDING_SIZE_DEFAULT, DEFAULT_COLUMN_INDEX_TRUNCATE_LENGTH, true);
+        MAX_PADDING_SIZE_DEFAULT, columnIndexTruncateLength, true);
     parquetFileWriter.start();
   }
 
@@ -356,7 +372,7 @@ public class ParquetRecordWriter extends ParquetOutputRecordWriter {
     schema = getParquetMessageType(batchSchema, "root");
 
     int dictionarySize = (int)context.getOptions().getOption(ExecConstants.PARQUET_DICT_PAGE_SIZE_VALIDATOR);
-    final ParquetProperties parquetProperties = ParquetProperties.builder()
+    final ParquetProperties.Builder parquetPropertiesBuilder = ParquetProperties.builder()
       .withDictionaryPageSize(dictionarySize)
       .withWriterVersion(writerVersion)
       .withValuesWriterFactory(new DefaultV1ValuesWriterFactory())
@@ -365,16 +381,44 @@ public class ParquetRecordWriter extends ParquetOutputRecordWriter {
       .withPageSize(pageSize)
       .withAddPageHeadersToMetadata(true)
       .withEnableDictionarForBinaryType(enableDictionaryForBinary)
-      .withPageRowCountLimit(Integer.MAX_VALUE) // Bug 16118
-      .build();
+      .withPageRowCountLimit(pageRowCountLimit) // Bug 16118, no limit by default
+      .withColumnIndexTruncateLength(columnIndexTruncateLength)
+      .withMaxBloomFilterBytes(bloomFilterMaxBytes);
+    final boolean writeBloomFilters = addBloomFilterColumns(parquetPropertiesBuilder);
+    final ParquetProperties parquetProperties = parquetPropertiesBuilder.build();
     pageStore = ColumnChunkPageWriteStoreExposer.newColumnChunkPageWriteStore(
         toDeprecatedBytesCompressor(codecFactory.getCompressor(codec)), schema, parquetProperties);
-    store = new ColumnWriteStoreV1(pageStore, parquetProperties);
+    store = writeBloomFilters
+      ? new ColumnWriteStoreV1(schema, pageStore, ColumnChunkPageWriteStoreExposer.getBloomFilterWriteStore(pageStore), parquetProperties)
+      : new ColumnWriteStoreV1(pageStore, parquetProperties);
     MessageColumnIO columnIO = new ColumnIOFactory(false).getColumnIO(this.schema);
     consumer = columnIO.getRecordWriter(store);
     setUp(schema, consumer, isIcebergWriter);
   }
 
+  /**
+   * Enable the Bloom filters of the top level primitive columns listed in the writer options.
+   *
+   * @return true if at least one column of the schema gets a Bloom filter
+   */
+  private boolean addBloomFilterColumns(ParquetProperties.Builder builder) {
+    if (bloomFilterColumns.isEmpty()) {
+      return false;
+    }
+    boolean added = false;
+    for (Type type : schema.getFields()) {
+      if (!type.isPrimitive() || !bloomFilterColumns.contains(type.getName().toLowerCase(Locale.ROOT))) {
+        continue;
+      }
+      builder.withBloomFilterEnabled(type.getName(), true);
+      if (bloomFilterNdv > 0) {
+        builder.withBloomFilterNDV(type.getName(), bloomFilterNdv);
+      }
+      added = true;
+    }
+    return added;
+  }
+
   private PrimitiveType getPrimitiveType(Field field, boolean convertMillisToMicros) {
     MajorType majorType = getMajorTypeForField(field);
     MinorType minorType = majorType.getMinorType();
@@ -83,6 +83,7 @@ public class ParquetSplitReaderCreator extends SplitReaderCreator implements Aut
   private final ParquetSplitReaderCreatorIterator parquetSplitReaderCreatorIterator;
   private final boolean ignoreSchemaLearning;
   private final boolean isConvertedIcebergDataset;
+  private final boolean arrowCachingEnabled;
 
   private final BiConsumer<InputStreamProvider, MutableParquetMetadata> depletionListener = (inputStreamProvider, footer) -> {
     if (!prefetchReader || !fs.supportsAsync()) {
@@ -168,6 +169,7 @@ public class ParquetSplitReaderCreator extends SplitReaderCreator implements Aut
     this.icebergSchemaFields = icebergSchemaFields;
     this.ignoreSchemaLearning = ignoreSchemaLearning;
     this.isConvertedIcebergDataset = isConvertedIcebergDataset;
+    this.arrowCachingEnabled = arrowCachingEnabled;
   }
 
   @Override
@@ -324,6 +326,7 @@ public class ParquetSplitReaderCreator extends SplitReaderCreator implements Aut
                   inputStreamProvider,
                   new ArrayList<>());
           innerParquetReader.setIgnoreSchemaLearning(ignoreSchemaLearning);
+          innerParquetReader.setArrowCachingEnabled(arrowCachingEnabled);
           inner = readerConfig.wrapIfNecessary(context.getAllocator(), innerParquetReader, datasetSplit);
         }
         return inner;
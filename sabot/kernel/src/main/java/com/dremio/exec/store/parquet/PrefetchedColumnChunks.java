@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+
+import com.dremio.io.ArrowBufFSInputStream;
+import com.dremio.io.AsyncByteReader;
+import com.dremio.io.AsyncByteReader.ReadRange;
+import com.dremio.io.AsyncByteReader.ReaderStat;
+import com.dremio.io.CoalescingAsyncByteReader;
+import com.dremio.io.FSInputStream;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import io.netty.buffer.NettyArrowBuf;
+
+/**
+ * Column chunks of a row group read ahead with a single vectored read, so that the reader can merge the chunks of
+ * the projected columns into a few requests instead of opening a stream per chunk.
+ */
+final class PrefetchedColumnChunks implements AutoCloseable {
+  // starting position of a chunk to its content
+  private final Map<Long, ArrowBuf> chunks = new HashMap<>();
+
+  private PrefetchedColumnChunks() {
+  }
+
+  /**
+   * Read the chunks of some columns. Chunks larger than {@code maxChunkSize} are left to be streamed, and so are
+   * the chunks exceeding {@code maxBuffered} bytes in total.
+   */
+  static PrefetchedColumnChunks read(AsyncByteReader reader, BufferAllocator allocator,
+                                     List<ColumnChunkMetaData> columns, long maxChunkSize, long maxBuffered)
+    throws IOException {
+    final PrefetchedColumnChunks prefetched = new PrefetchedColumnChunks();
+    final List<ReadRange> ranges = new ArrayList<>();
+    CompletableFuture<Void> read = null;
+    long buffered = 0;
+    try {
+      for (ColumnChunkMetaData column : columns) {
+        final long start = column.getStartingPos();
+        final long size = column.getTotalSize();
+        if (prefetched.chunks.containsKey(start) || size > maxChunkSize || buffered + size > maxBuffered) {
+          continue;
+        }
+        final ArrowBuf buf = allocator.buffer(size);
+        prefetched.chunks.put(start, buf);
+        buffered += size;
+        ranges.add(new ReadRange(start, (int) size, NettyArrowBuf.unwrapBuffer(buf), 0));
+      }
+      if (ranges.size() < 2) {
+        // nothing to merge, the chunks are streamed
+        prefetched.close();
+        return prefetched;
+      }
+
+      read = reader.readFully(ranges);
+      read.get();
+      return prefetched;
+    } catch (InterruptedException e) {
+      // the requests still write into the chunks, they are released once all of them are over
+      awaitUninterruptibly(read);
+      prefetched.close();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading the column chunks");
+    } catch (ExecutionException e) {
+      prefetched.close();
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException("Failed to read the column chunks", e.getCause());
+    } catch (RuntimeException e) {
+      prefetched.close();
+      throw e;
+    }
+  }
+
+  private static void awaitUninterruptibly(CompletableFuture<Void> read) {
+    try {
+      Uninterruptibles.getUninterruptibly(read);
+    } catch (ExecutionException | CancellationException e) {
+      // the read is abandoned
+    }
+  }
+
+  /**
+   * Get a stream over the chunk of a column, if it was read. The stream owns the chunk, and its positions are
+   * the positions in the file.
+   *
+   * @return the stream, or null if the chunk was not read
+   */
+  BulkInputStream getStream(ColumnChunkMetaData column) throws IOException {
+    final ArrowBuf chunk = chunks.remove(column.getStartingPos());
+    if (chunk == null) {
+      return null;
+    }
+    chunk.writerIndex(column.getTotalSize());
+    return BulkInputStream.wrap(Streams.wrap(new ChunkInputStream(new ArrowBufFSInputStream(chunk),
+      column.getStartingPos())));
+  }
+
+  /**
+   * Add the requests of the vectored reads of a file to the stats of the operator reading it.
+   */
+  static void addStats(AsyncByteReader reader, OperatorContext context) {
+    if (reader == null || context == null || context.getStats() == null) {
+      return;
+    }
+    final OperatorStats stats = context.getStats();
+    for (ReaderStat stat : reader.getStats()) {
+      final long value = (long) stat.getValue();
+      switch (stat.getName()) {
+        case CoalescingAsyncByteReader.NUM_REQUESTS_STAT:
+          stats.addLongStat(Metric.NUM_VECTORED_READ_REQUESTS, value);
+          break;
+        case CoalescingAsyncByteReader.NUM_RANGES_STAT:
+          stats.addLongStat(Metric.NUM_VECTORED_READ_RANGES, value);
+          break;
+        case CoalescingAsyncByteReader.BYTES_REQUESTED_STAT:
+          stats.addLongStat(Metric.VECTORED_READ_BYTES_REQUESTED, value);
+          break;
+        case CoalescingAsyncByteReader.BYTES_OVER_READ_STAT:
+          stats.addLongStat(Metric.VECTORED_READ_BYTES_OVER_READ, value);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    for (ArrowBuf chunk : chunks.values()) {
+      chunk.close();
+    }
+    chunks.clear();
+  }
+
+  /**
+   * Stream over a chunk, translating the positions in the file to the positions in the chunk.
+   */
+  private static final class ChunkInputStream extends FSInputStream {
+    private final FSInputStream chunk;
+    private final long start;
+
+    private ChunkInputStream(FSInputStream chunk, long start) {
+      this.chunk = chunk;
+      this.start = start;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return chunk.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return chunk.read(b, off, len);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      return chunk.read(dst);
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) throws IOException {
+      return chunk.read(position - start, dst);
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+      return start + chunk.getPosition();
+    }
+
+    @Override
+    public void setPosition(long position) throws IOException {
+      if (position < start) {
+        throw new IOException(String.format("Position %d is before the chunk starting at %d", position, start));
+      }
+      chunk.setPosition(position - start);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      return chunk.skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+      return chunk.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+      chunk.close();
+    }
+  }
+}
@@ -229,6 +229,9 @@ public abstract class ScanTableFunction extends AbstractTableFunction {
   @Override
   public void workOnOOB(OutOfBandMessage message) {
     final String senderInfo = String.format("Frag %d, OpId %d", message.getSendingMajorFragmentId(), message.getSendingOperatorId());
+    if (addRangeFilter(message, senderInfo)) {
+      return;
+    }
     if (message.getBuffers()==null || message.getBuffers().length!=1) {
       logger.warn("Empty runtime filter received from {}", senderInfo);
       return;
@@ -262,6 +265,32 @@ public abstract class ScanTableFunction extends AbstractTableFunction {
     }
   }
 
+  /**
+   * Handles the range filters sent by TopN operators, which have no buffer.
+   *
+   * @return true if the message was a range filter
+   */
+  private boolean addRangeFilter(OutOfBandMessage message, String senderInfo) {
+    try {
+      final ExecProtos.RuntimeFilter protoFilter = message.getPayload(ExecProtos.RuntimeFilter.parser());
+      if (!protoFilter.hasRangeColumnFilter()) {
+        return false;
+      }
+      final RuntimeFilter filter = RuntimeFilter.getInstanceOrTightenRangeFilter(runtimeFilters,
+        protoFilter.getRangeColumnFilter(), senderInfo);
+      if (filter != null) {
+        logger.debug("Adding range filter to the record readers {}", filter);
+        getRecordReaderIterator().addRuntimeFilter(filter);
+        this.runtimeFilters.add(filter);
+        Optional.ofNullable(currentRecordReader).ifPresent(c -> c.addRuntimeFilter(filter));
+        context.getStats().addLongStat(ScanOperator.Metric.NUM_RUNTIME_FILTERS, 1);
+      }
+    } catch (Exception e) {
+      logger.warn("Error while adding range filter from " + senderInfo, e);
+    }
+    return true;
+  }
+
   @VisibleForTesting
   List<RuntimeFilter> getRuntimeFilters() {
     return this.runtimeFilters;
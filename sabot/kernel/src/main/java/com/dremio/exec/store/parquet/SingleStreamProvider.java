@@ -17,6 +17,8 @@ package com.dremio.exec.store.parquet;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.arrow.memory.ArrowBuf;
@@ -26,7 +28,9 @@ import org.apache.arrow.util.AutoCloseables;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.io.SeekableInputStream;
 
+import com.dremio.exec.ExecConstants;
 import com.dremio.io.ArrowBufFSInputStream;
+import com.dremio.io.AsyncByteReader;
 import com.dremio.io.file.FileSystem;
 import com.dremio.io.file.Path;
 import com.dremio.sabot.exec.context.OperatorContext;
@@ -44,11 +48,23 @@ public class SingleStreamProvider implements InputStreamProvider {
   private final boolean readFullFile;
   private BulkInputStream stream;
   private OperatorContext context;
+  private final AsyncByteReader asyncReader;
+  private PrefetchedColumnChunks prefetched;
+  // streams over the prefetched column chunks
+  private final List<BulkInputStream> chunkStreams = new ArrayList<>();
 
   private MutableParquetMetadata footer;
   private boolean readColumnOffsetIndices;
 
   public SingleStreamProvider(FileSystem fs, Path path, long fileLength, long maxFooterLen, boolean readFullFile, MutableParquetMetadata footer, OperatorContext context, boolean readColumnOffsetIndices) {
+    this(fs, path, fileLength, maxFooterLen, readFullFile, footer, context, readColumnOffsetIndices, null);
+  }
+
+  /**
+   * @param asyncReader reader of the file used to prefetch the column chunks, may be null. Closed with the provider.
+   */
+  public SingleStreamProvider(FileSystem fs, Path path, long fileLength, long maxFooterLen, boolean readFullFile, MutableParquetMetadata footer, OperatorContext context, boolean readColumnOffsetIndices,
+                              AsyncByteReader asyncReader) {
     this.fs = fs;
     this.path = path;
     this.fileLength = fileLength;
@@ -62,6 +78,7 @@ public class SingleStreamProvider implements InputStreamProvider {
       this.allocator = null;
     }
     this.readColumnOffsetIndices = readColumnOffsetIndices;
+    this.asyncReader = asyncReader;
   }
 
   @Override
@@ -71,6 +88,11 @@ public class SingleStreamProvider implements InputStreamProvider {
 
   @Override
   public BulkInputStream getStream(ColumnChunkMetaData column) throws IOException {
+    final BulkInputStream chunkStream = column == null || prefetched == null ? null : prefetched.getStream(column);
+    if (chunkStream != null) {
+      chunkStreams.add(chunkStream);
+      return chunkStream;
+    }
     if(stream == null) {
       stream = initStream();
     }
@@ -100,6 +122,24 @@ public class SingleStreamProvider implements InputStreamProvider {
     }
   }
 
+  @Override
+  public void prefetchColumns(List<ColumnChunkMetaData> columns) throws IOException {
+    if (asyncReader == null || allocator == null) {
+      return;
+    }
+    if (prefetched != null) {
+      prefetched.close();
+    }
+    prefetched = PrefetchedColumnChunks.read(asyncReader, allocator, columns,
+      context.getOptions().getOption(ExecConstants.PARQUET_VECTORED_READ_MAX_SIZE),
+      context.getOptions().getOption(ExecConstants.PARQUET_VECTORED_READ_MAX_BUFFERED));
+  }
+
+  @Override
+  public AsyncByteReader getAsyncByteReader() {
+    return asyncReader;
+  }
+
   @Override
   public void enableColumnIndices(List<ColumnChunkMetaData> selectedColumns) throws IOException {
     this.readColumnOffsetIndices = true;
@@ -161,8 +201,9 @@ public class SingleStreamProvider implements InputStreamProvider {
 
   @Override
   public void close() throws IOException {
+    PrefetchedColumnChunks.addStats(asyncReader, context);
     try {
-      AutoCloseables.close(stream);
+      AutoCloseables.close(chunkStreams, Arrays.asList(stream, prefetched, asyncReader));
     } catch (IOException | RuntimeException e) {
       throw e;
     } catch (Exception e) {
@@ -90,6 +90,15 @@ public class SingletonParquetFooterCache {
     }
   }
 
+  /**
+   * Read the footer of a file of known length, without any filter.
+   */
+  public static ParquetMetadata readFooter(final FileSystem fs, final Path file, long fileLength, long maxFooterLen) throws IOException {
+    try (BulkInputStream is = BulkInputStream.wrap(Streams.wrap(fs.open(file)))) {
+      return readFooter(is, file.toString(), fileLength, ParquetMetadataConverter.NO_FILTER, fs, maxFooterLen);
+    }
+  }
+
   private ParquetMetadata readFooter(BulkInputStream file, String path, long fileLength, FileSystem fs, long maxFooterLen) throws IOException {
     return readFooter(file, path, fileLength, ParquetMetadataConverter.NO_FILTER, fs, maxFooterLen);
   }
@@ -23,6 +23,8 @@ import org.apache.arrow.memory.BufferAllocator;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 
 import com.dremio.common.AutoCloseables;
+import com.dremio.exec.ExecConstants;
+import com.dremio.io.AsyncByteReader;
 import com.dremio.io.FSInputStream;
 import com.dremio.io.file.FileSystem;
 import com.dremio.io.file.Path;
@@ -42,10 +44,20 @@ public class StreamPerColumnProvider implements InputStreamProvider {
   private boolean readColumnOffsetIndexes;
   private final BufferAllocator allocator;
   private final OperatorContext context;
+  private final AsyncByteReader asyncReader;
+  private PrefetchedColumnChunks prefetched;
 
   private final List<BulkInputStream> streams = new ArrayList<>();
 
   public StreamPerColumnProvider(FileSystem fs, Path path, long length, long maxFooterLen, MutableParquetMetadata footer, OperatorContext context, boolean readColumnOffsetIndexes) {
+    this(fs, path, length, maxFooterLen, footer, context, readColumnOffsetIndexes, null);
+  }
+
+  /**
+   * @param asyncReader reader of the file used to prefetch the column chunks, may be null. Closed with the provider.
+   */
+  public StreamPerColumnProvider(FileSystem fs, Path path, long length, long maxFooterLen, MutableParquetMetadata footer, OperatorContext context, boolean readColumnOffsetIndexes,
+                                 AsyncByteReader asyncReader) {
     this.fs = fs;
     this.path = path;
     this.length = length;
@@ -58,6 +70,7 @@ public class StreamPerColumnProvider implements InputStreamProvider {
       this.allocator = null;
     }
     this.context = context;
+    this.asyncReader = asyncReader;
   }
 
   @Override
@@ -67,12 +80,33 @@ public class StreamPerColumnProvider implements InputStreamProvider {
 
   @Override
   public BulkInputStream getStream(ColumnChunkMetaData column) throws IOException {
-    FSInputStream is = fs.open(path);
-    BulkInputStream stream = BulkInputStream.wrap(Streams.wrap(is));
+    BulkInputStream stream = column == null || prefetched == null ? null : prefetched.getStream(column);
+    if (stream == null) {
+      FSInputStream is = fs.open(path);
+      stream = BulkInputStream.wrap(Streams.wrap(is));
+    }
     streams.add(stream);
     return stream;
   }
 
+  @Override
+  public void prefetchColumns(List<ColumnChunkMetaData> columns) throws IOException {
+    if (asyncReader == null || allocator == null) {
+      return;
+    }
+    if (prefetched != null) {
+      prefetched.close();
+    }
+    prefetched = PrefetchedColumnChunks.read(asyncReader, allocator, columns,
+      context.getOptions().getOption(ExecConstants.PARQUET_VECTORED_READ_MAX_SIZE),
+      context.getOptions().getOption(ExecConstants.PARQUET_VECTORED_READ_MAX_BUFFERED));
+  }
+
+  @Override
+  public AsyncByteReader getAsyncByteReader() {
+    return asyncReader;
+  }
+
   @Override
   public boolean isSingleStream() {
     return false;
@@ -136,8 +170,9 @@ public class StreamPerColumnProvider implements InputStreamProvider {
 
   @Override
   public void close() throws IOException {
+    PrefetchedColumnChunks.addStats(asyncReader, context);
     try {
-      AutoCloseables.close(streams);
+      AutoCloseables.close(streams, AutoCloseables.iter(prefetched, asyncReader));
     } catch (IOException | RuntimeException e) {
       throw e;
     } catch (Exception e) {
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.arrow.memory.ArrowBuf;
@@ -38,6 +39,10 @@ import org.apache.arrow.vector.complex.StructVector;
 import org.apache.arrow.vector.complex.UnionVector;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.column.statistics.BinaryStatistics;
+import org.apache.parquet.column.statistics.IntStatistics;
+import org.apache.parquet.column.statistics.LongStatistics;
+import org.apache.parquet.column.statistics.Statistics;
 import org.apache.parquet.compression.CompressionCodecFactory;
 import org.apache.parquet.hadoop.CodecFactory;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
@@ -49,6 +54,7 @@ import org.apache.parquet.schema.PrimitiveType;
 import org.apache.parquet.schema.Type;
 
 import com.dremio.common.AutoCloseables;
+import com.dremio.common.collections.Tuple;
 import com.dremio.common.arrow.DremioArrowSchema;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.common.exceptions.ExecutionSetupException;
@@ -63,16 +69,24 @@ import com.dremio.exec.store.AbstractRecordReader;
 import com.dremio.exec.store.CompositeColumnFilter;
 import com.dremio.exec.store.RecordReader;
 import com.dremio.exec.store.RuntimeFilter;
+import com.dremio.exec.store.RuntimeRangeFilter;
+import com.dremio.exec.store.cache.LocalBoostCache;
+import com.dremio.exec.store.easy.arrow.ArrowFlatBufRecordReader;
 import com.dremio.exec.store.parquet.columnreaders.DeprecatedParquetVectorizedReader;
 import com.dremio.exec.store.parquet2.LogicalListL1Converter;
 import com.dremio.exec.store.parquet2.ParquetRowiseReader;
 import com.dremio.exec.util.ColumnUtils;
 import com.dremio.exec.util.ValueListFilter;
+import com.dremio.io.AsyncByteReader.FileKey;
+import com.dremio.io.AsyncByteReader.ReaderStat;
+import com.dremio.io.FSInputStream;
+import com.dremio.io.file.BoostedFileSystem;
 import com.dremio.io.file.FileBlockLocation;
 import com.dremio.io.file.FileSystem;
 import com.dremio.io.file.Path;
 import com.dremio.parquet.reader.ParquetDirectByteBufferAllocator;
 import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.store.parquet.proto.ParquetProtobuf.ParquetDatasetSplitScanXAttr;
 import com.dremio.sabot.op.scan.OutputMutator;
 import com.dremio.sabot.op.scan.ScanOperator.Metric;
@@ -109,11 +123,18 @@ public class UnifiedParquetReader implements RecordReader {
   private InputStreamProvider inputStreamProvider;
   private boolean ignoreSchemaLearning;
   private List<RuntimeFilter> runtimeFilters;
+  private boolean skippedByRangeFilter;
 
   private OutputMutator outputMutator;
   private ArrowBuf validityBuf;
   private final int maxValidityBufSize;
 
+  private boolean arrowCachingEnabled;
+  private boolean boostedRead;
+  private List<SchemaPath> columnsToBoost;
+  private final List<FSInputStream> boostStreams = new ArrayList<>();
+  private final List<ReaderStat> boostStats = new ArrayList<>();
+
   public UnifiedParquetReader(
       OperatorContext context,
       ParquetReaderFactory readerFactory,
@@ -186,15 +207,22 @@ public class UnifiedParquetReader implements RecordReader {
       this.validityBuf = context.getAllocator().buffer(maxValidityBufSize);
     }
 
-    final ExecutionPath execPath = getExecutionPath();
-    delegates = execPath.getReaders(this);
+    final List<RecordReader> boostedReaders = setupBoostedReaders(output);
+    if (boostedReaders != null) {
+      boostedRead = true;
+      delegates = boostedReaders;
+      context.getStats().addLongStat(Metric.NUM_COLUMNS_BOOSTED, boostedReaders.size());
+    } else {
+      final ExecutionPath execPath = getExecutionPath();
+      delegates = execPath.getReaders(this);
 
-    Preconditions.checkArgument(!delegates.isEmpty(), "There should be at least one delegated RecordReader");
-    for (RecordReader delegateReader : delegates) {
-      delegateReader.setup(output);
+      Preconditions.checkArgument(!delegates.isEmpty(), "There should be at least one delegated RecordReader");
+      for (RecordReader delegateReader : delegates) {
+        delegateReader.setup(output);
+      }
+      context.getStats().setLongStat(Metric.PARQUET_EXEC_PATH, execPath.ordinal());
     }
 
-    context.getStats().setLongStat(Metric.PARQUET_EXEC_PATH, execPath.ordinal());
     context.getStats().setLongStat(Metric.NUM_VECTORIZED_COLUMNS, vectorizableReaderColumns.size());
     context.getStats().setLongStat(Metric.NUM_NON_VECTORIZED_COLUMNS, nonVectorizableReaderColumns.size());
     context.getStats().setLongStat(Metric.FILTER_EXISTS, filterConditions != null && filterConditions.size() > 0 ? 1 : 0);
@@ -216,6 +244,129 @@ public class UnifiedParquetReader implements RecordReader {
     this.ignoreSchemaLearning = ignoreSchemaLearning;
   }
 
+  /**
+   * Read the columns of the row group from their boost files when all of them were boosted, and report the
+   * columns to boost otherwise.
+   */
+  public void setArrowCachingEnabled(boolean arrowCachingEnabled) {
+    this.arrowCachingEnabled = arrowCachingEnabled;
+  }
+
+  /**
+   * Open the boost files of the projected columns. The boost files hold all the rows of the row group, so they are
+   * only read when no filter is pushed into the reader.
+   *
+   * @return the readers of the boost files, or null if the row group is read from the parquet file
+   */
+  private List<RecordReader> setupBoostedReaders(OutputMutator output) {
+    if (!arrowCachingEnabled || !context.getOptions().getOption(ExecConstants.ENABLE_BOOSTING)
+      || !fs.supportsBoosting() || !readEntry.hasLastModificationTime()
+      || (globalDictionaryFieldInfoMap != null && !globalDictionaryFieldInfoMap.isEmpty())
+      || (filterConditions != null && !filterConditions.isEmpty()) || isNonPartitionColFilterPresent()) {
+      return null;
+    }
+
+    final List<SchemaPath> columns = new ArrayList<>(columnResolver.getBatchSchemaColumns(vectorizableReaderColumns));
+    columns.addAll(columnResolver.getBatchSchemaColumns(nonVectorizableReaderColumns));
+    if (columns.isEmpty() || columns.size() != columnResolver.getBatchSchemaProjectedColumns().size()
+      || !columns.stream().allMatch(SchemaPath::isSimplePath)) {
+      // some projected columns are missing from the file, or only parts of them are read
+      return null;
+    }
+
+    final BoostedFileSystem boostedFs = fs.getBoostedFilesystem();
+    final FileKey fileKey = FileKey.of(Path.of(readEntry.getPath()),
+      Long.toString(readEntry.getLastModificationTime()), FileKey.FileType.OTHER);
+    final List<ArrowFlatBufRecordReader> readers = new ArrayList<>();
+    columnsToBoost = new ArrayList<>();
+    for (SchemaPath column : columns) {
+      Tuple<FSInputStream, Long> boostFile;
+      try {
+        boostFile = boostedFs.getBoostFile(fileKey, readEntry.getRowGroupIndex(), column.getRootSegment().getPath(),
+          boostStats, context.getAllocator());
+      } catch (IOException e) {
+        logger.debug("Failed to open the boost file of column {} of {}", column, readEntry.getPath(), e);
+        boostFile = null;
+      }
+      if (boostFile == null) {
+        columnsToBoost.add(column);
+        continue;
+      }
+      boostStreams.add(boostFile.first);
+      readers.add(new ArrowFlatBufRecordReader(context, boostFile.first, boostFile.second));
+    }
+    if (!columnsToBoost.isEmpty()) {
+      closeBoostStreams();
+      return null;
+    }
+
+    try {
+      for (ArrowFlatBufRecordReader reader : readers) {
+        reader.setup(output);
+      }
+    } catch (RuntimeException e) {
+      logger.debug("Failed to read the boost files of {}, boosting the columns again", readEntry.getPath(), e);
+      closeBoostStreams();
+      columnsToBoost = columns;
+      return null;
+    }
+    if (!haveSameBatches(readers)) {
+      // the columns were boosted with different batch sizes, their batches cannot be read together
+      closeBoostStreams();
+      columnsToBoost = columns;
+      return null;
+    }
+    return new ArrayList<>(readers);
+  }
+
+  private static boolean haveSameBatches(List<ArrowFlatBufRecordReader> readers) {
+    final ArrowFlatBufRecordReader first = readers.get(0);
+    for (ArrowFlatBufRecordReader reader : readers) {
+      if (reader.getBatchCount() != first.getBatchCount()) {
+        return false;
+      }
+      for (int i = 0; i < first.getBatchCount(); i++) {
+        if (reader.getRecordBatchSize(i) != first.getRecordBatchSize(i)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private void closeBoostStreams() {
+    AutoCloseables.close(RuntimeException.class, boostStreams);
+    boostStreams.clear();
+  }
+
+  private void addBoostStats() {
+    final OperatorStats stats = context.getStats();
+    long bytesRead = 0;
+    long readNanos = 0;
+    long maxReadNanos = stats.getLongStat(Metric.MAX_BOOSTED_FILE_READ_TIME_NS);
+    int reads = 0;
+    for (ReaderStat stat : boostStats) {
+      if (LocalBoostCache.BYTES_READ_STAT.equals(stat.getName())) {
+        bytesRead += (long) stat.getValue();
+        reads++;
+      } else if (LocalBoostCache.READ_TIME_STAT.equals(stat.getName())) {
+        readNanos += (long) stat.getValue();
+        maxReadNanos = Math.max(maxReadNanos, (long) stat.getValue());
+      }
+    }
+    boostStats.clear();
+    if (reads == 0) {
+      return;
+    }
+
+    final long previousReads = stats.getLongStat(Metric.NUM_BOOSTED_FILE_READS);
+    final long previousNanos = stats.getLongStat(Metric.AVG_BOOSTED_FILE_READ_TIME_NS) * previousReads;
+    stats.addLongStat(Metric.NUM_BOOSTED_FILE_READS, reads);
+    stats.addLongStat(Metric.TOTAL_BOOSTED_BYTES_READ, bytesRead);
+    stats.setLongStat(Metric.MAX_BOOSTED_FILE_READ_TIME_NS, maxReadNanos);
+    stats.setLongStat(Metric.AVG_BOOSTED_FILE_READ_TIME_NS, (previousNanos + readNanos) / (previousReads + reads));
+  }
+
   private void computeLocality(MutableParquetMetadata footer) throws ExecutionSetupException {
     try {
       BlockMetaData block = footer.getBlocks().get(readEntry.getRowGroupIndex());
@@ -275,6 +426,10 @@ public class UnifiedParquetReader implements RecordReader {
 
   @Override
   public void allocate(Map<String, ValueVector> vectorMap) throws OutOfMemoryException {
+    if (boostedRead) {
+      // the buffers of the batches are read from the boost files
+      return;
+    }
     for(ValueVector v : vectorMap.values()){
       if(v instanceof FixedWidthVector){
         ((FixedWidthVector) v).allocateNew(context.getTargetBatchSize());
@@ -286,6 +441,10 @@ public class UnifiedParquetReader implements RecordReader {
 
   @Override
   public int next() {
+    if (skipByRangeFilters()) {
+      return 0;
+    }
+
     // at most one filter
     if (validityBuf == null) {
       return readEnsuringReadersReturnSameNumberOfRecords();
@@ -354,6 +513,9 @@ public class UnifiedParquetReader implements RecordReader {
   @Override
   public List<SchemaPath> getColumnsToBoost() {
     List<SchemaPath> columnsToBoost = Lists.newArrayList();
+    if (this.columnsToBoost != null) {
+      columnsToBoost.addAll(this.columnsToBoost);
+    }
     for(RecordReader recordReader : delegates) {
       List<SchemaPath> tmp = recordReader.getColumnsToBoost();
       if (tmp != null) {
@@ -375,11 +537,14 @@ public class UnifiedParquetReader implements RecordReader {
       closeables.addAll(delegates);
       closeables.add(inputStreamProvider);
       closeables.add(validityBuf);
+      closeables.addAll(boostStreams);
       AutoCloseables.close(closeables);
     } finally {
       delegates = null;
       inputStreamProvider = null;
       validityBuf = null;
+      boostStreams.clear();
+      addBoostStats();
     }
   }
 
@@ -592,19 +757,21 @@ public class UnifiedParquetReader implements RecordReader {
       @Override
       public List<RecordReader> getReaders(UnifiedParquetReader unifiedReader) {
         List<RecordReader> returnList = new ArrayList<>();
-        returnList.add(unifiedReader.addFilterIfNecessary(
-          new ParquetRowiseReader(
-            unifiedReader.context,
-            unifiedReader.getFooter(),
-            unifiedReader.readEntry.getRowGroupIndex(),
-            unifiedReader.readEntry.getPath(),
-            unifiedReader.projectedColumns,
-            unifiedReader.fs,
-            unifiedReader.schemaHelper,
-            unifiedReader.inputStreamProvider,
-            unifiedReader.codecFactory
-          )
-        ));
+        final ParquetRowiseReader reader = new ParquetRowiseReader(
+          unifiedReader.context,
+          unifiedReader.getFooter(),
+          unifiedReader.readEntry.getRowGroupIndex(),
+          unifiedReader.readEntry.getPath(),
+          unifiedReader.projectedColumns,
+          unifiedReader.fs,
+          unifiedReader.schemaHelper,
+          unifiedReader.inputStreamProvider,
+          unifiedReader.codecFactory
+        );
+        if (unifiedReader.context.getOptions().getOption(ExecConstants.PARQUET_READER_PAGE_SKIPPING)) {
+          reader.setFilterConditions(unifiedReader.filterConditions);
+        }
+        returnList.add(unifiedReader.addFilterIfNecessary(reader));
         return returnList;
       }
     },
@@ -738,6 +905,92 @@ public class UnifiedParquetReader implements RecordReader {
     public abstract List<RecordReader> getReaders(UnifiedParquetReader unifiedReader) throws ExecutionSetupException;
   }
 
+  /**
+   * Checks the range filters sent by TopN operators against the statistics of the row group. The filters are
+   * tightened in place as the TopN operators make progress, so this is checked before every batch and the rest
+   * of the row group is skipped as soon as none of its values can make it into the result.
+   *
+   * @return true if the rest of the row group can be skipped
+   */
+  private boolean skipByRangeFilters() {
+    if (skippedByRangeFilter) {
+      return true;
+    }
+    for (RuntimeFilter runtimeFilter : runtimeFilters) {
+      final RuntimeRangeFilter rangeFilter = runtimeFilter.getRangeFilter();
+      if (rangeFilter != null && isOutOfRange(rangeFilter)) {
+        logger.debug("Skipping row group {} of {} with {}", readEntry.getRowGroupIndex(), readEntry.getPath(), rangeFilter);
+        context.getStats().addLongStat(Metric.NUM_ROW_GROUPS_PRUNED_BY_RANGE_FILTER, 1);
+        skippedByRangeFilter = true;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isOutOfRange(RuntimeRangeFilter rangeFilter) {
+    final BlockMetaData block = footer.getBlocks().get(readEntry.getRowGroupIndex());
+    if (block == null) {
+      return false;
+    }
+    final ColumnChunkMetaData column = block.getColumns().stream()
+      .filter(c -> c.getPath().size() == 1 && c.getPath().toDotString().equalsIgnoreCase(rangeFilter.getColumn()))
+      .findFirst()
+      .orElse(null);
+    if (column == null) {
+      return false;
+    }
+    final Statistics<?> stats = column.getStatistics();
+    if (stats == null || stats.isEmpty() || !stats.isNumNullsSet()) {
+      return false;
+    }
+    if (stats.getNumNulls() > 0 && rangeFilter.isNullsPass()) {
+      return false;
+    }
+    if (!stats.hasNonNullValue()) {
+      // only nulls, which come after the values
+      return stats.getNumNulls() == column.getValueCount();
+    }
+
+    final PrimitiveType type = column.getPrimitiveType();
+    final OriginalType originalType = type.getOriginalType();
+    switch (type.getPrimitiveTypeName()) {
+      case INT32:
+        if (originalType == null || originalType == OriginalType.INT_8 || originalType == OriginalType.INT_16
+          || originalType == OriginalType.INT_32 || originalType == OriginalType.TIME_MILLIS) {
+          final IntStatistics intStats = (IntStatistics) stats;
+          return rangeFilter.isOutOfRange(intStats.getMin(), intStats.getMax());
+        }
+        if (originalType == OriginalType.DATE) {
+          final IntStatistics intStats = (IntStatistics) stats;
+          return rangeFilter.isOutOfRange(TimeUnit.DAYS.toMillis(intStats.getMin()), TimeUnit.DAYS.toMillis(intStats.getMax()));
+        }
+        return false;
+      case INT64:
+        if (originalType == null || originalType == OriginalType.INT_64 || originalType == OriginalType.TIMESTAMP_MILLIS) {
+          final LongStatistics longStats = (LongStatistics) stats;
+          return rangeFilter.isOutOfRange(longStats.getMin(), longStats.getMax());
+        }
+        return false;
+      case FLOAT:
+      case DOUBLE:
+        // NaN is the greatest value in the result but is not part of the statistics, so only upper bounds hold
+        if (!rangeFilter.isUpperBound()) {
+          return false;
+        }
+        return rangeFilter.isOutOfRange(((Number) stats.genericGetMin()).doubleValue(),
+          ((Number) stats.genericGetMax()).doubleValue());
+      case BINARY:
+        if (originalType == null || originalType == OriginalType.UTF8) {
+          final BinaryStatistics binaryStats = (BinaryStatistics) stats;
+          return rangeFilter.isOutOfRange(binaryStats.getMin().getBytes(), binaryStats.getMax().getBytes());
+        }
+        return false;
+      default:
+        return false;
+    }
+  }
+
   private boolean isNonPartitionColFilterPresent() {
     return this.runtimeFilters.stream().flatMap(f -> f.getNonPartitionColumnFilters().stream()).findAny().isPresent();
   }
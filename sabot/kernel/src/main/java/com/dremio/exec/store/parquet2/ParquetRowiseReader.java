@@ -60,12 +60,15 @@ import com.dremio.exec.store.parquet.AbstractParquetReader;
 import com.dremio.exec.store.parquet.InputStreamProvider;
 import com.dremio.exec.store.parquet.MutableParquetMetadata;
 import com.dremio.exec.store.parquet.ParquetColumnResolver;
+import com.dremio.exec.store.parquet.ParquetFilterCondition;
+import com.dremio.exec.store.parquet.ParquetPageFilter;
 import com.dremio.exec.store.parquet.ParquetScanProjectedColumns;
 import com.dremio.exec.store.parquet.SchemaDerivationHelper;
 import com.dremio.io.file.FileSystem;
 import com.dremio.io.file.Path;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.op.scan.OutputMutator;
+import com.dremio.sabot.op.scan.ScanOperator;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -105,6 +108,8 @@ public class ParquetRowiseReader extends AbstractParquetReader {
   // See DRILL-4203
   private SchemaDerivationHelper schemaHelper;
   private VectorizedBasedFilter vectorizedBasedFilter;
+  // pushed down conditions, used to skip the pages without any matching row
+  private List<ParquetFilterCondition> filterConditions;
 
   public ParquetRowiseReader(OperatorContext context, MutableParquetMetadata footer, int rowGroupIndex, String path,
                              ParquetScanProjectedColumns projectedColumns, FileSystem fileSystem, SchemaDerivationHelper schemaHelper,
@@ -140,6 +145,14 @@ public class ParquetRowiseReader extends AbstractParquetReader {
     this(context, footer, rowGroupIndex, path, projectedColumns, fileSystem, schemaHelper, null, inputStreamProvider, codec, readEvenIfSchemaChanges);
   }
 
+  /**
+   * Set the pushed down filter conditions. The conditions are not applied by this reader, but they are evaluated
+   * against the page indexes of the row group to skip the pages without any matching row.
+   */
+  public void setFilterConditions(List<ParquetFilterCondition> filterConditions) {
+    this.filterConditions = filterConditions;
+  }
+
   public static SchemaPath convertColumnDescriptor(ParquetColumnResolver columnResolver, final MessageType schema, final ColumnDescriptor columnDescriptor) {
     List<String> path = columnResolver.convertColumnDescriptor(schema, columnDescriptor);
     String[] schemaColDesc = new String[path.size()];
@@ -260,6 +273,7 @@ public class ParquetRowiseReader extends AbstractParquetReader {
 
       boolean schemaOnly = (operatorContext == null) || (footer.getBlocks().size() == 0);
 
+      ParquetPageFilter pageFilter = null;
       if (!schemaOnly) {
         Path filePath = Path.of(path);
 
@@ -268,9 +282,13 @@ public class ParquetRowiseReader extends AbstractParquetReader {
 
         recordCount = blockMetaData.getRowCount();
 
+        // skipping pages is not compatible with the deltas, which are relative to all the rows of the row group
+        pageFilter = deltas != null || noColumnsFound ? null :
+          ParquetPageFilter.create(filterConditions, columnResolver, schema, blockMetaData, inputStreamProvider);
         pageReadStore = new ColumnChunkIncReadStore(recordCount,
           codec, operatorContext.getAllocator(),
-          filePath, inputStreamProvider);
+          filePath, inputStreamProvider, pageFilter == null ? null : pageFilter.getRowRanges());
+        recordCount = pageReadStore.getRowCount();
       }
 
       if (!schemaOnly && !noColumnsFound) {
@@ -281,11 +299,22 @@ public class ParquetRowiseReader extends AbstractParquetReader {
         for (ColumnChunkMetaData md : footer.getBlocks().get(rowGroupIndex).getColumns()) {
           paths.put(md.getPath(), md);
         }
+        List<ColumnChunkMetaData> projectedChunks = new ArrayList<>();
+        for (String[] path : projection.getPaths()) {
+          if (schema.getType(path).isPrimitive()) {
+            projectedChunks.add(paths.get(ColumnPath.get(path)));
+          }
+        }
+        if (pageFilter == null) {
+          // read the chunks of the projected columns up front, pages skipped by a filter are not worth reading
+          inputStreamProvider.prefetchColumns(projectedChunks);
+        }
         for (String[] path : projection.getPaths()) {
           Type type = schema.getType(path);
           if (type.isPrimitive()) {
             ColumnChunkMetaData md = paths.get(ColumnPath.get(path));
-            pageReadStore.addColumn(schema.getColumnDescription(path), md);
+            pageReadStore.addColumn(schema.getColumnDescription(path), md,
+              pageFilter == null ? null : pageFilter.getOffsetIndex(md));
           }
         }
 
@@ -534,6 +563,10 @@ public class ParquetRowiseReader extends AbstractParquetReader {
   public void close() {
     try {
       if (pageReadStore != null) {
+        if (operatorContext != null && pageReadStore.getPagesSkipped() > 0) {
+          operatorContext.getStats().addLongStat(ScanOperator.Metric.NUM_PAGES_PRUNED, pageReadStore.getPagesSkipped());
+          operatorContext.getStats().addLongStat(ScanOperator.Metric.NUM_PAGE_BYTES_PRUNED, pageReadStore.getBytesSkipped());
+        }
         pageReadStore.close();
         pageReadStore = null;
       }
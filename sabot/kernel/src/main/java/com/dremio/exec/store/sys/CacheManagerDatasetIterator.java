@@ -40,19 +40,21 @@ public class CacheManagerDatasetIterator implements Iterator<Object> {
     if (isCachedFileSystem) {
       cacheManagerStatsProvider = (CacheManagerStatsProvider) sabotContext.getFileSystemWrapper();
       dsIterator = cacheManagerStatsProvider.getDatasetIterator();
-      if (dsIterator != null) {
-        datasetInfoList = cacheManagerStatsProvider.getDatasetStats(dsIterator);
-      }
+      datasetInfoList = cacheManagerStatsProvider.getDatasetStats(dsIterator);
     }
   }
 
   @Override
   public boolean hasNext() {
-    if (!isCachedFileSystem || dsIterator == null) {
+    if (!isCachedFileSystem) {
       return false;
     }
 
     if (curPos == datasetInfoList.size()) {
+      if (dsIterator == null) {
+        // without an iterator, all the stats are returned in one batch
+        return false;
+      }
       datasetInfoList = cacheManagerStatsProvider.getDatasetStats(dsIterator);
       if (datasetInfoList.isEmpty()) {
         dsIterator.close();
@@ -65,7 +67,7 @@ public class CacheManagerDatasetIterator implements Iterator<Object> {
 
   @Override
   public Object next() {
-    if (!isCachedFileSystem || dsIterator == null) {
+    if (!isCachedFileSystem) {
       return null;
     }
 
@@ -46,11 +46,15 @@ public class CacheManagerFilesIterator implements Iterator<Object> {
 
   @Override
   public boolean hasNext() {
-    if (!isCachedFileSystem || fileIterator == null) {
+    if (!isCachedFileSystem) {
       return false;
     }
 
     if (curPos == filesInfoList.size()) {
+      if (fileIterator == null) {
+        // without an iterator, all the stats are returned in one batch
+        return false;
+      }
       filesInfoList = cacheManagerStatsProvider.getCachedFilesStats(fileIterator);
       if (filesInfoList.isEmpty()) {
         fileIterator.close();
@@ -63,7 +67,7 @@ public class CacheManagerFilesIterator implements Iterator<Object> {
 
   @Override
   public Object next() {
-    if (!isCachedFileSystem || fileIterator == null) {
+    if (!isCachedFileSystem) {
       return null;
     }
 
@@ -49,7 +49,7 @@ public interface CacheManagerStatsProvider {
 
   /**
    * Gets the iterator for the datasets information in the cache manager.
-   * @return
+   * @return the iterator, or null if all the datasets are returned by a single call to {@link #getDatasetStats}
    */
   RocksIterator getDatasetIterator();
 
@@ -62,7 +62,7 @@ public interface CacheManagerStatsProvider {
 
   /**
    * Gets the iterator for the cached files in the executor node.
-   * @return
+   * @return the iterator, or null if all the files are returned by a single call to {@link #getCachedFilesStats}
    */
   RocksIterator getCachedFilesIterator();
 
@@ -15,6 +15,7 @@
  */
 package com.dremio.exec.store.sys;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.stream.StreamSupport;
 
@@ -34,6 +35,7 @@ import com.dremio.exec.proto.CoordinationProtos;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.server.SabotContext;
 import com.dremio.exec.store.RecordDataType;
+import com.dremio.exec.store.parquet.ParquetFooterCache;
 import com.dremio.exec.store.pojo.PojoDataType;
 import com.dremio.exec.store.sys.OptionIterator.OptionValueWrapper;
 import com.dremio.exec.store.sys.accel.AccelerationListManager;
@@ -260,6 +262,18 @@ public enum SystemTable implements DatasetHandle, DatasetMetadata, PartitionChun
     public Iterator<?> getIterator(final SabotContext sContext, final OperatorContext context) {
       return sContext.getStatisticsListManagerProvider().get().getStatisticsInfos().iterator();
     }
+  },
+
+  PARQUET_FOOTER_CACHE(true, ParquetFooterCache.CacheInfo.class, "parquet_footer_cache") {
+    @Override
+    public Iterator<?> getIterator(final SabotContext sContext, final OperatorContext context) {
+      final ParquetFooterCache footerCache = ParquetFooterCache.getInstance();
+      if (footerCache == null) {
+        return Collections.emptyIterator();
+      }
+      final CoordinationProtos.NodeEndpoint endpoint = sContext.getEndpoint();
+      return Collections.singletonList(footerCache.getInfo(endpoint.getAddress(), endpoint.getFabricPort())).iterator();
+    }
   };
 
   private static final long RECORD_COUNT = 100L;
@@ -42,7 +42,6 @@ import com.dremio.config.DremioConfig;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.maestro.MaestroForwarder;
 import com.dremio.exec.maestro.MaestroService;
-import com.dremio.exec.planner.CachedPlan;
 import com.dremio.exec.planner.PlanCache;
 import com.dremio.exec.planner.observer.OutOfBandQueryObserver;
 import com.dremio.exec.planner.observer.QueryObserver;
@@ -86,13 +85,8 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalListener;
-import com.google.common.cache.RemovalNotification;
-import com.google.common.cache.Weigher;
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimaps;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.protobuf.Empty;
@@ -145,7 +139,6 @@ public class ForemenWorkManager implements Service, SafeExit {
   private UserWorker userWorker;
   private LocalQueryExecutor localQueryExecutor;
   private final CloseableSchedulerThreadPool profileSender;
-  private Cache<Long, CachedPlan> cachedPlans;
   private PlanCache planCache;
 
   public ForemenWorkManager(
@@ -216,24 +209,14 @@ public class ForemenWorkManager implements Service, SafeExit {
       PROFILE_SEND_INTERVAL_SECONDS, PROFILE_SEND_INTERVAL_SECONDS, TimeUnit.SECONDS);
 
     // cache for physical plans.
-    cachedPlans = CacheBuilder.newBuilder()
-      .maximumWeight(dbContext.get().getDremioConfig().getLong(DremioConfig.PLAN_CACHE_MAX_ENTRIES))
-      .weigher((Weigher<Long, CachedPlan>) (key, cachedPlan) -> cachedPlan.getEstimatedSize())
-      // plan caches are memory intensive. If there is memory pressure,
-      // let GC release them as last resort before running OOM.
-      .softValues()
-      .removalListener(
-        new RemovalListener<Long, CachedPlan>() {
-          @Override
-          public void onRemoval(RemovalNotification<Long, CachedPlan> notification) {
-            PlanCache.clearDatasetMapOnCacheGC(notification.getKey());
-          }
-        }
-      )
-      .expireAfterAccess(dbContext.get().getDremioConfig().getLong(DremioConfig.PLAN_CACHE_TIMEOUT_MINUTES), TimeUnit.MINUTES)
-      .build();
-
-    planCache = new PlanCache(cachedPlans, Multimaps.synchronizedListMultimap(ArrayListMultimap.create()));
+    planCache = new PlanCache(dbContext.get().getDremioConfig().getLong(DremioConfig.PLAN_CACHE_MAX_ENTRIES),
+      dbContext.get().getDremioConfig().getLong(DremioConfig.PLAN_CACHE_MAX_SIZE_BYTES),
+      dbContext.get().getDremioConfig().getLong(DremioConfig.PLAN_CACHE_TIMEOUT_MINUTES));
+    Metrics.newGauge(Metrics.join("plan_cache", "entries"), () -> planCache.getEntryCount());
+    Metrics.newGauge(Metrics.join("plan_cache", "hits"), () -> planCache.getStats().hitCount());
+    Metrics.newGauge(Metrics.join("plan_cache", "misses"), () -> planCache.getStats().missCount());
+    Metrics.newGauge(Metrics.join("plan_cache", "evictions"), () -> planCache.getStats().evictionCount());
+    Metrics.newGauge(Metrics.join("plan_cache", "invalidations"), () -> planCache.getInvalidationCount());
 
   }
 
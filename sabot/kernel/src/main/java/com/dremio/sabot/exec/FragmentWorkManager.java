@@ -349,7 +349,7 @@ public class FragmentWorkManager implements Service, SafeExit {
     for (TaskPool.ThreadInfo slicingThread : slicingThreads) {
       slicingThreadIds.add(slicingThread.threadId);
     }
-    statsCollectorThread = new ThreadsStatsCollector(slicingThreadIds);
+    statsCollectorThread = new ThreadsStatsCollector(slicingThreadIds, pool.get()::getGroupStats);
     statsCollectorThread.start();
 
     if (bitContext.isExecutor()) {
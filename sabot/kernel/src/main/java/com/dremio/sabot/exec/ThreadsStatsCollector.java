@@ -18,16 +18,19 @@ package com.dremio.sabot.exec;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Supplier;
 
 import com.carrotsearch.hppc.LongObjectHashMap;
+import com.dremio.sabot.task.TaskPool.GroupInfo;
 
 /**
- * Collects stats to report CPU usage per thread during the last 5 seconds
+ * Collects stats to report CPU usage per thread and per scheduling group during the last 5 seconds
  */
 public class ThreadsStatsCollector extends Thread implements AutoCloseable {
 //  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ThreadsStatsCollector.class);
@@ -40,18 +43,29 @@ public class ThreadsStatsCollector extends Thread implements AutoCloseable {
   private static ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
   private final CPUStat cpuStat;
   private final UserStat userStat;
+  private final GroupStat groupStat;
 
   public ThreadsStatsCollector(Set<Long> slicingThreadIds) {
     this(DEFAULT_COLLECTION_INTERVAL_IN_MILLIS, slicingThreadIds);
   }
 
+  public ThreadsStatsCollector(Set<Long> slicingThreadIds, Supplier<Iterable<GroupInfo>> groupStats) {
+    this(DEFAULT_COLLECTION_INTERVAL_IN_MILLIS, slicingThreadIds, groupStats);
+  }
+
+  public ThreadsStatsCollector(long collectionIntervalInMilliSeconds, Set<Long> slicingThreadIds) {
+    this(collectionIntervalInMilliSeconds, slicingThreadIds, Collections::emptyList);
+  }
+
   // Since fragment executor catches all exceptions, the thread id for slicing threads
   // should not change during the life time of JVM.
-  public ThreadsStatsCollector(long collectionIntervalInMilliSeconds, Set<Long> slicingThreadIds) {
+  public ThreadsStatsCollector(long collectionIntervalInMilliSeconds, Set<Long> slicingThreadIds,
+                               Supplier<Iterable<GroupInfo>> groupStats) {
     super("thread-stats-collector");
     this.collectionIntervalInMillseconds = collectionIntervalInMilliSeconds;
     cpuStat = new CPUStat(slicingThreadIds);
     userStat = new UserStat(slicingThreadIds);
+    groupStat = new GroupStat(groupStats);
   }
 
   @Override
@@ -61,6 +75,7 @@ public class ThreadsStatsCollector extends Thread implements AutoCloseable {
         Thread.sleep(collectionIntervalInMillseconds);
         cpuStat.addCpuTime();
         userStat.addUserTime();
+        groupStat.addGroupCpuTime();
       } catch (InterruptedException e) {
         return;
       }
@@ -75,6 +90,21 @@ public class ThreadsStatsCollector extends Thread implements AutoCloseable {
     return userStat.getTrailingAverage(id, seconds);
   }
 
+  /**
+   * @return the percentage of one core used by the tasks of the scheduling group during the last {@code seconds}
+   */
+  public Integer getGroupCpuTrailingAverage(long groupId, int seconds) {
+    return groupStat.getTrailingAverage(groupId, seconds);
+  }
+
+  /**
+   * @return the number of tasks of the scheduling group waiting in a run queue, as of the last collection
+   */
+  public Integer getGroupRunQueueDepth(long groupId) {
+    final GroupInfo info = groupStat.latest.get(groupId);
+    return info == null ? null : info.runQueueDepth;
+  }
+
   private static class CPUStat extends ThreadStat {
     private CPUStat(Set<Long> slicingThreadIds) {
       super(slicingThreadIds);
@@ -105,6 +135,28 @@ public class ThreadsStatsCollector extends Thread implements AutoCloseable {
     }
   }
 
+  private static class GroupStat extends ThreadStat {
+    private final Supplier<Iterable<GroupInfo>> groupStats;
+    private volatile LongObjectHashMap<GroupInfo> latest = new LongObjectHashMap<>();
+
+    private GroupStat(Supplier<Iterable<GroupInfo>> groupStats) {
+      super(Collections.emptySet());
+      this.groupStats = groupStats;
+    }
+
+    private void addGroupCpuTime() {
+      long timestamp = System.nanoTime();
+      LongObjectHashMap<Deque<Entry<Long,Long>>> newHolder = new LongObjectHashMap<>();
+      LongObjectHashMap<GroupInfo> newLatest = new LongObjectHashMap<>();
+      for (GroupInfo info : groupStats.get()) {
+        add(info.groupId, timestamp, info.cpuTime, newHolder);
+        newLatest.put(info.groupId, info);
+      }
+      this.data = newHolder;
+      this.latest = newLatest;
+    }
+  }
+
   private static class ThreadStat {
     protected final Set<Long> slicingThreadIds;
     volatile LongObjectHashMap<Deque<Entry<Long,Long>>> data = new LongObjectHashMap<>();
@@ -94,7 +94,7 @@ public class AccumulatorBuilder {
         continue;
       }
 
-      /* SUM, MIN, MAX, $SUM0, COUNT */
+      /* SUM, MIN, MAX, $SUM0, COUNT, HLL, HLL_MERGE */
       final ValueVectorReadExpression vvread = (ValueVectorReadExpression) exprs.get(0);
       inputVector = incoming.getValueAccessorById(FieldVector.class, vvread.getFieldId().getFieldIds()).getValueVector();
       accumulatorTypes[i] = getAccumulatorTypeFromName(func.getName());
@@ -344,6 +344,57 @@ public class AccumulatorBuilder {
                                           computationVectorAllocator);
       }
 
+      case 6: {
+        switch(type){
+          case INT:
+            return new NdvAccumulators.IntNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                         computationVectorAllocator);
+          case FLOAT4:
+            return new NdvAccumulators.FloatNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                           computationVectorAllocator);
+          case BIGINT:
+            return new NdvAccumulators.BigIntNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                            computationVectorAllocator);
+          case FLOAT8:
+            return new NdvAccumulators.DoubleNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                            computationVectorAllocator);
+          case DECIMAL:
+            if (decimalCompleteEnabled) {
+              return new NdvAccumulators.DecimalNdvAccumulatorV2(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                computationVectorAllocator);
+            } else {
+              return new NdvAccumulators.DecimalNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                computationVectorAllocator);
+            }
+          case BIT:
+            return new NdvAccumulators.BitNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                         computationVectorAllocator);
+          case DATE:
+          case TIMESTAMP:
+            // 8-byte values, hashed like the underlying long values
+            return new NdvAccumulators.BigIntNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                            computationVectorAllocator);
+          case TIME:
+          case INTERVALYEAR:
+            // 4-byte values, hashed like the underlying int values
+            return new NdvAccumulators.IntNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                         computationVectorAllocator);
+          case INTERVALDAY:
+            return new NdvAccumulators.IntervalDayNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                                 computationVectorAllocator);
+          case VARCHAR:
+          case VARBINARY:
+            return new NdvAccumulators.VarLenNdvAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                            computationVectorAllocator);
+        }
+        break;
+      }
+
+      case 7: {
+        return new NdvAccumulators.NdvUnionAccumulator(incomingValues, outputVector, transferVector, maxValuesPerBatch,
+                                                       computationVectorAllocator);
+      }
+
     }
 
     return null;
@@ -374,6 +425,27 @@ public class AccumulatorBuilder {
     public List<FieldVector> getInputVectors() {
       return inputVectors;
     }
+
+    /**
+     * Get the fields of the accumulator vectors, which are spilled and read back.
+     * They are the fields of the output vectors, except for NDV whose accumulator
+     * vectors hold fixed size sketches.
+     *
+     * @return fields of the accumulator vectors
+     */
+    public List<Field> getAccumulatorVectorFields() {
+      final List<Field> accumulatorVectorFields = new ArrayList<>(outputVectorFields.size());
+      for (int i = 0; i < accumulatorTypes.length; i++) {
+        final Field outputField = outputVectorFields.get(i);
+        if (accumulatorTypes[i] == AccumulatorType.HLL.ordinal() ||
+          accumulatorTypes[i] == AccumulatorType.HLL_MERGE.ordinal()) {
+          accumulatorVectorFields.add(BaseNdvAccumulator.getSketchField(outputField));
+        } else {
+          accumulatorVectorFields.add(outputField);
+        }
+      }
+      return accumulatorVectorFields;
+    }
   }
 
   public enum AccumulatorType {
@@ -382,7 +454,9 @@ public class AccumulatorBuilder {
     MAX,
     SUM0,
     COUNT,
-    COUNT1
+    COUNT1,
+    HLL,
+    HLL_MERGE
   }
 
   private static byte getAccumulatorTypeFromName(String name) {
@@ -401,6 +475,8 @@ public class AccumulatorBuilder {
         return (byte)AccumulatorType.COUNT.ordinal();
       case "count1":
         return (byte)AccumulatorType.COUNT1.ordinal();
+      case "hll":
+        return (byte)(name.equals("hll_merge") ? AccumulatorType.HLL_MERGE.ordinal() : AccumulatorType.HLL.ordinal());
       default:
         throw UserException.unsupportedError().message("Unable to handle accumulator function %s", name).build(logger);
     }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.util.MemoryUtil;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.FixedSizeBinaryVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+
+import com.dremio.exec.expr.fn.hll.StatisticsAggrFunctions;
+import com.yahoo.memory.WritableMemory;
+import com.yahoo.sketches.hll.HllSketch;
+import com.yahoo.sketches.hll.TgtHllType;
+
+/**
+ * A base accumulator for HLL/NDV.
+ *
+ * Unlike the other accumulators, the accumulator vectors don't have the type of the output
+ * vector (VARBINARY, holding compact sketches). Each group gets an updatable HLL_8 sketch
+ * of fixed size, stored in place in a {@link FixedSizeBinaryVector}. So the accumulator vectors
+ * are spilled and read back like any other fixed width accumulator vector, and the sketches
+ * read from a spilled batch are merged by {@link NdvAccumulators.NdvUnionAccumulator} during
+ * post-spill processing. The compact sketches are only built when outputting a batch.
+ */
+abstract class BaseNdvAccumulator extends BaseSingleAccumulator {
+
+  static final int SKETCH_SIZE = HllSketch.getMaxUpdatableSerializationBytes(StatisticsAggrFunctions.HLL_ACCURACY, TgtHllType.HLL_8);
+
+  private static final FieldType SKETCH_FIELD_TYPE = FieldType.nullable(new ArrowType.FixedSizeBinary(SKETCH_SIZE));
+
+  /**
+   * @param input source vector containing data to be accumulated
+   * @param output vector in outgoing container, only used for its name
+   * @param transferVector vector in outgoing container that receives the compact sketches
+   * @param type accumulator type
+   * @param maxValuesPerBatch maximum records in a hashtable batch/block
+   * @param computationVectorAllocator allocator
+   */
+  BaseNdvAccumulator(final FieldVector input, final FieldVector output,
+                     final FieldVector transferVector, final AccumulatorBuilder.AccumulatorType type,
+                     final int maxValuesPerBatch, final BufferAllocator computationVectorAllocator) {
+    this(input, new FixedSizeBinaryVector(output.getName(), SKETCH_FIELD_TYPE, computationVectorAllocator),
+         transferVector, type, maxValuesPerBatch, computationVectorAllocator, null, null, null);
+  }
+
+  /**
+   * This is used to recreate the accumulator for post-spill processing
+   * @param input source vector containing data to be accumulated (vector read from spilled batch)
+   * @param sketchVector vector with the type of the accumulator vectors
+   * @param transferVector vector in outgoing container that receives the compact sketches
+   * @param type accumulator type
+   * @param maxValuesPerBatch maximum records in a hashtable batch/block
+   * @param computationVectorAllocator allocator
+   * @param bitAddresses validity buffer addresses of accumulator vectors retrieved from pre-spill iteration
+   * @param valueAddresses data buffer addresses of accumulator vectors retrieved from pre-spill iteration
+   * @param accumulators empty accumulator vectors from pre-spill iteration that store computed values for each batch
+   */
+  BaseNdvAccumulator(final FieldVector input, final FieldVector sketchVector,
+                     final FieldVector transferVector, final AccumulatorBuilder.AccumulatorType type,
+                     final int maxValuesPerBatch, final BufferAllocator computationVectorAllocator,
+                     final long[] bitAddresses, final long[] valueAddresses,
+                     final FieldVector[] accumulators) {
+    super(input, sketchVector, transferVector, type, maxValuesPerBatch, computationVectorAllocator,
+          bitAddresses, valueAddresses, accumulators);
+  }
+
+  /**
+   * Get the field of the accumulator vectors of an NDV aggregate.
+   *
+   * @param outputField field of the output vector
+   * @return field of fixed size binary type, wide enough for an updatable sketch
+   */
+  static Field getSketchField(final Field outputField) {
+    return new Field(outputField.getName(), SKETCH_FIELD_TYPE, null);
+  }
+
+  /**
+   * Every group starts with an empty sketch: an empty sketch and no sketch at all
+   * (when there is no non-null value) both give a zero estimate.
+   */
+  @Override
+  void initialize(FieldVector vector) {
+    setNotNullAndZero(vector);
+    final long dataAddr = vector.getDataBufferAddress();
+    for (int i = 0; i < maxValuesPerBatch; i++) {
+      new HllSketch(StatisticsAggrFunctions.HLL_ACCURACY, TgtHllType.HLL_8, getSketchMemory(dataAddr, i));
+    }
+  }
+
+  static WritableMemory getSketchMemory(final long dataAddr, final int index) {
+    return WritableMemory.wrap(MemoryUtil.directBuffer(dataAddr + ((long) index) * SKETCH_SIZE, SKETCH_SIZE));
+  }
+
+  /**
+   * Get the sketch of a group, updated in place.
+   *
+   * @param chunkIndex hash table batch index
+   * @param chunkOffset offset in the hash table batch
+   * @return sketch backed by the accumulator vector
+   */
+  HllSketch getSketch(final int chunkIndex, final int chunkOffset) {
+    return HllSketch.writableWrap(getSketchMemory(valueAddresses[chunkIndex], chunkOffset));
+  }
+
+  /**
+   * Output the compact form of the sketches of a batch in the VARBINARY vector of the
+   * outgoing container. There is no transfer, so the accumulator vector of the first batch
+   * is just reset to empty sketches for post-spill processing.
+   *
+   * @param batchIndex batch to output
+   */
+  @Override
+  public void output(final int batchIndex) {
+    final FieldVector accumulationVector = getAccumulatorVector(batchIndex);
+    final long dataAddr = accumulationVector.getDataBufferAddress();
+    final byte[][] sketches = new byte[maxValuesPerBatch][];
+    int totalSize = 0;
+    for (int i = 0; i < maxValuesPerBatch; i++) {
+      sketches[i] = HllSketch.wrap(getSketchMemory(dataAddr, i)).toCompactByteArray();
+      totalSize += sketches[i].length;
+    }
+
+    final VarBinaryVector outputVector = (VarBinaryVector) getTransferVector();
+    outputVector.allocateNew(totalSize, maxValuesPerBatch);
+    for (int i = 0; i < maxValuesPerBatch; i++) {
+      outputVector.set(i, sketches[i]);
+    }
+
+    if (batchIndex == 0) {
+      initialize(accumulationVector);
+    }
+  }
+}
@@ -80,7 +80,13 @@ public class HashAggStats {
     OOB_DROP_UNDER_THRESHOLD, // Number of times OOB dropped spilling notification as it was under the threshold.
     OOB_DROP_NO_VICTIM, // Number of times OOB dropped spilling notification as all allocations were minimal.
     OOB_SPILL, // Spill was done due to oob.
-    OOB_DROP_ALREADY_SPILLING // Number of times operator dropped spilling notification as it was already spilling
+    OOB_DROP_ALREADY_SPILLING, // Number of times operator dropped spilling notification as it was already spilling
+
+    MAX_REHASH_PAUSE, /* longest time (ns) an insertion waited for a hash table to rehash, across partitions */
+    PARTIAL_AGG_BYPASSED, /* 1 if the first phase of a two phase aggregation stopped aggregating its whole input */
+    PARTIAL_AGG_REDUCTION_RATIO, /* sampled input records per group (x100) of the first phase of a two phase aggregation */
+    SPILL_COMPRESSION_TIME,   /* cumulative time (ns) taken to compress spilled data */
+    SPILL_DECOMPRESSION_TIME  /* cumulative time (ns) taken to decompress spilled data */
 
     ;
 
@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.HTORDINAL_OFFSET;
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.KEYINDEX_OFFSET;
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.PARTITIONINDEX_HTORDINAL_WIDTH;
+
+import java.nio.ByteBuffer;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.util.MemoryUtil;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.FixedSizeBinaryVector;
+
+import com.dremio.exec.util.DecimalUtils;
+import com.yahoo.memory.Memory;
+import com.yahoo.sketches.hll.HllSketch;
+import com.yahoo.sketches.hll.Union;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * HLL/NDV accumulators of the spilling vectorized hash aggregation. They hash the values
+ * the same way as the accumulators of {@link com.dremio.sabot.op.aggregate.vectorized.nospill.NdvAccumulatorsNoSpill},
+ * so the sketches of both operators can be merged.
+ */
+public class NdvAccumulators {
+
+  private NdvAccumulators(){};
+
+  public static class IntNdvAccumulator extends BaseNdvAccumulator {
+    private static final int WIDTH_INPUT = 4;
+
+    public IntNdvAccumulator(FieldVector input, FieldVector output,
+                             FieldVector transferVector, int maxValuesPerBatch,
+                             BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBit = getInput().getValidityBufferAddress();
+      final long incomingValue = getInput().getDataBufferAddress();
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        /* get the index of data in input vector */
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        /* incoming record is null, skip it */
+        if (bitVal == 0) {
+          continue;
+        }
+        final int newVal = PlatformDependent.getInt(incomingValue + (incomingIndex * WIDTH_INPUT));
+        /* get the hash table ordinal */
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        getSketch(tableIndex >>> bitsInChunk, tableIndex & chunkOffsetMask).update(newVal);
+      }
+    }
+  }
+
+  public static class FloatNdvAccumulator extends BaseNdvAccumulator {
+    private static final int WIDTH_INPUT = 4;
+
+    public FloatNdvAccumulator(FieldVector input, FieldVector output,
+                               FieldVector transferVector, int maxValuesPerBatch,
+                               BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBit = getInput().getValidityBufferAddress();
+      final long incomingValue = getInput().getDataBufferAddress();
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        if (bitVal == 0) {
+          continue;
+        }
+        final float newVal = Float.intBitsToFloat(PlatformDependent.getInt(incomingValue + (incomingIndex * WIDTH_INPUT)));
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        getSketch(tableIndex >>> bitsInChunk, tableIndex & chunkOffsetMask).update(newVal);
+      }
+    }
+  }
+
+  public static class BigIntNdvAccumulator extends BaseNdvAccumulator {
+    private static final int WIDTH_INPUT = 8;
+
+    public BigIntNdvAccumulator(FieldVector input, FieldVector output,
+                                FieldVector transferVector, int maxValuesPerBatch,
+                                BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBit = getInput().getValidityBufferAddress();
+      final long incomingValue = getInput().getDataBufferAddress();
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        if (bitVal == 0) {
+          continue;
+        }
+        final long newVal = PlatformDependent.getLong(incomingValue + (incomingIndex * WIDTH_INPUT));
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        getSketch(tableIndex >>> bitsInChunk, tableIndex & chunkOffsetMask).update(newVal);
+      }
+    }
+  }
+
+  public static class DoubleNdvAccumulator extends BaseNdvAccumulator {
+    private static final int WIDTH_INPUT = 8;
+
+    public DoubleNdvAccumulator(FieldVector input, FieldVector output,
+                                FieldVector transferVector, int maxValuesPerBatch,
+                                BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBit = getInput().getValidityBufferAddress();
+      final long incomingValue = getInput().getDataBufferAddress();
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        if (bitVal == 0) {
+          continue;
+        }
+        final double newVal = Double.longBitsToDouble(PlatformDependent.getLong(incomingValue + (incomingIndex * WIDTH_INPUT)));
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        getSketch(tableIndex >>> bitsInChunk, tableIndex & chunkOffsetMask).update(newVal);
+      }
+    }
+  }
+
+  public static class DecimalNdvAccumulator extends BaseNdvAccumulator {
+    private static final int WIDTH_INPUT = 16;      // decimal inputs
+    private final byte[] valBuf = new byte[WIDTH_INPUT];
+
+    public DecimalNdvAccumulator(FieldVector input, FieldVector output,
+                                 FieldVector transferVector, int maxValuesPerBatch,
+                                 BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final FieldVector inputVector = getInput();
+      final long incomingBit = inputVector.getValidityBufferAddress();
+      final long incomingValue = inputVector.getDataBufferAddress();
+      final int scale = ((DecimalVector) inputVector).getScale();
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        if (bitVal == 0) {
+          continue;
+        }
+        final java.math.BigDecimal newVal = DecimalUtils.getBigDecimalFromLEBytes(incomingValue + (incomingIndex * WIDTH_INPUT), valBuf, scale);
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        getSketch(tableIndex >>> bitsInChunk, tableIndex & chunkOffsetMask).update(newVal.doubleValue());
+      }
+    }
+  }
+
+  public static class DecimalNdvAccumulatorV2 extends BaseNdvAccumulator {
+    private static final int WIDTH_INPUT = 16;      // decimal inputs
+
+    public DecimalNdvAccumulatorV2(FieldVector input, FieldVector output,
+                                   FieldVector transferVector, int maxValuesPerBatch,
+                                   BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final FieldVector inputVector = getInput();
+      final long incomingBit = inputVector.getValidityBufferAddress();
+      final ArrowBuf inputBuf = inputVector.getDataBuffer();
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        if (bitVal == 0) {
+          continue;
+        }
+        final ByteBuffer buffer = inputBuf.nioBuffer(incomingIndex * WIDTH_INPUT, WIDTH_INPUT);
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        getSketch(tableIndex >>> bitsInChunk, tableIndex & chunkOffsetMask).update(Memory.wrap(buffer), 0, WIDTH_INPUT);
+      }
+    }
+  }
+
+  public static class BitNdvAccumulator extends BaseNdvAccumulator {
+
+    public BitNdvAccumulator(FieldVector input, FieldVector output,
+                             FieldVector transferVector, int maxValuesPerBatch,
+                             BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBit = getInput().getValidityBufferAddress();
+      final long incomingValue = getInput().getDataBufferAddress();
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        if (bitVal == 0) {
+          continue;
+        }
+        final int newVal = (PlatformDependent.getByte(incomingValue + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        getSketch(tableIndex >>> bitsInChunk, tableIndex & chunkOffsetMask).update(newVal);
+      }
+    }
+  }
+
+  public static class IntervalDayNdvAccumulator extends BaseNdvAccumulator {
+    private static final int WIDTH_INPUT = 8;       // pair-of-ints inputs
+
+    public IntervalDayNdvAccumulator(FieldVector input, FieldVector output,
+                                     FieldVector transferVector, int maxValuesPerBatch,
+                                     BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBit = getInput().getValidityBufferAddress();
+      final long incomingValue = getInput().getDataBufferAddress();
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        if (bitVal == 0) {
+          continue;
+        }
+        final long newVal = PlatformDependent.getLong(incomingValue + (incomingIndex * WIDTH_INPUT));
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        getSketch(tableIndex >>> bitsInChunk, tableIndex & chunkOffsetMask).update(newVal);
+      }
+    }
+  }
+
+  public static class VarLenNdvAccumulator extends BaseNdvAccumulator {
+
+    public VarLenNdvAccumulator(FieldVector input, FieldVector output,
+                                FieldVector transferVector, int maxValuesPerBatch,
+                                BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final FieldVector inputVector = getInput();
+      final long incomingBit = inputVector.getValidityBufferAddress();
+      final ArrowBuf inputOffsetBuf = inputVector.getOffsetBuffer();
+      final ArrowBuf inputBuf = inputVector.getDataBuffer();
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        if (bitVal == 0) {
+          continue;
+        }
+        final int startOffset = inputOffsetBuf.getInt(incomingIndex * BaseVariableWidthVector.OFFSET_WIDTH);
+        final int endOffset = inputOffsetBuf.getInt((incomingIndex + 1) * BaseVariableWidthVector.OFFSET_WIDTH);
+        final int len = endOffset - startOffset;
+        final ByteBuffer buffer = inputBuf.nioBuffer(startOffset, len);
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        getSketch(tableIndex >>> bitsInChunk, tableIndex & chunkOffsetMask).update(Memory.wrap(buffer), 0, len);
+      }
+    }
+  }
+
+  /**
+   * Merges sketches into the sketch of each group. The input is either the compact
+   * sketches of HLL_MERGE, or the updatable sketches of a spilled accumulator vector
+   * during post-spill processing.
+   */
+  public static class NdvUnionAccumulator extends BaseNdvAccumulator {
+
+    public NdvUnionAccumulator(FieldVector input, FieldVector output,
+                               FieldVector transferVector, int maxValuesPerBatch,
+                               BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL_MERGE, maxValuesPerBatch,
+            computationVectorAllocator);
+    }
+
+    /**
+     * Create an NdvUnionAccumulator from an NDV accumulator. This is
+     * used for post-spill processing.
+     * @param ndvAccumulator ndv accumulator
+     * @param input new input vector (read from spilled batch)
+     * @param maxValuesPerBatch batch size
+     * @param computationVectorAllocator accumulator vector allocator
+     */
+    NdvUnionAccumulator(final BaseNdvAccumulator ndvAccumulator,
+                        final FieldVector input, final int maxValuesPerBatch,
+                        final BufferAllocator computationVectorAllocator) {
+      super(input, ndvAccumulator.getOutput(), ndvAccumulator.getTransferVector(),
+            AccumulatorBuilder.AccumulatorType.HLL_MERGE, maxValuesPerBatch, computationVectorAllocator,
+            ndvAccumulator.getBitAddresses(),
+            ndvAccumulator.getValueAddresses(),
+            ndvAccumulator.getAccumulators());
+    }
+
+    public void accumulate(final long memoryAddr, final int count,
+                           final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final FieldVector inputVector = getInput();
+      final long incomingBit = inputVector.getValidityBufferAddress();
+      final long incomingValue = inputVector.getDataBufferAddress();
+      /* spilled sketches are stored with a fixed width, compact ones with offsets */
+      final boolean spilledSketches = inputVector instanceof FixedSizeBinaryVector;
+      final ArrowBuf inputOffsetBuf = spilledSketches ? null : inputVector.getOffsetBuffer();
+      final long[] valueAddresses = this.valueAddresses;
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        if (bitVal == 0) {
+          continue;
+        }
+        final long sketchAddr;
+        final int sketchLength;
+        if (spilledSketches) {
+          sketchAddr = incomingValue + ((long) incomingIndex) * SKETCH_SIZE;
+          sketchLength = SKETCH_SIZE;
+        } else {
+          final int startOffset = inputOffsetBuf.getInt(incomingIndex * BaseVariableWidthVector.OFFSET_WIDTH);
+          final int endOffset = inputOffsetBuf.getInt((incomingIndex + 1) * BaseVariableWidthVector.OFFSET_WIDTH);
+          sketchAddr = incomingValue + startOffset;
+          sketchLength = endOffset - startOffset;
+        }
+        final HllSketch sketch = HllSketch.wrap(Memory.wrap(MemoryUtil.directBuffer(sketchAddr, sketchLength)));
+
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        final long unionAddr = valueAddresses[tableIndex >>> bitsInChunk];
+        final Union union = Union.writableWrap(getSketchMemory(unionAddr, tableIndex & chunkOffsetMask));
+        union.update(sketch);
+      }
+    }
+  }
+}
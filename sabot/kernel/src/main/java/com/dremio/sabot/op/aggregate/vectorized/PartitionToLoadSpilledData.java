@@ -23,6 +23,7 @@ import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.util.LargeMemoryUtil;
 import org.apache.arrow.vector.BaseFixedWidthVector;
 import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
 
 import com.dremio.common.AutoCloseables;
@@ -139,9 +140,13 @@ public class PartitionToLoadSpilledData implements AutoCloseable {
                                                final AutoCloseables.RollbackCloseable rollbackCloseable) {
     int count = 0;
     for (Field field : postSpillAccumulatorVectorTypes) {
-     FieldVector vector = TypeHelper.getNewVector(field, allocator);
+     /* TypeHelper uses an estimate for the width of fixed size binary vectors,
+      * the NDV sketches need the exact width of the field.
+      */
+     FieldVector vector = field.getType().getTypeID() == ArrowType.ArrowTypeID.FixedSizeBinary ?
+       field.createVector(allocator) : TypeHelper.getNewVector(field, allocator);
      /* we have aggregation on INT, BIGINT, FLOAT, FLOAT4 and DECIMAL types of
-      * columns which are all fixed width.
+      * columns which are all fixed width, and NDV sketches of fixed size.
       */
      Preconditions.checkArgument(vector instanceof BaseFixedWidthVector, "Error: detected invalid accumulator vector type");
      rollbackCloseable.add(vector);
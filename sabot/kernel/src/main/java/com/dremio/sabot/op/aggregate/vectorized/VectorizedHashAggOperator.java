@@ -54,6 +54,7 @@ import com.dremio.options.TypeValidators.DoubleValidator;
 import com.dremio.options.TypeValidators.PositiveLongValidator;
 import com.dremio.options.TypeValidators.PowerOfTwoLongValidator;
 import com.dremio.options.TypeValidators.RangeDoubleValidator;
+import com.dremio.options.TypeValidators.RangeLongValidator;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.fragment.OutOfBandMessage;
@@ -329,6 +330,17 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   public static final DoubleValidator OOB_SPILL_TRIGGER_HEADROOM_FACTOR = new RangeDoubleValidator("exec.operator.aggregate.vectorize.oob_trigger_headroom_factor", 0.0d, 10.0d, .2d);
   public static final BooleanValidator OOB_SPILL_TRIGGER_ENABLED = new BooleanValidator("exec.operator.aggregate.vectorize.oob_trigger_enabled", true);
   public static final BooleanValidator VECTORIZED_HASHAGG_ENABLE_MICRO_SPILLS = new BooleanValidator("exec.operator.aggregate.vectorize.enable_micro_spills", true);
+  public static final BooleanValidator VECTORIZED_HASHAGG_COMPRESS_SPILL = new BooleanValidator("exec.operator.aggregate.vectorize.compress_spill_files", false);
+  /* number of hash table slots moved to the new table on each insertion while the hash table grows, which bounds the
+   * time an insertion can wait for a resize. 0 rehashes the whole table at once.
+   */
+  public static final RangeLongValidator VECTORIZED_HASHAGG_INCREMENTAL_REHASH_STEP = new RangeLongValidator("exec.operator.aggregate.vectorize.incremental_rehash_step", 0, 1 << 16, 0);
+  /* the first phase of a two phase aggregation samples the reduction (input records per group) of its first batches,
+   * and stops aggregating its whole input if the reduction is under the minimum ratio.
+   */
+  public static final BooleanValidator VECTORIZED_HASHAGG_ADAPTIVE_PARTIAL = new BooleanValidator("exec.operator.aggregate.vectorize.adaptive_partial.enabled", true);
+  public static final RangeLongValidator VECTORIZED_HASHAGG_ADAPTIVE_PARTIAL_SAMPLE_BATCHES = new RangeLongValidator("exec.operator.aggregate.vectorize.adaptive_partial.sample_batches", 1, 1024, 16);
+  public static final DoubleValidator VECTORIZED_HASHAGG_ADAPTIVE_PARTIAL_MIN_REDUCTION = new RangeDoubleValidator("exec.operator.aggregate.vectorize.adaptive_partial.min_reduction_ratio", 1.0d, 1000.0d, 1.25d);
 
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorizedHashAggOperator.class);
 
@@ -358,6 +370,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   private final int minHashTableSize;
   private final int minHashTableSizePerPartition;
   private final int estimatedVariableWidthKeySize;
+  private final int incrementalRehashStep;
   private int maxHashTableBatchSize;
 
   private int hashPartitionMask;
@@ -409,6 +422,15 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   private int bitsInChunk;
   private int chunkOffsetMask;
 
+  private final boolean adaptivePartial;
+  private final int partialSampleBatches;
+  private final double partialMinReductionRatio;
+  private int partialSampledBatches;
+  private long partialSampledRecords;
+  private double partialReductionRatio;
+  private boolean partialBypass;
+  private boolean inputDone;
+
   public static final String OUT_OF_MEMORY_MSG = "Vectorized Hash Agg ran out of memory";
 
   public static final String PREALLOC_FAILURE_PARTITIONS = "Error: Failed to preallocate minimum memory in vectorized hashagg for single batch in all partitions";
@@ -424,6 +446,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     this.minHashTableSize = (int)options.getOption(ExecConstants.MIN_HASH_TABLE_SIZE);
     this.minHashTableSizePerPartition = (int)Math.ceil((minHashTableSize * 1.0)/numPartitions);
     this.estimatedVariableWidthKeySize = (int)options.getOption(VARIABLE_FIELD_SIZE_ESTIMATE);
+    this.incrementalRehashStep = (int)options.getOption(VECTORIZED_HASHAGG_INCREMENTAL_REHASH_STEP);
     this.maxHashTableBatchSize = popConfig.getHashTableBatchSize();
     final boolean traceOnException = options.getOption(VECTORIZED_HASHAGG_DEBUG_DETAILED_EXCEPTION);
     this.hashPartitionMask = numPartitions - 1;
@@ -462,6 +485,9 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     this.resumableInsertState = null;
     this.operatorStateBeforeOOB = null;
     this.forceSpillState = null;
+    this.adaptivePartial = popConfig.isPartial() && options.getOption(VECTORIZED_HASHAGG_ADAPTIVE_PARTIAL);
+    this.partialSampleBatches = (int)options.getOption(VECTORIZED_HASHAGG_ADAPTIVE_PARTIAL_SAMPLE_BATCHES);
+    this.partialMinReductionRatio = options.getOption(VECTORIZED_HASHAGG_ADAPTIVE_PARTIAL_MIN_REDUCTION);
     logger.debug("partitions:{}, min-hashtable-size:{}, max-hashtable-batch-size:{} variable-width-key-size:{}",
       numPartitions, minHashTableSize, maxHashTableBatchSize, estimatedVariableWidthKeySize);
   }
@@ -594,7 +620,8 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
          * allocation fails so we don't have to rely on rollback closeable
          */
         final LBlockHashTable hashTable = new LBlockHashTable(HashConfig.getDefault(), pivot, allocator,
-          minHashTableSizePerPartition, estimatedVariableWidthKeySize, true, accumulator, maxHashTableBatchSize);
+          minHashTableSizePerPartition, estimatedVariableWidthKeySize, true, accumulator, maxHashTableBatchSize,
+          incrementalRehashStep);
         final String partitionIdentifier = "P" + String.format("%03d", i);
 
         final ArrowBuf buffer = combined.slice(i * PARTITIONINDEX_HTORDINAL_WIDTH * maxHashTableBatchSize,
@@ -625,7 +652,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     setLocalInfoForHashTable();
 
     /* STEP 4: Build extra partition (aka loading or read partition) */
-    final List<Field> postSpillAccumulatorVectorFields = materializeAggExpressionsResult.outputVectorFields;
+    final List<Field> postSpillAccumulatorVectorFields = materializeAggExpressionsResult.getAccumulatorVectorFields();
     allocateExtraPartition(postSpillAccumulatorVectorFields);
 
     final long memoryAfterExtraPartition = allocator.getAllocatedMemory();
@@ -763,6 +790,46 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       VariableLengthValidator.validateVariable(v, records);
     }
     consumeDataHelper(records);
+    if (adaptivePartial) {
+      adaptPartialAggregation(records);
+    }
+  }
+
+  /**
+   * The groups output by the first phase of a two phase aggregation are aggregated again downstream, so
+   * aggregating the whole input here only pays off if it reduces the number of records sent. Once the first
+   * batches are consumed, compare their number of records with the number of groups they made: if the reduction
+   * is too low, stop growing the hash tables and instead output the groups as soon as they fill about one batch
+   * per partition. The groups are still output as partial aggregations, so the plan doesn't change.
+   *
+   * @param records number of records consumed from the incoming batch
+   */
+  private void adaptPartialAggregation(final int records) {
+    if (!partialBypass && partialSampledBatches < partialSampleBatches) {
+      partialSampledBatches++;
+      partialSampledRecords += records;
+      if (partialSampledBatches == partialSampleBatches) {
+        partialReductionRatio = partialSampledRecords / (double) Math.max(getHashTableSize(), 1);
+        /* once partitions spilled, the hash tables don't hold all the groups sampled */
+        partialBypass = partitionSpillHandler.getNumberOfSpills() == 0 && partialReductionRatio < partialMinReductionRatio;
+        logger.debug("Sampled {} records in {} batches, reduction ratio:{}, bypass partial aggregation:{}",
+          partialSampledRecords, partialSampledBatches, partialReductionRatio, partialBypass);
+        updateStats();
+      }
+    }
+    if (state == State.CAN_CONSUME && internalStateMachine == InternalState.NONE) {
+      flushPartialGroupsIfNeeded();
+    }
+  }
+
+  /**
+   * Start outputting the groups of the in-memory partitions if partial aggregation is bypassed
+   * and they hold enough groups.
+   */
+  private void flushPartialGroupsIfNeeded() {
+    if (partialBypass && getHashTableSize() >= numPartitions * maxHashTableBatchSize) {
+      moveToOutputState();
+    }
   }
 
   /**
@@ -1221,6 +1288,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
         logger.debug("Resumable insert state no longer available. We have consumed the incoming batch. Now ready to consume next batch from pipeline");
         state = State.CAN_CONSUME;
         internalStateMachine = InternalState.NONE;
+        flushPartialGroupsIfNeeded();
       }
     } else {
       /* if we are processing the initial incoming, then next batch will come from pipeline */
@@ -1702,6 +1770,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     long allocatedForVarBlocks = 0;
     long unusedForVarBlocks = 0;
     long rehashTime = 0;
+    long maxRehashPause = 0;
     int minTableSize = Integer.MAX_VALUE;
     int maxTableSize = Integer.MIN_VALUE;
     int minRehashCount = Integer.MAX_VALUE;
@@ -1713,6 +1782,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       final int rehashCount = hashAggPartitions[i].hashTable.getRehashCount();
       tableCapacity += hashAggPartitions[i].hashTable.capacity();
       rehashTime += hashAggPartitions[i].hashTable.getRehashTime(TimeUnit.NANOSECONDS);
+      maxRehashPause = Math.max(maxRehashPause, hashTable.getMaxRehashPause(TimeUnit.NANOSECONDS));
       tableSize += size;
       tableRehashCount += rehashCount;
       if (size < minTableSize) {
@@ -1746,6 +1816,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     statsHolder.maxTotalHashTableCapacity = Math.max(statsHolder.maxTotalHashTableCapacity, tableCapacity);
     statsHolder.hashTableRehashCount = tableRehashCount;
     statsHolder.hashTableRehashTime = rehashTime;
+    statsHolder.maxHashTableRehashPause = Math.max(statsHolder.maxHashTableRehashPause, maxRehashPause);
     statsHolder.minHashTableSize = minTableSize;
     statsHolder.maxHashTableSize = maxTableSize;
     statsHolder.minHashTableRehashCount = minRehashCount;
@@ -1786,6 +1857,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     stats.setLongStat(Metric.MAX_TOTAL_NUM_BUCKETS, statsHolder.maxTotalHashTableCapacity);
     stats.setLongStat(Metric.NUM_RESIZING, statsHolder.hashTableRehashCount);
     stats.setLongStat(Metric.RESIZING_TIME, statsHolder.hashTableRehashTime);
+    stats.setLongStat(Metric.MAX_REHASH_PAUSE, statsHolder.maxHashTableRehashPause);
     stats.setLongStat(Metric.MAX_HASHTABLE_BATCH_SIZE, statsHolder.maxHashTableBatchSize);
     stats.setLongStat(Metric.MIN_HASHTABLE_ENTRIES, statsHolder.minHashTableSize);
     stats.setLongStat(Metric.MAX_HASHTABLE_ENTRIES, statsHolder.maxHashTableSize);
@@ -1813,6 +1885,8 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     stats.setLongStat(Metric.RECURSION_DEPTH, computeRecursionDepth());
     stats.setLongStat(Metric.TOTAL_SPILLED_DATA_SIZE, partitionSpillHandler.getTotalSpilledDataSize());
     stats.setLongStat(Metric.MAX_SPILLED_DATA_SIZE, partitionSpillHandler.getMaxSpilledDataSize());
+    stats.setLongStat(Metric.SPILL_COMPRESSION_TIME, partitionSpillHandler.getCompressionNanos());
+    stats.setLongStat(Metric.SPILL_DECOMPRESSION_TIME, partitionSpillHandler.getDecompressionNanos());
 
     stats.setLongStat(Metric.OOB_SENDS, oobSends);
     stats.setLongStat(Metric.OOB_RECEIVES, oobReceives);
@@ -1823,6 +1897,11 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     stats.setLongStat(Metric.OOB_SPILL, oobSpills);
     stats.setLongStat(Metric.OOB_DROP_ALREADY_SPILLING, oobDropSpill);
 
+    if (adaptivePartial) {
+      stats.setLongStat(Metric.PARTIAL_AGG_BYPASSED, partialBypass ? 1 : 0);
+      stats.setLongStat(Metric.PARTIAL_AGG_REDUCTION_RATIO, (long) (partialReductionRatio * 100));
+    }
+
     if (iterations == 1) {
       stats.setLongStat(Metric.ALLOCATED_FOR_FIXED_KEYS, statsHolder.allocatedForFixedBlocks);
       stats.setLongStat(Metric.UNUSED_FOR_FIXED_KEYS, statsHolder.unusedForFixedBlocks);
@@ -1839,6 +1918,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     private int maxTotalHashTableCapacity = 0;
     private int hashTableRehashCount;
     private long hashTableRehashTime;
+    private long maxHashTableRehashPause = 0;
     private int minHashTableSize;
     private int maxHashTableSize;
     private int minHashTableRehashCount;
@@ -2271,6 +2351,12 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
    * are not done and need to start the next iteration.
    */
   private void postOutputProcessing() {
+    if (partialBypass && !inputDone) {
+      /* the groups aggregated so far were flushed, go back to consuming data from pipeline */
+      state = State.CAN_CONSUME;
+      internalStateMachine = InternalState.NONE;
+      return;
+    }
     if ((partitionSpillHandler.getActiveSpilledPartitionCount() == 0) && partitionSpillHandler.isSpillQueueEmpty()) {
       /* if we are inside recursion, that is we are outputting after
        * consuming the input from a spilled partition, we need to check if
@@ -2290,6 +2376,9 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       spillStats.setOoms(ooms);
       spillStats.setIterations(iterations);
       spillStats.setRecursionDepth(computeRecursionDepth());
+      spillStats.setCompressionNanos(partitionSpillHandler.getCompressionNanos());
+      spillStats.setDecompressionNanos(partitionSpillHandler.getDecompressionNanos());
+      spillStats.setCompressionRatio(partitionSpillHandler.getCompressionRatio());
       popConfig.setSpillStats(spillStats);
     } else {
       internalStateMachine = InternalState.TRANSITION_PARTITION_SPILL_STATE;
@@ -2323,7 +2412,8 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   public void noMoreToConsume() throws Exception {
     state.is(State.CAN_CONSUME);
     assertInternalState(InternalState.NONE);
-    if (getHashTableSize() == 0) {
+    inputDone = true;
+    if (getHashTableSize() == 0 && partitionSpillHandler.getActiveSpilledPartitionCount() == 0) {
       /* nothing to output */
       moveToFinalState();
     } else {
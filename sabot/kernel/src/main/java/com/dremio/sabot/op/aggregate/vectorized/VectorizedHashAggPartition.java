@@ -209,7 +209,7 @@ public class VectorizedHashAggPartition implements AutoCloseable {
    *
    * (1) Set the input vector for each accumulator. The new input vector
    * is the one we deserialized from spilled batch.
-   * (2) For count, count1, sum, $sum0 convert the accumulator type.
+   * (2) For count, count1, sum, $sum0, hll convert the accumulator type.
    * For example an pre-spill IntSumAccumulator will become
    * BigIntSumAccumulator for post-spill processing.
    *
@@ -249,6 +249,16 @@ public class VectorizedHashAggPartition implements AutoCloseable {
         /* handle $SUM0 */
         updateSumZeroAccumulator(deserializedAccumulator, partitionAccumulators,
                                  i, computationVectorAllocator);
+      } else if (accumulatorType == AccumulatorBuilder.AccumulatorType.HLL.ordinal()) {
+        /* handle HLL: the spilled sketches are merged into the sketches of each group */
+        partitionAccumulators[i] =
+          new NdvAccumulators.NdvUnionAccumulator((BaseNdvAccumulator)partitionAccumulator,
+                                                  deserializedAccumulator,
+                                                  hashTable.getActualValuesPerBatch(),
+                                                  computationVectorAllocator);
+      } else if (accumulatorType == AccumulatorBuilder.AccumulatorType.HLL_MERGE.ordinal()) {
+        /* handle HLL_MERGE: already merging sketches, only the input vector changes */
+        partitionAccumulator.setInput(deserializedAccumulator);
       }
       else {
         /* handle MIN, MAX */
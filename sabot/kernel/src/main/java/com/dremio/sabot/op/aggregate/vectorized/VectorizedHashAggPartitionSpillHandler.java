@@ -16,15 +16,14 @@
 
 package com.dremio.sabot.op.aggregate.vectorized;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
-import org.apache.hadoop.fs.FSDataInputStream;
-import org.apache.hadoop.fs.FSDataOutputStream;
-
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.common.exceptions.UserException;
@@ -113,6 +112,8 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
   private VectorizedHashAggPartitionSerializable inProgressSpill;
   private final OperatorStats operatorStats;
   private final long warnMaxSpillTime;
+  /* LZ4 compress the spill files, see VectorizedHashAggOperator#VECTORIZED_HASHAGG_COMPRESS_SPILL */
+  private final boolean compressSpill;
 
   public VectorizedHashAggPartitionSpillHandler(
     final VectorizedHashAggPartition[] hashAggPartitions,
@@ -149,6 +150,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
     this.inProgressSpill = null;
     this.operatorStats = stats;
     this.warnMaxSpillTime = optionManager.getOption(ExecConstants.SPILL_IO_WARN_MAX_RUNTIME_MS);
+    this.compressSpill = optionManager.getOption(VectorizedHashAggOperator.VECTORIZED_HASHAGG_COMPRESS_SPILL);
   }
 
   /**
@@ -412,7 +414,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
     final boolean isPartitionSpilled = victimPartition.isSpilled();
     final SpillFileHandle spillFileHandle = getSpillFileHandle(victimPartition);
     final SpillFile partitionSpillFile = spillFileHandle.partitionSpillFile;
-    final FSDataOutputStream partitionSpillFileStream = spillFileHandle.partitionSpillFileStream;
+    final OutputStream partitionSpillFileStream = spillFileHandle.partitionSpillFileStream;
 
     final VectorizedHashAggPartitionSerializable partitionSerializable = new VectorizedHashAggPartitionSerializable(victimPartition,
       this.operatorStats, this.warnMaxSpillTime);
@@ -455,7 +457,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
    */
   private void updatePartitionSpillState(final VectorizedHashAggPartition victimPartition,
                                          final SpillFile partitionSpillFile,
-                                         final FSDataOutputStream partitionSpillFileStream,
+                                         final OutputStream partitionSpillFileStream,
                                          final long batchesSpilled) {
     final boolean isPartitionSpilled = victimPartition.isSpilled();
     VectorizedHashAggDiskPartition partitionSpillInfo = victimPartition.getSpillInfo();
@@ -482,8 +484,8 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
    */
   private static class SpillFileHandle {
     private final SpillFile partitionSpillFile;
-    private final FSDataOutputStream partitionSpillFileStream;
-    SpillFileHandle(final SpillFile partitionSpillFile, final FSDataOutputStream partitionSpillFileStream) {
+    private final OutputStream partitionSpillFileStream;
+    SpillFileHandle(final SpillFile partitionSpillFile, final OutputStream partitionSpillFileStream) {
       this.partitionSpillFile = partitionSpillFile;
       this.partitionSpillFileStream = partitionSpillFileStream;
     }
@@ -498,7 +500,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
     final boolean isPartitionSpilled = victimPartition.isSpilled();
     VectorizedHashAggDiskPartition partitionSpillInfo = victimPartition.getSpillInfo();
     SpillFile partitionSpillFile;
-    FSDataOutputStream partitionSpillFileStream;
+    OutputStream partitionSpillFileStream;
 
     Preconditions.checkState((isPartitionSpilled && partitionSpillInfo != null) ||
                                (!isPartitionSpilled && partitionSpillInfo == null), "Error: Detected invalid spill state of hash agg partition");
@@ -507,7 +509,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
       /* get a brand new spill file as the partition is being spilled for the first time */
       partitionSpillFile = spillManager.getSpillFile(victimPartition.getIdentifier());
       try {
-        partitionSpillFileStream = partitionSpillFile.create();
+        partitionSpillFileStream = compressSpill ? partitionSpillFile.create(true) : partitionSpillFile.create();
       } catch (Exception e) {
         final UserException.Builder builder = UserException.resourceError(e)
           .addContext("Failed to create output stream for spill file")
@@ -535,7 +537,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
   boolean spillSingleBatchFromPartition(final VectorizedHashAggPartition victimPartition) throws Exception {
     final SpillFileHandle spillFileHandle = getSpillFileHandle(victimPartition);
     final SpillFile partitionSpillFile = spillFileHandle.partitionSpillFile;
-    final FSDataOutputStream partitionSpillFileStream = spillFileHandle.partitionSpillFileStream;
+    final OutputStream partitionSpillFileStream = spillFileHandle.partitionSpillFileStream;
 
     if (inProgressSpill == null) {
       inProgressSpill = new VectorizedHashAggPartitionSerializable(victimPartition, this.operatorStats,
@@ -663,6 +665,32 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
     return totalSpilledDataSize;
   }
 
+  /**
+   * Get the time spent compressing spilled data, once the spill streams are closed
+   * @return compression time (in nanoseconds)
+   */
+  long getCompressionNanos() {
+    return spillManager.getCompressionNanos();
+  }
+
+  /**
+   * Get the time spent decompressing spilled data, once the spilled partitions are read back
+   * @return decompression time (in nanoseconds)
+   */
+  long getDecompressionNanos() {
+    return spillManager.getDecompressionNanos();
+  }
+
+  /**
+   * Get the ratio between the size of the data spilled and the size written to disk,
+   * once the spill streams are closed
+   * @return compression ratio, 0 if no compressed spill file was closed
+   */
+  double getCompressionRatio() {
+    final long ioWriteBytes = spillManager.getIOWriteBytes();
+    return ioWriteBytes == 0 ? 0 : (double) spillManager.getAppWriteBytes() / ioWriteBytes;
+  }
+
   /**
    * Get the number of spilled partitions in the current iteration
    * of aggregation algorithm -- active and spilled
@@ -813,7 +841,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
       final SpillFile partitionSpillFile = partitionToSpill.getSpillFile();
       final VectorizedHashAggPartitionSerializable partitionSerializable = new VectorizedHashAggPartitionSerializable(inmemoryPartition,
         this.operatorStats, this.warnMaxSpillTime);
-      FSDataOutputStream outputStream = partitionToSpill.getSpillStream();
+      OutputStream outputStream = partitionToSpill.getSpillStream();
       /* write the partition to disk */
       partitionSerializable.writeToStream(outputStream);
       /* track number of spills */
@@ -845,7 +873,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
    */
   public class SpilledPartitionIterator implements AutoCloseable {
     private final long batchCount;
-    private final FSDataInputStream inputStream;
+    private final InputStream inputStream;
     private final VectorizedHashAggDiskPartition diskPartition;
     private int currentBatchIndex;
     private final OperatorStats operatorStats;
@@ -856,7 +884,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
         "Error: Partition does not have any batches spilled to disk. Not allowed to create a disk iterator");
       this.batchCount = spilledPartition.getNumberOfBatches();
       final SpillFile partitionSpillFile = spilledPartition.getSpillFile();
-      this.inputStream = partitionSpillFile.open();
+      this.inputStream = compressSpill ? partitionSpillFile.open(true) : partitionSpillFile.open();
       this.diskPartition = spilledPartition;
       this.currentBatchIndex = 0;
       this.operatorStats = stats;
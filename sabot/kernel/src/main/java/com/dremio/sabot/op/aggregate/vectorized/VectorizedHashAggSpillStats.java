@@ -24,6 +24,9 @@ public class VectorizedHashAggSpillStats {
   private int ooms;
   private int iterations;
   private int recursionDepth;
+  private long compressionNanos;
+  private long decompressionNanos;
+  private double compressionRatio;
 
   public void setSpills(final int spills) {
     this.spills = spills;
@@ -56,4 +59,28 @@ public class VectorizedHashAggSpillStats {
   public int getRecursionDepth() {
     return recursionDepth;
   }
+
+  public void setCompressionNanos(final long compressionNanos) {
+    this.compressionNanos = compressionNanos;
+  }
+
+  public long getCompressionNanos() {
+    return compressionNanos;
+  }
+
+  public void setDecompressionNanos(final long decompressionNanos) {
+    this.decompressionNanos = decompressionNanos;
+  }
+
+  public long getDecompressionNanos() {
+    return decompressionNanos;
+  }
+
+  public void setCompressionRatio(final double compressionRatio) {
+    this.compressionRatio = compressionRatio;
+  }
+
+  public double getCompressionRatio() {
+    return compressionRatio;
+  }
 }
@@ -112,8 +112,24 @@ public final class LBlockHashTable implements AutoCloseable {
 
   private int rehashCount = 0;
   private Stopwatch rehashTimer = Stopwatch.createUnstarted();
+  private long incrementalRehashNanos = 0;
+  private long maxRehashPauseNanos = 0;
   private Stopwatch initTimer = Stopwatch.createUnstarted();
 
+  /* number of old control slots migrated per add/find while the table is being resized incrementally,
+   * 0 if the table is rehashed all at once when it grows.
+   */
+  private final int incrementalRehashStep;
+  /* control blocks of the table before the resize in progress, null if there is none. the chunks
+   * that were fully migrated are released and set to null.
+   */
+  private ControlBlock[] oldControlBlocks;
+  private long[] oldTableControlAddresses;
+  private int oldCapacity;
+  /* old control slots are migrated in order, starting from a free slot, wrapping around at the end */
+  private int migrationStart;
+  private int migratedSlots;
+
   private ArrowBuf traceBuf;
   private long traceBufNext;
 
@@ -135,6 +151,25 @@ public final class LBlockHashTable implements AutoCloseable {
                          final boolean enforceVarWidthBufferLimit,
                          ResizeListener listener,
                          final int maxHashTableBatchSize) {
+    this(config, pivot, allocator, initialSize, defaultVariableLengthSize, enforceVarWidthBufferLimit, listener,
+      maxHashTableBatchSize, 0);
+  }
+
+  /**
+   * @param incrementalRehashStep if positive, the table grows without rehashing all the keys at once: the control
+   *                              slots of the old table are moved to the new one this many at a time, on each
+   *                              subsequent add or find, and the keys not moved yet are looked up in the old table.
+   */
+  public LBlockHashTable(HashConfig config,
+                         PivotDef pivot,
+                         BufferAllocator allocator,
+                         int initialSize,
+                         int defaultVariableLengthSize,
+                         final boolean enforceVarWidthBufferLimit,
+                         ResizeListener listener,
+                         final int maxHashTableBatchSize,
+                         final int incrementalRehashStep) {
+    Preconditions.checkArgument(incrementalRehashStep >= 0, "Error: invalid incremental rehash step");
     this.pivot = pivot;
     this.allocator = allocator;
     this.config = new HashConfigWrapper(config);
@@ -155,6 +190,7 @@ public final class LBlockHashTable implements AutoCloseable {
     this.unusedForFixedBlocks = 0;
     this.unusedForVarBlocks = 0;
     this.maxOrdinalBeforeExpand = 0;
+    this.incrementalRehashStep = incrementalRehashStep;
     internalInit(LHashCapacities.capacity(this.config, initialSize, false));
 
     logger.debug("initialized hashtable, maxSize:{}, capacity:{}, batches:{}, maxVariableBlockLength:{}, maxValuesPerBatch:{}", maxSize, capacity, batches, variableBlockMaxLength, MAX_VALUES_PER_BATCH);
@@ -263,6 +299,10 @@ public final class LBlockHashTable implements AutoCloseable {
   public int getOrInsertWithRetry(final long keyFixedAddr, final long keyVarAddr,
                                   final int  keyVarLen, final int keyHash,
                                   final int dataWidth, final boolean insertNew) {
+    if (oldControlBlocks != null) {
+      /* done before probing, as moving old entries can take the free slot the probe would insert the key in */
+      migrateControlSlots(incrementalRehashStep);
+    }
     int returnValue = probeOrInsert(keyFixedAddr, keyVarAddr, keyVarLen, keyHash, dataWidth, insertNew);
     if (returnValue == RETRY_RETURN_CODE) {
       returnValue = probeOrInsert(keyFixedAddr, keyVarAddr, keyVarLen, keyHash, dataWidth, insertNew);
@@ -338,6 +378,14 @@ public final class LBlockHashTable implements AutoCloseable {
       }
     }
 
+    // key not found in the new table, look for it among the old entries that were not migrated yet
+    if (oldControlBlocks != null) {
+      final int ordinal = probeOldControlSlots(keyFixedAddr, keyVarAddr, keyVarLen, keyHash, dataWidth);
+      if (ordinal != -1) {
+        return ordinal;
+      }
+    }
+
     // key not found
     if(!insertNew) {
       // caller doesn't want to add key so return
@@ -348,6 +396,40 @@ public final class LBlockHashTable implements AutoCloseable {
     }
   }
 
+  /**
+   * Search for a key among the control slots of the old table that were not migrated yet.
+   *
+   * Old slots are never modified during the migration, so the probe sequence of a key whose hash index was not
+   * migrated is intact up to the first migrated slot. The probe can stop there: the probe sequence continuing
+   * past it would only reach unmigrated slots again after going through the free slot the migration started at.
+   *
+   * @return ordinal if the key exists in the old table, -1 otherwise
+   */
+  private int probeOldControlSlots(final long keyFixedAddr, final long keyVarAddr, final int keyVarLen,
+                                   final int keyHash, final int dataWidth) {
+    final int blockWidth = pivot.getBlockWidth();
+    final int mask = oldCapacity - 1;
+
+    int controlIndex = keyHash & mask;
+    while (((controlIndex - migrationStart) & mask) >= migratedSlots) {
+      final long control = PlatformDependent.getLong(oldTableControlAddresses[controlIndex >>> BITS_IN_CHUNK] +
+        ((controlIndex & CHUNK_OFFSET_MASK) * CONTROL_WIDTH));
+      if (control == LFREE) {
+        return -1;
+      }
+      if (keyHash == (int) (control >>> 32)) {
+        final int ordinal = (int) control;
+        final int dataChunkIndex = ordinal >>> BITS_IN_CHUNK;
+        final long tableDataAddr = tableFixedAddresses[dataChunkIndex] + ((ordinal & CHUNK_OFFSET_MASK) * blockWidth);
+        if(fixedKeyEquals(keyFixedAddr, tableDataAddr, dataWidth) && (fixedOnly || variableKeyEquals(keyVarAddr, initVariableAddresses[dataChunkIndex] + PlatformDependent.getInt(tableDataAddr + dataWidth), keyVarLen))){
+          return ordinal;
+        }
+      }
+      controlIndex = (controlIndex - 1) & mask;
+    }
+    return -1;
+  }
+
     // Get the length of the variable keys for the record specified by ordinal.
   public int getVarKeyLength(int ordinal) {
     if (fixedOnly) {
@@ -802,22 +884,7 @@ public final class LBlockHashTable implements AutoCloseable {
           long oldControl = PlatformDependent.getLong(oldControlAddr);
 
           if(oldControl != LFREE){
-            int index = ((int) (oldControl >>> 32)) & (capacity - 1); // get previously computed hash and slice it.
-            int newChunkIndex = index >>> BITS_IN_CHUNK;
-            int offetInChunk = index & CHUNK_OFFSET_MASK;
-            long controlAddr = controlAddrs[newChunkIndex] + (offetInChunk * CONTROL_WIDTH);
-            if (PlatformDependent.getInt(controlAddr) != FREE) {
-              while (true) {
-                index = (index - 1) & (capacity - 1);
-                newChunkIndex = index >>> BITS_IN_CHUNK;
-                offetInChunk = index & CHUNK_OFFSET_MASK;
-                controlAddr = controlAddrs[newChunkIndex] + (offetInChunk * CONTROL_WIDTH);
-                if (PlatformDependent.getInt(controlAddr) == FREE) {
-                  break;
-                }
-              }
-            }
-            PlatformDependent.putLong(controlAddr, oldControl);
+            reinsertControl(controlAddrs, capacity, oldControl);
           }
         }
       }
@@ -831,6 +898,112 @@ public final class LBlockHashTable implements AutoCloseable {
     }
   }
 
+  /**
+   * Put the control of an existing entry in its slot in a new table.
+   */
+  private void reinsertControl(final long[] controlAddrs, final int capacity, final long control) {
+    int index = ((int) (control >>> 32)) & (capacity - 1); // get previously computed hash and slice it.
+    int newChunkIndex = index >>> BITS_IN_CHUNK;
+    int offetInChunk = index & CHUNK_OFFSET_MASK;
+    long controlAddr = controlAddrs[newChunkIndex] + (offetInChunk * CONTROL_WIDTH);
+    if (PlatformDependent.getInt(controlAddr) != FREE) {
+      while (true) {
+        index = (index - 1) & (capacity - 1);
+        newChunkIndex = index >>> BITS_IN_CHUNK;
+        offetInChunk = index & CHUNK_OFFSET_MASK;
+        controlAddr = controlAddrs[newChunkIndex] + (offetInChunk * CONTROL_WIDTH);
+        if (PlatformDependent.getInt(controlAddr) == FREE) {
+          break;
+        }
+      }
+    }
+    PlatformDependent.putLong(controlAddr, control);
+  }
+
+  /**
+   * Start growing the table incrementally. Only the new control blocks are allocated and initialized here, the old
+   * control slots are moved to the new table by {@link #migrateControlSlots(int)}.
+   */
+  private void startMigration(int newCapacity) {
+    // grab old references.
+    final ControlBlock[] oldControlBlocks = this.controlBlocks;
+    final long[] oldControlAddrs = this.tableControlAddresses;
+    final int oldCapacity = this.capacity;
+
+    /* this is the only step that allocates memory, if it fails the state is unchanged */
+    internalInit(newCapacity);
+
+    /* the table is never full, so there is a free slot to start from. starting on a free slot guarantees that
+     * no probe sequence through unmigrated slots goes through a migrated one, see probeOldControlSlots()
+     */
+    int start = 0;
+    while (PlatformDependent.getLong(oldControlAddrs[start >>> BITS_IN_CHUNK] + ((start & CHUNK_OFFSET_MASK) * CONTROL_WIDTH)) != LFREE) {
+      start++;
+    }
+
+    this.oldControlBlocks = oldControlBlocks;
+    this.oldTableControlAddresses = oldControlAddrs;
+    this.oldCapacity = oldCapacity;
+    this.migrationStart = start;
+    this.migratedSlots = 0;
+  }
+
+  /**
+   * Move the next old control slots to the new table. A chunk of old control slots is released as soon as all its
+   * slots are migrated, except for the chunk the migration started in, which is migrated last.
+   *
+   * @param slots maximum number of old slots to migrate
+   */
+  private void migrateControlSlots(final int slots) {
+    final long start = System.nanoTime();
+
+    final long[] controlAddrs = this.tableControlAddresses;
+    final long[] oldControlAddrs = this.oldTableControlAddresses;
+    final int capacity = this.capacity;
+    final int mask = oldCapacity - 1;
+    final int startChunkIndex = migrationStart >>> BITS_IN_CHUNK;
+    final int end = (int) Math.min((long) migratedSlots + slots, oldCapacity);
+    while (migratedSlots < end) {
+      final int oldIndex = (migrationStart + migratedSlots) & mask;
+      final int oldChunkIndex = oldIndex >>> BITS_IN_CHUNK;
+      final long oldControl = PlatformDependent.getLong(oldControlAddrs[oldChunkIndex] + ((oldIndex & CHUNK_OFFSET_MASK) * CONTROL_WIDTH));
+      if (oldControl != LFREE) {
+        reinsertControl(controlAddrs, capacity, oldControl);
+      }
+      migratedSlots++;
+
+      if ((oldIndex & CHUNK_OFFSET_MASK) == CHUNK_OFFSET_MASK && oldChunkIndex != startChunkIndex) {
+        oldControlBlocks[oldChunkIndex].close();
+        oldControlBlocks[oldChunkIndex] = null;
+      }
+    }
+
+    if (migratedSlots == oldCapacity) {
+      releaseOldControlBlocks();
+    }
+
+    final long elapsed = System.nanoTime() - start;
+    incrementalRehashNanos += elapsed;
+    maxRehashPauseNanos = Math.max(maxRehashPauseNanos, elapsed);
+  }
+
+  /**
+   * Release the control blocks of the table before the resize in progress, if any. The table must not be used
+   * anymore unless all the old slots were migrated, or the table is reset.
+   */
+  private void releaseOldControlBlocks() {
+    if (oldControlBlocks == null) {
+      return;
+    }
+    for (ControlBlock block : oldControlBlocks) {
+      if (block != null) {
+        block.close();
+      }
+    }
+    oldControlBlocks = null;
+    oldTableControlAddresses = null;
+  }
+
   private static final boolean fixedKeyEquals(
     final long keyDataAddr,
     final long tableDataAddr,
@@ -920,6 +1093,7 @@ public final class LBlockHashTable implements AutoCloseable {
 
   @Override
   public void close() throws Exception {
+    releaseOldControlBlocks();
     AutoCloseables.close(
       Streams.concat(
         Arrays.stream(controlBlocks),
@@ -932,12 +1106,22 @@ public final class LBlockHashTable implements AutoCloseable {
   private void tryRehashForExpansion() {
     int newCapacity = LHashCapacities.capacity(config, capacity(), false);
     if (newCapacity > capacity()) {
+      final long start = System.nanoTime();
+      if (oldControlBlocks != null) {
+        /* the table grew faster than the previous resize migrated, finish it before starting the next one */
+        migrateControlSlots(oldCapacity);
+      }
       try {
         rehashTimer.start();
-        rehash(newCapacity);
+        if (incrementalRehashStep > 0) {
+          startMigration(newCapacity);
+        } else {
+          rehash(newCapacity);
+        }
         rehashCount++;
       } finally {
         rehashTimer.stop();
+        maxRehashPauseNanos = Math.max(maxRehashPauseNanos, System.nanoTime() - start);
       }
     } else {
       throw new HashTableMaxCapacityReachedException(capacity());
@@ -945,13 +1129,21 @@ public final class LBlockHashTable implements AutoCloseable {
   }
 
   public long getRehashTime(TimeUnit unit){
-    return rehashTimer.elapsed(unit);
+    return rehashTimer.elapsed(unit) + unit.convert(incrementalRehashNanos, TimeUnit.NANOSECONDS);
   }
 
   public int getRehashCount(){
     return rehashCount;
   }
 
+  /**
+   * @return the longest time spent at once rehashing the table: a full rehash, or the start or one step of an
+   * incremental one.
+   */
+  public long getMaxRehashPause(TimeUnit unit) {
+    return unit.convert(maxRehashPauseNanos, TimeUnit.NANOSECONDS);
+  }
+
   private void internalInit(int capacity) {
     /* capacity is power of 2 */
     assert (capacity & (capacity - 1)) == 0;
@@ -1141,6 +1333,8 @@ public final class LBlockHashTable implements AutoCloseable {
    * Resets the HashTable to minimum size which has capacity to contain {@link #MAX_VALUES_PER_BATCH}.
    */
   public void resetToMinimumSize() throws Exception {
+    /* the entries are dropped, no need to finish a resize in progress */
+    releaseOldControlBlocks();
     if (capacity() <= MAX_VALUES_PER_BATCH) {
       /* if there is only 1 batch, we don't need to shrink hashtable
        * just reset the state for first batch
@@ -1189,6 +1383,7 @@ public final class LBlockHashTable implements AutoCloseable {
 
 
   public void releaseBatch(final int batchIdx) throws Exception {
+    releaseOldControlBlocks();
     if (batchIdx == 0) {
       controlBlocks[0].reset();
       fixedBlocks[0].reset();
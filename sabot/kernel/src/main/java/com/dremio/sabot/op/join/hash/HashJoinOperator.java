@@ -58,6 +58,7 @@ import com.dremio.sabot.op.common.hashtable.HashTableStats;
 import com.dremio.sabot.op.join.JoinUtils;
 import com.dremio.sabot.op.join.vhash.HashJoinStats;
 import com.dremio.sabot.op.join.vhash.VectorizedHashJoinOperator;
+import com.dremio.sabot.op.join.vhash.VectorizedSpillingHashJoinOperator;
 import com.dremio.sabot.op.spi.DualInputOperator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -465,6 +466,9 @@ public class HashJoinOperator implements DualInputOperator {
     @Override
     public DualInputOperator create(OperatorContext context, HashJoinPOP config) throws ExecutionSetupException {
       if(config.isVectorize()){
+        if (context.getOptions().getOption(VectorizedSpillingHashJoinOperator.ENABLE_SPILL)) {
+          return new VectorizedSpillingHashJoinOperator(context, config);
+        }
         return new VectorizedHashJoinOperator(context, config);
       } else {
         return new HashJoinOperator(context, config);
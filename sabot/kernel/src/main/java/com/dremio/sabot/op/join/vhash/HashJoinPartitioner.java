@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import java.util.List;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.SimpleBigIntVector;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.op.common.ht2.BlockChunk;
+import com.dremio.sabot.op.common.ht2.FixedBlockVector;
+import com.dremio.sabot.op.common.ht2.HashComputation;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.common.ht2.Pivots;
+import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+import com.google.common.base.Preconditions;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Splits the records of an incoming batch into hash partitions on the join keys.
+ *
+ * The keys are pivoted and hashed the same way {@link BlockJoinTable} does it, and the
+ * partition index is taken from the higher order 32 bits of the hash (the lower order
+ * bits are used by the hash table itself). Every recursion level uses the next group
+ * of bits so that a partition that is re-partitioned does not end up in a single
+ * sub-partition again.
+ *
+ * After {@link #partition(int, int[])} the record indices of the batch are laid out in
+ * a selection vector (SV2) grouped by partition, so that the records of a partition
+ * (or of a run of consecutive partitions in the requested order) can be copied into
+ * the scratch container with a single vectorized copy.
+ */
+final class HashJoinPartitioner implements AutoCloseable {
+
+  private static final int SV2_WIDTH = 2;
+
+  private final BufferAllocator allocator;
+  private final PivotDef pivot;
+  private final int numPartitions;
+  private final int partitionMask;
+  private final int hashShift;
+  private final boolean fixedOnly;
+  private final VectorContainer scratch;
+  private final List<FieldBufferCopier> copiers;
+
+  private final int[] partitionStart;
+  private final int[] partitionCount;
+  private ArrowBuf sv2;
+  private int records;
+
+  HashJoinPartitioner(BufferAllocator allocator, VectorAccessible incoming, PivotDef pivot, int numPartitions, int level) {
+    Preconditions.checkArgument(Integer.bitCount(numPartitions) == 1, "Number of partitions must be a power of two.");
+    Preconditions.checkArgument(level <= maxLevel(numPartitions), "Recursion level %s is too deep for %s partitions.", level, numPartitions);
+    this.allocator = allocator;
+    this.pivot = pivot;
+    this.numPartitions = numPartitions;
+    this.partitionMask = numPartitions - 1;
+    this.hashShift = 32 + level * Integer.numberOfTrailingZeros(numPartitions);
+    this.fixedOnly = pivot.getVariableCount() == 0;
+    this.scratch = VectorContainer.create(allocator, incoming.getSchema());
+    this.copiers = FieldBufferCopier.getCopiers(VectorContainer.getFieldVectors(incoming), VectorContainer.getFieldVectors(scratch));
+    this.partitionStart = new int[numPartitions];
+    this.partitionCount = new int[numPartitions];
+  }
+
+  /**
+   * Deepest recursion level that still has unused hash bits to partition on.
+   */
+  static int maxLevel(int numPartitions) {
+    return (32 / Integer.numberOfTrailingZeros(numPartitions)) - 1;
+  }
+
+  /**
+   * Compute the partition of each record of the incoming batch.
+   *
+   * @param records number of records in the incoming batch
+   * @param partitionOrder order in which partitions are laid out in the selection vector. Partitions that
+   *                       are adjacent in this order can be copied together.
+   */
+  void partition(final int records, final int[] partitionOrder) {
+    Preconditions.checkArgument(partitionOrder.length == numPartitions);
+    this.records = records;
+    AutoCloseables.closeNoChecked(sv2);
+    sv2 = null;
+    for (int i = 0; i < numPartitions; i++) {
+      partitionCount[i] = 0;
+    }
+    if (records == 0) {
+      return;
+    }
+
+    sv2 = allocator.buffer(records * SV2_WIDTH);
+    try (FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+         VariableBlockVector var = new VariableBlockVector(allocator, pivot.getVariableCount());
+         SimpleBigIntVector hashValues = new SimpleBigIntVector("hashvalues", allocator);
+         ArrowBuf partitionIds = allocator.buffer(records * 4)) {
+      Pivots.pivot(pivot, records, fbv, var);
+      hashValues.allocateNew(records);
+      final BlockChunk blockChunk = new BlockChunk(fbv.getMemoryAddress(), var.getMemoryAddress(), fixedOnly,
+        pivot.getBlockWidth(), records, hashValues.getBufferAddress(), 0);
+      HashComputation.computeHash(blockChunk);
+
+      // pass 1: compute and count the partition of each record.
+      final long idsAddr = partitionIds.memoryAddress();
+      for (int i = 0; i < records; i++) {
+        final int partition = ((int) (hashValues.get(i) >>> hashShift)) & partitionMask;
+        PlatformDependent.putInt(idsAddr + i * 4, partition);
+        partitionCount[partition]++;
+      }
+
+      int start = 0;
+      for (int partition : partitionOrder) {
+        partitionStart[partition] = start;
+        start += partitionCount[partition];
+      }
+
+      // pass 2: scatter the record indices, grouped by partition.
+      final int[] next = partitionStart.clone();
+      final long sv2Addr = sv2.memoryAddress();
+      for (int i = 0; i < records; i++) {
+        final int partition = PlatformDependent.getInt(idsAddr + i * 4);
+        PlatformDependent.putShort(sv2Addr + (next[partition]++) * SV2_WIDTH, (short) i);
+      }
+    }
+  }
+
+  int getRecordCount() {
+    return records;
+  }
+
+  int getPartitionCount(int partition) {
+    return partitionCount[partition];
+  }
+
+  int getPartitionStart(int partition) {
+    return partitionStart[partition];
+  }
+
+  /**
+   * Copy a range of the partitioned selection vector into the scratch container.
+   *
+   * @param start first position in the selection vector
+   * @param count number of records to copy
+   * @return the scratch container, holding exactly the copied records.
+   */
+  VectorContainer copy(int start, int count) {
+    Preconditions.checkArgument(start >= 0 && start + count <= records);
+    final long addr = sv2.memoryAddress() + start * SV2_WIDTH;
+    for (FieldBufferCopier copier : copiers) {
+      copier.copy(addr, count);
+    }
+    scratch.setAllCount(count);
+    return scratch;
+  }
+
+  VectorContainer copyPartition(int partition) {
+    return copy(partitionStart[partition], partitionCount[partition]);
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(sv2, scratch);
+  }
+}
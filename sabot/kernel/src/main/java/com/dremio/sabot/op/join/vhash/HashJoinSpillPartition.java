@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillInputStream;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillOutputStream;
+import com.google.common.base.Preconditions;
+
+/**
+ * One hash partition of the build and probe side of {@link VectorizedSpillingHashJoinOperator}.
+ *
+ * A partition starts out in memory, holding the build batches that hashed to it. Once it is
+ * chosen as a victim it is spilled: the buffered build batches are written to a spill file
+ * and all subsequent build and probe batches of the partition go straight to disk. A spilled
+ * partition is joined later on, or re-partitioned one level deeper if its build side is still
+ * too big to fit in memory.
+ */
+final class HashJoinSpillPartition implements AutoCloseable {
+
+  private final SpillManager spillManager;
+  private final boolean compress;
+  private final String identifier;
+  private final int level;
+
+  private final List<VectorContainer> inMemoryBatches = new ArrayList<>();
+  private long inMemoryBytes;
+
+  private boolean spilled;
+  private SpillFile buildFile;
+  private SpillOutputStream buildStream;
+  private int buildBatches;
+  private long buildRecords;
+  private long buildBytes;
+
+  private SpillFile probeFile;
+  private SpillOutputStream probeStream;
+  private int probeBatches;
+  private long probeRecords;
+
+  HashJoinSpillPartition(SpillManager spillManager, boolean compress, String identifier, int level, boolean spilled) {
+    this.spillManager = spillManager;
+    this.compress = compress;
+    this.identifier = identifier;
+    this.level = level;
+    this.spilled = spilled;
+  }
+
+  String getIdentifier() {
+    return identifier;
+  }
+
+  int getLevel() {
+    return level;
+  }
+
+  boolean isSpilled() {
+    return spilled;
+  }
+
+  long getInMemoryBytes() {
+    return inMemoryBytes;
+  }
+
+  List<VectorContainer> getInMemoryBatches() {
+    return inMemoryBatches;
+  }
+
+  int getBuildBatches() {
+    return buildBatches;
+  }
+
+  long getBuildRecords() {
+    return buildRecords;
+  }
+
+  /**
+   * @return the in-memory size of the build side of this partition, including what has been spilled.
+   */
+  long getBuildBytes() {
+    return buildBytes;
+  }
+
+  int getProbeBatches() {
+    return probeBatches;
+  }
+
+  long getProbeRecords() {
+    return probeRecords;
+  }
+
+  /**
+   * Add a batch of build records. The content of the batch is either transferred (if the
+   * partition is in memory) or written to disk, so the caller can reuse the container.
+   */
+  void addBuildBatch(VectorContainer batch, BufferAllocator allocator) throws IOException {
+    final long size = getBufferSize(batch);
+    if (spilled) {
+      writeBuild(batch);
+    } else {
+      inMemoryBatches.add(VectorContainer.getTransferClone(batch, allocator));
+      inMemoryBytes += size;
+    }
+    buildBatches++;
+    buildRecords += batch.getRecordCount();
+    buildBytes += size;
+  }
+
+  /**
+   * Add a batch of probe records. Only spilled partitions buffer probe records.
+   */
+  void addProbeBatch(VectorContainer batch) throws IOException {
+    Preconditions.checkState(spilled, "Probe records can only be added to a spilled partition.");
+    if (probeStream == null) {
+      probeFile = spillManager.getSpillFile(String.format("probe-%s", identifier));
+      probeStream = probeFile.create(compress);
+    }
+    probeStream.writeBatch(batch);
+    probeBatches++;
+    probeRecords += batch.getRecordCount();
+  }
+
+  /**
+   * Write all the buffered build batches to disk, and release them.
+   */
+  void spill() throws Exception {
+    Preconditions.checkState(!spilled, "Partition %s is already spilled.", identifier);
+    spilled = true;
+    try {
+      for (VectorContainer batch : inMemoryBatches) {
+        writeBuild(batch);
+      }
+    } finally {
+      releaseInMemoryBatches();
+    }
+  }
+
+  void releaseInMemoryBatches() throws Exception {
+    AutoCloseables.close(inMemoryBatches);
+    inMemoryBatches.clear();
+    inMemoryBytes = 0;
+  }
+
+  private void writeBuild(VectorContainer batch) throws IOException {
+    if (buildStream == null) {
+      buildFile = spillManager.getSpillFile(String.format("build-%s", identifier));
+      buildStream = buildFile.create(compress);
+    }
+    buildStream.writeBatch(batch);
+  }
+
+  /**
+   * Flush and close the build side spill stream, no more build batches are expected.
+   */
+  void finishBuild() throws Exception {
+    AutoCloseables.close(buildStream);
+    buildStream = null;
+  }
+
+  /**
+   * Flush and close the probe side spill stream, no more probe batches are expected.
+   */
+  void finishProbe() throws Exception {
+    AutoCloseables.close(probeStream);
+    probeStream = null;
+  }
+
+  SpillInputStream openBuild() throws IOException {
+    Preconditions.checkState(buildStream == null, "Build side of partition %s is still being written.", identifier);
+    return buildFile == null ? null : buildFile.open(compress);
+  }
+
+  SpillInputStream openProbe() throws IOException {
+    Preconditions.checkState(probeStream == null, "Probe side of partition %s is still being written.", identifier);
+    return probeFile == null ? null : probeFile.open(compress);
+  }
+
+  static long getBufferSize(VectorContainer batch) {
+    long size = 0;
+    for (FieldVector vector : VectorContainer.getFieldVectors(batch)) {
+      size += vector.getBufferSize();
+    }
+    return size;
+  }
+
+  @Override
+  public void close() throws Exception {
+    final List<AutoCloseable> closeables = new ArrayList<>(inMemoryBatches);
+    closeables.add(buildStream);
+    closeables.add(probeStream);
+    closeables.add(buildFile);
+    closeables.add(probeFile);
+    inMemoryBatches.clear();
+    buildStream = null;
+    probeStream = null;
+    buildFile = null;
+    probeFile = null;
+    AutoCloseables.close(closeables);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("partition %s (level %d, spilled %s, build records %d, probe records %d)",
+      identifier, level, spilled, buildRecords, probeRecords);
+  }
+}
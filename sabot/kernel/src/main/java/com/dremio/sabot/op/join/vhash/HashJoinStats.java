@@ -54,7 +54,13 @@ public class HashJoinStats {
     HASHCOMPUTATION_TIME_NANOS,  /* used by hash agg and build side of hash join */
     PROBE_HASHCOMPUTATION_TIME_NANOS, /* used by probe side of hash join */
     RUNTIME_FILTER_DROP_COUNT,
-    RUNTIME_COL_FILTER_DROP_COUNT;
+    RUNTIME_COL_FILTER_DROP_COUNT,
+    NUM_PARTITIONS,       /* number of hash partitions used by the spilling hash join */
+    SPILL_COUNT,          /* number of times a partition was spilled or re-partitioned */
+    SPILLED_PARTITIONS,   /* number of partitions (and sub-partitions) that went to disk */
+    SPILL_WRITE_BYTES,
+    SPILL_READ_BYTES,
+    RECURSION_DEPTH;
 
 
     @Override
@@ -162,6 +162,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   private boolean debugInsertion = false;
   private long outputRecords = 0;
   private int runtimeValFilterCap;
+  private boolean runtimeFilterEnabled = true;
 
   public VectorizedHashJoinOperator(OperatorContext context, HashJoinPOP popConfig) throws OutOfMemoryException {
     this.context = context;
@@ -662,7 +663,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     // Runtime filter processing will happen only by minor fragments <=2 for broadcast hash joins
     final boolean isSendingFragment = thisMinorFragment <= 2;
 
-    if (runtimeFilterInfo==null || (runtimeFilterInfo.isBroadcastJoin() && !isSendingFragment)) {
+    if (!runtimeFilterEnabled || runtimeFilterInfo==null || (runtimeFilterInfo.isBroadcastJoin() && !isSendingFragment)) {
       return;
     }
 
@@ -945,6 +946,14 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     }
   }
 
+  /**
+   * Disable runtime filters when this join only sees a subset of the build keys,
+   * e.g. when it joins a single partition of {@link VectorizedSpillingHashJoinOperator}.
+   */
+  void setRuntimeFilterEnabled(boolean runtimeFilterEnabled) {
+    this.runtimeFilterEnabled = runtimeFilterEnabled;
+  }
+
   @VisibleForTesting
   void setTable(JoinTable table) {
     this.table = table;
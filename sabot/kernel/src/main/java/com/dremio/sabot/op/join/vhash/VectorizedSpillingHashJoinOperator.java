@@ -0,0 +1,622 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.calcite.rel.core.JoinRelType;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.common.utils.protos.QueryIdHelper;
+import com.dremio.exec.expr.ValueVectorReadExpression;
+import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.options.OptionManager;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.BooleanValidator;
+import com.dremio.options.TypeValidators.DoubleValidator;
+import com.dremio.options.TypeValidators.PowerOfTwoLongValidator;
+import com.dremio.options.TypeValidators.RangeDoubleValidator;
+import com.dremio.options.TypeValidators.RangeLongValidator;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage;
+import com.dremio.sabot.op.common.ht2.FieldVectorPair;
+import com.dremio.sabot.op.common.ht2.PivotBuilder;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.join.vhash.HashJoinStats.Metric;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillInputStream;
+import com.dremio.sabot.op.spi.DualInputOperator;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Partitioned (hybrid grace) hash join built on top of {@link VectorizedHashJoinOperator}.
+ *
+ * Build records are hashed on the join keys into a fixed number of partitions. Partitions are
+ * kept in memory until the buffered build data crosses the memory budget of the operator, at
+ * which point the largest in-memory partition is spilled through the {@link SpillManager}, the
+ * same way {@link com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggPartitionSpillHandler}
+ * spills hash aggregation partitions.
+ *
+ * Once the build side is consumed, all the partitions still in memory are inserted into a single
+ * {@link VectorizedHashJoinOperator} (the partitions are disjoint on the join keys, so one hash
+ * table can serve all of them). Probe records that hash to an in-memory partition are joined right
+ * away, the ones that hash to a spilled partition are spilled as well. If nothing was spilled, the
+ * probe side is passed through to the in-memory join as is.
+ *
+ * After the probe side is consumed, spilled partitions are processed one at a time from a FIFO
+ * queue: the build side is read back into a new in-memory join and the probe side is streamed
+ * through it. A spilled partition whose build side is still larger than the memory budget is
+ * re-partitioned on the next group of hash bits, up to a maximum recursion depth.
+ */
+@Options
+public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
+
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorizedSpillingHashJoinOperator.class);
+
+  public static final BooleanValidator ENABLE_SPILL = new BooleanValidator("exec.operator.join.vectorize.spill.enabled", false);
+  public static final PowerOfTwoLongValidator NUM_PARTITIONS = new PowerOfTwoLongValidator("exec.operator.join.vectorize.spill.num_partitions", 32, 8);
+  // fraction of the operator memory limit that in-memory build partitions may use before spilling.
+  public static final DoubleValidator BUILD_MEMORY_FACTOR = new RangeDoubleValidator("exec.operator.join.vectorize.spill.build_memory_factor", 0.0d, 1.0d, 0.5d);
+  public static final RangeLongValidator MAX_RECURSION_DEPTH = new RangeLongValidator("exec.operator.join.vectorize.spill.max_recursion_depth", 0, 8, 3);
+  public static final BooleanValidator COMPRESS_SPILL = new BooleanValidator("exec.operator.join.vectorize.spill.compress", false);
+
+  private enum Phase {
+    BUILD,
+    PROBE,
+    REPLAY
+  }
+
+  private final OperatorContext context;
+  private final HashJoinPOP config;
+  private final BufferAllocator allocator;
+  private final JoinRelType joinType;
+  private final int numPartitions;
+  private final double buildMemoryFactor;
+  private final int maxRecursionDepth;
+  private final boolean compressSpill;
+  private final int[] identityOrder;
+  private final VectorContainer outgoing;
+  private final Queue<HashJoinSpillPartition> spilledPartitions = new LinkedList<>();
+
+  private VectorAccessible left;
+  private VectorAccessible right;
+  private SpillManager spillManager;
+  private HashJoinSpillPartition[] partitions;
+  private HashJoinPartitioner buildPartitioner;
+  private HashJoinPartitioner probePartitioner;
+  private int[] probeOrder;
+  private int inMemoryPartitionCount;
+
+  // inputs of the in-memory join that runs while the probe side is consumed
+  private VectorContainer buildInput;
+  private VectorContainer probeInput;
+  private VectorizedHashJoinOperator inMemoryJoin;
+  private VectorContainer inMemoryJoinOutput;
+
+  // inputs of the join of the spilled partition currently being processed
+  private VectorContainer replayBuild;
+  private VectorContainer replayProbe;
+  private HashJoinSpillPartition activePartition;
+  private VectorizedHashJoinOperator activeJoin;
+  private VectorContainer activeJoinOutput;
+  private SpillInputStream activeProbeStream;
+  private int activeProbeBatch;
+
+  private State state = State.NEEDS_SETUP;
+  private Phase phase = Phase.BUILD;
+  private long outputRecords;
+  private int spills;
+  private int spilledPartitionCount;
+  private int recursionDepth;
+
+  public VectorizedSpillingHashJoinOperator(OperatorContext context, HashJoinPOP config) {
+    final OptionManager options = context.getOptions();
+    this.context = context;
+    this.config = config;
+    this.allocator = context.getAllocator();
+    this.joinType = config.getJoinType();
+    this.numPartitions = (int) options.getOption(NUM_PARTITIONS);
+    this.buildMemoryFactor = options.getOption(BUILD_MEMORY_FACTOR);
+    this.maxRecursionDepth = Math.min((int) options.getOption(MAX_RECURSION_DEPTH), HashJoinPartitioner.maxLevel(numPartitions));
+    this.compressSpill = options.getOption(COMPRESS_SPILL);
+    this.identityOrder = createIdentityOrder(numPartitions);
+    this.outgoing = new VectorContainer(allocator);
+  }
+
+  @Override
+  public State getState() {
+    return state;
+  }
+
+  @Override
+  public VectorAccessible setup(VectorAccessible left, VectorAccessible right) throws Exception {
+    state.is(State.NEEDS_SETUP);
+
+    this.left = left;
+    this.right = right;
+    outgoing.addSchema(right.getSchema());
+    outgoing.addSchema(left.getSchema());
+    outgoing.buildSchema(SelectionVectorMode.NONE);
+    outgoing.setInitialCapacity(context.getTargetBatchSize());
+
+    final FragmentHandle handle = context.getFragmentHandle();
+    final String id = String.format("joinspill-%s.%s.%s.%s", QueryIdHelper.getQueryId(handle.getQueryId()),
+      handle.getMajorFragmentId(), handle.getMinorFragmentId(), config.getProps().getLocalOperatorId());
+    this.spillManager = new SpillManager(context.getConfig(), context.getOptions(), id, null,
+      context.getSpillService(), "join spilling", context.getStats());
+
+    this.partitions = new HashJoinSpillPartition[numPartitions];
+    for (int i = 0; i < numPartitions; i++) {
+      partitions[i] = new HashJoinSpillPartition(spillManager, compressSpill, Integer.toString(i), 0, false);
+    }
+    this.buildPartitioner = new HashJoinPartitioner(allocator, right, getKeyPivot(right, true), numPartitions, 0);
+    this.probePartitioner = new HashJoinPartitioner(allocator, left, getKeyPivot(left, false), numPartitions, 0);
+    this.buildInput = VectorContainer.create(allocator, right.getSchema());
+    this.probeInput = VectorContainer.create(allocator, left.getSchema());
+    this.replayBuild = VectorContainer.create(allocator, right.getSchema());
+    this.replayProbe = VectorContainer.create(allocator, left.getSchema());
+
+    state = State.CAN_CONSUME_R;
+    return outgoing;
+  }
+
+  private PivotDef getKeyPivot(VectorAccessible accessible, boolean build) {
+    final List<FieldVectorPair> fields = new ArrayList<>();
+    for (JoinCondition c : config.getConditions()) {
+      final FieldVector vector = getField(accessible, build ? c.getRight() : c.getLeft());
+      fields.add(new FieldVectorPair(vector, vector));
+    }
+    return PivotBuilder.getBlockDefinition(fields);
+  }
+
+  private FieldVector getField(VectorAccessible accessible, LogicalExpression expr) {
+    final LogicalExpression materialized = context.getClassProducer().materialize(expr, accessible);
+    if (!(materialized instanceof ValueVectorReadExpression)) {
+      throw new IllegalStateException("Only direct references allowed.");
+    }
+    final int[] fieldIds = ((ValueVectorReadExpression) materialized).getFieldId().getFieldIds();
+    return accessible.getValueAccessorById(FieldVector.class, fieldIds).getValueVector();
+  }
+
+  private static int[] createIdentityOrder(int numPartitions) {
+    final int[] order = new int[numPartitions];
+    for (int i = 0; i < numPartitions; i++) {
+      order[i] = i;
+    }
+    return order;
+  }
+
+  @Override
+  public void consumeDataRight(int records) throws Exception {
+    state.is(State.CAN_CONSUME_R);
+
+    buildPartitioner.partition(records, identityOrder);
+    for (int i = 0; i < numPartitions; i++) {
+      if (buildPartitioner.getPartitionCount(i) == 0) {
+        continue;
+      }
+      boolean added = false;
+      while (!added) {
+        try {
+          partitions[i].addBuildBatch(buildPartitioner.copyPartition(i), allocator);
+          added = true;
+        } catch (OutOfMemoryException e) {
+          logger.debug("Ran out of memory while partitioning build batch, spilling a partition", e);
+          if (!spillLargestPartition()) {
+            throw e;
+          }
+        }
+      }
+    }
+
+    final long buildMemoryLimit = getBuildMemoryLimit();
+    while (getInMemoryBuildBytes() > buildMemoryLimit && spillLargestPartition()) {
+      // keep spilling until the in-memory partitions fit in the budget again.
+    }
+    updateStats();
+  }
+
+  private long getBuildMemoryLimit() {
+    return (long) (allocator.getLimit() * buildMemoryFactor);
+  }
+
+  private long getInMemoryBuildBytes() {
+    long bytes = 0;
+    for (HashJoinSpillPartition partition : partitions) {
+      bytes += partition.getInMemoryBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * Spill the in-memory partition holding the most build data.
+   * @return false if there was nothing left to spill.
+   */
+  private boolean spillLargestPartition() throws Exception {
+    HashJoinSpillPartition victim = null;
+    for (HashJoinSpillPartition partition : partitions) {
+      if (!partition.isSpilled() && partition.getInMemoryBytes() > 0
+        && (victim == null || partition.getInMemoryBytes() > victim.getInMemoryBytes())) {
+        victim = partition;
+      }
+    }
+    if (victim == null) {
+      return false;
+    }
+    logger.debug("Spilling {}, allocated memory {}, limit {}", victim, allocator.getAllocatedMemory(), allocator.getLimit());
+    victim.spill();
+    spills++;
+    spilledPartitionCount++;
+    return true;
+  }
+
+  @Override
+  public void noMoreToConsumeRight() throws Exception {
+    state.is(State.CAN_CONSUME_R);
+
+    final List<Integer> inMemory = new ArrayList<>();
+    final List<Integer> spilled = new ArrayList<>();
+    for (int i = 0; i < numPartitions; i++) {
+      partitions[i].finishBuild();
+      (partitions[i].isSpilled() ? spilled : inMemory).add(i);
+    }
+    inMemoryPartitionCount = inMemory.size();
+    probeOrder = new int[numPartitions];
+    int idx = 0;
+    for (int i : inMemory) {
+      probeOrder[idx++] = i;
+    }
+    for (int i : spilled) {
+      probeOrder[idx++] = i;
+    }
+
+    // the in-memory join sees every build key only if nothing was spilled, so it can then push runtime filters.
+    final boolean anySpilled = !spilled.isEmpty();
+    inMemoryJoin = new VectorizedHashJoinOperator(context, config);
+    inMemoryJoin.setRuntimeFilterEnabled(!anySpilled);
+    inMemoryJoinOutput = (VectorContainer) inMemoryJoin.setup(anySpilled ? probeInput : left, buildInput);
+    for (int i : inMemory) {
+      final HashJoinSpillPartition partition = partitions[i];
+      for (VectorContainer batch : partition.getInMemoryBatches()) {
+        final int records = batch.getRecordCount();
+        batch.transferOut(buildInput);
+        buildInput.setAllCount(records);
+        inMemoryJoin.consumeDataRight(records);
+      }
+      partition.releaseInMemoryBatches();
+    }
+    inMemoryJoin.noMoreToConsumeRight();
+
+    phase = Phase.PROBE;
+    if (inMemoryJoin.getState() == State.DONE && !anySpilled) {
+      // nothing needs to be read on the left side as right side is empty
+      finishInMemoryJoin();
+      return;
+    }
+    state = State.CAN_CONSUME_L;
+    updateStats();
+  }
+
+  @Override
+  public void consumeDataLeft(int records) throws Exception {
+    state.is(State.CAN_CONSUME_L);
+
+    if (inMemoryPartitionCount == numPartitions) {
+      // nothing was spilled, the in-memory join reads the probe side directly.
+      inMemoryJoin.consumeDataLeft(records);
+      state = inMemoryJoin.getState() == State.CAN_PRODUCE ? State.CAN_PRODUCE : State.CAN_CONSUME_L;
+      return;
+    }
+
+    probePartitioner.partition(records, probeOrder);
+    int inMemoryRecords = 0;
+    for (int i = 0; i < numPartitions; i++) {
+      final int partition = probeOrder[i];
+      final int count = probePartitioner.getPartitionCount(partition);
+      if (i < inMemoryPartitionCount) {
+        inMemoryRecords += count;
+      } else if (count > 0) {
+        partitions[partition].addProbeBatch(probePartitioner.copyPartition(partition));
+      }
+    }
+
+    // in-memory partitions come first in the probe order, so their records are contiguous.
+    if (inMemoryRecords > 0 && inMemoryJoin.getState() == State.CAN_CONSUME_L) {
+      probePartitioner.copy(0, inMemoryRecords).transferOut(probeInput);
+      probeInput.setAllCount(inMemoryRecords);
+      inMemoryJoin.consumeDataLeft(inMemoryRecords);
+      if (inMemoryJoin.getState() == State.CAN_PRODUCE) {
+        state = State.CAN_PRODUCE;
+      }
+    }
+  }
+
+  @Override
+  public void noMoreToConsumeLeft() throws Exception {
+    state.is(State.CAN_CONSUME_L);
+
+    for (HashJoinSpillPartition partition : partitions) {
+      partition.finishProbe();
+    }
+    if (inMemoryJoin.getState() == State.CAN_CONSUME_L) {
+      inMemoryJoin.noMoreToConsumeLeft();
+    }
+    if (inMemoryJoin.getState() == State.CAN_PRODUCE) {
+      // project the build records that didn't match before moving on to spilled partitions.
+      state = State.CAN_PRODUCE;
+    } else {
+      finishInMemoryJoin();
+    }
+  }
+
+  @Override
+  public int outputData() throws Exception {
+    state.is(State.CAN_PRODUCE);
+
+    if (phase == Phase.PROBE) {
+      final int records = transferOutput(inMemoryJoin.outputData(), inMemoryJoinOutput);
+      switch (inMemoryJoin.getState()) {
+        case CAN_CONSUME_L:
+          state = State.CAN_CONSUME_L;
+          break;
+        case DONE:
+          finishInMemoryJoin();
+          break;
+        default:
+          break;
+      }
+      return records;
+    }
+
+    while (true) {
+      if (activeJoin == null) {
+        if (spilledPartitions.isEmpty()) {
+          state = State.DONE;
+          return outgoing.setAllCount(0);
+        }
+        startNextPartition();
+        continue;
+      }
+
+      switch (activeJoin.getState()) {
+        case CAN_PRODUCE: {
+          final int records = transferOutput(activeJoin.outputData(), activeJoinOutput);
+          if (activeJoin.getState() == State.DONE) {
+            closeActivePartition();
+            if (spilledPartitions.isEmpty()) {
+              state = State.DONE;
+            }
+          }
+          return records;
+        }
+        case CAN_CONSUME_L:
+          if (activeProbeBatch < activePartition.getProbeBatches()) {
+            replayProbe.zeroVectors();
+            activeProbeStream.load(replayProbe, allocator);
+            activeProbeBatch++;
+            activeJoin.consumeDataLeft(replayProbe.getRecordCount());
+          } else {
+            activeJoin.noMoreToConsumeLeft();
+          }
+          break;
+        case DONE:
+          closeActivePartition();
+          break;
+        default:
+          throw new IllegalStateException("Unexpected state " + activeJoin.getState() + " while joining spilled partition.");
+      }
+    }
+  }
+
+  private int transferOutput(int records, VectorContainer joinOutput) {
+    joinOutput.transferOut(outgoing);
+    outputRecords += records;
+    updateStats();
+    return outgoing.setAllCount(records);
+  }
+
+  private void finishInMemoryJoin() throws Exception {
+    AutoCloseables.close(inMemoryJoin);
+    inMemoryJoin = null;
+    inMemoryJoinOutput = null;
+    for (HashJoinSpillPartition partition : partitions) {
+      if (partition.isSpilled() && !canSkip(partition)) {
+        spilledPartitions.add(partition);
+      }
+    }
+    phase = Phase.REPLAY;
+    state = spilledPartitions.isEmpty() ? State.DONE : State.CAN_PRODUCE;
+    updateStats();
+  }
+
+  /**
+   * A partition can be skipped if the side that is empty makes the join of that partition empty.
+   */
+  private boolean canSkip(HashJoinSpillPartition partition) {
+    final boolean emptyBuild = partition.getBuildRecords() == 0;
+    final boolean emptyProbe = partition.getProbeRecords() == 0;
+    final boolean preserveProbe = joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL;
+    final boolean preserveBuild = joinType == JoinRelType.RIGHT || joinType == JoinRelType.FULL;
+    return (emptyBuild && (emptyProbe || !preserveProbe)) || (emptyProbe && !preserveBuild);
+  }
+
+  private void startNextPartition() throws Exception {
+    final HashJoinSpillPartition partition = spilledPartitions.poll();
+    if (partition.getBuildBytes() > getBuildMemoryLimit() && partition.getLevel() < maxRecursionDepth) {
+      repartition(partition);
+      return;
+    }
+
+    logger.debug("Joining spilled {}", partition);
+    activePartition = partition;
+    activeJoin = new VectorizedHashJoinOperator(context, config);
+    activeJoin.setRuntimeFilterEnabled(false);
+    activeJoinOutput = (VectorContainer) activeJoin.setup(replayProbe, replayBuild);
+    try (SpillInputStream buildStream = partition.openBuild()) {
+      for (int i = 0; i < partition.getBuildBatches(); i++) {
+        replayBuild.zeroVectors();
+        buildStream.load(replayBuild, allocator);
+        activeJoin.consumeDataRight(replayBuild.getRecordCount());
+      }
+    }
+    activeJoin.noMoreToConsumeRight();
+    activeProbeStream = partition.openProbe();
+    activeProbeBatch = 0;
+  }
+
+  /**
+   * Split a spilled partition that is too big to be joined in memory into sub-partitions,
+   * using the next group of hash bits.
+   */
+  private void repartition(HashJoinSpillPartition partition) throws Exception {
+    final int level = partition.getLevel() + 1;
+    logger.debug("Re-partitioning spilled {} at level {}", partition, level);
+    final HashJoinSpillPartition[] subPartitions = new HashJoinSpillPartition[numPartitions];
+    try (HashJoinSpillPartition toClose = partition) {
+      for (int i = 0; i < numPartitions; i++) {
+        subPartitions[i] = new HashJoinSpillPartition(spillManager, compressSpill,
+          partition.getIdentifier() + "." + i, level, true);
+      }
+
+      try (HashJoinPartitioner partitioner = new HashJoinPartitioner(allocator, replayBuild,
+             getKeyPivot(replayBuild, true), numPartitions, level);
+           SpillInputStream buildStream = partition.openBuild()) {
+        for (int batch = 0; batch < partition.getBuildBatches(); batch++) {
+          replayBuild.zeroVectors();
+          buildStream.load(replayBuild, allocator);
+          partitioner.partition(replayBuild.getRecordCount(), identityOrder);
+          for (int i = 0; i < numPartitions; i++) {
+            if (partitioner.getPartitionCount(i) > 0) {
+              subPartitions[i].addBuildBatch(partitioner.copyPartition(i), allocator);
+            }
+          }
+        }
+        replayBuild.zeroVectors();
+      }
+
+      try (HashJoinPartitioner partitioner = new HashJoinPartitioner(allocator, replayProbe,
+             getKeyPivot(replayProbe, false), numPartitions, level);
+           SpillInputStream probeStream = partition.openProbe()) {
+        for (int batch = 0; batch < partition.getProbeBatches(); batch++) {
+          replayProbe.zeroVectors();
+          probeStream.load(replayProbe, allocator);
+          partitioner.partition(replayProbe.getRecordCount(), identityOrder);
+          for (int i = 0; i < numPartitions; i++) {
+            if (partitioner.getPartitionCount(i) > 0) {
+              subPartitions[i].addProbeBatch(partitioner.copyPartition(i));
+            }
+          }
+        }
+        replayProbe.zeroVectors();
+      }
+
+      for (HashJoinSpillPartition subPartition : subPartitions) {
+        subPartition.finishBuild();
+        subPartition.finishProbe();
+        if (canSkip(subPartition)) {
+          subPartition.close();
+        } else {
+          spilledPartitions.add(subPartition);
+          spilledPartitionCount++;
+        }
+      }
+    } catch (Exception e) {
+      AutoCloseables.close(e, Arrays.asList(subPartitions));
+      throw e;
+    }
+    spills++;
+    recursionDepth = Math.max(recursionDepth, level);
+  }
+
+  private void closeActivePartition() throws Exception {
+    final List<AutoCloseable> closeables = Arrays.asList(activeProbeStream, activeJoin, activePartition);
+    activeProbeStream = null;
+    activeJoin = null;
+    activeJoinOutput = null;
+    activePartition = null;
+    AutoCloseables.close(closeables);
+  }
+
+  private void updateStats() {
+    final OperatorStats stats = context.getStats();
+    stats.setLongStat(Metric.OUTPUT_RECORDS, outputRecords);
+    stats.setLongStat(Metric.NUM_PARTITIONS, numPartitions);
+    stats.setLongStat(Metric.SPILL_COUNT, spills);
+    stats.setLongStat(Metric.SPILLED_PARTITIONS, spilledPartitionCount);
+    stats.setLongStat(Metric.RECURSION_DEPTH, recursionDepth);
+    if (spillManager != null) {
+      stats.setLongStat(Metric.SPILL_WRITE_BYTES, spillManager.getIOWriteBytes());
+      stats.setLongStat(Metric.SPILL_READ_BYTES, spillManager.getIOReadBytes());
+    }
+  }
+
+  @VisibleForTesting
+  int getSpilledPartitionCount() {
+    return spilledPartitionCount;
+  }
+
+  @Override
+  public void workOnOOB(OutOfBandMessage message) {
+    // runtime filter pieces are only merged by the in-memory join, and only if nothing was spilled.
+    if (inMemoryJoin != null) {
+      inMemoryJoin.workOnOOB(message);
+    } else {
+      logger.debug("Ignoring out of band message from minor fragment {} in phase {}", message.getSendingMinorFragmentId(), phase);
+    }
+  }
+
+  @Override
+  public <OUT, IN, EXCEP extends Throwable> OUT accept(OperatorVisitor<OUT, IN, EXCEP> visitor, IN value) throws EXCEP {
+    return visitor.visitDualInput(this, value);
+  }
+
+  @Override
+  public void close() throws Exception {
+    updateStats();
+    final List<AutoCloseable> closeables = new ArrayList<>();
+    closeables.add(activeProbeStream);
+    closeables.add(activeJoin);
+    closeables.add(activePartition);
+    closeables.add(inMemoryJoin);
+    if (partitions != null) {
+      closeables.addAll(Arrays.asList(partitions));
+    }
+    closeables.addAll(spilledPartitions);
+    closeables.add(buildPartitioner);
+    closeables.add(probePartitioner);
+    closeables.add(buildInput);
+    closeables.add(probeInput);
+    closeables.add(replayBuild);
+    closeables.add(replayProbe);
+    closeables.add(outgoing);
+    closeables.add(spillManager);
+    AutoCloseables.close(closeables);
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.receiver;
+
+import static com.dremio.sabot.op.sender.BatchCompressor.LENGTH_PREFIX;
+import static com.dremio.sabot.op.sender.BatchCompressor.NOT_COMPRESSED;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.FieldNode;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import org.apache.arrow.vector.ipc.message.ArrowFieldNode;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+
+import com.dremio.common.exceptions.UserException;
+import com.dremio.exec.proto.ExecRPC.BatchCompressionCodec;
+import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
+import com.google.flatbuffers.FlatBufferBuilder;
+import com.google.protobuf.ByteString;
+
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * Decompresses incoming exchange batches compressed by {@link com.dremio.sabot.op.sender.BatchCompressor}.
+ *
+ * Batches are kept compressed while they are buffered (and possibly spilled) by the receiver, and are only
+ * decompressed, into the receiver's allocator, when the receiving operator loads them.
+ */
+public class BatchDecompressor {
+
+  private final BufferAllocator allocator;
+  private LZ4FastDecompressor decompressor;
+
+  private long compressedBytes;
+  private long uncompressedBytes;
+  private long decompressionNanos;
+
+  public BatchDecompressor(BufferAllocator allocator) {
+    this.allocator = allocator;
+  }
+
+  /**
+   * Decompress a batch.
+   *
+   * @param batch incoming batch
+   * @return the same batch if it isn't compressed, otherwise a new batch that the caller must close in addition to
+   *         the incoming batch.
+   */
+  public RawFragmentBatch decompress(RawFragmentBatch batch) {
+    final FragmentRecordBatch header = batch.getHeader();
+    final ArrowBuf body = batch.getBody();
+    if (header.getCompressionCodec() == BatchCompressionCodec.UNCOMPRESSED || body == null) {
+      final long size = batch.getByteCount();
+      compressedBytes += size;
+      uncompressedBytes += size;
+      return batch;
+    }
+    if (header.getCompressionCodec() != BatchCompressionCodec.LZ4_BLOCK) {
+      throw UserException.unsupportedError()
+        .message("Unsupported exchange compression codec %s", header.getCompressionCodec())
+        .build();
+    }
+    if (decompressor == null) {
+      decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+    }
+
+    final long start = System.nanoTime();
+    try {
+      final RecordBatch recordBatch = RecordBatch.getRootAsRecordBatch(header.getArrowRecordBatch().asReadOnlyByteBuffer());
+
+      // first pass, compute the size of the decompressed body
+      long bodyLength = 0;
+      for (int i = 0; i < recordBatch.buffersLength(); i++) {
+        bodyLength += uncompressedLength(body, recordBatch.buffers(i));
+      }
+
+      final List<ArrowFieldNode> nodes = new ArrayList<>(recordBatch.nodesLength());
+      for (int i = 0; i < recordBatch.nodesLength(); i++) {
+        final FieldNode node = recordBatch.nodes(i);
+        nodes.add(new ArrowFieldNode((int) node.length(), (int) node.nullCount()));
+      }
+
+      // second pass, decompress each buffer right after the previous one
+      try (ArrowBuf newBody = allocator.buffer(bodyLength)) {
+        final List<ArrowBuf> buffers = new ArrayList<>(recordBatch.buffersLength());
+        long offset = 0;
+        for (int i = 0; i < recordBatch.buffersLength(); i++) {
+          final Buffer buffer = recordBatch.buffers(i);
+          final long length = uncompressedLength(body, buffer);
+          decompressBuffer(body, buffer, newBody, offset, length);
+          buffers.add(newBody.slice(offset, length));
+          offset += length;
+        }
+        newBody.writerIndex(bodyLength);
+
+        final FlatBufferBuilder builder = new FlatBufferBuilder();
+        try (ArrowRecordBatch arrowRecordBatch = new ArrowRecordBatch((int) recordBatch.length(), nodes, buffers,
+            NoCompressionCodec.DEFAULT_BODY_COMPRESSION, false)) {
+          builder.finish(arrowRecordBatch.writeTo(builder));
+        }
+        final FragmentRecordBatch newHeader = header.toBuilder()
+          .setArrowRecordBatch(ByteString.copyFrom(builder.dataBuffer()))
+          .clearCompressionCodec()
+          .build();
+
+        compressedBytes += body.readableBytes();
+        uncompressedBytes += bodyLength;
+        // the new batch takes its own reference on the body
+        return new RawFragmentBatch(newHeader, newBody, null);
+      }
+    } catch (IOException e) {
+      throw UserException.dataReadError(e)
+        .message("Failure while decompressing exchange batch")
+        .build();
+    } finally {
+      decompressionNanos += System.nanoTime() - start;
+    }
+  }
+
+  private static long uncompressedLength(ArrowBuf body, Buffer buffer) throws IOException {
+    if (buffer.length() == 0) {
+      return 0;
+    }
+    if (buffer.length() < LENGTH_PREFIX) {
+      throw new IOException("Invalid compressed buffer of length " + buffer.length());
+    }
+    final long length = body.getLong(buffer.offset());
+    return length == NOT_COMPRESSED ? buffer.length() - LENGTH_PREFIX : length;
+  }
+
+  private void decompressBuffer(ArrowBuf body, Buffer buffer, ArrowBuf target, long targetOffset, long length) {
+    if (length == 0) {
+      return;
+    }
+    final long dataOffset = buffer.offset() + LENGTH_PREFIX;
+    if (body.getLong(buffer.offset()) == NOT_COMPRESSED) {
+      target.setBytes(targetOffset, body, dataOffset, length);
+    } else {
+      final int compressedLength = (int) (buffer.length() - LENGTH_PREFIX);
+      decompressor.decompress(body.nioBuffer(dataOffset, compressedLength), 0,
+        target.nioBuffer(targetOffset, (int) length), 0, (int) length);
+    }
+  }
+
+  /**
+   * @return total size of the received batches, as sent over the wire
+   */
+  public long getCompressedBytes() {
+    return compressedBytes;
+  }
+
+  /**
+   * @return total size of the received batches once decompressed
+   */
+  public long getUncompressedBytes() {
+    return uncompressedBytes;
+  }
+
+  public long getDecompressionNanos() {
+    return decompressionNanos;
+  }
+}
@@ -47,6 +47,7 @@ import com.dremio.exec.vector.CopyUtil;
 import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.receiver.BatchDecompressor;
 import com.dremio.sabot.op.receiver.RawFragmentBatch;
 import com.dremio.sabot.op.receiver.RawFragmentBatchProvider;
 import com.dremio.sabot.op.spi.BatchStreamProvider;
@@ -66,6 +67,7 @@ public class MergingReceiverOperator implements ProducerOperator {
   private final Node[] nodes;
   private final BatchStreamProvider streamProvider;
   private final OperatorStats stats;
+  private final BatchDecompressor decompressor;
 
   private static enum OutputState {INIT_ON_NEXT, ACTIVE_OUTPUT};
 
@@ -79,7 +81,10 @@ public class MergingReceiverOperator implements ProducerOperator {
   public static enum Metric implements MetricDef{
     BYTES_RECEIVED,
     NUM_SENDERS,
-    NEXT_WAIT_NANOS;
+    NEXT_WAIT_NANOS,
+    COMPRESSED_BYTES,
+    UNCOMPRESSED_BYTES,
+    DECOMPRESSION_NANOS;
 
     @Override
     public int metricId() {
@@ -98,6 +103,7 @@ public class MergingReceiverOperator implements ProducerOperator {
     this.config = config;
     this.outgoingContainer = context.createOutputVectorContainer(config.getSchema());
     this.stats.setLongStat(Metric.NUM_SENDERS, config.getNumSenders());
+    this.decompressor = new BatchDecompressor(context.getAllocator());
     this.nodes = new Node[config.getNumSenders()];
     RawFragmentBatchProvider[] fragProviders = streamProvider.getBuffers(config.getSenderMajorFragmentId());
     assert fragProviders.length == config.getNumSenders();
@@ -320,14 +326,24 @@ public class MergingReceiverOperator implements ProducerOperator {
           }
           return provider.isStreamDone();
         } else {
+          final long bytesReceived = currentBatch.getByteCount();
+          final RawFragmentBatch decompressed = decompressor.decompress(currentBatch);
+          if (decompressed != currentBatch) {
+            // keep the decompressed batch around instead of the one we received
+            clear();
+            currentBatch = decompressed;
+          }
 
           size = loader.load(currentBatch);
 
           valueIndex = 0;
+          stats.addLongStat(Metric.BYTES_RECEIVED, bytesReceived);
+          stats.setLongStat(Metric.COMPRESSED_BYTES, decompressor.getCompressedBytes());
+          stats.setLongStat(Metric.UNCOMPRESSED_BYTES, decompressor.getUncompressedBytes());
+          stats.setLongStat(Metric.DECOMPRESSION_NANOS, decompressor.getDecompressionNanos());
         }
 
         // we received actual data, let's set things up and add to priority queue.
-        stats.addLongStat(Metric.BYTES_RECEIVED, currentBatch.getByteCount());
         stats.batchReceived(0, loader.getRecordCount(), size);
         inputCounts += loader.getRecordCount();
         valueIndex = 0;
@@ -24,6 +24,7 @@ import com.dremio.exec.record.VectorContainer;
 import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.receiver.BatchDecompressor;
 import com.dremio.sabot.op.receiver.RawFragmentBatch;
 import com.dremio.sabot.op.receiver.RawFragmentBatchProvider;
 import com.dremio.sabot.op.spi.BatchStreamProvider;
@@ -41,10 +42,14 @@ public class UnorderedReceiverOperator implements ProducerOperator {
   private final OperatorContext context;
   private final VectorContainer outgoing;
   private final BatchStreamProvider streams;
+  private final BatchDecompressor decompressor;
 
   public enum Metric implements MetricDef {
     BYTES_RECEIVED,
-    NUM_SENDERS;
+    NUM_SENDERS,
+    COMPRESSED_BYTES,
+    UNCOMPRESSED_BYTES,
+    DECOMPRESSION_NANOS;
 
     @Override
     public int metricId() {
@@ -66,6 +71,7 @@ public class UnorderedReceiverOperator implements ProducerOperator {
     // In normal case, batchLoader does not require an allocator. However, in case of splitAndTransfer of a value vector,
     // we may need an allocator for the new offset vector. Therefore, here we pass the context's allocator to batchLoader.
     this.batchLoader = new ArrowRecordBatchLoader(outgoing);
+    this.decompressor = new BatchDecompressor(context.getAllocator());
   }
 
   @Override
@@ -98,9 +104,20 @@ public class UnorderedReceiverOperator implements ProducerOperator {
         return 0;
       }
 
-      int size = batchLoader.load(batch);
+      final int size;
+      final RawFragmentBatch decompressed = decompressor.decompress(batch);
+      try {
+        size = batchLoader.load(decompressed);
+      } finally {
+        if (decompressed != batch) {
+          decompressed.close();
+        }
+      }
 
       stats.addLongStat(Metric.BYTES_RECEIVED, batch.getByteCount());
+      stats.setLongStat(Metric.COMPRESSED_BYTES, decompressor.getCompressedBytes());
+      stats.setLongStat(Metric.UNCOMPRESSED_BYTES, decompressor.getUncompressedBytes());
+      stats.setLongStat(Metric.DECOMPRESSION_NANOS, decompressor.getDecompressionNanos());
 
       final int count = batchLoader.getRecordCount();
       stats.batchReceived(0, count, size);
@@ -164,7 +164,17 @@ public class ScanOperator implements ProducerOperator {
     MAX_METADATA_IO_READ_TIME_NS,   // Maximum IO read time for metadata operations
     AVG_METADATA_IO_READ_TIME_NS,  // Average IO read time for metadata operations
     NUM_METADATA_IO_READ,
-    HIVE_FILE_FORMATS // File Formats in hive sub scan represented as bitmap. Indices correspond to HiveFilFormat enum
+    HIVE_FILE_FORMATS, // File Formats in hive sub scan represented as bitmap. Indices correspond to HiveFilFormat enum
+    NUM_ROW_GROUPS_PRUNED_BY_RANGE_FILTER, // Number of row groups skipped based on stats and a TopN range filter
+    NUM_PAGE_BYTES_PRUNED, // Compressed size of the pages skipped based on page indexes
+    NUM_FOOTER_CACHE_HITS, // Number of parquet footers found in the footer cache of the executor
+    NUM_FOOTER_CACHE_MISSES, // Number of parquet footers read and added to the footer cache of the executor
+    BLOCK_CACHE_HIT_BYTES, // Number of bytes read from the local block cache
+    BLOCK_CACHE_MISS_BYTES, // Number of bytes of the blocks read from the source on a block cache miss
+    NUM_VECTORED_READ_REQUESTS, // Number of requests issued by the vectored reads of the column chunks
+    NUM_VECTORED_READ_RANGES, // Number of column chunks read by the vectored reads
+    VECTORED_READ_BYTES_REQUESTED, // Number of bytes of the column chunks read by the vectored reads
+    VECTORED_READ_BYTES_OVER_READ // Number of bytes read between the column chunks merged in a request
     ;
 
     @Override
@@ -367,6 +377,9 @@ public class ScanOperator implements ProducerOperator {
   @Override
   public void workOnOOB(OutOfBandMessage message) {
     final String senderInfo = String.format("Frag %d, OpId %d", message.getSendingMajorFragmentId(), message.getSendingOperatorId());
+    if (addRangeFilter(message, senderInfo)) {
+      return;
+    }
     if (message.getBuffers()==null || message.getBuffers().length!=1) {
       logger.warn("Empty runtime filter received from {}", senderInfo);
       return;
@@ -401,6 +414,32 @@ public class ScanOperator implements ProducerOperator {
     }
   }
 
+  /**
+   * Handles the range filters sent by TopN operators, which have no buffer.
+   *
+   * @return true if the message was a range filter
+   */
+  private boolean addRangeFilter(OutOfBandMessage message, String senderInfo) {
+    try {
+      final ExecProtos.RuntimeFilter protoFilter = message.getPayload(ExecProtos.RuntimeFilter.parser());
+      if (!protoFilter.hasRangeColumnFilter()) {
+        return false;
+      }
+      final RuntimeFilter filter = RuntimeFilter.getInstanceOrTightenRangeFilter(runtimeFilters,
+        protoFilter.getRangeColumnFilter(), senderInfo);
+      if (filter != null) {
+        logger.debug("Adding range filter to the record readers {}", filter);
+        this.runtimeFilters.add(filter);
+        this.currentReader.addRuntimeFilter(filter);
+        this.readers.addRuntimeFilter(filter);
+        context.getStats().addLongStat(Metric.NUM_RUNTIME_FILTERS, 1);
+      }
+    } catch (Exception e) {
+      logger.warn("Error while adding range filter from " + senderInfo, e);
+    }
+    return true;
+  }
+
   @VisibleForTesting
   List<RuntimeFilter> getRuntimeFilters() {
     return runtimeFilters;
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+
+import com.dremio.exec.proto.ExecRPC.BatchCompressionCodec;
+import com.dremio.options.OptionManager;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.EnumValidator;
+import com.dremio.options.TypeValidators.RangeDoubleValidator;
+import com.dremio.options.TypeValidators.RangeLongValidator;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+
+/**
+ * Compresses the buffers of outgoing exchange batches.
+ *
+ * Every buffer is compressed on its own, and is sent as is if it doesn't compress well. A buffer that compressed
+ * poorly is not tried again for the next few batches, so columns that don't compress (e.g. random keys) cost
+ * close to nothing after the first batch. If no buffer of a batch could be compressed, the batch is sent
+ * uncompressed.
+ *
+ * See {@code BatchDecompressor} for the receiving side.
+ */
+@Options
+public class BatchCompressor {
+
+  public static final EnumValidator<BatchCompressionCodec> CODEC = new EnumValidator<>(
+    "exec.exchange.compression.codec", BatchCompressionCodec.class, BatchCompressionCodec.UNCOMPRESSED);
+  // compressed size / uncompressed size above which a buffer is sent uncompressed
+  public static final RangeDoubleValidator MAX_RATIO = new RangeDoubleValidator(
+    "exec.exchange.compression.max_ratio", 0.0, 1.0, 0.8);
+  // buffers smaller than this are never compressed
+  public static final RangeLongValidator MIN_BUFFER_SIZE = new RangeLongValidator(
+    "exec.exchange.compression.min_buffer_size", 0, Integer.MAX_VALUE, 1024);
+
+  /** size of the uncompressed length prefix of each non empty buffer */
+  public static final int LENGTH_PREFIX = 8;
+  /** uncompressed length prefix of a buffer that is not compressed */
+  public static final long NOT_COMPRESSED = -1L;
+
+  // number of batches a buffer that compressed poorly is sent uncompressed for
+  private static final int SKIP_BATCHES = 16;
+
+  private final BufferAllocator allocator;
+  private final BatchCompressionCodec codec;
+  private final LZ4Compressor compressor;
+  private final double maxRatio;
+  private final long minBufferSize;
+
+  private int[] skipCounts = new int[0];
+  private BatchCompressionCodec lastCodec = BatchCompressionCodec.UNCOMPRESSED;
+
+  private long uncompressedBytes;
+  private long compressedBytes;
+  private long compressionNanos;
+
+  public BatchCompressor(BufferAllocator allocator, OptionManager options) {
+    this(allocator, BatchCompressionCodec.valueOf(options.getOption(CODEC).toUpperCase(Locale.ROOT)),
+      options.getOption(MAX_RATIO), options.getOption(MIN_BUFFER_SIZE));
+  }
+
+  public BatchCompressor(BufferAllocator allocator, BatchCompressionCodec codec, double maxRatio, long minBufferSize) {
+    this.allocator = allocator;
+    this.codec = codec;
+    this.compressor = codec == BatchCompressionCodec.LZ4_BLOCK ? LZ4Factory.fastestInstance().fastCompressor() : null;
+    this.maxRatio = maxRatio;
+    this.minBufferSize = Math.max(minBufferSize, 1);
+  }
+
+  /**
+   * Compress the buffers of a batch.
+   *
+   * @param batch batch to compress. If compressed, the batch is closed and replaced by the returned batch.
+   * @return the compressed batch, or the same batch if compression is disabled or didn't pay off. Use
+   *         {@link #getLastCodec()} to know which one it is.
+   */
+  public ArrowRecordBatch compress(ArrowRecordBatch batch) {
+    lastCodec = BatchCompressionCodec.UNCOMPRESSED;
+    final List<ArrowBuf> buffers = batch.getBuffers();
+    long batchSize = 0;
+    for (ArrowBuf buf : buffers) {
+      batchSize += buf.readableBytes();
+    }
+    uncompressedBytes += batchSize;
+    if (compressor == null) {
+      compressedBytes += batchSize;
+      return batch;
+    }
+
+    final long start = System.nanoTime();
+    if (skipCounts.length < buffers.size()) {
+      skipCounts = new int[buffers.size()];
+    }
+    final ArrowBuf[] compressed = new ArrowBuf[buffers.size()];
+    boolean anyCompressed = false;
+    try {
+      for (int i = 0; i < buffers.size(); i++) {
+        final ArrowBuf buf = buffers.get(i);
+        if (skipCounts[i] > 0) {
+          skipCounts[i]--;
+          continue;
+        }
+        if (buf.readableBytes() < minBufferSize) {
+          continue;
+        }
+        compressed[i] = compressBuffer(buf);
+        if (compressed[i] == null) {
+          skipCounts[i] = SKIP_BATCHES;
+        } else {
+          anyCompressed = true;
+        }
+      }
+
+      if (!anyCompressed) {
+        compressedBytes += batchSize;
+        return batch;
+      }
+
+      final List<ArrowBuf> outBuffers = new ArrayList<>(buffers.size());
+      for (int i = 0; i < buffers.size(); i++) {
+        final ArrowBuf buf = buffers.get(i);
+        if (compressed[i] == null && buf.readableBytes() > 0) {
+          compressed[i] = storeBuffer(buf);
+        }
+        final ArrowBuf out = compressed[i] == null ? buf : compressed[i];
+        outBuffers.add(out);
+        compressedBytes += out.readableBytes();
+      }
+      // the new batch takes its own reference on the buffers
+      final ArrowRecordBatch compressedBatch = new ArrowRecordBatch(batch.getLength(), batch.getNodes(), outBuffers,
+        NoCompressionCodec.DEFAULT_BODY_COMPRESSION, false);
+      batch.close();
+      lastCodec = codec;
+      return compressedBatch;
+    } finally {
+      // release our reference, the compressed batch holds its own
+      for (ArrowBuf buf : compressed) {
+        if (buf != null) {
+          buf.close();
+        }
+      }
+      compressionNanos += System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * @return the compressed buffer, or null if it didn't compress well enough
+   */
+  private ArrowBuf compressBuffer(ArrowBuf buf) {
+    final int length = (int) buf.readableBytes();
+    final int maxLength = compressor.maxCompressedLength(length);
+    final ArrowBuf out = allocator.buffer(LENGTH_PREFIX + maxLength);
+    try {
+      final int compressedLength = compressor.compress(buf.nioBuffer(buf.readerIndex(), length), 0, length,
+        out.nioBuffer(LENGTH_PREFIX, maxLength), 0, maxLength);
+      if (compressedLength > length * maxRatio) {
+        out.close();
+        return null;
+      }
+      out.setLong(0, length);
+      out.writerIndex(LENGTH_PREFIX + compressedLength);
+      return out;
+    } catch (RuntimeException e) {
+      out.close();
+      throw e;
+    }
+  }
+
+  private ArrowBuf storeBuffer(ArrowBuf buf) {
+    final long length = buf.readableBytes();
+    final ArrowBuf out = allocator.buffer(LENGTH_PREFIX + length);
+    out.setLong(0, NOT_COMPRESSED);
+    out.setBytes(LENGTH_PREFIX, buf, buf.readerIndex(), length);
+    out.writerIndex(LENGTH_PREFIX + length);
+    return out;
+  }
+
+  /**
+   * @return codec of the batch returned by the last call to {@link #compress(ArrowRecordBatch)}
+   */
+  public BatchCompressionCodec getLastCodec() {
+    return lastCodec;
+  }
+
+  /**
+   * @return total size of the batches before compression
+   */
+  public long getUncompressedBytes() {
+    return uncompressedBytes;
+  }
+
+  /**
+   * @return total size of the batches after compression
+   */
+  public long getCompressedBytes() {
+    return compressedBytes;
+  }
+
+  public long getCompressionNanos() {
+    return compressionNanos;
+  }
+}
@@ -29,6 +29,7 @@ import com.dremio.exec.physical.config.BroadcastSender;
 import com.dremio.exec.physical.config.MinorFragmentEndpoint;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos;
+import com.dremio.exec.proto.ExecRPC.BatchCompressionCodec;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
 import com.dremio.exec.record.FragmentWritableBatch;
@@ -39,6 +40,7 @@ import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.base.Function;
 import com.google.common.collect.ArrayListMultimap;
@@ -61,12 +63,16 @@ public class BroadcastOperator extends BaseSender {
   private final ExecProtos.FragmentHandle handle;
   private final OperatorStats stats;
   private final OperatorContext context;
+  private final BatchCompressor compressor;
 
   private VectorAccessible incoming;
 
   public enum Metric implements MetricDef {
     N_RECEIVERS,
-    BYTES_SENT;
+    BYTES_SENT,
+    UNCOMPRESSED_BYTES,
+    COMPRESSED_BYTES,
+    COMPRESSION_NANOS;
     @Override
     public int metricId() {
       return ordinal();
@@ -79,6 +85,7 @@ public class BroadcastOperator extends BaseSender {
     this.context = context;
     this.handle = context.getFragmentHandle();
     this.stats = context.getStats();
+    this.compressor = new BatchCompressor(context.getAllocator(), context.getOptions());
 
     final List<MinorFragmentEndpoint> destinations = config.getDestinations(context.getEndpointsIndex());
     final ArrayListMultimap<NodeEndpoint, Integer> dests = ArrayListMultimap.create();
@@ -116,6 +123,9 @@ public class BroadcastOperator extends BaseSender {
   private void updateStats(FragmentWritableBatch writableBatch) {
     stats.setLongStat(Metric.N_RECEIVERS, tunnels.length);
     stats.addLongStat(Metric.BYTES_SENT, writableBatch.getByteCount());
+    stats.setLongStat(Metric.UNCOMPRESSED_BYTES, compressor.getUncompressedBytes());
+    stats.setLongStat(Metric.COMPRESSED_BYTES, compressor.getCompressedBytes());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
   }
 
   @Override
@@ -155,7 +165,9 @@ public class BroadcastOperator extends BaseSender {
   @Override
   public void consumeData(int records) {
 
-    ArrowRecordBatch arrowRecordBatch = FragmentWritableBatch.getArrowRecordBatch(incoming);
+    // compress once, the same buffers are sent to all the receivers
+    ArrowRecordBatch arrowRecordBatch = compressor.compress(FragmentWritableBatch.getArrowRecordBatch(incoming));
+    final BatchCompressionCodec codec = compressor.getLastCodec();
 
     List<ArrowBuf> buffers = arrowRecordBatch.getBuffers();
 
@@ -186,6 +198,7 @@ public class BroadcastOperator extends BaseSender {
           handle.getMinorFragmentId(),
           config.getReceiverMajorFragmentId(),
           new ArrowRecordBatch(arrowRecordBatch.getLength(), arrowRecordBatch.getNodes(), buffers, NoCompressionCodec.DEFAULT_BODY_COMPRESSION, false),
+          codec,
           receivingMinorFragments[i]);
       updateStats(batch);
       tunnels[i].sendRecordBatch(batch);
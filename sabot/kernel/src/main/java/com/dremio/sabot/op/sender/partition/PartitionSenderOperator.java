@@ -92,7 +92,10 @@ public class PartitionSenderOperator extends BaseSender {
     PRECOPY_NS,
     FLUSH_NS,
     NUM_FLUSHES,
-    BUCKET_SIZE;
+    BUCKET_SIZE,
+    UNCOMPRESSED_BYTES,
+    COMPRESSED_BYTES,
+    COMPRESSION_NANOS;
 
     @Override
     public int metricId() {
@@ -33,6 +33,7 @@ import com.dremio.exec.record.VectorWrapper;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
@@ -50,6 +51,7 @@ public class OutgoingBatch extends VectorContainer {
   private final int oppositeMinorFragmentId;
 
   private final OperatorStats stats;
+  private final BatchCompressor compressor;
 
   // we need these to set the lastSet value for variable length vectors
   private final List<VarCharVector> varchars = Lists.newArrayList();
@@ -66,7 +68,7 @@ public class OutgoingBatch extends VectorContainer {
 
   OutgoingBatch(int batchIdx, int nextBatchIdx, int maxRecords, final VectorAccessible incoming,
                 BufferAllocator allocator, AccountingExecTunnel tunnel, HashPartitionSender config,
-                OperatorContext context, int oppositeMinorFragmentId, OperatorStats stats) {
+                OperatorContext context, int oppositeMinorFragmentId, OperatorStats stats, BatchCompressor compressor) {
     Preconditions.checkArgument(maxRecords <= Character.MAX_VALUE, "maxRecords cannot exceed " + Character.MAX_VALUE);
     this.batchIdx = batchIdx;
     this.nextBatchIdx = nextBatchIdx;
@@ -78,6 +80,7 @@ public class OutgoingBatch extends VectorContainer {
     this.oppositeMinorFragmentId = oppositeMinorFragmentId;
 
     this.stats = stats;
+    this.compressor = compressor;
 
     for (VectorWrapper<?> v : incoming) {
       ValueVector outgoingVector = TypeHelper.getNewVector(v.getField(), allocator);
@@ -166,6 +169,7 @@ public class OutgoingBatch extends VectorContainer {
       handle.getMinorFragmentId(),
       config.getReceiverMajorFragmentId(),
       this,
+      compressor,
       oppositeMinorFragmentId);
 
     updateStats(writableBatch);
@@ -181,5 +185,8 @@ public class OutgoingBatch extends VectorContainer {
     stats.addLongStat(Metric.BYTES_SENT, writableBatch.getByteCount());
     stats.addLongStat(Metric.BATCHES_SENT, 1);
     stats.addLongStat(Metric.RECORDS_SENT, writableBatch.getRecordCount());
+    stats.setLongStat(Metric.UNCOMPRESSED_BYTES, compressor.getUncompressedBytes());
+    stats.setLongStat(Metric.COMPRESSED_BYTES, compressor.getCompressedBytes());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
   }
 }
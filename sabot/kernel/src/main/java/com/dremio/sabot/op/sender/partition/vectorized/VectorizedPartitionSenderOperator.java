@@ -45,6 +45,7 @@ import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
 import com.dremio.sabot.op.sender.partition.vectorized.MultiDestCopier.CopyWatches;
 import com.google.common.annotations.VisibleForTesting;
@@ -209,14 +210,16 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
   private void initBatchesAndLookup(VectorAccessible incoming) {
     final BufferAllocator allocator = context.getAllocator();
     final List<MinorFragmentEndpoint> destinations = config.getDestinations(context.getEndpointsIndex());
+    // all the outgoing batches are flushed by the fragment thread, they can share the compressor
+    final BatchCompressor compressor = new BatchCompressor(allocator, context.getOptions());
     for (int p = 0; p < numReceivers; p++) {
       final int batchB = numReceivers + p;
 
       final MinorFragmentEndpoint destination = destinations.get(p);
       final AccountingExecTunnel tunnel = tunnelProvider.getExecTunnel(destination.getEndpoint());
 
-      batches[p] = new OutgoingBatch(p, batchB, numRecordsBeforeFlush, incoming, allocator, tunnel, config, context, destination.getMinorFragmentId(), stats);
-      batches[batchB] = new OutgoingBatch(batchB, p, numRecordsBeforeFlush, incoming, allocator, tunnel, config, context, destination.getMinorFragmentId(), stats);
+      batches[p] = new OutgoingBatch(p, batchB, numRecordsBeforeFlush, incoming, allocator, tunnel, config, context, destination.getMinorFragmentId(), stats, compressor);
+      batches[batchB] = new OutgoingBatch(batchB, p, numRecordsBeforeFlush, incoming, allocator, tunnel, config, context, destination.getMinorFragmentId(), stats, compressor);
 
       // Only allocate the primary batch. Backup batch is allocated when it is needed.
       batches[p].allocateNew();
@@ -32,6 +32,7 @@ import com.dremio.exec.physical.config.MinorFragmentEndpoint;
 import com.dremio.exec.physical.config.RoundRobinSender;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos;
+import com.dremio.exec.proto.ExecRPC.BatchCompressionCodec;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
 import com.dremio.exec.record.FragmentWritableBatch;
@@ -42,6 +43,7 @@ import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.base.Function;
 import com.google.common.collect.ArrayListMultimap;
@@ -59,6 +61,7 @@ public class RoundRobinOperator extends BaseSender {
   private final ExecProtos.FragmentHandle handle;
   private final OperatorStats stats;
   private final BufferAllocator allocator;
+  private final BatchCompressor compressor;
 
   private final List<AccountingExecTunnel> tunnels;
   private final List<List<Integer>> minorFragments;
@@ -69,7 +72,10 @@ public class RoundRobinOperator extends BaseSender {
 
   public enum Metric implements MetricDef {
     N_RECEIVERS,
-    BYTES_SENT;
+    BYTES_SENT,
+    UNCOMPRESSED_BYTES,
+    COMPRESSED_BYTES,
+    COMPRESSION_NANOS;
     @Override
     public int metricId() {
       return ordinal();
@@ -82,6 +88,7 @@ public class RoundRobinOperator extends BaseSender {
     this.allocator = context.getAllocator();
     this.handle = context.getFragmentHandle();
     this.stats = context.getStats();
+    this.compressor = new BatchCompressor(allocator, context.getOptions());
 
     List<MinorFragmentEndpoint> destinations = config.getDestinations(context.getEndpointsIndex());
     final ArrayListMultimap<NodeEndpoint, Integer> dests = ArrayListMultimap.create();
@@ -113,6 +120,9 @@ public class RoundRobinOperator extends BaseSender {
   private void updateStats(FragmentWritableBatch writableBatch) {
     stats.setLongStat(Metric.N_RECEIVERS, tunnels.size());
     stats.addLongStat(Metric.BYTES_SENT, writableBatch.getByteCount());
+    stats.setLongStat(Metric.UNCOMPRESSED_BYTES, compressor.getUncompressedBytes());
+    stats.setLongStat(Metric.COMPRESSED_BYTES, compressor.getCompressedBytes());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
   }
 
   @Override
@@ -151,7 +161,8 @@ public class RoundRobinOperator extends BaseSender {
 
   @Override
   public void consumeData(int records) {
-    ArrowRecordBatch arrowRecordBatch = FragmentWritableBatch.getArrowRecordBatch(incoming);
+    ArrowRecordBatch arrowRecordBatch = compressor.compress(FragmentWritableBatch.getArrowRecordBatch(incoming));
+    final BatchCompressionCodec codec = compressor.getLastCodec();
 
     List<ArrowBuf> buffers = arrowRecordBatch.getBuffers();
 
@@ -174,6 +185,7 @@ public class RoundRobinOperator extends BaseSender {
       handle.getMinorFragmentId(),
       config.getReceiverMajorFragmentId(),
       new ArrowRecordBatch(arrowRecordBatch.getLength(), arrowRecordBatch.getNodes(), buffers, NoCompressionCodec.DEFAULT_BODY_COMPRESSION, false),
+      codec,
       minorFragments.get(currentTunnelsIndex).get(currentMinorFragmentsIndex)
     );
     updateStats(batch);
@@ -31,6 +31,7 @@ import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.base.Preconditions;
 
@@ -43,12 +44,16 @@ public class SingleSenderOperator extends BaseSender {
     private final AccountingExecTunnel tunnel;
     private final FragmentHandle handle;
     private final int recMajor;
+    private final BatchCompressor compressor;
 
     private State state = State.NEEDS_SETUP;
     private VectorAccessible incoming;
 
     public enum Metric implements MetricDef {
-      BYTES_SENT;
+      BYTES_SENT,
+      UNCOMPRESSED_BYTES,
+      COMPRESSED_BYTES,
+      COMPRESSION_NANOS;
 
       @Override
       public int metricId() {
@@ -61,6 +66,7 @@ public class SingleSenderOperator extends BaseSender {
       this.context = context;
       this.handle = context.getFragmentHandle();
       this.recMajor = config.getReceiverMajorFragmentId();
+      this.compressor = new BatchCompressor(context.getAllocator(), context.getOptions());
       this.oppositeHandle = handle.toBuilder()
           .setMajorFragmentId(config.getReceiverMajorFragmentId())
           .setMinorFragmentId(config.getReceiverMinorFragmentId())
@@ -79,6 +85,7 @@ public class SingleSenderOperator extends BaseSender {
           handle.getMinorFragmentId(),
           recMajor,
           incoming,
+          compressor,
           oppositeHandle.getMinorFragmentId()
           );
       updateStats(batch);
@@ -126,6 +133,9 @@ public class SingleSenderOperator extends BaseSender {
 
     private void updateStats(FragmentWritableBatch writableBatch) {
       context.getStats().addLongStat(Metric.BYTES_SENT, writableBatch.getByteCount());
+      context.getStats().setLongStat(Metric.UNCOMPRESSED_BYTES, compressor.getUncompressedBytes());
+      context.getStats().setLongStat(Metric.COMPRESSED_BYTES, compressor.getCompressedBytes());
+      context.getStats().setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
     }
 
     @Override
@@ -122,6 +122,7 @@ public class ExternalSortOperator implements SingleInputOperator {
   private int maxBatchesInMemory = 0;
   private int batchsizeMultiplier;
   private boolean enableSplaySort;
+  private boolean useNormalizedKeys;
   private boolean enableMicroSpill;
   private State prevState;
   private SortState prevSortState;
@@ -218,6 +219,7 @@ public class ExternalSortOperator implements SingleInputOperator {
       final int varFieldSizeEstimate = (int) options.getOption(ExecConstants.BATCH_VARIABLE_FIELD_SIZE_ESTIMATE);
       final boolean compressSpilledBatch = options.getOption(ExecConstants.EXTERNAL_SORT_COMPRESS_SPILL_FILES);
       this.enableSplaySort = options.getOption(ExecConstants.EXTERNAL_SORT_ENABLE_SPLAY_SORT);
+      this.useNormalizedKeys = options.getOption(ExecConstants.EXTERNAL_SORT_NORMALIZED_KEYS);
       this.unconsumedRef = null;
       this.enableMicroSpill = options.getOption(ExecConstants.EXTERNAL_SORT_ENABLE_MICRO_SPILL);
       this.consumePendingIncomingBatch = false;
@@ -225,7 +227,7 @@ public class ExternalSortOperator implements SingleInputOperator {
       this.prevSortState = null;
 
       this.memoryRun = new MemoryRun(config, producer, context.getAllocator(), incoming.getSchema(), tracer,
-        batchsizeMultiplier, enableSplaySort, targetBatchSize, context.getExecutionControls());
+        batchsizeMultiplier, enableSplaySort, useNormalizedKeys, targetBatchSize, context.getExecutionControls());
       rollback.add(this.memoryRun);
 
       this.incoming = incoming;
@@ -435,7 +437,7 @@ public class ExternalSortOperator implements SingleInputOperator {
     try {
       memoryRun.closeToDisk(diskRuns);
       memoryRun = new MemoryRun(config, producer, allocator, incoming.getSchema(), tracer,
-        batchsizeMultiplier, enableSplaySort, targetBatchSize, context.getExecutionControls());
+        batchsizeMultiplier, enableSplaySort, useNormalizedKeys, targetBatchSize, context.getExecutionControls());
     } catch (Exception e) {
       throw UserException.dataWriteError(e)
         .message("Failure while attempting to spill sort data to disk.")
@@ -464,7 +466,7 @@ public class ExternalSortOperator implements SingleInputOperator {
 
   private void finishMicroSpilling() throws Exception {
     memoryRun = new MemoryRun(config, producer, allocator, incoming.getSchema(), tracer,
-      batchsizeMultiplier, enableSplaySort, targetBatchSize, context.getExecutionControls());
+      batchsizeMultiplier, enableSplaySort, useNormalizedKeys, targetBatchSize, context.getExecutionControls());
 
     if (consumePendingIncomingBatch) {
       Preconditions.checkState(this.unconsumedRef != null);
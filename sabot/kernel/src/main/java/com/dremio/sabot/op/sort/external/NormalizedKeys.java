@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.SimpleBigIntVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.Types.MinorType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.calcite.rel.RelFieldCollation.Direction;
+
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.logical.data.Order.Ordering;
+import com.dremio.exec.record.VectorAccessible;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Normalized keys of the records held by a {@link QuickSorter}.
+ *
+ * The leading sort columns of each record are encoded in a fixed width, byte comparable prefix, stored as two
+ * unsigned longs in an off-heap buffer. Whenever the prefixes of two records differ, comparing them gives the same
+ * order as the generated comparator, so the comparator is only called on ties, and not at all when every sort
+ * column fits in the prefix.
+ *
+ * Each column is encoded as a null byte followed by the big-endian bytes of the value (sign bit flipped for signed
+ * types), all inverted if the column is descending. Variable width values are truncated to the room left in the
+ * prefix, and no column is encoded after one that is not encoded exactly.
+ */
+public class NormalizedKeys implements AutoCloseable {
+
+  @VisibleForTesting
+  static final int KEY_BYTES = 16;
+
+  private final ColumnEncoder[] encoders;
+  private final FieldVector[] vectors;
+  private final boolean exact;
+  private final KeyBuilder key = new KeyBuilder();
+  private SimpleBigIntVector keys;
+
+  private NormalizedKeys(ColumnEncoder[] encoders, boolean exact, BufferAllocator allocator) {
+    this.encoders = encoders;
+    this.vectors = new FieldVector[encoders.length];
+    this.exact = exact;
+    this.keys = new SimpleBigIntVector("NormalizedKeys", allocator);
+  }
+
+  /**
+   * Create the normalized keys for the given orderings.
+   *
+   * @return the normalized keys, or null if the leading sort column can't be encoded
+   */
+  public static NormalizedKeys create(List<Ordering> orderings, Schema schema, BufferAllocator allocator) {
+    final List<ColumnEncoder> encoders = new ArrayList<>();
+    int position = 0;
+    boolean exact = true;
+    for (Ordering ordering : orderings) {
+      final ColumnEncoder encoder = getEncoder(ordering, schema);
+      if (encoder == null) {
+        exact = false;
+        break;
+      }
+      encoders.add(encoder);
+      position += 1 + encoder.width;
+      if (!encoder.exact || encoder.width < 0 || position > KEY_BYTES) {
+        exact = false;
+        break;
+      }
+      if (position == KEY_BYTES) {
+        exact = encoders.size() == orderings.size();
+        break;
+      }
+    }
+
+    if (encoders.isEmpty()) {
+      return null;
+    }
+    return new NormalizedKeys(encoders.toArray(new ColumnEncoder[0]), exact, allocator);
+  }
+
+  private static ColumnEncoder getEncoder(Ordering ordering, Schema schema) {
+    final LogicalExpression expr = ordering.getExpr();
+    if (!(expr instanceof SchemaPath) || !((SchemaPath) expr).getRootSegment().isLastPath()) {
+      return null;
+    }
+
+    final String name = ((SchemaPath) expr).getRootSegment().getPath();
+    final List<Field> fields = schema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      if (fields.get(i).getName().equalsIgnoreCase(name)) {
+        return getEncoder(Types.getMinorTypeForArrowType(fields.get(i).getType()), i,
+          ordering.getDirection() == Direction.DESCENDING, ordering.nullsSortHigh());
+      }
+    }
+    return null;
+  }
+
+  private static ColumnEncoder getEncoder(MinorType type, int fieldIndex, boolean descending, boolean nullsHigh) {
+    switch (type) {
+      case BIT:
+        return new ColumnEncoder(fieldIndex, descending, nullsHigh, 1, true) {
+          @Override
+          void encodeValue(FieldVector vector, int index, KeyBuilder key) {
+            key.put((vector.getDataBuffer().getByte(index >>> 3) >>> (index & 7)) & 1, 1);
+          }
+        };
+      case INT:
+      case TIMEMILLI:
+      case INTERVALYEAR:
+        return new ColumnEncoder(fieldIndex, descending, nullsHigh, 4, true) {
+          @Override
+          void encodeValue(FieldVector vector, int index, KeyBuilder key) {
+            key.put(vector.getDataBuffer().getInt(index * 4L) ^ Integer.MIN_VALUE, 4);
+          }
+        };
+      case BIGINT:
+      case DATEMILLI:
+      case TIMESTAMPMILLI:
+        return new ColumnEncoder(fieldIndex, descending, nullsHigh, 8, true) {
+          @Override
+          void encodeValue(FieldVector vector, int index, KeyBuilder key) {
+            key.put(vector.getDataBuffer().getLong(index * 8L) ^ Long.MIN_VALUE, 8);
+          }
+        };
+      case FLOAT4:
+        // -0.0 and 0.0, and NaNs, compare equal or unordered, so floating point columns are never exact
+        return new ColumnEncoder(fieldIndex, descending, nullsHigh, 4, false) {
+          @Override
+          void encodeValue(FieldVector vector, int index, KeyBuilder key) {
+            final int bits = Float.floatToIntBits(vector.getDataBuffer().getFloat(index * 4L));
+            key.put(bits ^ ((bits >> 31) | Integer.MIN_VALUE), 4);
+          }
+        };
+      case FLOAT8:
+        return new ColumnEncoder(fieldIndex, descending, nullsHigh, 8, false) {
+          @Override
+          void encodeValue(FieldVector vector, int index, KeyBuilder key) {
+            final long bits = Double.doubleToLongBits(vector.getDataBuffer().getDouble(index * 8L));
+            key.put(bits ^ ((bits >> 63) | Long.MIN_VALUE), 8);
+          }
+        };
+      case DECIMAL:
+        // little-endian two's complement, all values of a column have the same scale
+        return new ColumnEncoder(fieldIndex, descending, nullsHigh, 16, true) {
+          @Override
+          void encodeValue(FieldVector vector, int index, KeyBuilder key) {
+            final ArrowBuf data = vector.getDataBuffer();
+            key.put(data.getLong(index * 16L + 8) ^ Long.MIN_VALUE, 8);
+            key.put(data.getLong(index * 16L), 8);
+          }
+        };
+      case VARCHAR:
+      case VARBINARY:
+        return new ColumnEncoder(fieldIndex, descending, nullsHigh, -1, false) {
+          @Override
+          void encodeValue(FieldVector vector, int index, KeyBuilder key) {
+            final ArrowBuf offsets = vector.getOffsetBuffer();
+            final int start = offsets.getInt(index * 4L);
+            final int end = Math.min(offsets.getInt((index + 1) * 4L), start + key.remaining());
+            final ArrowBuf data = vector.getDataBuffer();
+            for (int i = start; i < end; i++) {
+              key.put(data.getByte(i), 1);
+            }
+          }
+        };
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return whether equal keys mean that the records are equal for all the orderings
+   */
+  public boolean isExact() {
+    return exact;
+  }
+
+  /**
+   * Make sure there is room for the keys of the given number of records.
+   *
+   * @return false if the memory couldn't be allocated
+   */
+  public boolean expandMemoryIfNecessary(int newRequiredSize) {
+    try {
+      while (keys.getValueCapacity() < newRequiredSize * 2) {
+        keys.reAlloc();
+      }
+    } catch (OutOfMemoryException ex) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Set the batch of the records to encode next.
+   */
+  public void setBatch(VectorAccessible batch) {
+    for (int i = 0; i < encoders.length; i++) {
+      vectors[i] = batch.getValueAccessorById(FieldVector.class, encoders[i].fieldIndex).getValueVector();
+    }
+  }
+
+  /**
+   * Encode a record of the current batch.
+   *
+   * @param keyIndex index of the key (same as the record index in the sorter)
+   * @param recordIndex index of the record in the current batch
+   */
+  public void encode(int keyIndex, int recordIndex) {
+    key.reset();
+    for (int i = 0; i < encoders.length; i++) {
+      encoders[i].encode(vectors[i], recordIndex, key);
+    }
+    keys.set(keyIndex * 2, key.high);
+    keys.set(keyIndex * 2 + 1, key.low);
+  }
+
+  public int compare(int leftIndex, int rightIndex) {
+    final int cmp = Long.compareUnsigned(keys.get(leftIndex * 2), keys.get(rightIndex * 2));
+    if (cmp != 0) {
+      return cmp;
+    }
+    return Long.compareUnsigned(keys.get(leftIndex * 2 + 1), keys.get(rightIndex * 2 + 1));
+  }
+
+  public void swap(int leftIndex, int rightIndex) {
+    final long high = keys.get(leftIndex * 2);
+    final long low = keys.get(leftIndex * 2 + 1);
+    keys.set(leftIndex * 2, keys.get(rightIndex * 2));
+    keys.set(leftIndex * 2 + 1, keys.get(rightIndex * 2 + 1));
+    keys.set(rightIndex * 2, high);
+    keys.set(rightIndex * 2 + 1, low);
+  }
+
+  @Override
+  public void close() {
+    if (keys != null) {
+      keys.close();
+      keys = null;
+    }
+  }
+
+  /**
+   * Encodes the values of a sort column.
+   */
+  private abstract static class ColumnEncoder {
+    private final int fieldIndex;
+    private final boolean descending;
+    private final boolean nullsHigh;
+    // number of value bytes, -1 for variable width
+    private final int width;
+    // whether values with the same encoding are equal for the comparator
+    private final boolean exact;
+
+    ColumnEncoder(int fieldIndex, boolean descending, boolean nullsHigh, int width, boolean exact) {
+      this.fieldIndex = fieldIndex;
+      this.descending = descending;
+      this.nullsHigh = nullsHigh;
+      this.width = width;
+      this.exact = exact;
+    }
+
+    void encode(FieldVector vector, int index, KeyBuilder key) {
+      final int start = key.position;
+      if (vector.isNull(index)) {
+        key.put(nullsHigh ? 1 : 0, 1);
+        key.skip(width);
+      } else {
+        key.put(nullsHigh ? 0 : 1, 1);
+        encodeValue(vector, index, key);
+      }
+      if (descending) {
+        // the padding of variable width values is inverted too, so that shorter values sort after longer ones
+        key.invert(start, width < 0 ? KEY_BYTES : key.position);
+      }
+    }
+
+    abstract void encodeValue(FieldVector vector, int index, KeyBuilder key);
+  }
+
+  /**
+   * A key being encoded, as two longs, the first byte being the most significant byte of the high long.
+   * Bytes past the width of the key are dropped.
+   */
+  private static final class KeyBuilder {
+    private long high;
+    private long low;
+    private int position;
+
+    void reset() {
+      high = 0;
+      low = 0;
+      position = 0;
+    }
+
+    int remaining() {
+      return Math.max(0, KEY_BYTES - position);
+    }
+
+    void skip(int bytes) {
+      if (bytes > 0) {
+        position += bytes;
+      }
+    }
+
+    /**
+     * Append the given number of least significant bytes of a value, most significant first.
+     */
+    void put(long value, int bytes) {
+      for (int i = bytes - 1; i >= 0; i--) {
+        putByte((value >>> (i * 8)) & 0xFF);
+      }
+    }
+
+    private void putByte(long b) {
+      if (position < 8) {
+        high |= b << ((7 - position) * 8);
+      } else if (position < KEY_BYTES) {
+        low |= b << ((KEY_BYTES - 1 - position) * 8);
+      }
+      position++;
+    }
+
+    /**
+     * Invert the bytes between the given positions.
+     */
+    void invert(int start, int end) {
+      for (int i = start; i < Math.min(end, KEY_BYTES); i++) {
+        if (i < 8) {
+          high ^= 0xFFL << ((7 - i) * 8);
+        } else {
+          low ^= 0xFFL << ((KEY_BYTES - 1 - i) * 8);
+        }
+      }
+    }
+  }
+}
@@ -47,13 +47,18 @@ public class QuickSorter implements Sorter {
 
   private QuickSorterInterface quickSorter;
   private SimpleIntVector quickSorterBuffer;
+  private NormalizedKeys normalizedKeys;
 
-  public QuickSorter(ExternalSort sortConfig, ClassProducer classProducer, Schema schema, BufferAllocator allocator) {
+  public QuickSorter(ExternalSort sortConfig, ClassProducer classProducer, Schema schema, BufferAllocator allocator,
+                     boolean useNormalizedKeys) {
     this.sortConfig = sortConfig;
     this.classProducer = classProducer;
     this.schema = schema;
     this.allocator = allocator;
     quickSorterBuffer = new SimpleIntVector("QuickSorterSimpleIntVector", allocator);
+    if (useNormalizedKeys) {
+      normalizedKeys = NormalizedKeys.create(sortConfig.getOrderings(), schema, allocator);
+    }
   }
 
   public boolean expandMemoryIfNecessary(int newRequiredSize) {
@@ -66,7 +71,7 @@ public class QuickSorter implements Sorter {
       return false;
     }
 
-    return true;
+    return normalizedKeys == null || normalizedKeys.expandMemoryIfNecessary(newRequiredSize);
   }
 
   public void setup(VectorAccessible batch) throws ClassTransformationException, SchemaChangeException, IOException {
@@ -78,6 +83,7 @@ public class QuickSorter implements Sorter {
     this.quickSorter = cg.getImplementationClass();
     quickSorter.init(classProducer.getFunctionContext(), container);
     quickSorter.setDataBuffer(quickSorterBuffer);
+    quickSorter.setNormalizedKeys(normalizedKeys);
   }
 
   public void addBatch(RecordBatchData data, BufferAllocator copyTargetAllocator) throws SchemaChangeException {
@@ -110,8 +116,10 @@ public class QuickSorter implements Sorter {
     final List<AutoCloseable> closeables = Lists.newArrayList();
 
     closeables.add(quickSorterBuffer);
+    closeables.add(normalizedKeys);
     AutoCloseables.close(closeables);
 
     quickSorterBuffer = null;
+    normalizedKeys = null;
   }
 }
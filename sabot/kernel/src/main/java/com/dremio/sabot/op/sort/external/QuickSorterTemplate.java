@@ -40,6 +40,7 @@ public abstract class QuickSorterTemplate implements QuickSorterInterface, Index
   private FunctionContext context;
   private ExpandableHyperContainer hyperBatch;
   private SimpleIntVector intVector;
+  private NormalizedKeys normalizedKeys;
   private int totalCount;
 
   @Override
@@ -54,6 +55,11 @@ public abstract class QuickSorterTemplate implements QuickSorterInterface, Index
     totalCount = 0;
   }
 
+  @Override
+  public void setNormalizedKeys(NormalizedKeys normalizedKeys) {
+    this.normalizedKeys = normalizedKeys;
+  }
+
   @Override
   public void add(final RecordBatchData batch) throws SchemaChangeException {
     final Stopwatch watch = Stopwatch.createStarted();
@@ -61,13 +67,19 @@ public abstract class QuickSorterTemplate implements QuickSorterInterface, Index
     final int batchIndex = hyperBatch.size();
     hyperBatch.addBatch(batch.getContainer());
     doSetup(context, hyperBatch, null);
+    if (normalizedKeys != null) {
+      normalizedKeys.setBatch(batch.getContainer());
+    }
 
     final SelectionVector2 incomingSv2 = batch.getSv2();
     final int recordCount = batch.getRecordCount();
     for (int count = 0; count < recordCount; count++) {
-      int index = (batchIndex << 16) |
-        ((incomingSv2 != null ? incomingSv2.getIndex(count) : count) & 65535);
+      final int recordIndex = (incomingSv2 != null ? incomingSv2.getIndex(count) : count) & 65535;
+      int index = (batchIndex << 16) | recordIndex;
       intVector.set(totalCount, index);
+      if (normalizedKeys != null) {
+        normalizedKeys.encode(totalCount, recordIndex);
+      }
       totalCount++;
     }
     assert totalCount <= intVector.getValueCapacity();
@@ -112,10 +124,20 @@ public abstract class QuickSorterTemplate implements QuickSorterInterface, Index
     final int tmpVal = intVector.get(val1);
     intVector.set(val1, intVector.get(val2));
     intVector.set(val2, tmpVal);
+    if (normalizedKeys != null) {
+      normalizedKeys.swap(val1, val2);
+    }
   }
 
   @Override
   public int compare(int leftIndex, int rightIndex) {
+    if (normalizedKeys != null) {
+      // the generated comparator is only needed to break ties of the normalized keys
+      final int cmp = normalizedKeys.compare(leftIndex, rightIndex);
+      if (cmp != 0 || normalizedKeys.isExact()) {
+        return cmp;
+      }
+    }
     final int leftVal = intVector.get(leftIndex);
     final int rightVal = intVector.get(rightIndex);
     return doEval(leftVal, rightVal);
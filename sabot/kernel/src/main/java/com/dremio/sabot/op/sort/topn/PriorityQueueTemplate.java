@@ -143,6 +143,16 @@ public abstract class PriorityQueueTemplate implements PriorityQueue {
     return finalSv4;
   }
 
+  @Override
+  public boolean isFull() {
+    return limit > 0 && queueSize == limit;
+  }
+
+  @Override
+  public int getHeapTop() {
+    return heapSv4.get(0);
+  }
+
   @Override
   public void close() {
     try{
@@ -19,7 +19,16 @@ import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeMilliVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
 import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
 
 import com.dremio.common.AutoCloseables;
@@ -38,6 +47,11 @@ import com.dremio.exec.expr.CodeGenerator;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.expr.fn.FunctionGenerationHelper;
 import com.dremio.exec.physical.config.TopN;
+import com.dremio.exec.planner.physical.filter.RuntimeFilterEntry;
+import com.dremio.exec.proto.CoordExecRPC.FragmentAssignment;
+import com.dremio.exec.proto.CoordExecRPC.MajorFragmentAssignment;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecProtos;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.exec.record.RecordBatchData;
@@ -46,12 +60,14 @@ import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.VectorWrapper;
 import com.dremio.exec.record.selection.SelectionVector4;
 import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage;
 import com.dremio.sabot.op.copier.Copier;
 import com.dremio.sabot.op.copier.CopierOperator;
 import com.dremio.sabot.op.sort.SortRecordBatchBuilder;
 import com.dremio.sabot.op.sort.external.Sv4HyperContainer;
 import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.google.common.base.Stopwatch;
+import com.google.protobuf.ByteString;
 import com.sun.codemodel.JConditional;
 import com.sun.codemodel.JExpr;
 
@@ -78,10 +94,16 @@ public class TopNOperator implements SingleInputOperator {
   private PriorityQueue priorityQueue;
   private Copier copier;
 
+  // used to send the boundary of the heap to the scans, see sendRangeFilters()
+  private final int rangeFilterBatchInterval;
+  private int batchesSinceRangeFilter;
+  private ExecProtos.RangeColumnFilter lastRangeFilter;
+
   public TopNOperator(OperatorContext context, TopN popConfig) {
     this.config = popConfig;
     this.context = context;
     this.batchPurgeThreshold = context.getConfig().getInt(ExecConstants.BATCH_PURGE_THRESHOLD);
+    this.rangeFilterBatchInterval = (int) context.getOptions().getOption(ExecConstants.TOPN_RUNTIME_FILTER_BATCH_INTERVAL);
   }
 
   @Override
@@ -119,6 +141,129 @@ public class TopNOperator implements SingleInputOperator {
       batchCount = 0;
     }
 
+    if (config.getRuntimeFilterInfo() != null && ++batchesSinceRangeFilter >= rangeFilterBatchInterval) {
+      batchesSinceRangeFilter = 0;
+      sendRangeFilters();
+    }
+  }
+
+  /**
+   * Once the heap is full, no row past its top can make it into the result, since the heap already holds
+   * limit rows that sort before it. Send the value of the first ordering column at the top of the heap to the
+   * scans producing that column, so that they skip the data that cannot make it. The boundary only gets
+   * tighter as more data is consumed; it is sent again when it changes.
+   */
+  private void sendRangeFilters() {
+    if (!priorityQueue.isFull()) {
+      return;
+    }
+    try {
+      final Ordering ordering = config.getOrderings().get(0);
+      final RuntimeFilterEntry firstEntry = config.getRuntimeFilterInfo().getNonPartitionJoinColumns().get(0);
+      final boolean ascending = ordering.getDirection() == Direction.ASCENDING;
+      final ExecProtos.RangeColumnFilter.Builder builder = ExecProtos.RangeColumnFilter.newBuilder()
+        .setUpperBound(ascending)
+        .setNullsPass(ascending != ordering.nullsSortHigh());
+      if (!setBound(builder, firstEntry.getBuildFieldName()) || builder.build().equals(lastRangeFilter)) {
+        return;
+      }
+      lastRangeFilter = builder.build();
+
+      for (RuntimeFilterEntry entry : config.getRuntimeFilterInfo().getNonPartitionJoinColumns()) {
+        final ExecProtos.RuntimeFilter filter = ExecProtos.RuntimeFilter.newBuilder()
+          .setProbeScanMajorFragmentId(entry.getProbeScanMajorFragmentId())
+          .setProbeScanOperatorId(entry.getProbeScanOperatorId())
+          .setRangeColumnFilter(ExecProtos.RangeColumnFilter.newBuilder(lastRangeFilter).setColumn(entry.getProbeFieldName()))
+          .build();
+        sendRangeFilter(filter);
+      }
+    } catch (Exception e) {
+      // This is just an optimisation. Hence, we don't throw the error further.
+      logger.warn("Error while sending the TopN range filter", e);
+    }
+  }
+
+  /**
+   * Set the value of the given column at the top of the heap as the bound.
+   *
+   * @return false if the value is null or its type is not supported
+   */
+  private boolean setBound(ExecProtos.RangeColumnFilter.Builder builder, String fieldName) {
+    final Sv4HyperContainer hyperBatch = priorityQueue.getHyperBatch();
+    final List<Field> fields = hyperBatch.getSchema().getFields();
+    int fieldId = -1;
+    for (int i = 0; i < fields.size() && fieldId < 0; i++) {
+      if (fields.get(i).getName().equalsIgnoreCase(fieldName)) {
+        fieldId = i;
+      }
+    }
+    if (fieldId < 0) {
+      return false;
+    }
+    final int compound = priorityQueue.getHeapTop();
+    final ValueVector vector = hyperBatch.getValueAccessorById(ValueVector.class, fieldId).getValueVectors()[compound >>> 16];
+    final int index = compound & 65535;
+    if (vector.isNull(index)) {
+      return false;
+    }
+    switch (vector.getMinorType()) {
+      case INT:
+        builder.setLongBound(((IntVector) vector).get(index));
+        return true;
+      case BIGINT:
+        builder.setLongBound(((BigIntVector) vector).get(index));
+        return true;
+      case DATEMILLI:
+        builder.setLongBound(((DateMilliVector) vector).get(index));
+        return true;
+      case TIMESTAMPMILLI:
+        builder.setLongBound(((TimeStampMilliVector) vector).get(index));
+        return true;
+      case TIMEMILLI:
+        builder.setLongBound(((TimeMilliVector) vector).get(index));
+        return true;
+      case FLOAT4:
+        builder.setDoubleBound(((Float4Vector) vector).get(index));
+        return true;
+      case FLOAT8:
+        builder.setDoubleBound(((Float8Vector) vector).get(index));
+        return true;
+      case VARCHAR:
+      case VARBINARY:
+        builder.setBytesBound(ByteString.copyFrom(((BaseVariableWidthVector) vector).get(index)));
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private void sendRangeFilter(ExecProtos.RuntimeFilter filter) {
+    final MajorFragmentAssignment majorFragmentAssignment = context.getExtMajorFragmentAssignments(filter.getProbeScanMajorFragmentId());
+    if (majorFragmentAssignment == null) {
+      logger.warn("Major fragment assignment for scan id {} is null. Dropping the range filter.", filter.getProbeScanOperatorId());
+      return;
+    }
+    for (FragmentAssignment assignment : majorFragmentAssignment.getAllAssignmentList()) {
+      try {
+        logger.debug("Sending range filter to OpId {}, Frag {}:{}", filter.getProbeScanOperatorId(),
+          filter.getProbeScanMajorFragmentId(), assignment.getMinorFragmentIdList());
+        final OutOfBandMessage message = new OutOfBandMessage(
+          context.getFragmentHandle().getQueryId(),
+          filter.getProbeScanMajorFragmentId(),
+          assignment.getMinorFragmentIdList(),
+          filter.getProbeScanOperatorId(),
+          context.getFragmentHandle().getMajorFragmentId(),
+          context.getFragmentHandle().getMinorFragmentId(),
+          config.getProps().getOperatorId(),
+          new OutOfBandMessage.Payload(filter),
+          null,
+          true);
+        final NodeEndpoint endpoint = context.getEndpointsIndex().getNodeEndpoint(assignment.getAssignmentIndex());
+        context.getTunnelProvider().getExecTunnel(endpoint).sendOOBMessage(message);
+      } catch (Exception e) {
+        logger.warn("Error while sending range filter to minor fragments " + assignment.getMinorFragmentIdList(), e);
+      }
+    }
   }
 
   @Override
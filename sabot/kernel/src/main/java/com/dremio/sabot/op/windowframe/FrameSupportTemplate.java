@@ -49,6 +49,7 @@ public abstract class FrameSupportTemplate implements WindowFramer {
   private VectorContainer current;
 
   private int frameLastRow;
+  private int frameLastBatch; // position in batches of the batch that holds frameLastRow
 
   // true when at least one window function needs to process all batches of a partition before passing any batch downstream
   private boolean requireFullPartition;
@@ -94,6 +95,10 @@ public abstract class FrameSupportTemplate implements WindowFramer {
     int currentRow = 0;
 
     this.current = batches.get(0);
+    if (remainingPeers > 0) {
+      // the previous batch, that held the start of the current frame, has been released
+      frameLastBatch--;
+    }
 
     setupSaveFirstValue(current, internal);
 
@@ -178,6 +183,11 @@ public abstract class FrameSupportTemplate implements WindowFramer {
   }
 
   private int processRANGE(int row) throws Exception {
+    if (remainingPeers > 0) {
+      // the last batch of a frame started in a previous batch may have been read back from disk again
+      setupReadLastValue(batches.get(frameLastBatch), container);
+    }
+
     while (row < outputCount && !isPartitionDone()) {
       if (remainingPeers == 0) {
         // because all peer rows share the same frame, we only need to compute and aggregate the frame once
@@ -258,10 +268,14 @@ public abstract class FrameSupportTemplate implements WindowFramer {
     final boolean unboundedFollowing = popConfig.getEnd().isUnbounded();
     VectorAccessible last = current;
     long length = 0;
+    int index = -1;
 
     // a single frame can include rows from multiple batches
     // start processing first batch and, if necessary, move to next batches
+    // stop at the end of the frame, so we don't read the following (possibly spilled) batches
+    outer:
     for (VectorAccessible batch : batches) {
+      index++;
       setupEvaluatePeer(batch, container);
       final int recordCount = batch.getRecordCount();
 
@@ -269,17 +283,18 @@ public abstract class FrameSupportTemplate implements WindowFramer {
       for (int row = (batch == current) ? start : 0; row < recordCount; row++, length++) {
         if (unboundedFollowing) {
           if (length >= remainingRows) {
-            break;
+            break outer;
           }
         } else {
           if (!isPeer(start, current, row, batch)) {
-            break;
+            break outer;
           }
         }
 
         evaluatePeer(row);
         last = batch;
         frameLastRow = row;
+        frameLastBatch = index;
       }
     }
 
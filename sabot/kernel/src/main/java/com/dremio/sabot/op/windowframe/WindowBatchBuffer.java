@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.windowframe;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillInputStream;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillOutputStream;
+import com.google.common.base.Preconditions;
+
+/**
+ * The batches buffered by {@link WindowFrameOperator}, in arrival order.
+ *
+ * The first and the last batches always stay in memory: the framers process the first one, and the operator compares
+ * it with the last one to find the end of the current partition or frame. When spilling is enabled and the buffered
+ * batches use more than the memory budget, the batches in between are written to disk, newest first, and read back
+ * one at a time when a framer walks over them. A spilled batch is loaded back for good once it becomes the first one.
+ */
+final class WindowBatchBuffer extends AbstractList<VectorContainer> implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(WindowBatchBuffer.class);
+
+  // a framer walking over the batches only holds on to the batch it reads and to the previous one, so the batch
+  // returned by a call to get() stays valid until the next one returns
+  private static final int MAX_READ_BACK_BATCHES = 2;
+
+  private final OperatorContext context;
+  private final BufferAllocator allocator;
+  private final String spillId;
+  private final boolean spillEnabled;
+  private final long memoryLimit;
+  private final boolean compress;
+  private final List<Entry> entries = new ArrayList<>();
+  private final Deque<Entry> readBack = new ArrayDeque<>();
+
+  private BatchSchema schema;
+  private SpillManager spillManager;
+  private long inMemoryBytes;
+  private int inMemoryBatches;
+  private int peakBatchesInMemory;
+  private int spilledBatches;
+  private int nextSpillFile;
+
+  WindowBatchBuffer(OperatorContext context, String spillId, boolean spillEnabled, long memoryLimit, boolean compress) {
+    this.context = context;
+    this.allocator = context.getAllocator();
+    this.spillId = spillId;
+    this.spillEnabled = spillEnabled;
+    this.memoryLimit = memoryLimit;
+    this.compress = compress;
+  }
+
+  /**
+   * Take ownership of a batch, then spill the batches before it if the buffer went over its memory budget.
+   */
+  @Override
+  public boolean add(VectorContainer batch) {
+    if (schema == null) {
+      schema = batch.getSchema();
+    }
+    final Entry entry = new Entry(batch, getBufferSize(batch));
+    entries.add(entry);
+    inMemoryBytes += entry.size;
+    inMemoryBatches++;
+
+    if (spillEnabled) {
+      for (int i = entries.size() - 2; i > 0 && inMemoryBytes > memoryLimit; i--) {
+        final Entry candidate = entries.get(i);
+        if (candidate.batch != null) {
+          spill(candidate);
+        }
+      }
+    }
+    peakBatchesInMemory = Math.max(peakBatchesInMemory, inMemoryBatches);
+    return true;
+  }
+
+  /**
+   * @return the batch at the given position, read back from disk if it was spilled.
+   */
+  @Override
+  public VectorContainer get(int index) {
+    final Entry entry = entries.get(index);
+    if (entry.batch != null) {
+      return entry.batch;
+    }
+    if (entry.loaded != null) {
+      // least recently used batches are evicted first
+      readBack.remove(entry);
+    } else {
+      if (readBack.size() == MAX_READ_BACK_BATCHES) {
+        final Entry evicted = readBack.removeFirst();
+        evicted.loaded.close();
+        evicted.loaded = null;
+      }
+      entry.loaded = load(entry);
+    }
+    readBack.addLast(entry);
+    return entry.loaded;
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Release the first batch, once it has been processed, and load the next one back in memory if it was spilled.
+   */
+  void releaseFirst() throws Exception {
+    final Entry first = entries.remove(0);
+    if (first.batch != null) {
+      inMemoryBytes -= first.size;
+      inMemoryBatches--;
+    }
+    first.close();
+
+    if (!entries.isEmpty() && entries.get(0).batch == null) {
+      final Entry next = entries.get(0);
+      if (next.loaded != null) {
+        // a framer may still reference the copy that was read back
+        readBack.remove(next);
+        next.batch = next.loaded;
+        next.loaded = null;
+      } else {
+        next.batch = load(next);
+      }
+      next.file.close();
+      next.file = null;
+      inMemoryBytes += next.size;
+      inMemoryBatches++;
+    }
+  }
+
+  int getSpilledBatches() {
+    return spilledBatches;
+  }
+
+  int getPeakBatchesInMemory() {
+    return peakBatchesInMemory;
+  }
+
+  long getSpillWriteBytes() {
+    return spillManager == null ? 0 : spillManager.getIOWriteBytes();
+  }
+
+  long getSpillReadBytes() {
+    return spillManager == null ? 0 : spillManager.getIOReadBytes();
+  }
+
+  private void spill(Entry entry) {
+    if (spillManager == null) {
+      spillManager = new SpillManager(context.getConfig(), context.getOptions(), spillId, null,
+        context.getSpillService(), "window spilling", context.getStats());
+    }
+
+    entry.file = spillManager.getSpillFile(String.format("batch-%d", nextSpillFile++));
+    try (SpillOutputStream output = entry.file.create(compress)) {
+      output.writeBatch(entry.batch);
+    } catch (IOException e) {
+      throw UserException.dataWriteError(e)
+        .message("Failed to spill a window batch")
+        .addContext("Spill file", entry.file.getPath().toString())
+        .build(logger);
+    }
+    entry.batch.close();
+    entry.batch = null;
+    inMemoryBytes -= entry.size;
+    inMemoryBatches--;
+    spilledBatches++;
+  }
+
+  private VectorContainer load(Entry entry) {
+    Preconditions.checkState(entry.file != null, "Window batch is neither in memory nor spilled.");
+    final VectorContainer batch = VectorContainer.create(allocator, schema);
+    try (SpillInputStream input = entry.file.open(compress)) {
+      input.load(batch, allocator);
+    } catch (IOException | RuntimeException e) {
+      batch.close();
+      throw UserException.dataReadError(e)
+        .message("Failed to read back a spilled window batch")
+        .addContext("Spill file", entry.file.getPath().toString())
+        .build(logger);
+    }
+    return batch;
+  }
+
+  private static long getBufferSize(VectorContainer batch) {
+    long size = 0;
+    for (FieldVector vector : VectorContainer.getFieldVectors(batch)) {
+      size += vector.getBufferSize();
+    }
+    return size;
+  }
+
+  @Override
+  public void close() throws Exception {
+    final List<AutoCloseable> closeables = new ArrayList<>(entries);
+    closeables.add(spillManager);
+    entries.clear();
+    readBack.clear();
+    spillManager = null;
+    AutoCloseables.close(closeables);
+  }
+
+  private static final class Entry implements AutoCloseable {
+    private final long size;
+    private VectorContainer batch; // null while the batch is spilled
+    private SpillFile file;
+    private VectorContainer loaded; // copy of a spilled batch read back by a framer
+
+    private Entry(VectorContainer batch, long size) {
+      this.batch = batch;
+      this.size = size;
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(batch, loaded, file);
+      batch = null;
+      loaded = null;
+      file = null;
+    }
+  }
+}
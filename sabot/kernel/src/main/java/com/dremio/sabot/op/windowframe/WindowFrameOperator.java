@@ -18,7 +18,6 @@ package com.dremio.sabot.op.windowframe;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.arrow.memory.OutOfMemoryException;
@@ -30,6 +29,7 @@ import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.logical.data.NamedExpression;
 import com.dremio.common.logical.data.Order;
+import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.compile.TemplateClassDefinition;
 import com.dremio.exec.compile.sig.GeneratorMapping;
 import com.dremio.exec.compile.sig.MappingSet;
@@ -39,10 +39,18 @@ import com.dremio.exec.expr.ClassGenerator;
 import com.dremio.exec.expr.ClassProducer;
 import com.dremio.exec.expr.fn.FunctionGenerationHelper;
 import com.dremio.exec.physical.config.WindowPOP;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.VectorWrapper;
+import com.dremio.options.OptionManager;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.BooleanValidator;
+import com.dremio.options.TypeValidators.DoubleValidator;
+import com.dremio.options.TypeValidators.RangeDoubleValidator;
+import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -52,14 +60,34 @@ import com.sun.codemodel.JExpr;
 /**
  * support for OVER(PARTITION BY expression1,expression2,... [ORDER BY expressionA, expressionB,...])
  *
+ * When spilling is enabled, the batches of a partition that don't fit in the memory budget are spilled to disk and
+ * read back while the partition is being processed, see {@link WindowBatchBuffer}.
  */
+@Options
 public class WindowFrameOperator implements SingleInputOperator {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(WindowFrameOperator.class);
 
+  public static final BooleanValidator ENABLE_SPILL = new BooleanValidator("exec.operator.window.spill.enabled", false);
+  // fraction of the operator memory limit that buffered batches may use before spilling.
+  public static final DoubleValidator SPILL_MEMORY_FACTOR = new RangeDoubleValidator("exec.operator.window.spill.memory_factor", 0.0d, 1.0d, 0.5d);
+  public static final BooleanValidator COMPRESS_SPILL = new BooleanValidator("exec.operator.window.spill.compress", false);
+
+  public enum Metric implements MetricDef {
+    SPILL_COUNT,            // number of batches spilled to disk
+    PEAK_BATCHES_IN_MEMORY, // maximum number of batches kept in memory
+    SPILL_WRITE_BYTES,      // bytes written to disk
+    SPILL_READ_BYTES;       // bytes read back from disk
+
+    @Override
+    public int metricId() {
+      return ordinal();
+    }
+  }
+
   private final OperatorContext context;
   private final List<WindowFunction> functions = Lists.newArrayList();
   private final WindowPOP config;
-  private final LinkedList<VectorContainer> batches = new LinkedList<>();
+  private final WindowBatchBuffer batches;
 
   private VectorAccessible incoming;
   private VectorContainer outgoing;
@@ -73,6 +101,13 @@ public class WindowFrameOperator implements SingleInputOperator {
   public WindowFrameOperator(OperatorContext context, WindowPOP config) throws OutOfMemoryException {
     this.context = context;
     this.config = config;
+
+    final OptionManager options = context.getOptions();
+    final FragmentHandle handle = context.getFragmentHandle();
+    final String spillId = String.format("windowspill-%s.%s.%s.%s", QueryIdHelper.getQueryId(handle.getQueryId()),
+      handle.getMajorFragmentId(), handle.getMinorFragmentId(), config.getProps().getLocalOperatorId());
+    this.batches = new WindowBatchBuffer(context, spillId, options.getOption(ENABLE_SPILL),
+      (long) (context.getAllocator().getLimit() * options.getOption(SPILL_MEMORY_FACTOR)), options.getOption(COMPRESS_SPILL));
   }
 
   @Override
@@ -123,6 +158,7 @@ public class WindowFrameOperator implements SingleInputOperator {
     }else if(!noMoreToConsume && !canDoWork()){
       state = State.CAN_CONSUME;
     }
+    updateStats();
     return outgoing.getRecordCount();
   }
 
@@ -157,8 +193,7 @@ public class WindowFrameOperator implements SingleInputOperator {
     }
 
     // we can safely free the current batch
-    current.close();
-    batches.remove(0);
+    batches.releaseFirst();
 
     logger.trace("doWork() END");
     return recordCount;
@@ -175,9 +210,9 @@ public class WindowFrameOperator implements SingleInputOperator {
       return false;
     }
 
-    final VectorAccessible current = batches.getFirst();
+    final VectorAccessible current = batches.get(0);
     final int currentSize = current.getRecordCount();
-    final VectorAccessible last = batches.getLast();
+    final VectorAccessible last = batches.get(batches.size() - 1);
     final int lastSize = last.getRecordCount();
 
     final boolean partitionEndReached = !framers[0].isSamePartition(currentSize - 1, current, lastSize - 1, last);
@@ -193,6 +228,14 @@ public class WindowFrameOperator implements SingleInputOperator {
   }
 
 
+  private void updateStats() {
+    final OperatorStats stats = context.getStats();
+    stats.setLongStat(Metric.SPILL_COUNT, batches.getSpilledBatches());
+    stats.setLongStat(Metric.PEAK_BATCHES_IN_MEMORY, batches.getPeakBatchesInMemory());
+    stats.setLongStat(Metric.SPILL_WRITE_BYTES, batches.getSpillWriteBytes());
+    stats.setLongStat(Metric.SPILL_READ_BYTES, batches.getSpillReadBytes());
+  }
+
   private void createFramers(VectorAccessible batch) throws SchemaChangeException, IOException, ClassTransformationException {
     assert framers == null : "createFramer should only be called once";
 
@@ -340,7 +383,7 @@ public class WindowFrameOperator implements SingleInputOperator {
     if (framers != null) {
       closeables.addAll(Arrays.asList(framers));
     }
-    closeables.addAll(batches);
+    closeables.add(batches);
     AutoCloseables.close(closeables);
   }
 
@@ -182,7 +182,8 @@ public abstract class WindowFunction {
 
     @Override
     public boolean canDoWork(int numBatchesAvailable, WindowPOP pop, boolean frameEndReached, boolean partitionEndReached) {
-      return partitionEndReached || (!requiresFullPartition(pop) && frameEndReached);
+      // a ROWS frame ends at the current row, so we don't need to wait for the peer rows
+      return partitionEndReached || (!requiresFullPartition(pop) && (frameEndReached || pop.isFrameUnitsRows()));
     }
 
     @Override
@@ -509,7 +510,8 @@ public abstract class WindowFunction {
 
     @Override
     public boolean canDoWork(int numBatchesAvailable, WindowPOP pop, boolean frameEndReached, boolean partitionEndReached) {
-      return partitionEndReached || (!requiresFullPartition(pop) && frameEndReached);
+      // a ROWS frame ends at the current row, so we don't need to wait for the peer rows
+      return partitionEndReached || (!requiresFullPartition(pop) && (frameEndReached || pop.isFrameUnitsRows()));
     }
 
     @Override
@@ -33,6 +33,13 @@ public interface TaskPool extends AutoCloseable {
 
   GroupManager<AsyncTaskWrapper> getGroupManager();
 
+  /**
+   * @return a snapshot of the scheduling groups of this pool, empty if the pool doesn't support scheduling groups
+   */
+  default Iterable<GroupInfo> getGroupStats() {
+    return Collections.emptyList();
+  }
+
   class ThreadInfo {
     /** current Java thread name */
     public final String threadName;
@@ -63,4 +70,26 @@ public interface TaskPool extends AutoCloseable {
       this.threadId = threadId;
     }
 
-  }}
+  }
+
+  class GroupInfo {
+    /** scheduling group Id */
+    public final long groupId;
+    /** weight of the group, between 1 and {@link TaskManager#MAX_WEIGHT} */
+    public final long weight;
+    /** total cpu time (in nanoseconds) spent running tasks of the group */
+    public final long cpuTime;
+    /** number of tasks of the group waiting in a run queue */
+    public final int runQueueDepth;
+    /** number of tasks of the group that are not done yet */
+    public final int numTasks;
+
+    public GroupInfo(long groupId, long weight, long cpuTime, int runQueueDepth, int numTasks) {
+      this.groupId = groupId;
+      this.weight = weight;
+      this.cpuTime = cpuTime;
+      this.runQueueDepth = runQueueDepth;
+      this.numTasks = numTasks;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+
+/**
+ * Handle of a task running in the {@link SlicingTaskPool}. Keeps track of the slicing thread the task last ran on,
+ * so that a task that was blocked goes back to the same thread when it is re-enqueued.
+ */
+class SlicingTaskHandle implements TaskHandle<AsyncTaskWrapper> {
+
+  private final AsyncTaskWrapper task;
+  private final WeightedSchedulingGroup group;
+
+  private volatile int thread = -1;
+
+  // ordering in the run queue, set before the handle is added to a queue
+  private long vRuntime;
+  private long sequence;
+
+  SlicingTaskHandle(AsyncTaskWrapper task, WeightedSchedulingGroup group) {
+    this.task = task;
+    this.group = group;
+  }
+
+  @Override
+  public AsyncTaskWrapper getTask() {
+    return task;
+  }
+
+  @Override
+  public void reEnqueue() {
+    group.getPool().enqueue(this);
+  }
+
+  @Override
+  public int getThread() {
+    return thread;
+  }
+
+  void setThread(int thread) {
+    this.thread = thread;
+  }
+
+  WeightedSchedulingGroup getGroup() {
+    return group;
+  }
+
+  long getVRuntime() {
+    return vRuntime;
+  }
+
+  long getSequence() {
+    return sequence;
+  }
+
+  void setOrdering(long vRuntime, long sequence) {
+    this.vRuntime = vRuntime;
+    this.sequence = sequence;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s, thread %d, %s", task.getState(), thread, group);
+  }
+}
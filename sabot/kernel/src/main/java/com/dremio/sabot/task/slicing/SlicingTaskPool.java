@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dremio.config.DremioConfig;
+import com.dremio.options.OptionManager;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.RangeLongValidator;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.GroupManager;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.task.TaskPoolFactory;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.FluentIterable;
+
+/**
+ * A task pool that time-slices tasks over a fixed number of threads (one per core by default).
+ *
+ * Tasks run cooperatively: a task runs {@code AsyncTask} slices until its quantum expires or it blocks. Runnable
+ * tasks are ordered by the virtual runtime of their {@link WeightedSchedulingGroup}, so that groups get a share of
+ * the cpu proportional to their weight. Threads that run out of work steal from the other threads' run queues.
+ *
+ * To use it, set {@code dremio.task.pool.factory.class} to {@code com.dremio.sabot.task.slicing.SlicingTaskPool$Factory}.
+ */
+@Options
+public class SlicingTaskPool implements TaskPool {
+
+  // 0 means one thread per available processor
+  public static final RangeLongValidator NUM_THREADS = new RangeLongValidator("exec.slicing.num_threads", 0, 1024, 0);
+  public static final RangeLongValidator QUANTUM_MILLIS = new RangeLongValidator("exec.slicing.quantum_ms", 1, 1000, 25);
+
+  /**
+   * Factory for {@code SlicingTaskPool}
+   */
+  public static final class Factory implements TaskPoolFactory {
+    @Override
+    public TaskPool newInstance(OptionManager options, DremioConfig config) {
+      int numThreads = (int) options.getOption(NUM_THREADS);
+      if (numThreads == 0) {
+        numThreads = Runtime.getRuntime().availableProcessors();
+      }
+      return new SlicingTaskPool(numThreads, options.getOption(QUANTUM_MILLIS));
+    }
+  }
+
+  private final SlicingThread[] threads;
+  private final List<WeightedSchedulingGroup> groups = new CopyOnWriteArrayList<>();
+  private final AtomicLong groupIds = new AtomicLong();
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicInteger nextThread = new AtomicInteger();
+  private final WeightedSchedulingGroup rootGroup;
+
+  @VisibleForTesting
+  SlicingTaskPool(int numThreads, long quantumMillis) {
+    Preconditions.checkArgument(numThreads > 0, "Slicing task pool needs at least one thread");
+    this.rootGroup = newGroup(null, TaskManager.MAX_WEIGHT);
+    this.threads = new SlicingThread[numThreads];
+    final long quantumNanos = TimeUnit.MILLISECONDS.toNanos(quantumMillis);
+    for (int i = 0; i < numThreads; i++) {
+      threads[i] = new SlicingThread(this, i, quantumNanos);
+    }
+    for (SlicingThread thread : threads) {
+      thread.start();
+    }
+  }
+
+  @Override
+  public void execute(AsyncTaskWrapper task) {
+    final SchedulingGroup<AsyncTaskWrapper> group = task.getSchedulingGroup();
+    if (group instanceof WeightedSchedulingGroup && ((WeightedSchedulingGroup) group).getPool() == this) {
+      group.addTask(task, TaskManager.MAX_WEIGHT);
+    } else {
+      // task wasn't created with one of our groups, run it with the default share
+      rootGroup.addTask(task, TaskManager.MAX_WEIGHT);
+    }
+  }
+
+  WeightedSchedulingGroup newGroup(WeightedSchedulingGroup parent, long weight) {
+    final WeightedSchedulingGroup group = new WeightedSchedulingGroup(this, parent, groupIds.incrementAndGet(), weight);
+    groups.add(group);
+    return group;
+  }
+
+  /**
+   * Put a runnable task in a run queue. The task goes back to the thread it last ran on, new tasks are
+   * distributed round-robin.
+   */
+  void enqueue(SlicingTaskHandle handle) {
+    final long vRuntime = handle.getGroup().enqueued();
+    handle.setOrdering(vRuntime, sequence.getAndIncrement());
+    int thread = handle.getThread();
+    if (thread < 0) {
+      thread = Math.floorMod(nextThread.getAndIncrement(), threads.length);
+      handle.setThread(thread);
+    }
+    threads[thread].offer(handle);
+  }
+
+  /**
+   * @return the smallest virtual runtime of the active groups other than the given one, 0 if there is none.
+   */
+  long getMinVRuntime(WeightedSchedulingGroup exclude) {
+    long min = Long.MAX_VALUE;
+    for (WeightedSchedulingGroup group : groups) {
+      if (group != exclude && group.isActive()) {
+        min = Math.min(min, group.getVRuntime());
+      }
+    }
+    return min == Long.MAX_VALUE ? 0 : min;
+  }
+
+  /**
+   * @return the thread with the longest run queue, or null if no other thread has anything queued.
+   */
+  SlicingThread findVictim(SlicingThread thief) {
+    SlicingThread victim = null;
+    int maxQueueSize = 0;
+    for (int i = 1; i < threads.length; i++) {
+      final SlicingThread thread = threads[(thief.getIndex() + i) % threads.length];
+      final int queueSize = thread.getQueueSize();
+      if (queueSize > maxQueueSize) {
+        victim = thread;
+        maxQueueSize = queueSize;
+      }
+    }
+    return victim;
+  }
+
+  /**
+   * Wake up one idle thread, if any, so it can steal work from a busy thread.
+   */
+  void wakeUpIdleThread() {
+    for (SlicingThread thread : threads) {
+      if (thread.isIdle()) {
+        thread.wakeUp();
+        return;
+      }
+    }
+  }
+
+  @Override
+  public Iterable<ThreadInfo> getSlicingThreads() {
+    return FluentIterable.from(Arrays.asList(threads)).transform(SlicingThread::getThreadInfo).toList();
+  }
+
+  @Override
+  public boolean areAllThreadsAlive() {
+    for (SlicingThread thread : threads) {
+      if (!thread.isAlive()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public GroupManager<AsyncTaskWrapper> getGroupManager() {
+    return weight -> newGroup(null, weight);
+  }
+
+  @Override
+  public Iterable<GroupInfo> getGroupStats() {
+    return FluentIterable.from(groups).transform(WeightedSchedulingGroup::getGroupInfo).toList();
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (SlicingThread thread : threads) {
+      thread.close();
+    }
+  }
+}
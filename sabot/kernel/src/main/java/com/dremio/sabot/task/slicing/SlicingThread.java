@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.dremio.common.perf.StatsCollectionEligibilityRegistrar;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.BlockRun;
+import com.dremio.sabot.task.Task.State;
+import com.dremio.sabot.task.TaskPool.ThreadInfo;
+
+/**
+ * Worker thread of the {@link SlicingTaskPool}.
+ *
+ * Each thread owns a run queue ordered by the virtual runtime of the tasks' groups. A task runs for up to one
+ * quantum (as many {@code AsyncTask} slices as fit in it) before it is put back in the queue, unless it blocks,
+ * in which case it is handed a {@link BlockRun} that re-enqueues it once it becomes runnable again. A thread
+ * that runs out of work steals a task from the most loaded thread before parking.
+ */
+class SlicingThread extends Thread {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SlicingThread.class);
+
+  private static final Comparator<SlicingTaskHandle> ORDERING = Comparator
+    .comparingLong(SlicingTaskHandle::getVRuntime)
+    .thenComparingLong(SlicingTaskHandle::getSequence);
+
+  private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final SlicingTaskPool pool;
+  private final int index;
+  private final long quantumNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final PriorityQueue<SlicingTaskHandle> runQueue = new PriorityQueue<>(ORDERING);
+  private final AtomicInteger numTasks = new AtomicInteger();
+  private volatile int queueSize;
+  private volatile boolean idle;
+  private volatile boolean closed;
+  private int steals;
+
+  SlicingThread(SlicingTaskPool pool, int index, long quantumNanos) {
+    super("e" + index);
+    setDaemon(true);
+    this.pool = pool;
+    this.index = index;
+    this.quantumNanos = quantumNanos;
+  }
+
+  int getIndex() {
+    return index;
+  }
+
+  int getQueueSize() {
+    return queueSize;
+  }
+
+  boolean isIdle() {
+    return idle;
+  }
+
+  /**
+   * Add a task to this thread's run queue, and wake the thread up if it's idle.
+   */
+  void offer(SlicingTaskHandle handle) {
+    lock.lock();
+    try {
+      runQueue.add(handle);
+      queueSize = runQueue.size();
+    } finally {
+      lock.unlock();
+    }
+    if (idle) {
+      LockSupport.unpark(this);
+    } else {
+      pool.wakeUpIdleThread();
+    }
+  }
+
+  /**
+   * @return the task with the smallest virtual runtime of this thread's queue, or null if it's empty.
+   */
+  SlicingTaskHandle poll() {
+    lock.lock();
+    try {
+      final SlicingTaskHandle handle = runQueue.poll();
+      queueSize = runQueue.size();
+      return handle;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void wakeUp() {
+    LockSupport.unpark(this);
+  }
+
+  @Override
+  public void run() {
+    StatsCollectionEligibilityRegistrar.addSelf();
+    while (!closed) {
+      // put try inside the run loop so we don't lose threads with uncaught exceptions.
+      try {
+        final SlicingTaskHandle handle = nextTask();
+        if (handle != null) {
+          runTask(handle);
+        }
+      } catch (Throwable t) {
+        logger.error("Unhandled Exception in slicing thread {}.", index, t);
+      }
+    }
+  }
+
+  private SlicingTaskHandle nextTask() {
+    SlicingTaskHandle handle = poll();
+    if (handle == null) {
+      handle = steal();
+    }
+    if (handle != null) {
+      return handle;
+    }
+
+    // mark ourselves idle before checking the queues one last time, so that a concurrent offer() either
+    // sees the flag and unparks us, or added its task before we looked.
+    idle = true;
+    try {
+      handle = poll();
+      if (handle == null) {
+        handle = steal();
+      }
+      if (handle == null && !closed) {
+        LockSupport.parkNanos(this, PARK_NANOS);
+      }
+    } finally {
+      idle = false;
+    }
+    return handle;
+  }
+
+  private SlicingTaskHandle steal() {
+    final SlicingThread victim = pool.findVictim(this);
+    if (victim == null) {
+      return null;
+    }
+    final SlicingTaskHandle handle = victim.poll();
+    if (handle != null) {
+      steals++;
+    }
+    return handle;
+  }
+
+  private void runTask(SlicingTaskHandle handle) {
+    final WeightedSchedulingGroup group = handle.getGroup();
+    final AsyncTaskWrapper task = handle.getTask();
+    group.dequeued();
+    handle.setThread(index);
+    numTasks.incrementAndGet();
+    try {
+      final long start = System.nanoTime();
+      State state;
+      try {
+        do {
+          task.run();
+          state = task.getState();
+        } while (state == State.RUNNABLE && !closed && System.nanoTime() - start < quantumNanos);
+      } catch (Throwable t) {
+        logger.error("Unhandled Exception in Fragment Thread.", t);
+        group.taskDone();
+        return;
+      } finally {
+        group.charge(System.nanoTime() - start);
+      }
+
+      switch (state) {
+        case BLOCKED_ON_DOWNSTREAM:
+        case BLOCKED_ON_UPSTREAM:
+        case BLOCKED_ON_SHARED_RESOURCE:
+          task.setAvailabilityCallback(new BlockRun(handle));
+          break;
+        case DONE:
+          group.taskDone();
+          try {
+            task.getCleaner().close();
+          } catch (Exception e) {
+            logger.warn("Failure while cleaning up task {}.", task, e);
+          }
+          break;
+        case RUNNABLE:
+        default:
+          // quantum expired, let the other tasks of this thread run.
+          pool.enqueue(handle);
+          break;
+      }
+    } finally {
+      // only done once the task is back in a queue, so that the group isn't seen as idle in between
+      numTasks.decrementAndGet();
+      group.stopped();
+    }
+  }
+
+  ThreadInfo getThreadInfo() {
+    return new ThreadInfo(getName(), index, -1, -1, numTasks.get() + queueSize, queueSize, steals, getId());
+  }
+
+  void close() {
+    closed = true;
+    LockSupport.unpark(this);
+  }
+}
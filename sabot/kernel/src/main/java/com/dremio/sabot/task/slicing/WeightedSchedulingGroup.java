@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.dremio.sabot.task.TaskPool.GroupInfo;
+import com.google.common.base.Preconditions;
+
+/**
+ * Scheduling group of the {@link SlicingTaskPool}.
+ *
+ * Every group keeps a virtual runtime that grows with the cpu time its tasks consume, scaled down by the weight
+ * of the group. Tasks are queued in order of the virtual runtime of their group, so a group with twice the weight
+ * of another gets twice as much cpu when both are competing for the same threads.
+ *
+ * A child group is weighted relative to its parent: its effective weight is its share of the parent's weight.
+ * Tasks of a group share the group's cpu evenly, task weights are ignored.
+ */
+class WeightedSchedulingGroup implements SchedulingGroup<AsyncTaskWrapper> {
+
+  private final SlicingTaskPool pool;
+  private final WeightedSchedulingGroup parent;
+  private final long id;
+  private final long weight;
+  private final long effectiveWeight;
+
+  private final AtomicLong vRuntime = new AtomicLong(); // in weighted microseconds
+  private final AtomicLong cpuTime = new AtomicLong();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger numTasks = new AtomicInteger();
+
+  WeightedSchedulingGroup(SlicingTaskPool pool, WeightedSchedulingGroup parent, long id, long weight) {
+    Preconditions.checkArgument(weight > 0 && weight <= TaskManager.MAX_WEIGHT,
+      "Group weight must be between 1 and %s, was %s", TaskManager.MAX_WEIGHT, weight);
+    this.pool = pool;
+    this.parent = parent;
+    this.id = id;
+    this.weight = weight;
+    this.effectiveWeight = parent == null ? weight : Math.max(1, parent.effectiveWeight * weight / TaskManager.MAX_WEIGHT);
+  }
+
+  @Override
+  public SchedulingGroup<AsyncTaskWrapper> addGroup(long weight) {
+    return pool.newGroup(this, weight);
+  }
+
+  @Override
+  public TaskHandle<AsyncTaskWrapper> addTask(AsyncTaskWrapper task, long weight) {
+    numTasks.incrementAndGet();
+    final SlicingTaskHandle handle = new SlicingTaskHandle(task, this);
+    task.setTaskHandle(handle);
+    pool.enqueue(handle);
+    return handle;
+  }
+
+  long getId() {
+    return id;
+  }
+
+  SlicingTaskPool getPool() {
+    return pool;
+  }
+
+  long getVRuntime() {
+    return vRuntime.get();
+  }
+
+  /**
+   * @return true if the group has tasks queued or running
+   */
+  boolean isActive() {
+    return queued.get() > 0 || running.get() > 0;
+  }
+
+  /**
+   * Called when a task of this group is put in a run queue.
+   *
+   * @return the virtual runtime the task should be ordered by
+   */
+  long enqueued() {
+    if (!isActive()) {
+      // a group that was idle doesn't get to catch up on the cpu time it didn't use, otherwise it would
+      // starve every other group until its virtual runtime is back to theirs.
+      final long minVRuntime = pool.getMinVRuntime(this);
+      vRuntime.accumulateAndGet(minVRuntime, Math::max);
+    }
+    queued.incrementAndGet();
+    return vRuntime.get();
+  }
+
+  /**
+   * Called when a task of this group is taken out of a run queue to run.
+   */
+  void dequeued() {
+    running.incrementAndGet();
+    queued.decrementAndGet();
+  }
+
+  void taskDone() {
+    numTasks.decrementAndGet();
+  }
+
+  /**
+   * Called when a task of this group stopped running, after it was re-enqueued if it's still runnable.
+   */
+  void stopped() {
+    running.decrementAndGet();
+  }
+
+  /**
+   * Charge the group for cpu time spent running one of its tasks.
+   *
+   * @param nanos elapsed time in nanoseconds
+   */
+  void charge(long nanos) {
+    vRuntime.addAndGet(TimeUnit.NANOSECONDS.toMicros(nanos * TaskManager.MAX_WEIGHT / effectiveWeight));
+    for (WeightedSchedulingGroup group = this; group != null; group = group.parent) {
+      group.cpuTime.addAndGet(nanos);
+    }
+  }
+
+  GroupInfo getGroupInfo() {
+    return new GroupInfo(id, weight, cpuTime.get(), queued.get(), numTasks.get());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("group %d (weight %d)", id, weight);
+  }
+}
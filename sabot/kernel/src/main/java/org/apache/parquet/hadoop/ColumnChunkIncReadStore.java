@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
 
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.OutOfMemoryException;
@@ -39,6 +41,8 @@ import org.apache.parquet.format.PageHeader;
 import org.apache.parquet.format.Util;
 import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.internal.filter2.columnindex.RowRanges;
 
 import com.dremio.exec.store.parquet.BulkInputStream;
 import com.dremio.exec.store.parquet.InputStreamProvider;
@@ -56,21 +60,36 @@ public class ColumnChunkIncReadStore implements PageReadStore {
   private Path path;
   private long rowCount;
   private InputStreamProvider inputStreamProvider;
+  // rows to read, null to read all the rows of the row group
+  private RowRanges rowRanges;
+  private long pagesSkipped;
+  private long bytesSkipped;
 
   public ColumnChunkIncReadStore(long rowCount, CompressionCodecFactory codecFactory, BufferAllocator allocator,
       Path path, InputStreamProvider inputStreamProvider) {
+    this(rowCount, codecFactory, allocator, path, inputStreamProvider, null);
+  }
+
+  /**
+   * @param rowRanges rows of the row group to read, the pages of the columns added with an offset index that don't
+   *                  contain any of these rows are skipped
+   */
+  public ColumnChunkIncReadStore(long rowCount, CompressionCodecFactory codecFactory, BufferAllocator allocator,
+      Path path, InputStreamProvider inputStreamProvider, RowRanges rowRanges) {
     this.codecFactory = codecFactory;
     this.allocator = allocator;
     this.path = path;
     this.rowCount = rowCount;
     this.inputStreamProvider = inputStreamProvider;
+    this.rowRanges = rowRanges;
   }
 
   public class SingleStreamColumnChunkIncPageReader extends ColumnChunkIncPageReader {
     private long lastPosition;
 
-    public SingleStreamColumnChunkIncPageReader(ColumnChunkMetaData metaData, ColumnDescriptor columnDescriptor, BulkInputStream in) throws IOException {
-      super(metaData, columnDescriptor, in);
+    public SingleStreamColumnChunkIncPageReader(ColumnChunkMetaData metaData, ColumnDescriptor columnDescriptor, BulkInputStream in,
+                                                OffsetIndex offsetIndex) throws IOException {
+      super(metaData, columnDescriptor, in, offsetIndex);
       lastPosition = in.getPos();
     }
 
@@ -106,6 +125,10 @@ public class ColumnChunkIncReadStore implements PageReadStore {
     long fileOffset;
     long size;
     private long valueReadSoFar = 0;
+    // location of the pages, only set when skipping the pages out of the row ranges
+    private final OffsetIndex offsetIndex;
+    private int pageIndex = 0;
+    private long firstRowIndex = -1;
 
     private DictionaryPage dictionaryPage;
     protected BulkInputStream in;
@@ -118,7 +141,13 @@ public class ColumnChunkIncReadStore implements PageReadStore {
     private ByteBuf dictionaryPageUncompressed;
 
     public ColumnChunkIncPageReader(ColumnChunkMetaData metaData, ColumnDescriptor columnDescriptor, BulkInputStream in) throws IOException {
+      this(metaData, columnDescriptor, in, null);
+    }
+
+    public ColumnChunkIncPageReader(ColumnChunkMetaData metaData, ColumnDescriptor columnDescriptor, BulkInputStream in,
+                                    OffsetIndex offsetIndex) throws IOException {
       this.metaData = metaData;
+      this.offsetIndex = offsetIndex;
       this.columnDescriptor = columnDescriptor;
       this.size = metaData.getTotalSize();
       this.fileOffset = metaData.getStartingPos();
@@ -174,6 +203,9 @@ public class ColumnChunkIncReadStore implements PageReadStore {
       PageHeader pageHeader = new PageHeader();
       try {
         releasePrevDataPageBuffers();
+        if (offsetIndex != null && !seekToNextPage()) {
+          return null;
+        }
         while(valueReadSoFar < metaData.getValueCount()) {
           pageHeader = Util.readPageHeader(in.asSeekableInputStream());
           int uncompressedPageSize = pageHeader.getUncompressed_page_size();
@@ -189,6 +221,21 @@ public class ColumnChunkIncReadStore implements PageReadStore {
             case DATA_PAGE:
               valueReadSoFar += pageHeader.data_page_header.getNum_values();
               ByteBuffer destBuffer = uncompressPage(pageHeader, true);
+              if (offsetIndex != null) {
+                final int pageRowCount = Math.toIntExact(
+                  offsetIndex.getLastRowIndex(pageIndex - 1, rowCount) - firstRowIndex + 1);
+                return new DataPageV1(
+                  BytesInput.from(destBuffer, 0, pageHeader.uncompressed_page_size),
+                  pageHeader.data_page_header.num_values,
+                  pageHeader.uncompressed_page_size,
+                  firstRowIndex,
+                  pageRowCount,
+                  fromParquetStatistics(pageHeader.data_page_header.statistics, columnDescriptor.getType()),
+                  parquetMetadataConverter.getEncoding(pageHeader.data_page_header.repetition_level_encoding),
+                  parquetMetadataConverter.getEncoding(pageHeader.data_page_header.definition_level_encoding),
+                  parquetMetadataConverter.getEncoding(pageHeader.data_page_header.encoding)
+                );
+              }
               return new DataPageV1(
                       BytesInput.from(destBuffer, 0, pageHeader.uncompressed_page_size),
                       pageHeader.data_page_header.num_values,
@@ -204,6 +251,22 @@ public class ColumnChunkIncReadStore implements PageReadStore {
               destBuffer = uncompressPage(pageHeader, true);
               DataPageHeaderV2 dataHeaderV2 = pageHeader.getData_page_header_v2();
               int dataSize = uncompressedPageSize - dataHeaderV2.getRepetition_levels_byte_length() - dataHeaderV2.getDefinition_levels_byte_length();
+              if (offsetIndex != null) {
+                return DataPageV2.uncompressed(
+                  dataHeaderV2.getNum_rows(),
+                  dataHeaderV2.getNum_nulls(),
+                  dataHeaderV2.getNum_values(),
+                  firstRowIndex,
+                  BytesInput.from(destBuffer, 0, dataHeaderV2.getRepetition_levels_byte_length()),
+                  BytesInput.from(destBuffer,
+                    dataHeaderV2.getRepetition_levels_byte_length(),
+                    dataHeaderV2.getDefinition_levels_byte_length()),
+                  parquetMetadataConverter.getEncoding(dataHeaderV2.getEncoding()),
+                  BytesInput.from(destBuffer,
+                    dataHeaderV2.getRepetition_levels_byte_length() + dataHeaderV2.getDefinition_levels_byte_length(),
+                    dataSize),
+                  fromParquetStatistics(dataHeaderV2.getStatistics(), columnDescriptor.getType()));
+              }
               return DataPageV2.uncompressed(
                       dataHeaderV2.getNum_rows(),
                       dataHeaderV2.getNum_nulls(),
@@ -237,6 +300,28 @@ public class ColumnChunkIncReadStore implements PageReadStore {
       }
     }
 
+    /**
+     * Skip the pages that don't contain any row of the row ranges, and seek to the next page to read.
+     *
+     * @return false if there is no page left to read
+     */
+    private boolean seekToNextPage() throws IOException {
+      final int pageCount = offsetIndex.getPageCount();
+      while (pageIndex < pageCount
+        && !rowRanges.isOverlapping(offsetIndex.getFirstRowIndex(pageIndex), offsetIndex.getLastRowIndex(pageIndex, rowCount))) {
+        pagesSkipped++;
+        bytesSkipped += offsetIndex.getCompressedPageSize(pageIndex);
+        pageIndex++;
+      }
+      if (pageIndex == pageCount) {
+        return false;
+      }
+      firstRowIndex = offsetIndex.getFirstRowIndex(pageIndex);
+      in.seek(offsetIndex.getOffset(pageIndex));
+      pageIndex++;
+      return true;
+    }
+
     void close() {
       try {
         releasePrevDataPageBuffers();
@@ -322,11 +407,34 @@ public class ColumnChunkIncReadStore implements PageReadStore {
   private Map<ColumnDescriptor, ColumnChunkIncPageReader> columns = new HashMap<>();
 
   public void addColumn(ColumnDescriptor descriptor, ColumnChunkMetaData metaData) throws IOException {
+    addColumn(descriptor, metaData, null);
+  }
+
+  /**
+   * @param offsetIndex offset index of the column chunk, used to skip the pages out of the row ranges. Either all the
+   *                    columns or none of them must have one, for the column readers to stay synchronized.
+   */
+  public void addColumn(ColumnDescriptor descriptor, ColumnChunkMetaData metaData, OffsetIndex offsetIndex) throws IOException {
+    final OffsetIndex pageOffsets = rowRanges == null ? null : offsetIndex;
     final BulkInputStream in = inputStreamProvider.getStream(metaData);
     in.seek(metaData.getStartingPos());
     columns.put(descriptor, inputStreamProvider.isSingleStream()
-      ? new SingleStreamColumnChunkIncPageReader(metaData, descriptor, in)
-      : new ColumnChunkIncPageReader(metaData, descriptor, in));
+      ? new SingleStreamColumnChunkIncPageReader(metaData, descriptor, in, pageOffsets)
+      : new ColumnChunkIncPageReader(metaData, descriptor, in, pageOffsets));
+  }
+
+  /**
+   * @return number of data pages skipped using the offset indexes
+   */
+  public long getPagesSkipped() {
+    return pagesSkipped;
+  }
+
+  /**
+   * @return compressed size of the data pages skipped using the offset indexes
+   */
+  public long getBytesSkipped() {
+    return bytesSkipped;
   }
 
   public void close() throws IOException {
@@ -342,6 +450,11 @@ public class ColumnChunkIncReadStore implements PageReadStore {
 
   @Override
   public long getRowCount() {
-    return rowCount;
+    return rowRanges == null ? rowCount : rowRanges.rowCount();
+  }
+
+  @Override
+  public Optional<PrimitiveIterator.OfLong> getRowIndexes() {
+    return rowRanges == null ? Optional.empty() : Optional.of(rowRanges.iterator());
   }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.exec.compile.PersistentCodeCache.CachedClasses;
+
+public class TestPersistentCodeCache {
+
+  private static final TemplateClassDefinition<ExampleInner> DEFINITION =
+    new TemplateClassDefinition<>(ExampleInner.class, ExampleTemplateWithInner.class);
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static CachedClasses classes(String name, int size) {
+    return new CachedClasses(name, new ClassBytes[] {
+      new ClassBytes(name, new byte[size]),
+      new ClassBytes(name + "$Inner", new byte[] {1, 2, 3})
+    });
+  }
+
+  @Test
+  public void testKey() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(folder.getRoot().toPath(), "1.0", 1 << 20);
+    final String key = cache.getKey(DEFINITION, "class GenericGenerated {}");
+    assertEquals(key, cache.getKey(DEFINITION, "class GenericGenerated {}"));
+    assertNotEquals(key, cache.getKey(DEFINITION, "class GenericGenerated { int i; }"));
+    assertNotEquals(key, cache.getKey(new TemplateClassDefinition<>(ExampleExternalInterface.class, ExampleTemplate.class),
+      "class GenericGenerated {}"));
+  }
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(folder.getRoot().toPath(), "1.0", 1 << 20);
+    assertNull(cache.get("a"));
+
+    cache.put("a", classes("com.dremio.s.Gen1", 10));
+    final CachedClasses cached = cache.get("a");
+    assertNotNull(cached);
+    assertEquals("com.dremio.s.Gen1", cached.getClassName());
+    assertEquals(2, cached.getClasses().length);
+    assertEquals("com.dremio.s.Gen1$Inner", cached.getClasses()[1].getName());
+    assertArrayEquals(new byte[] {1, 2, 3}, cached.getClasses()[1].getBytes());
+  }
+
+  @Test
+  public void testReloadAfterRestart() throws Exception {
+    final Path root = folder.getRoot().toPath();
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0", 1 << 20);
+    cache.put("a", classes("com.dremio.s.Gen1", 10));
+    cache.put("b", classes("com.dremio.s.Gen2", 10));
+
+    final PersistentCodeCache restarted = new PersistentCodeCache(root, "1.0", 1 << 20);
+    assertEquals(2, restarted.getEntryCount());
+    assertEquals(cache.getSize(), restarted.getSize());
+    assertEquals("com.dremio.s.Gen2", restarted.get("b").getClassName());
+  }
+
+  @Test
+  public void testOtherVersionsAreRemoved() throws Exception {
+    final Path root = folder.getRoot().toPath();
+    new PersistentCodeCache(root, "1.0", 1 << 20).put("a", classes("com.dremio.s.Gen1", 10));
+
+    final PersistentCodeCache upgraded = new PersistentCodeCache(root, "2.0", 1 << 20);
+    assertEquals(0, upgraded.getEntryCount());
+    assertNull(upgraded.get("a"));
+    assertFalse(Files.exists(root.resolve("1.0")));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEviction() throws Exception {
+    final Path root = folder.getRoot().toPath();
+    final PersistentCodeCache unbounded = new PersistentCodeCache(root, "1.0", Long.MAX_VALUE);
+    unbounded.put("a", classes("com.dremio.s.Gen1", 1000));
+    final long entrySize = unbounded.getSize();
+
+    // room for two entries
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0", 2 * entrySize + entrySize / 2);
+    cache.put("b", classes("com.dremio.s.Gen2", 1000));
+    assertNotNull(cache.get("a"));
+    cache.put("c", classes("com.dremio.s.Gen3", 1000));
+
+    assertEquals(2, cache.getEntryCount());
+    assertTrue(cache.getSize() <= 2 * entrySize + entrySize / 2);
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+  }
+}
@@ -24,10 +24,14 @@ import static com.dremio.exec.physical.impl.window.DataPar.dataB4P4;
 import static com.dremio.exec.physical.impl.window.WindowGenerator.generateInput;
 import static com.dremio.exec.physical.impl.window.WindowGenerator.generateOutput;
 import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
 import static java.util.Collections.singletonList;
+import static org.apache.calcite.rel.RelFieldCollation.Direction.ASCENDING;
 import static org.apache.calcite.rel.RelFieldCollation.Direction.DESCENDING;
 import static org.apache.calcite.rel.RelFieldCollation.NullDirection.FIRST;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -40,6 +44,7 @@ import com.dremio.exec.physical.config.WindowPOP;
 import com.dremio.exec.physical.config.WindowPOP.Bound;
 import com.dremio.sabot.BaseTestOperator;
 import com.dremio.sabot.Fixtures;
+import com.dremio.sabot.Fixtures.DataRow;
 import com.dremio.sabot.Fixtures.Table;
 import com.dremio.sabot.op.windowframe.WindowFrameOperator;
 
@@ -121,4 +126,43 @@ public class TestWindowOperator extends BaseTestOperator {
     validateSingle(window, WindowFrameOperator.class, input, output, 20);
   }
 
+  @Test
+  public void testRowsFrameAcrossBatches() throws Exception {
+    // SELECT sum(salary), count(position_id), first_value(salary), last_value(salary)
+    //   OVER(PARTITION BY position_id ORDER BY sub ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW)
+    final WindowPOP window = new WindowPOP(PROPS, null,
+      singletonList(n("position_id")), // withins
+      Arrays.asList(
+        n("sum(salary)", "sum"),
+        n("count(position_id)", "count"),
+        n("first_value(salary)", "first_value"),
+        n("last_value(salary)", "last_value")), // aggregations
+      singletonList(ordering("sub", ASCENDING, FIRST)), // ordering
+      true, new Bound(true, Long.MIN_VALUE), new Bound(false, 0));
+
+    // peer rows and partitions span several batches of 3 rows, so each batch is processed before the end of its
+    // peer rows is known
+    final int[] partitionSizes = {17, 11, 1, 8};
+    final List<DataRow> inputRows = new ArrayList<>();
+    final List<DataRow> outputRows = new ArrayList<>();
+    for (int p = 0; p < partitionSizes.length; p++) {
+      long sum = 0;
+      int first = 0;
+      for (int i = 0; i < partitionSizes[p]; i++) {
+        final int sub = i / 5;
+        final int salary = (i * 7) % 13 + p;
+        if (i == 0) {
+          first = salary;
+        }
+        sum += salary;
+        inputRows.add(tr(p + 1, sub, salary));
+        outputRows.add(tr(p + 1, sub, salary, sum, (long) (i + 1), first, salary));
+      }
+    }
+
+    final Table input = Fixtures.split(WindowGenerator.header, 3, inputRows.toArray(new DataRow[0]));
+    final Table output = t(th("position_id", "sub", "salary", "sum", "count", "first_value", "last_value"),
+      outputRows.toArray(new DataRow[0]));
+    validateSingle(window, WindowFrameOperator.class, input, output, 20);
+  }
 }
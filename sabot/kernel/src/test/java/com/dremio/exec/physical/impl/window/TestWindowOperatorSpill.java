@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.physical.impl.window;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.op.windowframe.WindowFrameOperator;
+
+/**
+ * Runs the window operator test suite with a zero memory budget, so that every buffered batch except the first and
+ * the last one is spilled and read back from disk.
+ */
+public class TestWindowOperatorSpill extends TestWindowOperator {
+
+  private AutoCloseable options;
+
+  @Before
+  public void enableSpill() {
+    options = AutoCloseables.all(Arrays.asList(
+      with(WindowFrameOperator.ENABLE_SPILL, true),
+      with(WindowFrameOperator.SPILL_MEMORY_FACTOR, 0.0d)));
+  }
+
+  @After
+  public void resetOptions() throws Exception {
+    AutoCloseables.close(options);
+  }
+}
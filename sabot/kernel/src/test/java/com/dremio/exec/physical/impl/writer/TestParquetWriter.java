@@ -18,6 +18,8 @@ package com.dremio.exec.physical.impl.writer;
 import static com.dremio.exec.store.parquet.ParquetRecordWriter.DREMIO_VERSION_PROPERTY;
 import static org.apache.parquet.format.converter.ParquetMetadataConverter.SKIP_ROW_GROUPS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
@@ -29,11 +31,18 @@ import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.BigIntVector;
@@ -41,9 +50,20 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.example.data.Group;
 import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
 import org.apache.parquet.hadoop.util.PageHeaderUtil;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.Type;
 import org.joda.time.Period;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -693,6 +713,153 @@ public class TestParquetWriter extends BaseTestQuery {
         .go();
   }
 
+  @Test
+  public void testPageIndexesAndBloomFilters() throws Exception {
+    final String outputFile = "testPageIndexesAndBloomFilters";
+    final String pageRowCountLimit = ExecConstants.PARQUET_WRITER_PAGE_ROW_COUNT_LIMIT.getOptionName();
+    final String bloomFilterColumns = ExecConstants.PARQUET_WRITER_BLOOM_FILTER_COLUMNS.getOptionName();
+    deleteTableIfExists(outputFile);
+    try {
+      test("ALTER SESSION SET \"%s\" = 100", pageRowCountLimit);
+      test("ALTER SESSION SET \"%s\" = 'l_orderkey, l_comment'", bloomFilterColumns);
+      try {
+        test("CREATE TABLE dfs_test.%s AS SELECT l_orderkey, l_comment, l_quantity FROM cp.\"tpch/lineitem.parquet\"",
+          outputFile);
+      } finally {
+        test("ALTER SESSION RESET \"%s\"", pageRowCountLimit);
+        test("ALTER SESSION RESET \"%s\"", bloomFilterColumns);
+      }
+
+      final Configuration hadoopConf = new Configuration();
+      final Path output = new Path(getDfsTestTmpSchemaLocation(), outputFile);
+      for (FileStatus file : output.getFileSystem(hadoopConf).listStatus(output)) {
+        final Map<String, List<Object>> values = readValues(file.getPath(), hadoopConf);
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(file.getPath(), hadoopConf))) {
+          int firstRow = 0;
+          for (BlockMetaData block : reader.getFooter().getBlocks()) {
+            for (ColumnChunkMetaData column : block.getColumns()) {
+              final List<Object> chunkValues = values.get(column.getPath().toDotString())
+                .subList(firstRow, firstRow + (int) block.getRowCount());
+              checkPageIndexes(reader, column, chunkValues);
+              checkBloomFilter(reader, column, chunkValues, !column.getPath().toDotString().equals("l_quantity"));
+            }
+            firstRow += block.getRowCount();
+          }
+        }
+      }
+    } finally {
+      deleteTableIfExists(outputFile);
+    }
+  }
+
+  /**
+   * Read the values of the top level primitive columns of a file with parquet-mr, in the order of the rows.
+   */
+  private static Map<String, List<Object>> readValues(Path path, Configuration conf) throws IOException {
+    final Map<String, List<Object>> values = new HashMap<>();
+    try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), path).withConf(conf).build()) {
+      for (Group group = reader.read(); group != null; group = reader.read()) {
+        for (Type field : group.getType().getFields()) {
+          final Object value;
+          if (group.getFieldRepetitionCount(field.getName()) == 0) {
+            value = null;
+          } else {
+            switch (field.asPrimitiveType().getPrimitiveTypeName()) {
+              case INT32:
+                value = group.getInteger(field.getName(), 0);
+                break;
+              case INT64:
+                value = group.getLong(field.getName(), 0);
+                break;
+              case FLOAT:
+                value = group.getFloat(field.getName(), 0);
+                break;
+              case DOUBLE:
+                value = group.getDouble(field.getName(), 0);
+                break;
+              default:
+                value = group.getBinary(field.getName(), 0);
+                break;
+            }
+          }
+          values.computeIfAbsent(field.getName(), name -> new ArrayList<>()).add(value);
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Check that the offset index of a column chunk has several pages of at most 100 rows, and that the min and
+   * max of each page in its column index are those of the values of the page.
+   */
+  @SuppressWarnings("unchecked")
+  private static void checkPageIndexes(ParquetFileReader reader, ColumnChunkMetaData column, List<Object> values)
+    throws IOException {
+    final ColumnIndex columnIndex = reader.readColumnIndex(column);
+    final OffsetIndex offsetIndex = reader.readOffsetIndex(column);
+    assertNotNull(columnIndex);
+    assertNotNull(offsetIndex);
+
+    final int pageCount = offsetIndex.getPageCount();
+    assertTrue(pageCount > 1);
+    assertEquals(pageCount, columnIndex.getNullPages().size());
+    assertEquals(0, offsetIndex.getFirstRowIndex(0));
+
+    final Comparator<Object> comparator = (Comparator<Object>) column.getPrimitiveType().comparator();
+    for (int page = 0; page < pageCount; page++) {
+      final int first = (int) offsetIndex.getFirstRowIndex(page);
+      final int last = page + 1 < pageCount ? (int) offsetIndex.getFirstRowIndex(page + 1) : values.size();
+      assertTrue(first < last && last - first <= 100);
+      assertTrue(offsetIndex.getOffset(page) >= column.getStartingPos());
+      assertTrue(offsetIndex.getOffset(page) + offsetIndex.getCompressedPageSize(page)
+        <= column.getStartingPos() + column.getTotalSize());
+
+      final List<Object> pageValues = values.subList(first, last).stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+      assertEquals(pageValues.isEmpty(), columnIndex.getNullPages().get(page));
+      if (!pageValues.isEmpty()) {
+        assertEquals(Collections.min(pageValues, comparator), decode(column, columnIndex.getMinValues().get(page)));
+        assertEquals(Collections.max(pageValues, comparator), decode(column, columnIndex.getMaxValues().get(page)));
+      }
+    }
+  }
+
+  private static Object decode(ColumnChunkMetaData column, ByteBuffer buffer) {
+    final ByteBuffer value = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    switch (column.getPrimitiveType().getPrimitiveTypeName()) {
+      case INT32:
+        return value.getInt(0);
+      case INT64:
+        return value.getLong(0);
+      case FLOAT:
+        return value.getFloat(0);
+      case DOUBLE:
+        return value.getDouble(0);
+      default:
+        return Binary.fromConstantByteBuffer(value);
+    }
+  }
+
+  /**
+   * Check that a column chunk has a Bloom filter holding all its values if expected, or no Bloom filter.
+   */
+  private static void checkBloomFilter(ParquetFileReader reader, ColumnChunkMetaData column, List<Object> values,
+                                       boolean expected) throws IOException {
+    final BloomFilter bloomFilter = reader.readBloomFilter(column);
+    if (!expected) {
+      assertNull(bloomFilter);
+      return;
+    }
+    assertNotNull(bloomFilter);
+    for (Object value : values) {
+      if (value != null) {
+        assertTrue(String.valueOf(value), bloomFilter.findHash(bloomFilter.hash(value)));
+      }
+    }
+  }
+
   private static void deleteTableIfExists(String tableName) {
     try {
       Path path = new Path(getDfsTestTmpSchemaLocation(), tableName);
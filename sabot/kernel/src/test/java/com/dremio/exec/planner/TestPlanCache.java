@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.catalog.Catalog;
+import com.dremio.service.namespace.NamespaceKey;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests for the plan cache
+ */
+public class TestPlanCache {
+  private static final String SQL = "SELECT * FROM \"t\" WHERE \"a\" = 1";
+
+  private Catalog catalog;
+
+  @Before
+  public void setup() {
+    catalog = mock(Catalog.class);
+    when(catalog.getAllRequestedTables()).thenReturn(Collections.emptyList());
+  }
+
+  private static CachedPlan newPlan(int size) {
+    return CachedPlan.createCachedPlan(SQL, null, "plan", size);
+  }
+
+  @Test
+  public void testKeyContext() {
+    final NamespaceKey schema = new NamespaceKey(ImmutableList.of("space", "folder"));
+    final PlanCache.Key key = PlanCache.generateCacheKey(SQL, "UI_RUN", "user", schema);
+
+    assertEquals(key, PlanCache.generateCacheKey(SQL, "UI_RUN", "user", schema));
+    assertEquals(key.getFingerprint(), PlanCache.generateCacheKey(SQL, "UI_RUN", "user", schema).getFingerprint());
+    assertNotEquals(key, PlanCache.generateCacheKey(SQL, "UI_RUN", "other", schema));
+    assertNotEquals(key, PlanCache.generateCacheKey(SQL, "UI_RUN", "user", null));
+    assertNotEquals(key, PlanCache.generateCacheKey(SQL, "JDBC", "user", schema));
+    assertNotEquals(key, PlanCache.generateCacheKey(SQL.replace('1', '2'), "UI_RUN", "user", schema));
+  }
+
+  @Test
+  public void testHitAndMiss() {
+    final PlanCache planCache = new PlanCache(10_000, 1024 * 1024, 60);
+    final PlanCache.Key key = PlanCache.generateCacheKey(SQL, "UI_RUN", "user", null);
+
+    assertNull(planCache.getIfPresentAndValid(catalog, key));
+    planCache.putPlan(key, newPlan(100), ImmutableList.of("ds1"));
+    assertNotNull(planCache.getIfPresentAndValid(catalog, key));
+
+    assertEquals(1, planCache.getStats().hitCount());
+    assertEquals(1, planCache.getStats().missCount());
+  }
+
+  @Test
+  public void testInvalidateOnDataset() {
+    final PlanCache planCache = new PlanCache(10_000, 1024 * 1024, 60);
+    final PlanCache.Key key1 = PlanCache.generateCacheKey(SQL, "UI_RUN", "user1", null);
+    final PlanCache.Key key2 = PlanCache.generateCacheKey(SQL, "UI_RUN", "user2", null);
+    planCache.putPlan(key1, newPlan(100), ImmutableList.of("ds1", "ds2"));
+    planCache.putPlan(key2, newPlan(100), ImmutableList.of("ds2"));
+
+    planCache.invalidateCacheOnDataset("ds1");
+    assertNull(planCache.getIfPresentAndValid(catalog, key1));
+    assertNotNull(planCache.getIfPresentAndValid(catalog, key2));
+    // the invalidated plan is no longer indexed under its other datasets
+    assertEquals(Collections.singleton(key2), planCache.getPlansOfDataset("ds2"));
+    assertEquals(1, planCache.getInvalidationCount());
+
+    planCache.invalidateCacheOnDataset("ds2");
+    assertNull(planCache.getIfPresentAndValid(catalog, key2));
+    assertTrue(planCache.getPlansOfDataset("ds2").isEmpty());
+    assertEquals(2, planCache.getInvalidationCount());
+  }
+
+  @Test
+  public void testEvictionBySize() {
+    final PlanCache planCache = new PlanCache(10_000, 10_000, 60);
+    for (int i = 0; i < 100; i++) {
+      planCache.putPlan(PlanCache.generateCacheKey(SQL, "UI_RUN", "user" + i, null), newPlan(1_000),
+        ImmutableList.of("ds"));
+    }
+
+    assertTrue(planCache.getEntryCount() < 10);
+    assertTrue(planCache.getStats().evictionCount() > 90);
+    assertEquals(planCache.getEntryCount(), planCache.getPlansOfDataset("ds").size());
+  }
+
+  @Test
+  public void testEvictionByCount() {
+    final PlanCache planCache = new PlanCache(10, 1024 * 1024, 60);
+    for (int i = 0; i < 100; i++) {
+      planCache.putPlan(PlanCache.generateCacheKey(SQL, "UI_RUN", "user" + i, null), newPlan(1),
+        ImmutableList.of("ds"));
+    }
+
+    assertTrue(planCache.getEntryCount() <= 10);
+    assertTrue(planCache.getStats().evictionCount() >= 90);
+  }
+
+  @Test
+  public void testDefaultConfig() {
+    final DremioConfig config = DremioConfig.create();
+    final long maxEntries = config.getLong(DremioConfig.PLAN_CACHE_MAX_ENTRIES);
+    final PlanCache planCache = new PlanCache(maxEntries, config.getLong(DremioConfig.PLAN_CACHE_MAX_SIZE_BYTES),
+      config.getLong(DremioConfig.PLAN_CACHE_TIMEOUT_MINUTES));
+
+    // plans of a realistic size all fit
+    final String textPlan = StringUtils.repeat('x', 10_000);
+    for (int i = 0; i < 1_000; i++) {
+      planCache.putPlan(PlanCache.generateCacheKey(SQL, "UI_RUN", "user" + i, null),
+        CachedPlan.createCachedPlan(SQL, null, textPlan, 10_000), ImmutableList.of("ds"));
+    }
+    assertEquals(1_000, planCache.getEntryCount());
+    assertEquals(0, planCache.getStats().evictionCount());
+
+    // small plans are bounded by the number of entries
+    for (int i = 0; i < 2 * maxEntries; i++) {
+      planCache.putPlan(PlanCache.generateCacheKey(SQL, "JDBC", "user" + i, null), newPlan(1),
+        ImmutableList.of("ds"));
+    }
+    assertTrue(planCache.getEntryCount() <= maxEntries);
+    assertTrue(planCache.getEntryCount() > maxEntries / 2);
+  }
+}
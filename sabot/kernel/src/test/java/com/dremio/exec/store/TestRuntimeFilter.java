@@ -17,6 +17,8 @@
 package com.dremio.exec.store;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -32,6 +34,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import com.dremio.common.AutoCloseables;
+import com.dremio.exec.proto.ExecProtos;
 import com.dremio.exec.util.BloomFilter;
 import com.dremio.exec.util.ValueListFilterBuilder;
 import com.dremio.test.AllocatorRule;
@@ -170,6 +173,37 @@ public class TestRuntimeFilter {
                 .build();
     }
 
+    @Test
+    public void testTightenRangeFilter() {
+        final List<RuntimeFilter> filters = Lists.newArrayList();
+        final RuntimeFilter filter = RuntimeFilter.getInstanceOrTightenRangeFilter(filters, newUpperBound("long_field", 100L), "Frag 1, OpId 2");
+        assertNotNull(filter);
+        filters.add(filter);
+        final RuntimeRangeFilter rangeFilter = filter.getRangeFilter();
+        assertTrue(rangeFilter.isOutOfRange(101L, 200L));
+        assertFalse(rangeFilter.isOutOfRange(100L, 200L));
+
+        // a looser bound is ignored, a tighter one replaces the bound in place
+        assertNull(RuntimeFilter.getInstanceOrTightenRangeFilter(filters, newUpperBound("long_field", 150L), "Frag 1, OpId 2"));
+        assertFalse(rangeFilter.isOutOfRange(60L, 100L));
+        assertNull(RuntimeFilter.getInstanceOrTightenRangeFilter(filters, newUpperBound("long_field", 50L), "Frag 1, OpId 2"));
+        assertTrue(rangeFilter.isOutOfRange(60L, 100L));
+
+        // the copies given to the readers share the range filter
+        assertTrue(RuntimeFilter.getInstanceWithNewNonPartitionColFiltersList(filter).getRangeFilter().isOutOfRange(60L, 100L));
+
+        // another sender gets its own filter
+        assertNotNull(RuntimeFilter.getInstanceOrTightenRangeFilter(filters, newUpperBound("long_field", 10L), "Frag 3, OpId 2"));
+    }
+
+    private ExecProtos.RangeColumnFilter newUpperBound(String col, long bound) {
+        return ExecProtos.RangeColumnFilter.newBuilder()
+                .setColumn(col)
+                .setUpperBound(true)
+                .setLongBound(bound)
+                .build();
+    }
+
     private CompositeColumnFilter newValListFilterInt(String col1, List<Integer> vals) throws Exception {
         byte blockSize = Integer.BYTES;
         try (ValueListFilterBuilder builder = new ValueListFilterBuilder(testAllocator, vals.size(), blockSize, false);
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.exec.store.cache.LocalBlockCache.BlockKey;
+import com.dremio.exec.work.CacheManagerFilesInfo;
+import com.dremio.exec.work.CacheManagerMountPointInfo;
+import com.dremio.exec.work.CacheManagerStoragePluginInfo;
+import com.dremio.io.AsyncByteReader;
+import com.dremio.test.AllocatorRule;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Test for {@link LocalBlockCache}
+ */
+public class LocalBlockCacheTest {
+  private static final int BLOCK_SIZE = 16;
+
+  @Rule
+  public final TemporaryFolder tempDir = new TemporaryFolder();
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private LocalBlockCache newCache(long maxSpace) throws Exception {
+    return newCache(maxSpace, Long.MAX_VALUE);
+  }
+
+  private LocalBlockCache newCache(long maxSpace, long maxBufferedBytes) throws Exception {
+    final LocalBlockCache.MountPoint mountPoint = new LocalBlockCache.MountPoint(0,
+      tempDir.newFolder().toPath().resolve(LocalBlockCache.CACHE_DIR_NAME), 1024 * 1024, maxSpace, 0);
+    // blocks are written synchronously, the cache closes its allocator
+    final BufferAllocator allocator = allocatorRule.newAllocator("block-cache", 0, maxBufferedBytes);
+    return new LocalBlockCache("localhost", BLOCK_SIZE, Collections.singletonList(mountPoint), Runnable::run,
+      allocator);
+  }
+
+  private static AsyncByteReader newSource(byte[] file, AtomicInteger reads) {
+    return (offset, dst, dstOffset, len) -> {
+      reads.incrementAndGet();
+      dst.setBytes(dstOffset, file, (int) offset, len);
+      return CompletableFuture.completedFuture(null);
+    };
+  }
+
+  private static BlockKey key(String plugin, long blockIndex) {
+    return new BlockKey(plugin, "/a.parquet", "1", blockIndex);
+  }
+
+  private static ByteBuf block(int seed) {
+    final byte[] bytes = new byte[BLOCK_SIZE];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (seed + i);
+    }
+    return Unpooled.wrappedBuffer(bytes);
+  }
+
+  private static boolean isCached(LocalBlockCache cache, BlockKey key) {
+    final ByteBuf dst = Unpooled.buffer(BLOCK_SIZE);
+    try {
+      return cache.read(key, 0, dst, 0, 1);
+    } finally {
+      dst.release();
+    }
+  }
+
+  @Test
+  public void testPutAndRead() throws Exception {
+    try (LocalBlockCache cache = newCache(1024)) {
+      cache.putAsync(key("s3", 0), "s3.t", block(10), BLOCK_SIZE, 100);
+
+      final ByteBuf dst = Unpooled.buffer(8);
+      assertTrue(cache.read(key("s3", 0), 4, dst, 2, 6));
+      final byte[] bytes = new byte[6];
+      dst.getBytes(2, bytes);
+      assertArrayEquals(new byte[] {14, 15, 16, 17, 18, 19}, bytes);
+      dst.release();
+
+      // another block, another version, or past the end of the block
+      assertFalse(isCached(cache, key("s3", 1)));
+      assertFalse(cache.read(new BlockKey("s3", "/a.parquet", "2", 0), 0, Unpooled.buffer(1), 0, 1));
+      assertFalse(cache.read(key("s3", 0), 10, Unpooled.buffer(BLOCK_SIZE), 0, BLOCK_SIZE));
+
+      final List<CacheManagerFilesInfo> files = cache.getCachedFilesStats();
+      assertEquals(1, files.size());
+      assertEquals("s3.t", files.get(0).dataset);
+      assertEquals(1, cache.getDatasetStats().size());
+    }
+  }
+
+  @Test
+  public void testMountPointLimit() throws Exception {
+    try (LocalBlockCache cache = newCache(4 * BLOCK_SIZE)) {
+      for (int i = 0; i < 6; i++) {
+        cache.put(key("s3", i), "s3.t", block(i), BLOCK_SIZE, 100);
+      }
+
+      assertFalse(isCached(cache, key("s3", 0)));
+      assertFalse(isCached(cache, key("s3", 1)));
+      for (int i = 2; i < 6; i++) {
+        assertTrue(isCached(cache, key("s3", i)));
+      }
+      final CacheManagerMountPointInfo mountPoint = cache.getMountPointStats().get(0);
+      assertEquals(4 * BLOCK_SIZE, mountPoint.used_space);
+      assertEquals(4, mountPoint.approx_file_count);
+      assertEquals(BLOCK_SIZE, mountPoint.latest_evicted_bytes);
+    }
+  }
+
+  @Test
+  public void testBlocksReadAgainAreKept() throws Exception {
+    try (LocalBlockCache cache = newCache(4 * BLOCK_SIZE)) {
+      for (int i = 0; i < 4; i++) {
+        cache.put(key("s3", i), "s3.t", block(i), BLOCK_SIZE, 100);
+      }
+      // the oldest block is read again, a scan of new blocks evicts the blocks read once
+      assertTrue(isCached(cache, key("s3", 0)));
+      for (int i = 4; i < 7; i++) {
+        cache.put(key("s3", i), "s3.t", block(i), BLOCK_SIZE, 100);
+      }
+
+      assertTrue(isCached(cache, key("s3", 0)));
+      for (int i = 1; i < 4; i++) {
+        assertFalse(isCached(cache, key("s3", i)));
+      }
+    }
+  }
+
+  @Test
+  public void testSourceLimit() throws Exception {
+    try (LocalBlockCache cache = newCache(8 * BLOCK_SIZE)) {
+      for (int i = 0; i < 4; i++) {
+        cache.put(key("small", i), "small.t", block(i), BLOCK_SIZE, 25);
+      }
+      for (int i = 0; i < 6; i++) {
+        cache.put(key("large", i), "large.t", block(i), BLOCK_SIZE, 100);
+      }
+
+      for (CacheManagerStoragePluginInfo plugin : cache.getStoragePluginStats()) {
+        if (plugin.storage_plugin_name.equals("small")) {
+          assertEquals(2 * BLOCK_SIZE, plugin.approx_size_bytes);
+          assertEquals(2 * BLOCK_SIZE, plugin.max_available_space);
+        } else {
+          assertEquals(6 * BLOCK_SIZE, plugin.approx_size_bytes);
+          assertEquals(8 * BLOCK_SIZE, plugin.max_available_space);
+        }
+      }
+      assertTrue(isCached(cache, key("small", 3)));
+      assertFalse(isCached(cache, key("small", 1)));
+    }
+  }
+
+  @Test
+  public void testCachingReader() throws Exception {
+    final byte[] file = new byte[50];
+    for (int i = 0; i < file.length; i++) {
+      file[i] = (byte) i;
+    }
+    final AtomicInteger reads = new AtomicInteger();
+    final AsyncByteReader source = newSource(file, reads);
+
+    try (LocalBlockCache cache = newCache(1024)) {
+      final CachingAsyncByteReader reader = new CachingAsyncByteReader(source, cache, "s3", "/a.parquet", "1",
+        "s3.t", file.length, 100, null);
+      final ByteBuf dst = Unpooled.buffer(30);
+      final byte[] bytes = new byte[30];
+
+      // blocks 0 to 2 are read as a whole
+      reader.readFully(10, dst, 0, 30).get();
+      dst.getBytes(0, bytes);
+      assertArrayEquals(Arrays.copyOfRange(file, 10, 40), bytes);
+      assertEquals(3, reads.get());
+
+      dst.setZero(0, 30);
+      reader.readFully(20, dst, 0, 30).get();
+      dst.getBytes(0, bytes);
+      assertArrayEquals(Arrays.copyOfRange(file, 20, 50), bytes);
+      // only the last block is read from the source
+      assertEquals(4, reads.get());
+      dst.release();
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testCachingReaderWithoutBufferSpace() throws Exception {
+    final byte[] file = new byte[50];
+    for (int i = 0; i < file.length; i++) {
+      file[i] = (byte) i;
+    }
+    final AtomicInteger reads = new AtomicInteger();
+
+    // no block can be buffered, the ranges are read from the source without being cached
+    try (LocalBlockCache cache = newCache(1024, 0)) {
+      final CachingAsyncByteReader reader = new CachingAsyncByteReader(newSource(file, reads), cache, "s3",
+        "/a.parquet", "1", "s3.t", file.length, 100, null);
+      final ByteBuf dst = Unpooled.buffer(30);
+      final byte[] bytes = new byte[30];
+
+      for (int i = 0; i < 2; i++) {
+        dst.setZero(0, 30);
+        reader.readFully(10, dst, 0, 30).get();
+        dst.getBytes(0, bytes);
+        assertArrayEquals(Arrays.copyOfRange(file, 10, 40), bytes);
+      }
+      assertEquals(6, reads.get());
+      assertFalse(isCached(cache, key("s3", 1)));
+      dst.release();
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.common.collections.Tuple;
+import com.dremio.exec.store.cache.LocalBoostCache.BoostKey;
+import com.dremio.io.AsyncByteReader.ReaderStat;
+import com.dremio.io.FSInputStream;
+import com.dremio.io.FSOutputStream;
+
+/**
+ * Test for {@link LocalBoostCache}
+ */
+public class LocalBoostCacheTest {
+  private static final int FILE_SIZE = 16;
+
+  @Rule
+  public final TemporaryFolder tempDir = new TemporaryFolder();
+
+  private LocalBoostCache newCache(long maxSpace) throws Exception {
+    return new LocalBoostCache(Collections.singletonList(tempDir.newFolder().toPath()), maxSpace);
+  }
+
+  private static BoostKey key(int rowGroup, String column) {
+    return new BoostKey("s3", "/a.parquet", rowGroup, column);
+  }
+
+  private static byte[] content(int seed) {
+    final byte[] bytes = new byte[FILE_SIZE];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (seed + i);
+    }
+    return bytes;
+  }
+
+  private static void write(LocalBoostCache cache, BoostKey key, String version, int seed) throws IOException {
+    try (FSOutputStream out = cache.create(key, version)) {
+      out.write(content(seed));
+      assertEquals(FILE_SIZE, out.getPosition());
+    }
+    cache.commit(key, version);
+  }
+
+  private static byte[] read(LocalBoostCache cache, BoostKey key, String version) throws IOException {
+    final Tuple<FSInputStream, Long> boostFile = cache.open(key, version, null);
+    if (boostFile == null) {
+      return null;
+    }
+    try (FSInputStream in = boostFile.first) {
+      return IOUtils.toByteArray(in);
+    }
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    try (LocalBoostCache cache = newCache(1024)) {
+      write(cache, key(0, "a"), "1", 10);
+
+      final List<ReaderStat> stats = new ArrayList<>();
+      final Tuple<FSInputStream, Long> boostFile = cache.open(key(0, "a"), "1", stats);
+      assertNotNull(boostFile);
+      assertEquals(FILE_SIZE, (long) boostFile.second);
+      try (FSInputStream in = boostFile.first) {
+        in.setPosition(4);
+        final byte[] bytes = new byte[4];
+        IOUtils.readFully(in, bytes);
+        assertArrayEquals(new byte[] {14, 15, 16, 17}, bytes);
+      }
+      assertEquals(LocalBoostCache.BYTES_READ_STAT, stats.get(0).getName());
+      assertEquals(4, stats.get(0).getValue(), 0);
+
+      // another column or another row group
+      assertNull(read(cache, key(0, "b"), "1"));
+      assertNull(read(cache, key(1, "a"), "1"));
+    }
+  }
+
+  @Test
+  public void testUncommittedFilesAreNotRead() throws Exception {
+    try (LocalBoostCache cache = newCache(1024)) {
+      try (FSOutputStream out = cache.create(key(0, "a"), "1")) {
+        out.write(content(0));
+        assertNull(read(cache, key(0, "a"), "1"));
+        try {
+          cache.create(key(0, "a"), "1");
+          fail("The boost file is already being written");
+        } catch (IOException e) {
+          // expected
+        }
+      }
+      cache.abort(key(0, "a"), "1");
+      assertNull(read(cache, key(0, "a"), "1"));
+      assertEquals(0, cache.getUsedSpace());
+
+      // the column can be boosted again once aborted
+      write(cache, key(0, "a"), "1", 0);
+      assertArrayEquals(content(0), read(cache, key(0, "a"), "1"));
+    }
+  }
+
+  @Test
+  public void testNewVersionInvalidatesBoostFiles() throws Exception {
+    try (LocalBoostCache cache = newCache(1024)) {
+      write(cache, key(0, "a"), "1", 0);
+      write(cache, key(0, "b"), "1", 1);
+      write(cache, key(1, "a"), "1", 2);
+
+      // the parquet file was rewritten
+      assertNull(read(cache, key(0, "a"), "2"));
+      assertEquals(0, cache.getUsedSpace());
+      assertNull(read(cache, key(1, "a"), "1"));
+
+      write(cache, key(0, "a"), "2", 3);
+      assertArrayEquals(content(3), read(cache, key(0, "a"), "2"));
+      assertEquals(FILE_SIZE, cache.getUsedSpace());
+    }
+  }
+
+  @Test
+  public void testLeastRecentlyReadFilesAreEvicted() throws Exception {
+    try (LocalBoostCache cache = newCache(3 * FILE_SIZE)) {
+      for (int i = 0; i < 3; i++) {
+        write(cache, key(i, "a"), "1", i);
+      }
+      // the oldest boost file is read again, the next one is evicted
+      assertNotNull(read(cache, key(0, "a"), "1"));
+      write(cache, key(3, "a"), "1", 3);
+
+      assertNotNull(read(cache, key(0, "a"), "1"));
+      assertNull(read(cache, key(1, "a"), "1"));
+      assertNotNull(read(cache, key(2, "a"), "1"));
+      assertNotNull(read(cache, key(3, "a"), "1"));
+      assertEquals(3 * FILE_SIZE, cache.getUsedSpace());
+    }
+  }
+
+  @Test
+  public void testFilesLeftByPreviousRunAreDeleted() throws Exception {
+    final Path dir = tempDir.newFolder().toPath();
+    Files.write(dir.resolve("1"), content(0));
+    try (LocalBoostCache ignored = new LocalBoostCache(Collections.singletonList(dir), 1024)) {
+      try (Stream<Path> files = Files.list(dir)) {
+        assertEquals(0, files.count());
+      }
+    }
+  }
+}
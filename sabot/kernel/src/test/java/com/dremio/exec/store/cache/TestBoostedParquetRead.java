@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.hadoop.HadoopFileSystem;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.store.RecordWriter;
+import com.dremio.exec.store.SampleMutator;
+import com.dremio.exec.store.easy.arrow.ArrowFlatBufRecordWriter;
+import com.dremio.exec.store.parquet.InputStreamProvider;
+import com.dremio.exec.store.parquet.MutableParquetMetadata;
+import com.dremio.exec.store.parquet.ParquetDictionaryConvertor;
+import com.dremio.exec.store.parquet.ParquetFilterCreator;
+import com.dremio.exec.store.parquet.ParquetReaderFactory;
+import com.dremio.exec.store.parquet.ParquetScanProjectedColumns;
+import com.dremio.exec.store.parquet.SchemaDerivationHelper;
+import com.dremio.exec.store.parquet.SingleStreamProvider;
+import com.dremio.exec.store.parquet.UnifiedParquetReader;
+import com.dremio.io.AsyncByteReader.FileKey;
+import com.dremio.io.file.BoostedFileSystem;
+import com.dremio.io.file.Path;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.exec.context.OperatorContextImpl;
+import com.dremio.sabot.exec.store.parquet.proto.ParquetProtobuf.ParquetDatasetSplitScanXAttr;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+
+/**
+ * Test reading a row group of a parquet file through {@link UnifiedParquetReader} from the boost files of its
+ * columns, written the way the boost operator writes them.
+ */
+public class TestBoostedParquetRead extends BaseTestOperator {
+  private static final MessageType PARQUET_SCHEMA = MessageTypeParser.parseMessageType(
+    "message test { required int64 id; optional binary name (UTF8); }");
+  private static final BatchSchema SCHEMA = BatchSchema.of(
+    Field.nullable("id", new ArrowType.Int(64, true)),
+    Field.nullable("name", ArrowType.Utf8.INSTANCE));
+  private static final List<SchemaPath> COLUMNS =
+    Arrays.asList(SchemaPath.getSimplePath("id"), SchemaPath.getSimplePath("name"));
+  private static final int ROWS = 5_000;
+  private static final int BATCH_SIZE = 1_000;
+
+  @Rule
+  public final TemporaryFolder tempDir = new TemporaryFolder();
+
+  private final Configuration conf = new Configuration();
+  private File file;
+  private LocalBoostCache boostCache;
+  private BoostingFileSystem fs;
+
+  @Before
+  public void writeFile() throws Exception {
+    file = new File(tempDir.getRoot(), "test.parquet");
+    final SimpleGroupFactory groups = new SimpleGroupFactory(PARQUET_SCHEMA);
+    try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new org.apache.hadoop.fs.Path(file.toURI()))
+      .withType(PARQUET_SCHEMA)
+      .withConf(conf)
+      .build()) {
+      for (int i = 0; i < ROWS; i++) {
+        final Group group = groups.newGroup().append("id", (long) i);
+        if (i % 7 != 0) {
+          group.append("name", "name_" + i);
+        }
+        writer.write(group);
+      }
+    }
+
+    boostCache = new LocalBoostCache(Collections.singletonList(tempDir.newFolder().toPath()), Long.MAX_VALUE);
+    fs = new BoostingFileSystem(HadoopFileSystem.getLocal(conf), boostCache, "dfs");
+  }
+
+  @After
+  public void closeCache() {
+    boostCache.close();
+  }
+
+  /**
+   * Outcome of reading the row group.
+   */
+  private static final class ReadResult {
+    private final List<String> rows = new ArrayList<>();
+    private long columnsBoosted;
+    private List<String> columnsToBoost;
+  }
+
+  private OperatorContextImpl newContext() throws Exception {
+    final BufferAllocator allocator = getTestAllocator().newChildAllocator("boosted-read", 0, Long.MAX_VALUE);
+    return testContext.getNewOperatorContext(allocator, null, BATCH_SIZE);
+  }
+
+  /**
+   * Mutator holding the vectors of the table's columns, as the scan operator sets it up.
+   */
+  private static SampleMutator newMutator(BufferAllocator allocator) {
+    final SampleMutator mutator = new SampleMutator(allocator);
+    SCHEMA.materializeVectors(COLUMNS, mutator);
+    mutator.getContainer().buildSchema();
+    mutator.getAndResetSchemaChanged();
+    return mutator;
+  }
+
+  private UnifiedParquetReader newReader(OperatorContextImpl context, long version) throws Exception {
+    final MutableParquetMetadata footer;
+    try (ParquetFileReader reader = ParquetFileReader.open(
+      HadoopInputFile.fromPath(new org.apache.hadoop.fs.Path(file.toURI()), conf))) {
+      // the reader trims the row group from the footer when it is closed
+      footer = new MutableParquetMetadata(reader.getFooter());
+    }
+    final ParquetDatasetSplitScanXAttr readEntry = ParquetDatasetSplitScanXAttr.newBuilder()
+      .setPath(file.getAbsolutePath())
+      .setStart(0)
+      .setLength(file.length())
+      .setFileLength(file.length())
+      .setRowGroupIndex(0)
+      .setLastModificationTime(version)
+      .build();
+    final InputStreamProvider inputStreamProvider = new SingleStreamProvider(fs, Path.of(file.getAbsolutePath()),
+      file.length(), file.length(), false, footer, context, false);
+    final UnifiedParquetReader reader = new UnifiedParquetReader(context, ParquetReaderFactory.NONE, SCHEMA,
+      ParquetScanProjectedColumns.fromSchemaPaths(COLUMNS), null, null, ParquetFilterCreator.DEFAULT,
+      ParquetDictionaryConvertor.DEFAULT, readEntry, fs, footer, null, SchemaDerivationHelper.builder().build(),
+      false, false, false, inputStreamProvider, new ArrayList<>());
+    reader.setArrowCachingEnabled(true);
+    return reader;
+  }
+
+  /**
+   * Read the row group, from the boost files of its columns when they are present for the version.
+   */
+  private ReadResult read(long version) throws Exception {
+    final ReadResult result = new ReadResult();
+    try (OperatorContextImpl context = newContext();
+         SampleMutator mutator = newMutator(context.getAllocator())) {
+      try (UnifiedParquetReader reader = newReader(context, version)) {
+        reader.setup(mutator);
+        reader.allocate(mutator.getFieldVectorMap());
+        for (int count = reader.next(); count > 0; count = reader.next()) {
+          for (int i = 0; i < count; i++) {
+            result.rows.add(mutator.getVector("id").getObject(i) + ":" + mutator.getVector("name").getObject(i));
+          }
+          reader.allocate(mutator.getFieldVectorMap());
+        }
+        result.columnsToBoost = reader.getColumnsToBoost().stream()
+          .map(column -> column.getRootSegment().getPath())
+          .collect(Collectors.toList());
+      }
+      result.columnsBoosted = context.getStats().getLongStat(Metric.NUM_COLUMNS_BOOSTED);
+    }
+    return result;
+  }
+
+  /**
+   * Write the boost files of the columns of the row group, one batch of the parquet reader at a time.
+   */
+  private void boost(long version) throws Exception {
+    final BoostedFileSystem boostedFs = fs.getBoostedFilesystem();
+    final FileKey fileKey = FileKey.of(Path.of(file.getAbsolutePath()), Long.toString(version), FileKey.FileType.OTHER);
+    try (OperatorContextImpl context = newContext();
+         SampleMutator mutator = newMutator(context.getAllocator())) {
+      final List<RecordWriter> writers = new ArrayList<>();
+      final List<VectorContainer> containers = new ArrayList<>();
+      try (UnifiedParquetReader reader = newReader(context, version)) {
+        reader.setup(mutator);
+        for (SchemaPath column : COLUMNS) {
+          final String name = column.getRootSegment().getPath();
+          final RecordWriter writer = new ArrowFlatBufRecordWriter(context, boostedFs.createBoostFile(fileKey, 0, name));
+          writers.add(writer);
+          // container with just one column
+          final VectorContainer container = context.createOutputVectorContainer();
+          container.add(mutator.getVector(name));
+          container.buildSchema();
+          containers.add(container);
+          writer.setup(container, (a, b, c, d, e, f, g, partition) -> {}, b -> {});
+        }
+
+        reader.allocate(mutator.getFieldVectorMap());
+        for (int count = reader.next(); count > 0; count = reader.next()) {
+          for (int i = 0; i < writers.size(); i++) {
+            containers.get(i).setRecordCount(count);
+            writers.get(i).writeBatch(0, count);
+          }
+          reader.allocate(mutator.getFieldVectorMap());
+        }
+      } finally {
+        // the boost files are written on closing their writers
+        AutoCloseables.close(writers);
+      }
+    }
+    for (SchemaPath column : COLUMNS) {
+      boostedFs.commitBoostFile(fileKey, 0, column.getRootSegment().getPath());
+    }
+  }
+
+  @Test
+  public void testReadWithoutBoostFiles() throws Exception {
+    final ReadResult result = read(1);
+    assertEquals(ROWS, result.rows.size());
+    assertEquals(0, result.columnsBoosted);
+    assertEquals(Arrays.asList("id", "name"), result.columnsToBoost);
+  }
+
+  @Test
+  public void testBoostedRead() throws Exception {
+    final ReadResult expected = read(1);
+    boost(1);
+
+    final ReadResult result = read(1);
+    assertEquals(2, result.columnsBoosted);
+    assertTrue(result.columnsToBoost.isEmpty());
+    assertEquals(expected.rows, result.rows);
+  }
+
+  @Test
+  public void testNewFileVersion() throws Exception {
+    final ReadResult expected = read(1);
+    boost(1);
+
+    // the file changed after it was boosted, its row group is read from the parquet file
+    final ReadResult result = read(2);
+    assertEquals(0, result.columnsBoosted);
+    assertEquals(Arrays.asList("id", "name"), result.columnsToBoost);
+    assertEquals(expected.rows, result.rows);
+
+    // the boost files of the old version were dropped on opening the new one
+    assertEquals(0, read(1).columnsBoosted);
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.text.compliant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.exec.ExecTest;
+import com.dremio.io.FSInputStream;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Test closing a {@link ReadAheadInputStream} while it reads ahead.
+ */
+public class TestReadAheadInputStream extends ExecTest {
+  private static final int BUFFER_SIZE = 1024;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Stream of zeros whose reads after the first one block until released.
+   */
+  private static final class BlockingInputStream extends FSInputStream {
+    private final AtomicInteger reads = new AtomicInteger();
+    private final CountDownLatch readAheadStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean closed;
+    private volatile boolean readAfterClose;
+    private long position;
+
+    @Override
+    public int read(ByteBuffer dst) {
+      if (reads.getAndIncrement() > 0) {
+        readAheadStarted.countDown();
+        Uninterruptibles.awaitUninterruptibly(release);
+      }
+      if (closed) {
+        readAfterClose = true;
+      }
+      final int n = dst.remaining();
+      dst.put(new byte[n]);
+      position += n;
+      return n;
+    }
+
+    @Override
+    public int read() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getPosition() {
+      return position;
+    }
+
+    @Override
+    public void setPosition(long position) {
+      this.position = position;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  @Test
+  public void testCloseAfterInterruptedRead() throws Exception {
+    final ExecutorService closer = Executors.newSingleThreadExecutor();
+    try (ArrowBuf stagingBuffer = allocator.buffer(BUFFER_SIZE)) {
+      final BlockingInputStream input = new BlockingInputStream();
+      final ReadAheadInputStream stream = new ReadAheadInputStream(input, executor, stagingBuffer);
+      final ByteBuffer dst = ByteBuffer.allocate(BUFFER_SIZE);
+      // read synchronously, the next chunk is read ahead
+      assertEquals(BUFFER_SIZE, stream.read(dst));
+      assertTrue(input.readAheadStarted.await(10, TimeUnit.SECONDS));
+
+      Thread.currentThread().interrupt();
+      try {
+        dst.clear();
+        stream.read(dst);
+        fail("read should have been interrupted");
+      } catch (InterruptedIOException e) {
+        // expected
+      }
+      assertTrue(Thread.interrupted());
+
+      final Future<Boolean> closed = closer.submit(() -> {
+        Thread.currentThread().interrupt();
+        stream.close();
+        return Thread.currentThread().isInterrupted();
+      });
+      // the read ahead still writes into the staging buffer
+      try {
+        closed.get(100, TimeUnit.MILLISECONDS);
+        fail("close should wait for the read ahead");
+      } catch (TimeoutException e) {
+        // expected
+      }
+
+      input.release.countDown();
+      // the interrupt status is restored
+      assertTrue(closed.get(10, TimeUnit.SECONDS));
+      assertTrue(input.closed);
+      assertFalse(input.readAfterClose);
+    } finally {
+      closer.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCloseCancelsReadAheadNotStarted() throws Exception {
+    final CountDownLatch blocked = new CountDownLatch(1);
+    executor.submit(() -> Uninterruptibles.awaitUninterruptibly(blocked));
+    final BlockingInputStream input = new BlockingInputStream();
+    try (ArrowBuf stagingBuffer = allocator.buffer(BUFFER_SIZE)) {
+      final ReadAheadInputStream stream = new ReadAheadInputStream(input, executor, stagingBuffer);
+      assertEquals(BUFFER_SIZE, stream.read(ByteBuffer.allocate(BUFFER_SIZE)));
+
+      // the read ahead is queued behind the blocked task
+      stream.close();
+      assertTrue(input.closed);
+    } finally {
+      blocked.countDown();
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    // only the synchronous read reached the underlying stream
+    assertEquals(1, input.reads.get());
+  }
+}
@@ -28,6 +28,7 @@ import org.junit.Test;
 
 import com.dremio.BaseTestQuery;
 import com.dremio.common.exceptions.UserRemoteException;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.proto.UserBitShared;
 
 /**
@@ -45,8 +46,11 @@ public class TestTextReader extends BaseTestQuery {
   private static String TMP_CSV_FILE_TWO_ROWS = "my_two_rows.csv";
   // Multiple 8K chunks ending at newline
   private static String TMP_CSV_MULTIPLE_8K_CHUNKS = "multiple_8k_chunks.csv";
+  // file spanning multiple read buffers
+  private static String TMP_CSV_FILE_MULTIPLE_BUFFERS = "my_multiple_buffers.csv";
   // row count in count star file
   private static long ROW_COUNT = 1023;
+  private static long ROW_COUNT_MULTIPLE_BUFFERS = 100_000;
   private static long ROW_COUNT_8K_CHUNKS = 1442;
 
   // normal query
@@ -133,11 +137,20 @@ public class TestTextReader extends BaseTestQuery {
     "lineDelimiter => '\r\n'" +
     ", extractHeader => true, skipFirstLine => false, autoGenerateColumnNames => false))";
 
+  private static String QUERY_MULTIPLE_BUFFERS = "select count(*) as cnt, sum(char_length(B)) as len" +
+    ", sum(cast(A as bigint)) as total from table(" +
+    TEMP_SCHEMA + ".\"" + TMP_CSV_FILE_MULTIPLE_BUFFERS + "\"" +
+    " (type => 'text', fieldDelimiter => ',', " +
+    "comment => '#', quote => '\"', " +
+    "lineDelimiter => '\r\n'" +
+    ", extractHeader => false, skipFirstLine => false, autoGenerateColumnNames => true))";
+
   private static File tblPathSmall = null;
   private static File tblPathLarge = null;
   private static File tblPathCountStar = null;
   private static File tblPathTwoRows = null;
   private static File tblPathMultiple8kChunks = null;
+  private static File tblPathMultipleBuffers = null;
 
   @BeforeClass
   public static void beforeClass() throws Exception {
@@ -147,12 +160,14 @@ public class TestTextReader extends BaseTestQuery {
     tblPathCountStar = new File(getDfsTestTmpSchemaLocation(), TMP_CSV_FILE_COUNT_STAR);
     tblPathTwoRows = new File(getDfsTestTmpSchemaLocation(), TMP_CSV_FILE_TWO_ROWS);
     tblPathMultiple8kChunks = new File(getDfsTestTmpSchemaLocation(), TMP_CSV_MULTIPLE_8K_CHUNKS);
+    tblPathMultipleBuffers = new File(getDfsTestTmpSchemaLocation(), TMP_CSV_FILE_MULTIPLE_BUFFERS);
 
     FileUtils.deleteQuietly(tblPathSmall);
     FileUtils.deleteQuietly(tblPathLarge);
     FileUtils.deleteQuietly(tblPathCountStar);
     FileUtils.deleteQuietly(tblPathTwoRows);
     FileUtils.deleteQuietly(tblPathMultiple8kChunks);
+    FileUtils.deleteQuietly(tblPathMultipleBuffers);
     startTest();
   }
 
@@ -163,6 +178,7 @@ public class TestTextReader extends BaseTestQuery {
     FileUtils.deleteQuietly(tblPathCountStar);
     FileUtils.deleteQuietly(tblPathTwoRows);
     FileUtils.deleteQuietly(tblPathMultiple8kChunks);
+    FileUtils.deleteQuietly(tblPathMultipleBuffers);
   }
 
   private static void startTest() throws Exception {
@@ -215,6 +231,17 @@ public class TestTextReader extends BaseTestQuery {
       }
     }
 
+    try (FileWriter fwriter = new FileWriter(tblPathMultipleBuffers)) {
+      // values of all lengths, some with a lone carriage return, across the boundaries of the read buffers
+      for (long i = 0; i < ROW_COUNT_MULTIPLE_BUFFERS; i++) {
+        fwriter.append(Long.toString(i)).append(',');
+        for (int j = 0; j < i % 50; j++) {
+          fwriter.append(j == 10 ? '\r' : myChar);
+        }
+        fwriter.append("\r\n");
+      }
+    }
+
     FileUtils.copyFile(com.dremio.common.util.FileUtils.getResourceAsFile("/store/text/data/multiple_8k_chunks.csv"),
       tblPathMultiple8kChunks);
   }
@@ -327,4 +354,21 @@ public class TestTextReader extends BaseTestQuery {
       .baselineValues(ROW_COUNT_8K_CHUNKS)
       .go();
   }
+
+  @Test
+  public void testMultipleBuffers() throws Exception {
+    final long rowsPerCycle = 50;
+    final long cycles = ROW_COUNT_MULTIPLE_BUFFERS / rowsPerCycle;
+    for (boolean readAhead : new boolean[] {true, false}) {
+      try (AutoCloseable ignored = withOption(ExecConstants.TEXT_READ_AHEAD_ENABLED, readAhead)) {
+        testBuilder()
+          .sqlQuery(QUERY_MULTIPLE_BUFFERS)
+          .unOrdered()
+          .baselineColumns("cnt", "len", "total")
+          .baselineValues(ROW_COUNT_MULTIPLE_BUFFERS, cycles * (rowsPerCycle * (rowsPerCycle - 1) / 2),
+            ROW_COUNT_MULTIPLE_BUFFERS * (ROW_COUNT_MULTIPLE_BUFFERS - 1) / 2)
+          .go();
+      }
+    }
+  }
 }
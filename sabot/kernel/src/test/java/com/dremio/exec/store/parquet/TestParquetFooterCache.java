@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Unit tests for the executor wide parquet footer cache
+ */
+public class TestParquetFooterCache {
+
+  private static ParquetMetadata newFooter(int numBlocks) {
+    final MessageType schema = new MessageType("root",
+      new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveType.PrimitiveTypeName.INT32, "c"));
+    final List<BlockMetaData> blocks = Lists.newArrayList();
+    for (int i = 0; i < numBlocks; i++) {
+      blocks.add(new BlockMetaData());
+    }
+    return new ParquetMetadata(new FileMetaData(schema, Collections.emptyMap(), "test"), blocks);
+  }
+
+  private static Callable<ParquetMetadata> countingLoader(AtomicInteger loads, int numBlocks) {
+    return () -> {
+      loads.incrementAndGet();
+      return newFooter(numBlocks);
+    };
+  }
+
+  @Test
+  public void testFooterLoadedOnce() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final AtomicInteger loads = new AtomicInteger();
+
+    cache.getFooter("/a.parquet", 100, 1, countingLoader(loads, 2), null);
+    cache.getFooter("/a.parquet", 100, 1, countingLoader(loads, 2), null);
+    assertEquals(1, loads.get());
+
+    // a rewritten file gets its footer read again
+    cache.getFooter("/a.parquet", 100, 2, countingLoader(loads, 2), null);
+    cache.getFooter("/a.parquet", 200, 2, countingLoader(loads, 2), null);
+    assertEquals(3, loads.get());
+
+    final ParquetFooterCache.CacheInfo info = cache.getInfo("localhost", 0);
+    assertEquals(3, info.entries);
+    assertEquals(1, info.hit_count);
+    assertEquals(3, info.miss_count);
+    assertEquals(3 * ParquetFooterCache.estimateSize(newFooter(2)), info.estimated_size);
+  }
+
+  @Test
+  public void testFooterCopies() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final AtomicInteger loads = new AtomicInteger();
+
+    final ParquetMetadata footer = cache.getFooter("/a.parquet", 100, 1, countingLoader(loads, 2), null);
+    // readers remove the row groups they don't need from their footer
+    new MutableParquetMetadata(footer).removeRowGroupInformation(0);
+
+    final ParquetMetadata other = cache.getFooter("/a.parquet", 100, 1, countingLoader(loads, 2), null);
+    assertNotSame(footer.getBlocks(), other.getBlocks());
+    assertNull(footer.getBlocks().get(0));
+    assertNotNull(other.getBlocks().get(0));
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    final long footerSize = ParquetFooterCache.estimateSize(newFooter(1));
+    final ParquetFooterCache cache = new ParquetFooterCache(2 * footerSize);
+    final AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 10; i++) {
+      cache.getFooter("/" + i + ".parquet", 100, 1, countingLoader(loads, 1), null);
+    }
+
+    final ParquetFooterCache.CacheInfo info = cache.getInfo("localhost", 0);
+    assertEquals(10, loads.get());
+    assertEquals(info.entries * footerSize, info.estimated_size);
+    assertEquals(10 - info.entries, info.eviction_count);
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoadFailure() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    cache.getFooter("/a.parquet", 100, 1, () -> {
+      throw new IOException("not a parquet file");
+    }, null);
+  }
+}
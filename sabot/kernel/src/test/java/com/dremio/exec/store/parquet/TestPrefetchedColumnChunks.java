@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.ColumnChunkIncReadStore;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.ExecTest;
+import com.dremio.exec.hadoop.HadoopFileSystem;
+import com.dremio.io.AsyncByteReader;
+import com.dremio.io.CoalescingAsyncByteReader;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.Path;
+import com.dremio.options.OptionManager;
+import com.dremio.parquet.reader.ParquetDirectByteBufferAllocator;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Test the input stream providers reading the column chunks of a row group with and without prefetching them,
+ * through the page store of the row-wise parquet reader.
+ */
+public class TestPrefetchedColumnChunks extends ExecTest {
+  private static final MessageType SCHEMA = MessageTypeParser.parseMessageType(
+    "message test { required int64 id; optional binary name (UTF8); required double value; }");
+  private static final int ROWS = 10_000;
+
+  @Rule
+  public final TemporaryFolder tempDir = new TemporaryFolder();
+
+  private final Configuration conf = new Configuration();
+  private File file;
+  private byte[] fileBytes;
+  private ParquetMetadata footer;
+  private List<String> expected;
+  private OperatorContext context;
+
+  @Before
+  public void writeFile() throws Exception {
+    file = new File(tempDir.getRoot(), "test.parquet");
+    final org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(file.toURI());
+    final SimpleGroupFactory groups = new SimpleGroupFactory(SCHEMA);
+    // many pages per column chunk, in a single row group
+    try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(hadoopPath)
+      .withType(SCHEMA)
+      .withConf(conf)
+      .withPageSize(1024)
+      .withDictionaryEncoding(false)
+      .build()) {
+      for (int i = 0; i < ROWS; i++) {
+        final Group group = groups.newGroup().append("id", (long) i).append("value", i / 10.0);
+        if (i % 7 != 0) {
+          group.append("name", "name_" + i);
+        }
+        writer.write(group);
+      }
+    }
+    fileBytes = Files.readAllBytes(file.toPath());
+
+    try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(hadoopPath, conf))) {
+      footer = reader.getFooter();
+    }
+    assertEquals(1, footer.getBlocks().size());
+
+    expected = new ArrayList<>();
+    try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), hadoopPath).withConf(conf).build()) {
+      for (Group group = reader.read(); group != null; group = reader.read()) {
+        expected.add(group.toString());
+      }
+    }
+    assertEquals(ROWS, expected.size());
+
+    final OptionManager options = mock(OptionManager.class);
+    when(options.getOption(ExecConstants.PARQUET_VECTORED_READ_MAX_SIZE)).thenReturn(8L * 1024 * 1024);
+    when(options.getOption(ExecConstants.PARQUET_VECTORED_READ_MAX_BUFFERED)).thenReturn(64L * 1024 * 1024);
+    context = mock(OperatorContext.class);
+    when(context.getAllocator()).thenReturn(allocator);
+    when(context.getOptions()).thenReturn(options);
+  }
+
+  /**
+   * Asynchronous reader of the file, counting its requests.
+   */
+  private AsyncByteReader newAsyncReader(AtomicInteger requests) {
+    final AsyncByteReader source = (offset, dst, dstOffset, len) -> {
+      requests.incrementAndGet();
+      dst.setBytes(dstOffset, fileBytes, (int) offset, len);
+      return CompletableFuture.completedFuture(null);
+    };
+    return new CoalescingAsyncByteReader(source, allocator, 128 * 1024, 8 * 1024 * 1024);
+  }
+
+  private InputStreamProvider newProvider(boolean singleStream, AsyncByteReader asyncReader) throws Exception {
+    final FileSystem fs = HadoopFileSystem.getLocal(conf);
+    final Path path = Path.of(file.getAbsolutePath());
+    final MutableParquetMetadata mutableFooter = new MutableParquetMetadata(footer);
+    return singleStream
+      ? new SingleStreamProvider(fs, path, file.length(), fileBytes.length, false, mutableFooter, context, false, asyncReader)
+      : new StreamPerColumnProvider(fs, path, file.length(), fileBytes.length, mutableFooter, context, false, asyncReader);
+  }
+
+  /**
+   * Read the records of the row group the way the row-wise reader does.
+   *
+   * @return the number of requests of the asynchronous reader
+   */
+  private int checkRecords(boolean singleStream, boolean prefetch) throws Exception {
+    final AtomicInteger requests = new AtomicInteger();
+    final BlockMetaData block = footer.getBlocks().get(0);
+    final CodecFactory codec = CodecFactory.createDirectCodecFactory(conf, new ParquetDirectByteBufferAllocator(allocator), 0);
+    try (InputStreamProvider provider = newProvider(singleStream, newAsyncReader(requests))) {
+      if (prefetch) {
+        provider.prefetchColumns(block.getColumns());
+      }
+      final ColumnChunkIncReadStore store = new ColumnChunkIncReadStore(block.getRowCount(), codec, allocator,
+        Path.of(file.getAbsolutePath()), provider);
+      try {
+        for (ColumnChunkMetaData column : block.getColumns()) {
+          store.addColumn(SCHEMA.getColumnDescription(column.getPath().toArray()), column);
+        }
+        final MessageColumnIO columnIO = new ColumnIOFactory(false).getColumnIO(SCHEMA, SCHEMA);
+        final RecordReader<Group> reader = columnIO.getRecordReader(store, new GroupRecordConverter(SCHEMA));
+        final List<String> actual = new ArrayList<>();
+        for (int i = 0; i < block.getRowCount(); i++) {
+          actual.add(reader.read().toString());
+        }
+        assertEquals(expected, actual);
+      } finally {
+        store.close();
+      }
+    } finally {
+      codec.release();
+    }
+    assertEquals(0, allocator.getAllocatedMemory());
+    return requests.get();
+  }
+
+  @Test
+  public void testSingleStream() throws Exception {
+    assertEquals(0, checkRecords(true, false));
+  }
+
+  @Test
+  public void testSingleStreamPrefetched() throws Exception {
+    // the adjacent chunks are read with a single request
+    assertEquals(1, checkRecords(true, true));
+  }
+
+  @Test
+  public void testStreamPerColumn() throws Exception {
+    assertEquals(0, checkRecords(false, false));
+  }
+
+  @Test
+  public void testStreamPerColumnPrefetched() throws Exception {
+    assertEquals(1, checkRecords(false, true));
+  }
+
+  @Test
+  public void testInterruptedPrefetch() throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // the chunks are written into after the wait for them is interrupted
+      final AsyncByteReader source = (offset, dst, dstOffset, len) -> CompletableFuture.runAsync(() -> {
+        Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+        dst.setBytes(dstOffset, fileBytes, (int) offset, len);
+      }, executor);
+      final AsyncByteReader reader = new CoalescingAsyncByteReader(source, allocator, 128 * 1024, 8 * 1024 * 1024);
+
+      Thread.currentThread().interrupt();
+      try {
+        PrefetchedColumnChunks.read(reader, allocator, footer.getBlocks().get(0).getColumns(), Long.MAX_VALUE,
+          Long.MAX_VALUE);
+        fail("read should have been interrupted");
+      } catch (InterruptedIOException e) {
+        // expected
+      }
+      assertTrue(Thread.interrupted());
+      // the chunks and the merged request's buffer are released once the request is over
+      assertEquals(0, allocator.getAllocatedMemory());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -391,6 +391,26 @@ public class CustomHashAggDataGenerator implements Generator {
              rows).orderInsensitive();
   }
 
+  /**
+   * @return the expected groups, with the sum and the number of distinct values of INT_MEASURE and the number of
+   * distinct values of BIGINT_MEASURE, computed as HyperLogLog sketches
+   */
+  public Fixtures.Table getExpectedGroupsAndNdvs() {
+    final Fixtures.DataRow[] rows = new Fixtures.DataRow[GROUPS_PER_BATCH * batches];
+    int row = 0;
+    for (Map.Entry<Key, Value> pair : aggregatedResults.entrySet()) {
+      final Key k = pair.getKey();
+      final Value v = pair.getValue();
+      // measures never repeat, so every value of a group is distinct
+      rows[row] = tr(k.intKey, k.bigintKey, k.varKey, Float.intBitsToFloat(k.floatKey), Double.longBitsToDouble(k.doubleKey), k.booleanKey, k.decimalKey,
+                     v.sumInt, Fixtures.hllEstimate(v.countInt), Fixtures.hllEstimate(v.countBigInt));
+      row++;
+    }
+    return t(th("INT_KEY", "BIGINT_KEY", "VARCHAR_KEY", "FLOAT_KEY", "DOUBLE_KEY", "BOOLEAN_KEY", "DECIMAL_KEY",
+                "SUM_INT", "NDV_INT", "NDV_BIGINT"),
+             rows).orderInsensitive();
+  }
+
   public Fixtures.Table getExpectedGroupsAndAggregationsWithCount() {
     final Fixtures.DataRow[] rows = new Fixtures.DataRow[GROUPS_PER_BATCH * batches];
     Iterator iterator = aggregatedResults.entrySet().iterator();
@@ -67,6 +67,7 @@ import com.dremio.exec.record.selection.SelectionVector2;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.BaseEncoding;
+import com.yahoo.sketches.hll.HllSketch;
 
 import de.vandermeer.asciitable.v2.V2_AsciiTable;
 import de.vandermeer.asciitable.v2.render.V2_AsciiTableRenderer;
@@ -617,6 +618,13 @@ public final class Fixtures {
   }
 
 
+  /**
+   * @return a cell matching a HyperLogLog sketch whose estimate rounds to the given number of distinct values.
+   */
+  public static Cell hllEstimate(long ndv) {
+    return new HllEstimate(ndv);
+  }
+
   public interface Cell {
     Field toField(String name);
     CellCompare compare(ValueVector vector, int index, boolean isValid);
@@ -729,6 +737,35 @@ public final class Fixtures {
     }
   }
 
+  private static class HllEstimate extends ValueCell<Long> {
+
+    public HllEstimate(Long obj) {
+      super(obj);
+    }
+
+    @Override
+    ArrowType getType() {
+      return ArrowType.Binary.INSTANCE;
+    }
+
+    @Override
+    public CellCompare compare(ValueVector vector, int index, boolean isValid) {
+      if(!isValid){
+        return new CellCompare(false, "null (" + obj + ")");
+      }
+      final long estimate = Math.round(HllSketch.heapify(((VarBinaryVector) vector).get(index)).getEstimate());
+      if(estimate == obj){
+        return new CellCompare(true, Long.toString(estimate));
+      }
+      return new CellCompare(false, estimate + " (" + obj + ")");
+    }
+
+    @Override
+    public void set(ValueVector v, int index) {
+      throw new UnsupportedOperationException("HyperLogLog estimates can only be compared with sketches.");
+    }
+  }
+
   private static class BigInt extends ValueCell<Long> {
 
     public BigInt(Long obj) {
@@ -47,6 +47,8 @@ import com.dremio.sabot.CustomHashAggDataGeneratorDecimal;
 import com.dremio.sabot.CustomHashAggDataGeneratorLargeAccum;
 import com.dremio.sabot.Fixtures;
 import com.dremio.sabot.exec.context.OperatorContextImpl;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.aggregate.vectorized.HashAggStats;
 import com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator;
 import com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggSpillStats;
 import com.dremio.test.AllocatorRule;
@@ -61,6 +63,10 @@ public class TestSpillingHashAgg extends BaseTestOperator {
   public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
 
   private HashAggregate getHashAggregate(long reserve, long max, int hashTableBatchSize) {
+    return getHashAggregate(reserve, max, hashTableBatchSize, false);
+  }
+
+  private HashAggregate getHashAggregate(long reserve, long max, int hashTableBatchSize, boolean partial) {
     OpProps props = PROPS.cloneWithNewReserve(reserve).cloneWithMemoryExpensive(true);
     props.setMemLimit(max);
     return new HashAggregate(props, null,
@@ -85,7 +91,8 @@ public class TestSpillingHashAgg extends BaseTestOperator {
                              true,
                              true,
                              1f,
-                              hashTableBatchSize);
+                             hashTableBatchSize,
+                             partial);
   }
 
   private HashAggregate getHashAggregateWithLargeAccum(long reserve, long max, int hashTableBatchSize, int numAccum) {
@@ -106,6 +113,22 @@ public class TestSpillingHashAgg extends BaseTestOperator {
       hashTableBatchSize);
   }
 
+  private HashAggregate getHashAggregateWithNdv(long reserve, long max, int hashTableBatchSize) {
+    OpProps props = PROPS.cloneWithNewReserve(reserve).cloneWithMemoryExpensive(true);
+    props.setMemLimit(max);
+    return new HashAggregate(props, null,
+      Arrays.asList(n("INT_KEY"), n("BIGINT_KEY"), n("VARCHAR_KEY"),
+        n("FLOAT_KEY"), n("DOUBLE_KEY"), n("BOOLEAN_KEY"), n("DECIMAL_KEY")),
+      Arrays.asList(n("sum(INT_MEASURE)", "SUM_INT"),
+        n("hll(INT_MEASURE)", "NDV_INT"),
+        n("hll(BIGINT_MEASURE)", "NDV_BIGINT")
+      ),
+      true,
+      true,
+      1f,
+      hashTableBatchSize);
+  }
+
   private HashAggregate getHashAggregate(long reserve, long max) {
     return getHashAggregate(reserve, max, 3968);
   }
@@ -146,6 +169,35 @@ public class TestSpillingHashAgg extends BaseTestOperator {
     }
   }
 
+  /**
+   * Test the first phase of a two phase aggregation, when it stops aggregating its whole input
+   * @throws Exception
+   */
+  @Test
+  public void testPartialAggBypass() throws Exception {
+    final HashAggregate agg = getHashAggregate(1_000_000, 12_000_000, 990, true);
+    try (AutoCloseable useSpillingAgg = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_USE_SPILLING_OPERATOR, true);
+         AutoCloseable numPartitions = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_NUMPARTITIONS, 1);
+         AutoCloseable sampleBatches = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_ADAPTIVE_PARTIAL_SAMPLE_BATCHES, 2)) {
+      /* each group repeats 5 times in a single batch, so the groups flushed every 990 groups are all complete */
+      try (CustomHashAggDataGenerator generator = new CustomHashAggDataGenerator(20000, getTestAllocator(), true);
+           AutoCloseable minReduction = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_ADAPTIVE_PARTIAL_MIN_REDUCTION, 10.0d)) {
+        Fixtures.Table table = generator.getExpectedGroupsAndAggregations();
+        final OperatorStats stats = validateSingle(agg, VectorizedHashAggOperator.class, generator, table, 1000);
+        assertEquals(1, stats.getLongStat(HashAggStats.Metric.PARTIAL_AGG_BYPASSED));
+        assertEquals(500, stats.getLongStat(HashAggStats.Metric.PARTIAL_AGG_REDUCTION_RATIO));
+        assertEquals(1, agg.getSpillStats().getIterations());
+      }
+      /* groups reduce the records enough with the default ratio */
+      try (CustomHashAggDataGenerator generator = new CustomHashAggDataGenerator(20000, getTestAllocator(), true)) {
+        Fixtures.Table table = generator.getExpectedGroupsAndAggregations();
+        final OperatorStats stats = validateSingle(agg, VectorizedHashAggOperator.class, generator, table, 1000);
+        assertEquals(0, stats.getLongStat(HashAggStats.Metric.PARTIAL_AGG_BYPASSED));
+        assertEquals(500, stats.getLongStat(HashAggStats.Metric.PARTIAL_AGG_REDUCTION_RATIO));
+      }
+    }
+  }
+
   /**
    * Tests with varchar key of length > 32k
    * @throws Exception
@@ -374,6 +426,30 @@ public class TestSpillingHashAgg extends BaseTestOperator {
     }
   }
 
+  /**
+   * Test spill of 3K rows with LZ4 compressed spill files
+   * @throws Exception
+   */
+  @Test
+  public void testSpill3KCompressed() throws Exception {
+    final HashAggregate agg = getHashAggregate(1_000_000, 4_000_000, 990);
+    try (AutoCloseable useSpillingAgg = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_USE_SPILLING_OPERATOR, true);
+         AutoCloseable maxHashTableBatchSizeBytes = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_MAX_BATCHSIZE_BYTES, 128 * 1024);
+         AutoCloseable compress = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_COMPRESS_SPILL, true)) {
+      try (CustomHashAggDataGenerator generator = new CustomHashAggDataGenerator(3000, getTestAllocator(), true);
+           AutoCloseable options = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_MINIMIZE_DISTINCT_SPILLED_PARTITIONS, false)) {
+        Fixtures.Table table = generator.getExpectedGroupsAndAggregations();
+        validateSingle(agg, VectorizedHashAggOperator.class, generator, table, 3000);
+        final VectorizedHashAggSpillStats stats = agg.getSpillStats();
+        assertEquals(12, stats.getSpills());
+        assertEquals(1, stats.getRecursionDepth());
+        assertTrue(stats.getCompressionNanos() > 0);
+        assertTrue(stats.getDecompressionNanos() > 0);
+        assertTrue(stats.getCompressionRatio() > 1);
+      }
+    }
+  }
+
   @Test
   public void testSpill3KWithLargeAccum() throws Exception {
     final int numAccum = 128;
@@ -392,6 +468,27 @@ public class TestSpillingHashAgg extends BaseTestOperator {
     }
   }
 
+  /**
+   * Test spill of 3K rows with NDV accumulators, whose sketches are spilled and merged back
+   * @throws Exception
+   */
+  @Test
+  public void testSpill3KWithNdv() throws Exception {
+    final HashAggregate agg = getHashAggregateWithNdv(1_000_000, 4_000_000, 64);
+    try (AutoCloseable useSpillingAgg = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_USE_SPILLING_OPERATOR, true);
+         AutoCloseable numpartitions = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_NUMPARTITIONS, 1)) {
+      try (CustomHashAggDataGenerator generator = new CustomHashAggDataGenerator(3000, getTestAllocator(), true);
+           AutoCloseable options = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_MINIMIZE_DISTINCT_SPILLED_PARTITIONS, false)) {
+        Fixtures.Table table = generator.getExpectedGroupsAndNdvs();
+        validateSingle(agg, VectorizedHashAggOperator.class, generator, table, 3000);
+        final VectorizedHashAggSpillStats stats = agg.getSpillStats();
+
+        //it must spill
+        assertTrue(stats.getSpills() > 0);
+      }
+    }
+  }
+
   @Test
   public void testSpill50KDecimal() throws Exception {
     final HashAggregate agg = getHashAggregateDecimal(1_000_000, 2_100_000, 990);
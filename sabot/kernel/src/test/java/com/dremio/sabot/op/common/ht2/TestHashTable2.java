@@ -466,4 +466,97 @@ public class TestHashTable2 extends DremioTest {
       }
     }
   }
+
+  @Test
+  public void testIncrementalRehash() throws Exception {
+    MAX_VALUES_PER_BATCH = 1024;
+    // one slot per insertion doesn't finish migrating before the next resize
+    incrementalRehashHelper(1);
+    incrementalRehashHelper(16);
+    MAX_VALUES_PER_BATCH = 990;
+    incrementalRehashHelper(4);
+  }
+
+  private void incrementalRehashHelper(final int incrementalRehashStep) throws Exception {
+    final Random random = new Random();
+    final String[] col1Arr = new String[12 * MAX_VALUES_PER_BATCH];
+    final Integer[] col2Arr = new Integer[col1Arr.length];
+    for (int i = 0; i < col1Arr.length; i++) {
+      // every key is inserted twice, the second time while the table may be migrating
+      final int key = i % (col1Arr.length / 2);
+      col1Arr[i] = String.format("%05d", key);
+      col2Arr[i] = key % 5 == 0 ? null : key;
+    }
+    for (int i = col1Arr.length / 2; i < col1Arr.length; i++) {
+      final int j = col1Arr.length / 2 + random.nextInt(col1Arr.length - i);
+      final String tmp1 = col1Arr[i];
+      col1Arr[i] = col1Arr[j];
+      col1Arr[j] = tmp1;
+      final Integer tmp2 = col2Arr[i];
+      col2Arr[i] = col2Arr[j];
+      col2Arr[j] = tmp2;
+    }
+
+    try (final BufferAllocator allocator = allocatorRule.newAllocator("test-hash-table-2", 0, Long.MAX_VALUE);
+         final VectorContainer c = new VectorContainer()) {
+
+      VarCharVector col1 = new VarCharVector("col1", allocator);
+      TestVarBinaryPivot.populate(col1, col1Arr);
+      c.add(col1);
+      IntVector col2 = new IntVector("col2", allocator);
+      TestIntPivot.populate(col2, col2Arr);
+      c.add(col2);
+      final int records = c.setAllCount(col1Arr.length);
+      final PivotDef pivot = PivotBuilder.getBlockDefinition(
+          new FieldVectorPair(col1, col1),
+          new FieldVectorPair(col2, col2)
+      );
+      try (
+          final FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+          final VariableBlockVector var = new VariableBlockVector(allocator, pivot.getVariableCount());) {
+
+        Pivots.pivot(pivot, records, fbv, var);
+
+        try (LBlockHashTable expected = new LBlockHashTable(HashConfig.getDefault(), pivot, allocator,
+            200, 10, true, ResizeListener.NO_OP, MAX_VALUES_PER_BATCH);
+             LBlockHashTable bht = new LBlockHashTable(HashConfig.getDefault(), pivot, allocator,
+            200, 10, true, ResizeListener.NO_OP, MAX_VALUES_PER_BATCH, incrementalRehashStep);
+             SimpleBigIntVector hashValues = new SimpleBigIntVector("hashvalues", allocator)) {
+          final long keyFixedVectorAddr = fbv.getMemoryAddress();
+          final long keyVarVectorAddr = var.getMemoryAddress();
+
+          hashValues.allocateNew(records);
+          final BlockChunk blockChunk = new BlockChunk(keyFixedVectorAddr, keyVarVectorAddr, false,
+              pivot.getBlockWidth(), records, hashValues.getBufferAddress(), 0);
+          HashComputation.computeHash(blockChunk);
+
+          final int[] expectedOrdinals = new int[records];
+          final int[] actualOrdinals = new int[records];
+          for (int keyIndex = 0; keyIndex < records; keyIndex++) {
+            final int keyHash = (int)hashValues.get(keyIndex);
+            expectedOrdinals[keyIndex] = expected.add(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash);
+            actualOrdinals[keyIndex] = bht.add(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash);
+          }
+          assertArrayEquals("ordinals mismatch", expectedOrdinals, actualOrdinals);
+          assertEquals("Absolute size mismatch", expected.size(), bht.size());
+          assertEquals("Capacity mismatch", expected.capacity(), bht.capacity());
+          assertEquals("Rehash count mismatch", expected.getRehashCount(), bht.getRehashCount());
+          assertTrue(bht.getRehashCount() > 1);
+
+          for (int keyIndex = 0; keyIndex < records; keyIndex++) {
+            final int keyHash = (int)hashValues.get(keyIndex);
+            assertEquals(expectedOrdinals[keyIndex], bht.find(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash));
+          }
+
+          // a resize in progress is dropped with the entries
+          bht.resetToMinimumSize();
+          for (int keyIndex = 0; keyIndex < records; keyIndex++) {
+            final int keyHash = (int)hashValues.get(keyIndex);
+            actualOrdinals[keyIndex] = bht.add(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash);
+          }
+          assertArrayEquals("ordinals mismatch after reset", expectedOrdinals, actualOrdinals);
+        }
+      }
+    }
+  }
 }
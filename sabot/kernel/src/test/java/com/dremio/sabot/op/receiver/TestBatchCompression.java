@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.receiver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.BigIntVector;
+import org.junit.Test;
+
+import com.dremio.exec.proto.ExecRPC.BatchCompressionCodec;
+import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.exec.record.ArrowRecordBatchLoader;
+import com.dremio.exec.record.FragmentWritableBatch;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.BaseTestWithAllocator;
+import com.dremio.sabot.op.sender.BatchCompressor;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Round trip tests for {@link BatchCompressor} and {@link BatchDecompressor}
+ */
+public class TestBatchCompression extends BaseTestWithAllocator {
+
+  private static final int RECORD_COUNT = 4096;
+
+  private VectorContainer createContainer() {
+    final VectorContainer container = new VectorContainer(allocator);
+    final BigIntVector repeating = container.addOrGet("repeating", BigIntVector.class);
+    final BigIntVector random = container.addOrGet("random", BigIntVector.class);
+    container.buildSchema();
+
+    final Random rand = new Random(42);
+    repeating.allocateNew(RECORD_COUNT);
+    random.allocateNew(RECORD_COUNT);
+    for (int i = 0; i < RECORD_COUNT; i++) {
+      repeating.set(i, i % 10);
+      random.set(i, rand.nextLong());
+    }
+    container.setAllCount(RECORD_COUNT);
+    return container;
+  }
+
+  private RawFragmentBatch toRawBatch(FragmentWritableBatch writableBatch) {
+    long length = 0;
+    for (ByteBuf buf : writableBatch.getBuffers()) {
+      length += buf.readableBytes();
+    }
+    try (ArrowBuf body = allocator.buffer(length)) {
+      long offset = 0;
+      for (ByteBuf buf : writableBatch.getBuffers()) {
+        final int size = buf.readableBytes();
+        body.setBytes(offset, buf.nioBuffer());
+        offset += size;
+        buf.release();
+      }
+      body.writerIndex(length);
+      return new RawFragmentBatch(writableBatch.getHeader(), body, null);
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    final BatchCompressor compressor = new BatchCompressor(allocator, BatchCompressionCodec.LZ4_BLOCK, 0.9, 0);
+    final BatchDecompressor decompressor = new BatchDecompressor(allocator);
+
+    try (VectorContainer container = createContainer();
+         VectorContainer out = VectorContainer.create(allocator, container.getSchema())) {
+      final FragmentWritableBatch writableBatch = FragmentWritableBatch.create(QueryId.getDefaultInstance(),
+        0, 0, 0, container, compressor, 0);
+      assertEquals(BatchCompressionCodec.LZ4_BLOCK, writableBatch.getHeader().getCompressionCodec());
+      assertTrue(compressor.getCompressedBytes() < compressor.getUncompressedBytes());
+
+      final ArrowRecordBatchLoader loader = new ArrowRecordBatchLoader(out);
+      try (RawFragmentBatch raw = toRawBatch(writableBatch);
+           RawFragmentBatch decompressed = decompressor.decompress(raw)) {
+        assertNotSame(raw, decompressed);
+        assertEquals(BatchCompressionCodec.UNCOMPRESSED, decompressed.getHeader().getCompressionCodec());
+        assertEquals(raw.getByteCount(), decompressor.getCompressedBytes());
+        assertEquals(compressor.getUncompressedBytes(), decompressor.getUncompressedBytes());
+        loader.load(decompressed);
+      }
+
+      assertEquals(RECORD_COUNT, loader.getRecordCount());
+      final BigIntVector repeating = container.getValueAccessorById(BigIntVector.class, 0).getValueVector();
+      final BigIntVector random = container.getValueAccessorById(BigIntVector.class, 1).getValueVector();
+      final BigIntVector outRepeating = out.getValueAccessorById(BigIntVector.class, 0).getValueVector();
+      final BigIntVector outRandom = out.getValueAccessorById(BigIntVector.class, 1).getValueVector();
+      for (int i = 0; i < RECORD_COUNT; i++) {
+        assertEquals(repeating.get(i), outRepeating.get(i));
+        assertEquals(random.get(i), outRandom.get(i));
+      }
+      loader.close();
+    }
+  }
+
+  @Test
+  public void testIncompressibleBatchIsSentAsIs() throws Exception {
+    // no buffer compresses down to nothing
+    final BatchCompressor compressor = new BatchCompressor(allocator, BatchCompressionCodec.LZ4_BLOCK, 0.0, 0);
+    final BatchDecompressor decompressor = new BatchDecompressor(allocator);
+
+    try (VectorContainer container = createContainer()) {
+      final FragmentWritableBatch writableBatch = FragmentWritableBatch.create(QueryId.getDefaultInstance(),
+        0, 0, 0, container, compressor, 0);
+      assertEquals(BatchCompressionCodec.UNCOMPRESSED, writableBatch.getHeader().getCompressionCodec());
+      assertEquals(compressor.getUncompressedBytes(), compressor.getCompressedBytes());
+
+      try (RawFragmentBatch raw = toRawBatch(writableBatch)) {
+        assertSame(raw, decompressor.decompress(raw));
+      }
+    }
+  }
+}
@@ -71,7 +71,7 @@ public class TestMemoryRun extends BaseTestOperator {
   public void testQuickSorterCloseToCopier() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, false, 8192, mock(ExecutionControls.class))) {
+      2, false, false, 8192, mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToCopier(memoryRun, 100, totalAdded);
     }
@@ -81,7 +81,27 @@ public class TestMemoryRun extends BaseTestOperator {
   public void testQuickSorterCloseToDisk() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, false, 8192, mock(ExecutionControls.class))) {
+      2, false, false, 8192, mock(ExecutionControls.class))) {
+      int totalAdded = addBatches(memoryRun);
+      validateCloseToDisk(memoryRun, totalAdded);
+    }
+  }
+
+  @Test
+  public void testQuickSorterNormalizedKeysCloseToCopier() throws Exception {
+    final ExternalSortTracer tracer = new ExternalSortTracer();
+    try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
+      2, false, true, 8192, mock(ExecutionControls.class))) {
+      int totalAdded = addBatches(memoryRun);
+      validateCloseToCopier(memoryRun, 100, totalAdded);
+    }
+  }
+
+  @Test
+  public void testQuickSorterNormalizedKeysCloseToDisk() throws Exception {
+    final ExternalSortTracer tracer = new ExternalSortTracer();
+    try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
+      2, false, true, 8192, mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToDisk(memoryRun, totalAdded);
     }
@@ -91,7 +111,7 @@ public class TestMemoryRun extends BaseTestOperator {
   public void testSplayTreeCloseToCopier() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, true, 8192, mock(ExecutionControls.class))) {
+      2, true, false, 8192, mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToCopier(memoryRun, 100, totalAdded);
     }
@@ -101,7 +121,7 @@ public class TestMemoryRun extends BaseTestOperator {
   public void testSplayTreeCloseToDisk() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, true, 8192, mock(ExecutionControls.class))) {
+      2, true, false, 8192, mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToDisk(memoryRun, totalAdded);
     }
@@ -120,7 +140,7 @@ public class TestMemoryRun extends BaseTestOperator {
   private void testStartMicroSpilling(boolean useSplaySort) throws Exception{
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, useSplaySort, 8192, mock(ExecutionControls.class))) {
+      2, useSplaySort, false, 8192, mock(ExecutionControls.class))) {
       final int totalAdded = addBatches(memoryRun);
       final DiskRunManager diskRunManager = mock(DiskRunManager.class);
 
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.calcite.rel.RelFieldCollation.Direction;
+import org.apache.calcite.rel.RelFieldCollation.NullDirection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.logical.data.Order.Ordering;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.test.AllocatorRule;
+import com.dremio.test.DremioTest;
+
+/**
+ * Tests {@link NormalizedKeys}: whenever the keys of two records differ, they must be in the order of the generated
+ * comparator, for all directions and null orderings.
+ */
+public class TestNormalizedKeys extends DremioTest {
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+  private VectorContainer container;
+
+  @Before
+  public void setup() {
+    allocator = allocatorRule.newAllocator("test-normalized-keys", 0, Long.MAX_VALUE);
+    container = new VectorContainer(allocator);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    container.close();
+    allocator.close();
+  }
+
+  /**
+   * Compares records the way the generated comparator of an ordering does.
+   *
+   * @param compareValues compares the values of two non null records
+   */
+  private static int compare(ValueVector vector, int left, int right, IntBinaryOperator compareValues,
+                             Ordering ordering) {
+    final int cmp;
+    if (vector.isNull(left)) {
+      cmp = vector.isNull(right) ? 0 : (ordering.nullsSortHigh() ? 1 : -1);
+    } else if (vector.isNull(right)) {
+      cmp = ordering.nullsSortHigh() ? -1 : 1;
+    } else {
+      cmp = compareValues.applyAsInt(left, right);
+    }
+    return ordering.getDirection() == Direction.DESCENDING ? -cmp : cmp;
+  }
+
+  /**
+   * Check the keys of the records of the container, sorted on its only column, against the comparator.
+   *
+   * @return whether records with different values had equal keys, in which case the sorter falls back to the
+   * comparator
+   */
+  private boolean checkKeys(IntBinaryOperator compareValues, boolean expectExact) {
+    final ValueVector vector = container.getValueAccessorById(ValueVector.class, 0).getValueVector();
+    final int count = container.getRecordCount();
+    boolean sawTies = false;
+
+    for (Direction direction : Arrays.asList(Direction.ASCENDING, Direction.DESCENDING)) {
+      for (NullDirection nullDirection : Arrays.asList(NullDirection.FIRST, NullDirection.LAST)) {
+        final Ordering ordering = new Ordering(direction, SchemaPath.getSimplePath("a"), nullDirection);
+        final IntBinaryOperator comparator = (left, right) -> compare(vector, left, right, compareValues, ordering);
+
+        try (NormalizedKeys keys = NormalizedKeys.create(Collections.singletonList(ordering), container.getSchema(),
+          allocator)) {
+          assertNotNull(keys);
+          assertEquals(expectExact, keys.isExact());
+          assertTrue(keys.expandMemoryIfNecessary(count));
+          keys.setBatch(container);
+          for (int i = 0; i < count; i++) {
+            keys.encode(i, i);
+          }
+
+          for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+              final int expected = Integer.signum(comparator.applyAsInt(i, j));
+              final int actual = Integer.signum(keys.compare(i, j));
+              final String message = String.format("%s NULLS %s: %s vs %s", direction, nullDirection,
+                vector.getObject(i), vector.getObject(j));
+              if (expectExact) {
+                assertEquals(message, expected, actual);
+              } else if (actual != 0) {
+                // values the comparator finds equal may have different keys, such as -0.0 and 0.0
+                assertTrue(message, expected == 0 || expected == actual);
+              } else if (expected != 0) {
+                sawTies = true;
+              }
+            }
+          }
+
+          // the sorter compares the keys first, and calls the comparator on ties unless the keys are exact
+          final List<Integer> sorted = new ArrayList<>();
+          for (int i = 0; i < count; i++) {
+            sorted.add(i);
+          }
+          sorted.sort((left, right) -> {
+            final int cmp = keys.compare(left, right);
+            return cmp != 0 || keys.isExact() ? cmp : comparator.applyAsInt(left, right);
+          });
+          for (int i = 1; i < count; i++) {
+            assertTrue(String.format("%s NULLS %s: %s sorted before %s", direction, nullDirection,
+              vector.getObject(sorted.get(i - 1)), vector.getObject(sorted.get(i))),
+              comparator.applyAsInt(sorted.get(i - 1), sorted.get(i)) <= 0);
+          }
+        }
+      }
+    }
+    return sawTies;
+  }
+
+  /**
+   * The generated comparator: left < right ? -1 : (left == right ? 0 : 1). It doesn't order NaNs, which the keys
+   * sort after all the other values, as Double.compare does.
+   */
+  private static int compareFloating(double left, double right) {
+    if (Double.isNaN(left) || Double.isNaN(right)) {
+      return Boolean.compare(Double.isNaN(left), Double.isNaN(right));
+    }
+    return left < right ? -1 : (left == right ? 0 : 1);
+  }
+
+  /**
+   * Unsigned lexicographic order, the order of the generated comparator for variable width values.
+   */
+  private static int compareBytes(byte[] left, byte[] right) {
+    for (int i = 0; i < Math.min(left.length, right.length); i++) {
+      final int cmp = Integer.compare(left[i] & 0xFF, right[i] & 0xFF);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return Integer.compare(left.length, right.length);
+  }
+
+  @Test
+  public void testInt() {
+    final int[] values = {0, 1, -1, 255, 256, -256, 65536, Integer.MIN_VALUE, Integer.MAX_VALUE, 1};
+    final IntVector vector = container.addOrGet(CompleteType.INT.toField("a"));
+    for (int i = 0; i < values.length; i++) {
+      vector.setSafe(i, values[i]);
+    }
+    vector.setNull(values.length);
+    vector.setNull(values.length + 1);
+    container.setAllCount(values.length + 2);
+    container.buildSchema();
+
+    checkKeys((left, right) -> Integer.compare(vector.get(left), vector.get(right)), true);
+  }
+
+  @Test
+  public void testBigInt() {
+    final long[] values = {0L, 1L, -1L, 255L, 256L, 1L << 32, -(1L << 32), (1L << 32) + 1, Long.MIN_VALUE,
+      Long.MAX_VALUE, -1L};
+    final BigIntVector vector = container.addOrGet(CompleteType.BIGINT.toField("a"));
+    for (int i = 0; i < values.length; i++) {
+      vector.setSafe(i, values[i]);
+    }
+    vector.setNull(values.length);
+    container.setAllCount(values.length + 1);
+    container.buildSchema();
+
+    checkKeys((left, right) -> Long.compare(vector.get(left), vector.get(right)), true);
+  }
+
+  @Test
+  public void testFloat() {
+    final float[] values = {0.0f, -0.0f, 1.5f, -1.5f, Float.MIN_VALUE, -Float.MIN_VALUE, Float.MAX_VALUE,
+      -Float.MAX_VALUE, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NaN, Float.intBitsToFloat(0x7fc00001),
+      1.5f};
+    final Float4Vector vector = container.addOrGet(CompleteType.FLOAT.toField("a"));
+    for (int i = 0; i < values.length; i++) {
+      vector.setSafe(i, values[i]);
+    }
+    vector.setNull(values.length);
+    container.setAllCount(values.length + 1);
+    container.buildSchema();
+
+    checkKeys((left, right) -> compareFloating(vector.get(left), vector.get(right)), false);
+  }
+
+  @Test
+  public void testDouble() {
+    final double[] values = {0.0d, -0.0d, 1.5d, -1.5d, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE,
+      -Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+      Double.longBitsToDouble(0x7ff8000000000001L), 1.5d};
+    final Float8Vector vector = container.addOrGet(CompleteType.DOUBLE.toField("a"));
+    for (int i = 0; i < values.length; i++) {
+      vector.setSafe(i, values[i]);
+    }
+    vector.setNull(values.length);
+    container.setAllCount(values.length + 1);
+    container.buildSchema();
+
+    checkKeys((left, right) -> compareFloating(vector.get(left), vector.get(right)), false);
+  }
+
+  @Test
+  public void testDecimal() {
+    // 1.00 and 1.01 only differ in their least significant byte, which doesn't fit in the keys
+    final String[] values = {"0.00", "0.01", "-0.01", "1.00", "1.01", "-1.00", "2.56", "-2.56", "12345678901234567890.12",
+      "-12345678901234567890.12", "999999999999999999999999999999999999.99", "-999999999999999999999999999999999999.99",
+      "1.00"};
+    final DecimalVector vector = container.addOrGet(Field.nullable("a", new ArrowType.Decimal(38, 2)));
+    for (int i = 0; i < values.length; i++) {
+      vector.setSafe(i, new BigDecimal(values[i]));
+    }
+    vector.setNull(values.length);
+    container.setAllCount(values.length + 1);
+    container.buildSchema();
+
+    assertTrue(checkKeys((left, right) -> vector.getObject(left).compareTo(vector.getObject(right)), false));
+  }
+
+  @Test
+  public void testVarChar() {
+    // the keys hold the first 15 bytes of the values, longer values only differing past them are ties
+    final String[] values = {"", "a", "ab", "ab\0", "b", "abcdefghijklmno", "abcdefghijklmnop", "abcdefghijklmnopq",
+      "abcdefghijklmnoq", "é", "été", "z", "a"};
+    final VarCharVector vector = container.addOrGet(CompleteType.VARCHAR.toField("a"));
+    for (int i = 0; i < values.length; i++) {
+      vector.setSafe(i, values[i].getBytes(StandardCharsets.UTF_8));
+    }
+    vector.setNull(values.length);
+    container.setAllCount(values.length + 1);
+    container.buildSchema();
+
+    assertTrue(checkKeys((left, right) -> compareBytes(vector.get(left), vector.get(right)), false));
+  }
+
+  @Test
+  public void testExactness() {
+    container.addOrGet(CompleteType.INT.toField("i"));
+    container.addOrGet(CompleteType.BIGINT.toField("b"));
+    container.addOrGet(CompleteType.VARCHAR.toField("v"));
+    container.buildSchema();
+
+    // 1 + 4 and 1 + 8 bytes fit in the keys
+    assertExact(true, "i", "b");
+    // 1 + 4, 1 + 8 and 1 + 4 bytes don't
+    assertExact(false, "i", "b", "i");
+    // the sort column after a variable width column isn't encoded
+    assertExact(false, "v", "i");
+  }
+
+  private void assertExact(boolean expected, String... columns) {
+    final List<Ordering> orderings = new ArrayList<>();
+    for (String column : columns) {
+      orderings.add(new Ordering(Direction.ASCENDING, SchemaPath.getSimplePath(column), NullDirection.FIRST));
+    }
+    try (NormalizedKeys keys = NormalizedKeys.create(orderings, container.getSchema(), allocator)) {
+      assertNotNull(keys);
+      if (expected) {
+        assertTrue(keys.isExact());
+      } else {
+        assertFalse(keys.isExact());
+      }
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.dremio.sabot.task.AsyncTask;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskDescriptor;
+import com.dremio.sabot.task.TaskPool.GroupInfo;
+import com.dremio.sabot.threads.AvailabilityCallback;
+import com.dremio.sabot.threads.sharedres.SharedResourceType;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Tests for {@link SlicingTaskPool}
+ */
+public class TestSlicingTaskPool {
+
+  /**
+   * Task that runs a fixed number of slices, optionally blocking after the first one.
+   */
+  private static class CountingTask implements AsyncTask {
+    private final AtomicInteger runs = new AtomicInteger();
+    private final int slices;
+    private final long sliceNanos;
+    private volatile Task.State state = Task.State.RUNNABLE;
+    private volatile boolean blockOnce;
+    private volatile AvailabilityCallback callback;
+    private volatile boolean stop;
+
+    CountingTask(int slices, long sliceNanos, boolean blockOnce) {
+      this.slices = slices;
+      this.sliceNanos = sliceNanos;
+      this.blockOnce = blockOnce;
+    }
+
+    @Override
+    public void run() {
+      final long start = System.nanoTime();
+      while (System.nanoTime() - start < sliceNanos) {
+        // spin
+      }
+      final int count = runs.incrementAndGet();
+      if (stop || count >= slices) {
+        state = Task.State.DONE;
+      } else if (blockOnce) {
+        blockOnce = false;
+        state = Task.State.BLOCKED_ON_UPSTREAM;
+      }
+    }
+
+    @Override
+    public void refreshState() {
+      state = Task.State.RUNNABLE;
+    }
+
+    @Override
+    public Task.State getState() {
+      return state;
+    }
+
+    @Override
+    public SharedResourceType getFirstBlockedResource() {
+      return SharedResourceType.UNKNOWN;
+    }
+
+    @Override
+    public void updateSleepDuration(long duration) {
+    }
+
+    @Override
+    public void updateBlockedOnDownstreamDuration(long duration) {
+    }
+
+    @Override
+    public void updateBlockedOnUpstreamDuration(long duration) {
+    }
+
+    @Override
+    public void addBlockedOnSharedResourceDuration(SharedResourceType resource, long duration) {
+    }
+
+    @Override
+    public void setWakeupCallback(AvailabilityCallback callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public void setTaskDescriptor(TaskDescriptor descriptor) {
+    }
+  }
+
+  private static AsyncTaskWrapper wrap(SchedulingGroup<AsyncTaskWrapper> group, AsyncTask task, CountDownLatch done) {
+    return new AsyncTaskWrapper(group, task, done::countDown, Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testTasksRunToCompletion() throws Exception {
+    try (SlicingTaskPool pool = new SlicingTaskPool(4, 1)) {
+      final SchedulingGroup<AsyncTaskWrapper> group = pool.getGroupManager().newGroup(100);
+      final int numTasks = 32;
+      final CountDownLatch done = new CountDownLatch(numTasks);
+      final CountingTask[] tasks = new CountingTask[numTasks];
+      for (int i = 0; i < numTasks; i++) {
+        tasks[i] = new CountingTask(50, 0, false);
+        pool.execute(wrap(group, tasks[i], done));
+      }
+
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+      for (CountingTask task : tasks) {
+        assertEquals(50, task.runs.get());
+      }
+      assertTrue(pool.areAllThreadsAlive());
+    }
+  }
+
+  @Test
+  public void testBlockedTaskIsReEnqueued() throws Exception {
+    try (SlicingTaskPool pool = new SlicingTaskPool(2, 1)) {
+      final SchedulingGroup<AsyncTaskWrapper> group = pool.getGroupManager().newGroup(100);
+      final CountDownLatch done = new CountDownLatch(1);
+      final CountingTask task = new CountingTask(3, 0, true);
+      pool.execute(wrap(group, task, done));
+
+      // wait for the task to block
+      while (task.callback == null) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, task.runs.get());
+      assertEquals(1, done.getCount());
+
+      task.callback.nowAvailable();
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+      assertEquals(3, task.runs.get());
+    }
+  }
+
+  @Test
+  public void testGroupsGetProportionalShares() throws Exception {
+    try (SlicingTaskPool pool = new SlicingTaskPool(1, 1)) {
+      final WeightedSchedulingGroup high = (WeightedSchedulingGroup) pool.getGroupManager().newGroup(1000);
+      final WeightedSchedulingGroup low = (WeightedSchedulingGroup) pool.getGroupManager().newGroup(100);
+      final CountDownLatch done = new CountDownLatch(2);
+      final long sliceNanos = TimeUnit.MICROSECONDS.toNanos(200);
+      final CountingTask highTask = new CountingTask(Integer.MAX_VALUE, sliceNanos, false);
+      final CountingTask lowTask = new CountingTask(Integer.MAX_VALUE, sliceNanos, false);
+      pool.execute(wrap(high, highTask, done));
+      pool.execute(wrap(low, lowTask, done));
+
+      Thread.sleep(1000);
+      highTask.stop = true;
+      lowTask.stop = true;
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+
+      long highCpu = 0;
+      long lowCpu = 0;
+      for (GroupInfo info : pool.getGroupStats()) {
+        if (info.groupId == high.getId()) {
+          highCpu = info.cpuTime;
+          assertEquals(0, info.numTasks);
+          assertEquals(0, info.runQueueDepth);
+        } else if (info.groupId == low.getId()) {
+          lowCpu = info.cpuTime;
+        }
+      }
+      // only check the ordering, the actual shares depend on the timing of the machine
+      assertTrue(String.format("high %d, low %d", highCpu, lowCpu), highCpu > lowCpu);
+    }
+  }
+
+  @Test
+  public void testGroupsAreScheduledByWeightedVRuntime() throws Exception {
+    try (SlicingTaskPool pool = new SlicingTaskPool(1, 1)) {
+      final SchedulingGroup<AsyncTaskWrapper> gateGroup = pool.getGroupManager().newGroup(100);
+      final SchedulingGroup<AsyncTaskWrapper> high = pool.getGroupManager().newGroup(1000);
+      final SchedulingGroup<AsyncTaskWrapper> low = pool.getGroupManager().newGroup(100);
+      final CountDownLatch done = new CountDownLatch(3);
+
+      // hold the only slicing thread, so both tasks are in its run queue before either of them runs
+      final CountDownLatch gateRunning = new CountDownLatch(1);
+      final CountDownLatch openGate = new CountDownLatch(1);
+      pool.execute(wrap(gateGroup, new CountingTask(1, 0, false) {
+        @Override
+        public void run() {
+          gateRunning.countDown();
+          Uninterruptibles.awaitUninterruptibly(openGate);
+          super.run();
+        }
+      }, done));
+      assertTrue(gateRunning.await(30, TimeUnit.SECONDS));
+
+      // each slice takes a full quantum, so every run of a task is one slice
+      final long sliceNanos = TimeUnit.MILLISECONDS.toNanos(1);
+      final Queue<SchedulingGroup<AsyncTaskWrapper>> runs = new ConcurrentLinkedQueue<>();
+      final CountingTask highTask = new CountingTask(200, sliceNanos, false) {
+        @Override
+        public void run() {
+          runs.add(high);
+          super.run();
+        }
+      };
+      final CountingTask lowTask = new CountingTask(Integer.MAX_VALUE, sliceNanos, false) {
+        @Override
+        public void run() {
+          runs.add(low);
+          super.run();
+        }
+      };
+      pool.execute(wrap(high, highTask, done));
+      pool.execute(wrap(low, lowTask, done));
+      openGate.countDown();
+
+      // the low weight task keeps running until it's stopped, once the high weight task is done
+      while (highTask.getState() != Task.State.DONE) {
+        Thread.sleep(10);
+      }
+      lowTask.stop = true;
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+
+      // look at the runs up to the last one of the high weight task, while both tasks were runnable
+      final List<SchedulingGroup<AsyncTaskWrapper>> order = new ArrayList<>(runs);
+      final List<SchedulingGroup<AsyncTaskWrapper>> contended = order.subList(0, order.lastIndexOf(high) + 1);
+      final int highRuns = Collections.frequency(contended, high);
+      final int lowRuns = Collections.frequency(contended, low);
+      assertEquals(200, highRuns);
+
+      // both groups start at the same virtual runtime, the task that was queued first runs first
+      assertEquals(high, order.get(0));
+      assertEquals(low, order.get(1));
+
+      // a run of the low weight group costs it 10x the virtual runtime, the high weight group should get about
+      // 10x its share of the thread. Leave room for runs that took longer than their slice on a busy machine.
+      final String runCounts = String.format("high %d, low %d", highRuns, lowRuns);
+      assertTrue(runCounts, lowRuns > 1);
+      assertTrue(runCounts, highRuns >= 5 * lowRuns);
+    }
+  }
+}
@@ -15,6 +15,9 @@
  */
 package com.dremio.service.flight;
 
+import java.io.IOException;
+import java.util.UUID;
+
 import javax.inject.Provider;
 
 import org.apache.arrow.flight.Action;
@@ -26,6 +29,7 @@ import org.apache.arrow.flight.FlightConstants;
 import org.apache.arrow.flight.FlightDescriptor;
 import org.apache.arrow.flight.FlightInfo;
 import org.apache.arrow.flight.FlightProducer;
+import org.apache.arrow.flight.FlightRuntimeException;
 import org.apache.arrow.flight.FlightStream;
 import org.apache.arrow.flight.Location;
 import org.apache.arrow.flight.PutResult;
@@ -33,12 +37,16 @@ import org.apache.arrow.flight.Result;
 import org.apache.arrow.flight.Ticket;
 import org.apache.arrow.memory.BufferAllocator;
 
+import com.dremio.common.exceptions.UserException;
 import com.dremio.exec.work.protector.UserWorker;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.rpc.user.UserSession;
+import com.dremio.service.flight.error.mapping.DremioFlightErrorMapper;
+import com.dremio.service.flight.impl.FlightIngestManager;
 import com.dremio.service.flight.impl.FlightPreparedStatement;
 import com.dremio.service.flight.impl.FlightWorkManager;
 import com.dremio.service.flight.impl.FlightWorkManager.RunQueryResponseHandlerFactory;
+import com.dremio.service.flight.impl.PartitionedResultStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 /**
@@ -49,13 +57,18 @@ public class DremioFlightProducer implements FlightProducer {
   private final Location location;
   private final DremioFlightSessionsManager sessionsManager;
   private final BufferAllocator allocator;
+  private final Provider<OptionManager> optionManagerProvider;
+  private final FlightIngestManager ingestManager;
 
   public DremioFlightProducer(Location location, DremioFlightSessionsManager sessionsManager,
                               Provider<UserWorker> workerProvider, Provider<OptionManager> optionManagerProvider,
-                              BufferAllocator allocator, RunQueryResponseHandlerFactory runQueryResponseHandlerFactory) {
+                              BufferAllocator allocator, RunQueryResponseHandlerFactory runQueryResponseHandlerFactory,
+                              FlightIngestManager ingestManager) {
     this.location = location;
     this.sessionsManager = sessionsManager;
     this.allocator = allocator;
+    this.optionManagerProvider = optionManagerProvider;
+    this.ingestManager = ingestManager;
 
     flightWorkManager = new FlightWorkManager(workerProvider, optionManagerProvider, runQueryResponseHandlerFactory);
   }
@@ -67,7 +80,11 @@ public class DremioFlightProducer implements FlightProducer {
       final UserSession session = sessionsManager.getUserSession(callContext.peerIdentity(), headers);
       final TicketContent.PreparedStatementTicket preparedStatementTicket = TicketContent.PreparedStatementTicket.parseFrom(ticket.getBytes());
 
-      flightWorkManager.runPreparedStatement(preparedStatementTicket, serverStreamListener, allocator, session);
+      if (preparedStatementTicket.getPartitionCount() > 1) {
+        getPartitionedStream(preparedStatementTicket, serverStreamListener, session);
+      } else {
+        flightWorkManager.runPreparedStatement(preparedStatementTicket, serverStreamListener, allocator, session);
+      }
     } catch (InvalidProtocolBufferException ex) {
       final RuntimeException error = CallStatus.INVALID_ARGUMENT.withCause(ex).withDescription("Invalid ticket used in getStream").toRuntimeException();
       serverStreamListener.error(error);
@@ -75,6 +92,36 @@ public class DremioFlightProducer implements FlightProducer {
     }
   }
 
+  /**
+   * Streams one partition of a query's results. The query is run when its first partition is requested, and
+   * runs once whatever the number of partitions.
+   */
+  private void getPartitionedStream(TicketContent.PreparedStatementTicket ticket,
+                                    ServerStreamListener serverStreamListener, UserSession session) {
+    final String userName = session.getCredentials().getUserName();
+    final PartitionedResultStream resultStream = sessionsManager.getResultStream(ticket.getStreamId());
+
+    final boolean first;
+    try {
+      if (resultStream == null) {
+        // running the query again would send the rows of the other partitions twice
+        throw CallStatus.NOT_FOUND
+          .withDescription(String.format("Partition %d of the results expired or was already fetched.", ticket.getPartition()))
+          .toRuntimeException();
+      }
+      first = resultStream.attach(ticket.getPartition(), userName, serverStreamListener);
+    } catch (FlightRuntimeException ex) {
+      serverStreamListener.error(ex);
+      throw ex;
+    }
+    if (resultStream.isFullyAttached()) {
+      sessionsManager.removeResultStream(ticket.getStreamId());
+    }
+    if (first) {
+      flightWorkManager.runPreparedStatement(ticket, resultStream, allocator, session);
+    }
+  }
+
   @Override
   public void listFlights(CallContext callContext, Criteria criteria, StreamListener<FlightInfo> streamListener) {
     throw CallStatus.UNIMPLEMENTED.withDescription("listFlights is unimplemented").toRuntimeException();
@@ -86,12 +133,41 @@ public class DremioFlightProducer implements FlightProducer {
     final UserSession session = sessionsManager.getUserSession(callContext.peerIdentity(), headers);
     final FlightPreparedStatement flightPreparedStatement = flightWorkManager
       .createPreparedStatement(flightDescriptor, callContext::isCancelled, session);
-    return flightPreparedStatement.getFlightInfo(location);
+    final OptionManager optionManager = optionManagerProvider.get();
+    final int partitions = (int) optionManager.getOption(DremioFlightServiceOptions.RESULT_PARTITIONS);
+    if (partitions <= 1) {
+      return flightPreparedStatement.getFlightInfo(location);
+    }
+
+    final String streamId = UUID.randomUUID().toString();
+    final FlightInfo flightInfo = flightPreparedStatement.getFlightInfo(location, partitions, streamId);
+    sessionsManager.addResultStream(streamId,
+      new PartitionedResultStream(session.getCredentials().getUserName(), partitions, allocator,
+        optionManager.getOption(DremioFlightServiceOptions.RESULT_PARTITIONS_MAX_PENDING_BYTES)));
+    return flightInfo;
   }
 
   @Override
   public Runnable acceptPut(CallContext callContext, FlightStream flightStream, StreamListener<PutResult> streamListener) {
-    throw CallStatus.UNIMPLEMENTED.withDescription("acceptPut is unimplemented").toRuntimeException();
+    final CallHeaders headers = retrieveHeadersFromCallContext(callContext);
+    final UserSession session = sessionsManager.getUserSession(callContext.peerIdentity(), headers);
+    return () -> {
+      try {
+        ingestManager.ingest(flightStream, session.getCredentials().getUserName());
+      } catch (UserException ex) {
+        streamListener.onError(DremioFlightErrorMapper.toFlightRuntimeException(ex));
+        return;
+      } catch (IOException ex) {
+        streamListener.onError(CallStatus.INTERNAL.withCause(ex)
+          .withDescription("Failed to write put: " + ex.getMessage())
+          .toRuntimeException());
+        return;
+      } catch (FlightRuntimeException ex) {
+        streamListener.onError(ex);
+        return;
+      }
+      streamListener.onCompleted();
+    };
   }
 
   @Override
@@ -51,6 +51,7 @@ import com.dremio.options.OptionManager;
 import com.dremio.service.Service;
 import com.dremio.service.flight.auth.DremioFlightServerBasicAuthValidator;
 import com.dremio.service.flight.auth2.DremioBearerTokenAuthenticator;
+import com.dremio.service.flight.impl.FlightIngestManager;
 import com.dremio.service.flight.impl.FlightWorkManager.RunQueryResponseHandlerFactory;
 import com.dremio.service.tokens.TokenManager;
 import com.dremio.service.users.UserService;
@@ -86,6 +87,7 @@ public class DremioFlightService implements Service {
   private final RunQueryResponseHandlerFactory runQueryResponseHandlerFactory;
 
   private DremioFlightSessionsManager dremioFlightSessionsManager;
+  private FlightIngestManager flightIngestManager;
 
   private volatile FlightServer server;
   private BufferAllocator allocator;
@@ -129,6 +131,7 @@ public class DremioFlightService implements Service {
 
     allocator = bufferAllocator.get().newChildAllocator("flight-service-allocator", 0, Long.MAX_VALUE);
     dremioFlightSessionsManager = new DremioFlightSessionsManager(sabotContextProvider, tokenManagerProvider);
+    flightIngestManager = new FlightIngestManager(sabotContextProvider, optionManagerProvider, allocator);
 
     final DremioConfig config = configProvider.get();
     final int port = config.getInt(DremioConfig.FLIGHT_SERVICE_PORT_INT);
@@ -140,7 +143,7 @@ public class DremioFlightService implements Service {
       .location(location)
       .allocator(allocator)
       .producer(new DremioFlightProducer(location, dremioFlightSessionsManager, userWorkerProvider,
-        optionManagerProvider, allocator, runQueryResponseHandlerFactory));
+        optionManagerProvider, allocator, runQueryResponseHandlerFactory, flightIngestManager));
 
     builder.middleware(FlightServerMiddleware.Key.of(FLIGHT_CLIENT_PROPERTIES_MIDDLEWARE),
       new ServerHeaderMiddleware.Factory());
@@ -173,7 +176,8 @@ public class DremioFlightService implements Service {
   @Override
   public void close() throws Exception {
     logger.info("Stopping Flight Service");
-    AutoCloseables.close(server, allocator, dremioFlightSessionsManager);
+    // let the pending commits of puts finish before releasing the allocator
+    AutoCloseables.close(server, flightIngestManager, allocator, dremioFlightSessionsManager);
     logger.info("Stopped Flight Service");
   }
 
@@ -36,4 +36,32 @@ public interface DremioFlightServiceOptions {
     new TypeValidators.PositiveLongValidator(
       "flight.client.readiness.timeout.millis", 900000L, 5000L
     );
+
+  // Number of endpoints the results of a query are split into, so that clients can fetch them in parallel.
+  // Default to 1, which returns all the results through a single endpoint.
+  TypeValidators.RangeLongValidator RESULT_PARTITIONS =
+    new TypeValidators.RangeLongValidator("flight.results.partitions", 1, 64, 1);
+
+  // Allows users to configure how long the partitions of a query's results can be fetched for, once its FlightInfo
+  // was returned. Partitions requested later fail. Default to 10 minutes.
+  TypeValidators.PositiveLongValidator RESULT_PARTITIONS_EXPIRATION_SECONDS =
+    new TypeValidators.PositiveLongValidator("flight.results.partitions.expiration.seconds", 86400L, 600L);
+
+  // Maximum size of the batches kept for the partitions of a query's results that were not requested yet. The query
+  // fails past it, which happens when the partitions of large results are fetched one after another. Default to 256MB.
+  TypeValidators.PositiveLongValidator RESULT_PARTITIONS_MAX_PENDING_BYTES =
+    new TypeValidators.PositiveLongValidator("flight.results.partitions.max_pending_bytes", Long.MAX_VALUE, 256L * 1024 * 1024);
+
+  // The data files written by puts to the same table are committed together once there are this many of them.
+  TypeValidators.PositiveLongValidator PUT_COMMIT_MAX_FILES =
+    new TypeValidators.PositiveLongValidator("flight.put.commit.max_files", 10000L, 100L);
+
+  // The data files written by puts to the same table are committed together once they hold this many records.
+  TypeValidators.PositiveLongValidator PUT_COMMIT_MAX_RECORDS =
+    new TypeValidators.PositiveLongValidator("flight.put.commit.max_records", Long.MAX_VALUE, 10_000_000L);
+
+  // Allows users to configure how long the data files written by a put can wait for other puts to the same table
+  // before being committed. Default to 1000ms, 0 commits every put on its own.
+  TypeValidators.RangeLongValidator PUT_COMMIT_MAX_DELAY_MILLIS =
+    new TypeValidators.RangeLongValidator("flight.put.commit.max_delay.millis", 0L, 600000L, 1000L);
 }
@@ -15,6 +15,7 @@
  */
 package com.dremio.service.flight;
 
+import static com.dremio.service.flight.DremioFlightServiceOptions.RESULT_PARTITIONS_EXPIRATION_SECONDS;
 import static com.dremio.service.flight.DremioFlightServiceOptions.SESSION_EXPIRATION_TIME_MINUTES;
 import static com.dremio.service.flight.client.properties.DremioFlightClientProperties.applyClientPropertiesToUserSessionBuilder;
 import static com.dremio.service.flight.client.properties.DremioFlightClientProperties.applyMutableClientProperties;
@@ -36,13 +37,16 @@ import com.dremio.options.OptionManager;
 import com.dremio.options.Options;
 import com.dremio.options.TypeValidators;
 import com.dremio.sabot.rpc.user.UserSession;
+import com.dremio.service.flight.impl.PartitionedResultStream;
 import com.dremio.service.tokens.TokenManager;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
 
 /**
- * Manages UserSession creation and UserSession cache.
+ * Manages UserSession creation and UserSession cache, as well as the results streams of queries
+ * whose results are split across several endpoints.
  */
 @Options
 public class DremioFlightSessionsManager implements AutoCloseable {
@@ -53,6 +57,7 @@ public class DremioFlightSessionsManager implements AutoCloseable {
     new TypeValidators.PositiveLongValidator("flight.max.sessions", Long.MAX_VALUE, 0L);
 
   private final Cache<String, UserSession> userSessions;
+  private final Cache<String, PartitionedResultStream> resultStreams;
   private final Provider<SabotContext> sabotContextProvider;
   private final Provider<TokenManager> tokenManagerProvider;
   private final OptionManager optionManager;
@@ -65,6 +70,15 @@ public class DremioFlightSessionsManager implements AutoCloseable {
     this.userSessions = CacheBuilder.newBuilder()
       .expireAfterAccess(optionManager.getOption(SESSION_EXPIRATION_TIME_MINUTES), TimeUnit.MINUTES)
       .build();
+    this.resultStreams = CacheBuilder.newBuilder()
+      .expireAfterWrite(optionManager.getOption(RESULT_PARTITIONS_EXPIRATION_SECONDS), TimeUnit.SECONDS)
+      // partitions that were not requested in time fail, and their results are released
+      .removalListener((RemovalListener<String, PartitionedResultStream>) notification -> {
+        if (notification.wasEvicted()) {
+          notification.getValue().expire();
+        }
+      })
+      .build();
   }
 
   public long getMaxSessions() {
@@ -108,6 +122,38 @@ public class DremioFlightSessionsManager implements AutoCloseable {
     return userSession;
   }
 
+  /**
+   * Registers the results stream the partitions of a query's results are fetched from, when its FlightInfo is
+   * created.
+   *
+   * Streams are kept until all their partitions were requested, or until they expire.
+   *
+   * @param streamId The stream id of the tickets.
+   * @param stream   The PartitionedResultStream.
+   */
+  public void addResultStream(String streamId, PartitionedResultStream stream) {
+    resultStreams.put(streamId, stream);
+  }
+
+  /**
+   * Resolves the results stream a partition of a query's results is fetched from.
+   *
+   * @param streamId The stream id of the ticket.
+   * @return The PartitionedResultStream, or null if it expired or all its partitions were already requested.
+   */
+  public PartitionedResultStream getResultStream(String streamId) {
+    return resultStreams.getIfPresent(streamId);
+  }
+
+  /**
+   * Forgets a results stream, once all its partitions were requested.
+   *
+   * @param streamId The stream id of the ticket.
+   */
+  public void removeResultStream(String streamId) {
+    resultStreams.invalidate(streamId);
+  }
+
   /**
    * Determines if we have reached the max number of allowed sessions.
    *
@@ -154,8 +200,19 @@ public class DremioFlightSessionsManager implements AutoCloseable {
     return builder.build();
   }
 
+  /**
+   * Gets the number of items in the resultStreams Cache.
+   *
+   * @return The size of resultStreams Cache.
+   */
+  @VisibleForTesting
+  long getNumberOfResultStreams() {
+    return resultStreams.size();
+  }
+
   @Override
   public void close() throws Exception {
     userSessions.invalidateAll();
+    resultStreams.invalidateAll();
   }
 }
@@ -0,0 +1,502 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.flight.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import javax.inject.Provider;
+
+import org.apache.arrow.flight.CallStatus;
+import org.apache.arrow.flight.FlightDescriptor;
+import org.apache.arrow.flight.FlightStream;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.ManifestFiles;
+import org.apache.iceberg.ManifestWriter;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.io.FileIO;
+
+import com.dremio.common.concurrent.NamedThreadFactory;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.utils.protos.AttemptId;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.catalog.DatasetCatalog;
+import com.dremio.exec.catalog.DremioTable;
+import com.dremio.exec.catalog.MetadataRequestOptions;
+import com.dremio.exec.physical.base.OpProps;
+import com.dremio.exec.physical.base.WriterOptions;
+import com.dremio.exec.planner.fragment.EndpointsIndex;
+import com.dremio.exec.planner.logical.CreateTableEntry;
+import com.dremio.exec.planner.sql.handlers.query.DataAdditionCmdHandler;
+import com.dremio.exec.planner.sql.parser.PartitionDistributionStrategy;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.server.NodeDebugContextProvider;
+import com.dremio.exec.server.SabotContext;
+import com.dremio.exec.store.RecordWriter;
+import com.dremio.exec.store.SchemaConfig;
+import com.dremio.exec.store.dfs.FileSystemCreateTableEntry;
+import com.dremio.exec.store.dfs.FileSystemPlugin;
+import com.dremio.exec.store.dfs.IcebergTableProps;
+import com.dremio.exec.store.iceberg.IcebergMetadataInformation;
+import com.dremio.exec.store.iceberg.IcebergSerDe;
+import com.dremio.exec.store.iceberg.model.IcebergCommandType;
+import com.dremio.exec.store.iceberg.model.IcebergModel;
+import com.dremio.exec.store.iceberg.model.IcebergOpCommitter;
+import com.dremio.exec.store.iceberg.model.IcebergTableIdentifier;
+import com.dremio.exec.store.parquet.ParquetWriter;
+import com.dremio.exec.util.VectorUtil;
+import com.dremio.io.file.Path;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.exec.context.OpProfileDef;
+import com.dremio.sabot.exec.context.OperatorContextImpl;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.spi.SingleInputOperator.State;
+import com.dremio.sabot.op.writer.WriterOperator;
+import com.dremio.service.flight.DremioFlightServiceOptions;
+import com.dremio.service.namespace.DatasetHelper;
+import com.dremio.service.namespace.NamespaceKey;
+import com.dremio.service.namespace.dataset.proto.ReadDefinition;
+import com.dremio.service.users.SystemUser;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Writes the record batches of Flight puts into Iceberg tables.
+ * <p>
+ * The descriptor of a put is the path of the table. Each put is written to new Parquet files in the table's folder,
+ * on this node, with the same writer INSERT queries use. The data files of concurrent puts to the same table are
+ * then committed together, see {@link IcebergCommitBatcher}, and a put completes once its data files are committed.
+ * <p>
+ * The data files of a put that fails are deleted. An interrupted put is only cancelled if its data files were not
+ * being committed yet, otherwise it waits for the commit and reports its outcome.
+ */
+public class FlightIngestManager implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(FlightIngestManager.class);
+
+  private static final String ICEBERG_METADATA_FOLDER = "metadata";
+  private static final String MANIFEST_FILE_EXTENSION = ".avro";
+  // shared by all tables
+  private static final int COMMIT_THREADS = 4;
+  // batchers of the tables not written to for that long are dropped
+  private static final long BATCHER_EXPIRATION_MINUTES = 10;
+
+  private final Provider<SabotContext> sabotContextProvider;
+  private final Provider<OptionManager> optionManagerProvider;
+  private final BufferAllocator allocator;
+  private final ScheduledExecutorService commitExecutor;
+  // commits to the same table are run one at a time, including the ones of the batchers replaced or dropped while
+  // committing
+  private final Striped<Lock> commitLocks = Striped.lazyWeakLock(COMMIT_THREADS);
+  // batchers of the tables recently written to, by table location
+  private final Cache<String, IcebergCommitBatcher> batchers = CacheBuilder.newBuilder()
+    .expireAfterAccess(BATCHER_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+    .build();
+
+  public FlightIngestManager(Provider<SabotContext> sabotContextProvider, Provider<OptionManager> optionManagerProvider,
+                             BufferAllocator allocator) {
+    this.sabotContextProvider = sabotContextProvider;
+    this.optionManagerProvider = optionManagerProvider;
+    this.allocator = allocator;
+    this.commitExecutor = new ScheduledThreadPoolExecutor(COMMIT_THREADS, new NamedThreadFactory("flight-put-commit-"));
+  }
+
+  /**
+   * Write the batches of a put into its table, and wait for them to be committed.
+   *
+   * @param flightStream The batches of the put.
+   * @param userName     The user running the put.
+   * @throws UserException if the put can't be written to its table.
+   * @throws IOException   if writing or committing the data files failed.
+   */
+  public void ingest(FlightStream flightStream, String userName) throws IOException {
+    try {
+      final NamespaceKey key = getTableKey(flightStream.getDescriptor());
+      final Catalog catalog = sabotContextProvider.get().getCatalogService()
+        .getCatalog(MetadataRequestOptions.of(SchemaConfig.newBuilder(userName).build()));
+      final DremioTable table = getTable(catalog, key);
+      final BatchSchema tableSchema = table.getSchema();
+      validateSchema(table.getPath(), tableSchema, new BatchSchema(flightStream.getSchema().getFields()));
+
+      final FileSystemCreateTableEntry tableEntry = createTableEntry(catalog, table);
+      final List<DataFile> dataFiles = writeDataFiles(flightStream, tableEntry, tableSchema, userName);
+      if (dataFiles.isEmpty()) {
+        return;
+      }
+
+      final String tableLocation = tableEntry.getIcebergTableProps().getTableLocation();
+      final long snapshotId;
+      try {
+        snapshotId = awaitCommit(tableLocation, table.getPath(), dataFiles);
+      } catch (ExecutionException ex) {
+        // the table doesn't reference the data files of a failed commit
+        deleteDataFiles(tableLocation, table.getPath(), dataFiles);
+        throw ex;
+      }
+      logger.debug("Committed {} data files from a put to {} in snapshot {}.", dataFiles.size(), table.getPath(),
+        snapshotId);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof UserException) {
+        throw (UserException) ex.getCause();
+      }
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
+      }
+      throw CallStatus.INTERNAL.withCause(ex.getCause())
+        .withDescription("Failed to commit put: " + ex.getCause().getMessage())
+        .toRuntimeException();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw CallStatus.CANCELLED.withCause(ex).withDescription("Put was interrupted.").toRuntimeException();
+    } catch (RuntimeException | IOException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw CallStatus.INTERNAL.withCause(ex)
+        .withDescription("Failed to write put: " + ex.getMessage())
+        .toRuntimeException();
+    }
+  }
+
+  /**
+   * Add the data files of a put to the next commit of its table, and wait for it.
+   *
+   * @return the id of the snapshot the data files were committed in.
+   */
+  private long awaitCommit(String tableLocation, NamespaceKey key, List<DataFile> dataFiles)
+    throws ExecutionException {
+    final IcebergCommitBatcher batcher = getCommitBatcher(tableLocation, key);
+    final CompletableFuture<Long> committed = batcher.add(dataFiles);
+    try {
+      return committed.get();
+    } catch (InterruptedException ex) {
+      if (batcher.remove(dataFiles)) {
+        deleteDataFiles(tableLocation, key, dataFiles);
+        Thread.currentThread().interrupt();
+        throw CallStatus.CANCELLED.withCause(ex).withDescription("Put was interrupted.").toRuntimeException();
+      }
+      // the data files are being committed, cancelling the put could not undo it
+      try {
+        return Uninterruptibles.getUninterruptibly(committed);
+      } finally {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Delete the data files of a put that were not committed.
+   */
+  private void deleteDataFiles(String tableLocation, NamespaceKey key, List<DataFile> dataFiles) {
+    try {
+      final IcebergModel icebergModel = getPlugin(key).getIcebergModel();
+      final FileIO io = icebergModel.getIcebergTable(icebergModel.getTableIdentifier(tableLocation)).io();
+      for (DataFile dataFile : dataFiles) {
+        io.deleteFile(dataFile.path().toString());
+      }
+    } catch (RuntimeException ex) {
+      logger.warn("Failed to delete the {} data files of a put to {} that were not committed.", dataFiles.size(),
+        key, ex);
+    }
+  }
+
+  private static NamespaceKey getTableKey(FlightDescriptor descriptor) {
+    if (descriptor.isCommand() || descriptor.getPath().isEmpty()) {
+      throw CallStatus.INVALID_ARGUMENT
+        .withDescription("The descriptor of a put must be the path of the table to write to.")
+        .toRuntimeException();
+    }
+    return new NamespaceKey(descriptor.getPath());
+  }
+
+  /**
+   * Look up the table of a put, and check that it can be written to, as INSERT queries do.
+   */
+  private DremioTable getTable(Catalog catalog, NamespaceKey key) {
+    if (!optionManagerProvider.get().getOption(ExecConstants.ENABLE_ICEBERG)) {
+      throw UserException.unsupportedError()
+        .message("Please contact customer support for steps to enable the iceberg tables feature.")
+        .buildSilently();
+    }
+
+    final DremioTable table = catalog.getTable(key);
+    if (table == null) {
+      throw UserException.validationError()
+        .message("Table [%s] not found", key)
+        .buildSilently();
+    }
+    if (table.getJdbcTableType() != org.apache.calcite.schema.Schema.TableType.TABLE) {
+      throw UserException.validationError()
+        .message("[%s] is a %s", key, table.getJdbcTableType())
+        .buildSilently();
+    }
+    if (!DataAdditionCmdHandler.validatePluginSupportForIceberg(catalog, table.getPath())) {
+      throw UserException.unsupportedError()
+        .message("Source [%s] does not support DML operations", table.getPath().getRoot())
+        .buildSilently();
+    }
+    if (!DatasetHelper.isIcebergDataset(table.getDatasetConfig())) {
+      throw UserException.unsupportedError()
+        .message("Table [%s] is not configured to support DML operations", key)
+        .buildSilently();
+    }
+
+    final ReadDefinition readDefinition = table.getDatasetConfig().getReadDefinition();
+    if (readDefinition.getPartitionColumnsList() != null && !readDefinition.getPartitionColumnsList().isEmpty()) {
+      throw UserException.unsupportedError()
+        .message("Puts to partitioned table [%s] are not supported.", key)
+        .buildSilently();
+    }
+    return table;
+  }
+
+  /**
+   * Check that the batches of a put have the columns of the table, in the same order.
+   */
+  private static void validateSchema(NamespaceKey key, BatchSchema tableSchema, BatchSchema putSchema) {
+    if (!isCompatible(tableSchema.getFields(), putSchema.getFields())) {
+      throw UserException.validationError()
+        .message("The schema of the put %s doesn't match the schema of table [%s] %s.", putSchema, key, tableSchema)
+        .buildSilently();
+    }
+  }
+
+  private static boolean isCompatible(List<Field> tableFields, List<Field> putFields) {
+    if (tableFields.size() != putFields.size()) {
+      return false;
+    }
+    for (int i = 0; i < tableFields.size(); i++) {
+      final Field tableField = tableFields.get(i);
+      final Field putField = putFields.get(i);
+      if (!tableField.getName().equalsIgnoreCase(putField.getName())
+        || !tableField.getType().equals(putField.getType())
+        || !isCompatible(tableField.getChildren(), putField.getChildren())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static FileSystemCreateTableEntry createTableEntry(Catalog catalog, DremioTable table) {
+    final NamespaceKey key = table.getPath();
+    final WriterOptions options = new WriterOptions(
+      0,
+      ImmutableList.of(),
+      ImmutableList.of(),
+      ImmutableList.of(),
+      PartitionDistributionStrategy.UNSPECIFIED,
+      false,
+      Long.MAX_VALUE,
+      WriterOptions.IcebergWriterOperation.INSERT,
+      table.getDatasetConfig().getReadDefinition().getExtendedProperty());
+    // each put writes its files in its own folder of the table
+    final IcebergTableProps icebergTableProps = new IcebergTableProps(null, UUID.randomUUID().toString(),
+      null, ImmutableList.of(), IcebergCommandType.INSERT, key.getName(), null);
+
+    final CreateTableEntry tableEntry = catalog.createNewTable(key, icebergTableProps, options,
+      ImmutableMap.of("type", "parquet"));
+    if (!(tableEntry instanceof FileSystemCreateTableEntry)) {
+      throw UserException.unsupportedError()
+        .message("Source [%s] does not support puts", key.getRoot())
+        .buildSilently();
+    }
+    return (FileSystemCreateTableEntry) tableEntry;
+  }
+
+  /**
+   * Write the batches of a put to Parquet files.
+   *
+   * @return the Iceberg data files written.
+   */
+  private List<DataFile> writeDataFiles(FlightStream flightStream, FileSystemCreateTableEntry tableEntry,
+                                        BatchSchema tableSchema, String userName) throws Exception {
+    final OpProps props = new OpProps(0, userName, 0, Long.MAX_VALUE, 0, 0, false, 4095, RecordWriter.SCHEMA,
+      false, 0.0d, false);
+    final ParquetWriter writer = (ParquetWriter) tableEntry.getWriter(props, null);
+
+    final List<DataFile> dataFiles = new ArrayList<>();
+    try (OperatorContextImpl context = createContext(writer);
+         VectorContainer incoming = VectorContainer.create(context.getAllocator(), tableSchema);
+         WriterOperator op = writer.getFormatPlugin().getWriterBatch(context, writer)) {
+      final VectorAccessible output = op.setup(incoming);
+      final VectorSchemaRoot root = flightStream.getRoot();
+      while (flightStream.next()) {
+        final int count = root.getRowCount();
+        if (count == 0) {
+          continue;
+        }
+        for (int i = 0; i < root.getFieldVectors().size(); i++) {
+          final ValueVector target = incoming.getValueAccessorById(ValueVector.class, i).getValueVector();
+          root.getVector(i).makeTransferPair(target).transfer();
+        }
+        incoming.setAllCount(count);
+        op.consumeData(count);
+        collectDataFiles(op, output, dataFiles);
+      }
+      op.noMoreToConsume();
+      collectDataFiles(op, output, dataFiles);
+    }
+    return dataFiles;
+  }
+
+  private static void collectDataFiles(WriterOperator op, VectorAccessible output, List<DataFile> dataFiles)
+    throws Exception {
+    while (op.getState() == State.CAN_PRODUCE) {
+      final int count = op.outputData();
+      final VarBinaryVector icebergMetadataVector =
+        (VarBinaryVector) VectorUtil.getVectorFromSchemaPath(output, RecordWriter.ICEBERG_METADATA_COLUMN);
+      for (int i = 0; i < count; i++) {
+        if (icebergMetadataVector.isNull(i)) {
+          continue;
+        }
+        final IcebergMetadataInformation icebergMetadataInformation =
+          IcebergSerDe.deserializeFromByteArray(icebergMetadataVector.get(i));
+        dataFiles.add(IcebergSerDe.deserializeDataFile(icebergMetadataInformation.getIcebergMetadataFileByte()));
+      }
+    }
+  }
+
+  private OperatorContextImpl createContext(ParquetWriter writer) {
+    final SabotContext sabotContext = sabotContextProvider.get();
+    final BufferAllocator operatorAllocator = allocator.newChildAllocator("flight-put", 0, Long.MAX_VALUE);
+    final OperatorStats stats = new OperatorStats(new OpProfileDef(0, 0, 0), operatorAllocator);
+    return new OperatorContextImpl(
+      sabotContext.getConfig(),
+      sabotContext.getDremioConfig(),
+      FragmentHandle.newBuilder().setQueryId(new AttemptId().toQueryId()).setMajorFragmentId(0).setMinorFragmentId(0).build(),
+      writer,
+      operatorAllocator,
+      operatorAllocator,
+      null,
+      stats,
+      null,
+      null,
+      null,
+      sabotContext.getFunctionImplementationRegistry(),
+      null,
+      optionManagerProvider.get(),
+      null,
+      NodeDebugContextProvider.NOOP,
+      4095,
+      null,
+      ImmutableList.of(),
+      ImmutableList.of(),
+      null, new EndpointsIndex(), null);
+  }
+
+  /**
+   * Get the batcher of a table, replacing it if the commit options changed since it was created.
+   */
+  private IcebergCommitBatcher getCommitBatcher(String tableLocation, NamespaceKey key) {
+    final OptionManager options = optionManagerProvider.get();
+    final long maxFiles = options.getOption(DremioFlightServiceOptions.PUT_COMMIT_MAX_FILES);
+    final long maxRecords = options.getOption(DremioFlightServiceOptions.PUT_COMMIT_MAX_RECORDS);
+    final long maxDelayMillis = options.getOption(DremioFlightServiceOptions.PUT_COMMIT_MAX_DELAY_MILLIS);
+
+    // the commits pending in a replaced batcher still run, one at a time with the new batcher's
+    synchronized (batchers) {
+      final IcebergCommitBatcher batcher = batchers.getIfPresent(tableLocation);
+      if (batcher != null && batcher.hasLimits(maxFiles, maxRecords, maxDelayMillis)) {
+        return batcher;
+      }
+      final IcebergCommitBatcher newBatcher = new IcebergCommitBatcher(
+        dataFiles -> commit(tableLocation, key, dataFiles), commitExecutor, maxFiles, maxRecords, maxDelayMillis);
+      batchers.put(tableLocation, newBatcher);
+      return newBatcher;
+    }
+  }
+
+  /**
+   * Look up the plugin of a table when committing to it, as its source may have been updated since the put.
+   */
+  private FileSystemPlugin<?> getPlugin(NamespaceKey key) {
+    final Object plugin = sabotContextProvider.get().getCatalogService().getSource(key.getRoot());
+    if (!(plugin instanceof FileSystemPlugin)) {
+      throw UserException.unsupportedError()
+        .message("Source [%s] does not support puts", key.getRoot())
+        .buildSilently();
+    }
+    return (FileSystemPlugin<?>) plugin;
+  }
+
+  /**
+   * Add data files to a table in a single snapshot, then refresh the table's metadata.
+   */
+  private long commit(String tableLocation, NamespaceKey key, List<DataFile> dataFiles) throws IOException {
+    final Lock lock = commitLocks.get(tableLocation);
+    lock.lock();
+    try {
+      return commitLocked(tableLocation, key, dataFiles);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private long commitLocked(String tableLocation, NamespaceKey key, List<DataFile> dataFiles) throws IOException {
+    final IcebergModel icebergModel = getPlugin(key).getIcebergModel();
+    final IcebergTableIdentifier tableIdentifier = icebergModel.getTableIdentifier(tableLocation);
+    final Table table = icebergModel.getIcebergTable(tableIdentifier);
+
+    final ManifestWriter<DataFile> manifestWriter = ManifestFiles.write(table.spec(), table.io().newOutputFile(
+      tableLocation + Path.SEPARATOR + ICEBERG_METADATA_FOLDER + Path.SEPARATOR + UUID.randomUUID()
+        + MANIFEST_FILE_EXTENSION));
+    try {
+      dataFiles.forEach(manifestWriter::add);
+    } finally {
+      manifestWriter.close();
+    }
+
+    final Snapshot snapshot;
+    try (BufferAllocator statsAllocator = allocator.newChildAllocator("flight-put-commit", 0, Long.MAX_VALUE)) {
+      final IcebergOpCommitter committer = icebergModel.getInsertTableCommitter(tableIdentifier,
+        new OperatorStats(new OpProfileDef(0, 0, 0), statsAllocator));
+      committer.consumeManifestFile(manifestWriter.toManifestFile());
+      snapshot = committer.commit();
+    }
+
+    final DatasetCatalog catalog = sabotContextProvider.get().getCatalogService()
+      .getCatalog(MetadataRequestOptions.of(SchemaConfig.newBuilder(SystemUser.SYSTEM_USERNAME).build()));
+    DataAdditionCmdHandler.refreshDataset(catalog, key, false);
+    return snapshot.snapshotId();
+  }
+
+  @Override
+  public void close() throws Exception {
+    // delayed commits still run once the executor is shut down
+    MoreExecutors.shutdownAndAwaitTermination(commitExecutor, 1, TimeUnit.MINUTES);
+  }
+}
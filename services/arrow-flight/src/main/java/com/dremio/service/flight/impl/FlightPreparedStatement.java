@@ -51,6 +51,22 @@ public class FlightPreparedStatement {
    * @return The FlightInfo.
    */
   public FlightInfo getFlightInfo(Location location) {
+    return getFlightInfo(location, 1, null);
+  }
+
+  /**
+   * Returns a FlightInfo for the PreparedStatement which a given instance manages, with the results split
+   * across the given number of endpoints.
+   *
+   * The Flight service only runs on coordinators, so all the endpoints are served by the given location: clients
+   * fetch the partitions over concurrent streams of the same server.
+   *
+   * @param location   The server location.
+   * @param partitions The number of endpoints.
+   * @param streamId   The id of the results stream the partitions are fetched from, if there are several.
+   * @return The FlightInfo.
+   */
+  public FlightInfo getFlightInfo(Location location, int partitions, String streamId) {
     final UserProtos.CreatePreparedStatementArrowResp createPreparedStatementResp = responseHandler.get();
     final Schema schema = buildSchema(createPreparedStatementResp.getPreparedStatement().getArrowSchema());
 
@@ -59,10 +75,24 @@ public class FlightPreparedStatement {
       .setHandle(createPreparedStatementResp.getPreparedStatement().getServerHandle())
       .build();
 
-    final Ticket ticket = new Ticket(preparedStatementTicketContent.toByteArray());
+    if (partitions <= 1) {
+      final Ticket ticket = new Ticket(preparedStatementTicketContent.toByteArray());
+
+      final FlightEndpoint flightEndpoint = new FlightEndpoint(ticket, location);
+      return new FlightInfo(schema, flightDescriptor, ImmutableList.of(flightEndpoint), -1, -1);
+    }
 
-    final FlightEndpoint flightEndpoint = new FlightEndpoint(ticket, location);
-    return new FlightInfo(schema, flightDescriptor, ImmutableList.of(flightEndpoint), -1, -1);
+    final ImmutableList.Builder<FlightEndpoint> endpoints = ImmutableList.builder();
+    for (int i = 0; i < partitions; i++) {
+      final Ticket ticket = new Ticket(preparedStatementTicketContent.toBuilder()
+        .setStreamId(streamId)
+        .setPartition(i)
+        .setPartitionCount(partitions)
+        .build()
+        .toByteArray());
+      endpoints.add(new FlightEndpoint(ticket, location));
+    }
+    return new FlightInfo(schema, flightDescriptor, endpoints.build(), -1, -1);
   }
 
   /**
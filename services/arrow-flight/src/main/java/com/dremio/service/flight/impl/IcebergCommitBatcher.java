@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.flight.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.iceberg.DataFile;
+
+/**
+ * Groups the data files written by concurrent puts to the same Iceberg table into a single commit.
+ * <p>
+ * The pending data files are committed once there are at least {@code maxFiles} of them, once they hold at least
+ * {@code maxRecords} records, or {@code maxDelayMillis} after the first of them was added, whichever comes first.
+ * The commits of a batcher are run one at a time, on the given executor. The data files of a put can be removed
+ * until their commit starts.
+ */
+public class IcebergCommitBatcher {
+
+  /**
+   * Commits data files to the table.
+   */
+  public interface Committer {
+    /**
+     * @param dataFiles The data files to add to the table.
+     * @return the id of the snapshot created by the commit.
+     */
+    long commit(List<DataFile> dataFiles) throws Exception;
+  }
+
+  /**
+   * Data files waiting to be committed together.
+   */
+  private static final class Batch {
+    private final List<DataFile> dataFiles = new ArrayList<>();
+    private final CompletableFuture<Long> committed = new CompletableFuture<>();
+    private long records;
+    private boolean scheduled;
+  }
+
+  private final Committer committer;
+  private final ScheduledExecutorService executor;
+  private final long maxFiles;
+  private final long maxRecords;
+  private final long maxDelayMillis;
+
+  private final Object commitLock = new Object();
+  private Batch current = new Batch();
+
+  public IcebergCommitBatcher(Committer committer, ScheduledExecutorService executor,
+                              long maxFiles, long maxRecords, long maxDelayMillis) {
+    this.committer = committer;
+    this.executor = executor;
+    this.maxFiles = maxFiles;
+    this.maxRecords = maxRecords;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  /**
+   * @return true if the batcher commits with the given limits.
+   */
+  public boolean hasLimits(long maxFiles, long maxRecords, long maxDelayMillis) {
+    return this.maxFiles == maxFiles && this.maxRecords == maxRecords && this.maxDelayMillis == maxDelayMillis;
+  }
+
+  /**
+   * Add data files to the next commit.
+   *
+   * @param dataFiles The data files written by a put.
+   * @return a future completed with the id of the snapshot the data files were committed in.
+   */
+  public CompletableFuture<Long> add(List<DataFile> dataFiles) {
+    final Batch batch;
+    final boolean full;
+    synchronized (this) {
+      batch = current;
+      batch.dataFiles.addAll(dataFiles);
+      for (DataFile dataFile : dataFiles) {
+        batch.records += dataFile.recordCount();
+      }
+
+      full = maxDelayMillis == 0 || batch.dataFiles.size() >= maxFiles || batch.records >= maxRecords;
+      if (full) {
+        current = new Batch();
+      } else if (!batch.scheduled) {
+        batch.scheduled = true;
+        executor.schedule(() -> flush(batch), maxDelayMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    if (full) {
+      executor.execute(() -> commit(batch));
+    }
+    return batch.committed;
+  }
+
+  /**
+   * Remove the data files of a put from the next commit, if it didn't start yet.
+   *
+   * @param dataFiles The data files added by the put.
+   * @return true if the data files were removed, false if they are being or were already committed.
+   */
+  public synchronized boolean remove(List<DataFile> dataFiles) {
+    final Set<DataFile> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    removed.addAll(dataFiles);
+    final int size = current.dataFiles.size();
+    if (!current.dataFiles.removeIf(removed::contains)) {
+      return false;
+    }
+    if (current.dataFiles.size() != size - removed.size()) {
+      throw new IllegalStateException("Only some of the data files of the put were pending.");
+    }
+    for (DataFile dataFile : dataFiles) {
+      current.records -= dataFile.recordCount();
+    }
+    return true;
+  }
+
+  /**
+   * Commit a batch whose delay expired, unless it was already committed because it was full.
+   */
+  private void flush(Batch batch) {
+    synchronized (this) {
+      if (current != batch) {
+        return;
+      }
+      current = new Batch();
+      if (batch.dataFiles.isEmpty()) {
+        // the puts of the batch were all removed
+        return;
+      }
+    }
+    commit(batch);
+  }
+
+  private void commit(Batch batch) {
+    synchronized (commitLock) {
+      try {
+        batch.committed.complete(committer.commit(batch.dataFiles));
+      } catch (Throwable t) {
+        batch.committed.completeExceptionally(t);
+      }
+    }
+  }
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.flight.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.arrow.flight.CallStatus;
+import org.apache.arrow.flight.FlightProducer;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VectorLoader;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+/**
+ * Splits the results of a single query across several client streams, one per partition of the query's
+ * FlightInfo, so that clients can fetch them in parallel.
+ * <p>
+ * This is the listener the query's results are sent to. The query starts streaming as soon as the first partition
+ * is requested. Batches are assigned to partitions round-robin, in the order the query produces them, so every
+ * row is sent to exactly one partition whatever the order partitions are fetched in. Batches of a partition that
+ * was not requested yet are kept until it is, the others are sent as soon as the client is ready for them.
+ * <p>
+ * Waiting for the partitions not requested yet would block clients fetching the partitions one after another, so
+ * their batches are kept without backpressure instead, up to a maximum size. Past it the query is cancelled and
+ * every partition fails, rather than the coordinator holding most of the results.
+ * <p>
+ * Once the stream expires, the partitions that were not requested yet fail and their batches are dropped. The
+ * query is cancelled once every partition is either cancelled or expired.
+ */
+public class PartitionedResultStream implements FlightProducer.ServerStreamListener {
+
+  private final String userName;
+  private final BufferAllocator allocator;
+  private final long maxPendingBytes;
+  private final Partition[] partitions;
+
+  private int numAttached;
+  private long numBatches;
+  private long pendingBytes;
+
+  private VectorSchemaRoot source;
+  private Schema schema;
+  private IpcOption option;
+  private boolean done;
+  private boolean expired;
+  private boolean aborted;
+  private Throwable error;
+
+  private Runnable onReadyHandler;
+  private Runnable onCancelHandler;
+
+  /**
+   * A partition of the results, and the client stream fetching it once requested.
+   */
+  private static final class Partition {
+    private final Deque<PendingBatch> pending = new ArrayDeque<>();
+    private FlightProducer.ServerStreamListener listener;
+    private VectorSchemaRoot root;
+
+    private boolean isAttached() {
+      return listener != null;
+    }
+  }
+
+  /**
+   * A batch kept until the client stream of its partition is attached.
+   */
+  private static final class PendingBatch implements AutoCloseable {
+    private final ArrowRecordBatch batch;
+    private final ArrowBuf metadata;
+    private final long size;
+
+    private PendingBatch(ArrowRecordBatch batch, ArrowBuf metadata, long size) {
+      this.batch = batch;
+      this.metadata = metadata;
+      this.size = size;
+    }
+
+    @Override
+    public void close() {
+      batch.close();
+    }
+  }
+
+  /**
+   * @param userName        The user who ran the query.
+   * @param partitionCount  The number of partitions the results are split into.
+   * @param allocator       The allocator of the partitions' batches.
+   * @param maxPendingBytes The maximum size of the batches kept for the partitions not requested yet.
+   */
+  public PartitionedResultStream(String userName, int partitionCount, BufferAllocator allocator, long maxPendingBytes) {
+    this.userName = userName;
+    this.allocator = allocator;
+    this.maxPendingBytes = maxPendingBytes;
+    this.partitions = new Partition[partitionCount];
+    for (int i = 0; i < partitionCount; i++) {
+      partitions[i] = new Partition();
+    }
+  }
+
+  /**
+   * Attach the client stream of a partition.
+   *
+   * @param partition The partition the client requested.
+   * @param user      The user who requested the partition.
+   * @param listener  The client stream.
+   * @return true if this is the first partition requested, in which case the caller must start the query.
+   */
+  public boolean attach(int partition, String user, FlightProducer.ServerStreamListener listener) {
+    final boolean first;
+    synchronized (this) {
+      if (!userName.equals(user)) {
+        throw CallStatus.UNAUTHORIZED.withDescription("Results belong to another user.").toRuntimeException();
+      }
+      if (partition < 0 || partition >= partitions.length) {
+        throw CallStatus.INVALID_ARGUMENT
+          .withDescription(String.format("Invalid partition %d, results have %d partitions.", partition, partitions.length))
+          .toRuntimeException();
+      }
+      if (partitions[partition].isAttached()) {
+        throw CallStatus.INVALID_ARGUMENT
+          .withDescription(String.format("Partition %d is already being fetched.", partition))
+          .toRuntimeException();
+      }
+      if (expired) {
+        throw CallStatus.NOT_FOUND
+          .withDescription(String.format("Partition %d of the results expired.", partition))
+          .toRuntimeException();
+      }
+
+      final Partition attached = partitions[partition];
+      attached.listener = listener;
+      first = ++numAttached == 1;
+      if (schema != null) {
+        startPartition(attached);
+      }
+      if (done) {
+        finishPartition(attached);
+      }
+    }
+
+    listener.setOnReadyHandler(this::onPartitionReady);
+    listener.setOnCancelHandler(this::onPartitionCancelled);
+    return first;
+  }
+
+  /**
+   * @return true once every partition was requested, at which point the stream doesn't need to be looked up anymore.
+   */
+  public synchronized boolean isFullyAttached() {
+    return numAttached == partitions.length;
+  }
+
+  /**
+   * Expires the partitions that were not requested yet: their batches are dropped, and requesting them fails.
+   */
+  public void expire() {
+    synchronized (this) {
+      expired = true;
+      for (Partition partition : partitions) {
+        if (!partition.isAttached()) {
+          releasePending(partition);
+        }
+      }
+    }
+    onPartitionCancelled();
+  }
+
+  private void onPartitionReady() {
+    final Runnable handler;
+    synchronized (this) {
+      handler = onReadyHandler;
+    }
+    if (handler != null) {
+      handler.run();
+    }
+  }
+
+  private void onPartitionCancelled() {
+    final Runnable handler;
+    synchronized (this) {
+      handler = onCancelHandler;
+    }
+    if (handler != null && isCancelled()) {
+      handler.run();
+    }
+  }
+
+  /**
+   * @return true if the partition won't receive any more batches.
+   */
+  private boolean isClosed(Partition partition) {
+    return partition.isAttached() ? partition.listener.isCancelled() : expired;
+  }
+
+  @Override
+  public synchronized boolean isCancelled() {
+    if (aborted) {
+      return true;
+    }
+    if (numAttached == 0) {
+      return false;
+    }
+    for (Partition partition : partitions) {
+      if (!isClosed(partition)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized void setOnCancelHandler(Runnable handler) {
+    this.onCancelHandler = handler;
+  }
+
+  @Override
+  public synchronized boolean isReady() {
+    if (isCancelled()) {
+      return false;
+    }
+    final Partition target = nextPartition();
+    // batches of closed partitions are dropped, and the ones of partitions not requested yet are kept up to
+    // maxPendingBytes
+    return isClosed(target) || !target.isAttached() || target.listener.isReady();
+  }
+
+  @Override
+  public synchronized void setOnReadyHandler(Runnable handler) {
+    this.onReadyHandler = handler;
+  }
+
+  @Override
+  public synchronized void start(VectorSchemaRoot root, DictionaryProvider dictionaries, IpcOption option) {
+    this.source = root;
+    this.schema = root.getSchema();
+    this.option = option;
+    for (Partition partition : partitions) {
+      if (partition.isAttached()) {
+        startPartition(partition);
+      }
+    }
+  }
+
+  private void startPartition(Partition partition) {
+    partition.root = VectorSchemaRoot.create(schema, allocator);
+    if (!partition.listener.isCancelled()) {
+      partition.listener.start(partition.root, null, option);
+    }
+    // send the batches produced before the partition was requested
+    while (!partition.pending.isEmpty()) {
+      try (PendingBatch batch = partition.pending.poll()) {
+        pendingBytes -= batch.size;
+        send(partition, batch.batch, batch.metadata);
+      }
+    }
+  }
+
+  @Override
+  public void putNext(ArrowBuf metadata) {
+    synchronized (this) {
+      final Partition target = nextPartition();
+      numBatches++;
+      if (done || isClosed(target)) {
+        releaseMetadata(metadata);
+        return;
+      }
+
+      final ArrowRecordBatch batch = new VectorUnloader(source).getRecordBatch();
+      if (target.isAttached()) {
+        try {
+          send(target, batch, metadata);
+        } finally {
+          batch.close();
+        }
+        return;
+      }
+
+      final long size = batch.computeBodyLength();
+      if (pendingBytes + size <= maxPendingBytes) {
+        pendingBytes += size;
+        target.pending.add(new PendingBatch(batch, metadata, size));
+        return;
+      }
+      batch.close();
+      releaseMetadata(metadata);
+      abort(CallStatus.RESOURCE_EXHAUSTED
+        .withDescription(String.format("The results kept for the partitions not fetched yet exceed %d bytes. " +
+          "Fetch the partitions concurrently, or lower flight.results.partitions.", maxPendingBytes))
+        .toRuntimeException());
+    }
+    // cancels the query
+    onPartitionCancelled();
+  }
+
+  /**
+   * Fails every partition, and reports the stream as cancelled so that the query is cancelled.
+   */
+  private void abort(Throwable ex) {
+    aborted = true;
+    done = true;
+    error = ex;
+    finishPartitions();
+  }
+
+  private void releasePending(Partition partition) {
+    for (PendingBatch batch : partition.pending) {
+      pendingBytes -= batch.size;
+      batch.close();
+      releaseMetadata(batch.metadata);
+    }
+    partition.pending.clear();
+  }
+
+  private static void send(Partition partition, ArrowRecordBatch batch, ArrowBuf metadata) {
+    if (partition.listener.isCancelled()) {
+      releaseMetadata(metadata);
+      return;
+    }
+    new VectorLoader(partition.root).load(batch);
+    partition.listener.putNext(metadata);
+  }
+
+  /**
+   * Releases the metadata of a batch that won't be sent, the client stream takes ownership of the others.
+   */
+  private static void releaseMetadata(ArrowBuf metadata) {
+    if (metadata != null) {
+      metadata.close();
+    }
+  }
+
+  /**
+   * @return the partition the next batch belongs to.
+   */
+  private Partition nextPartition() {
+    return partitions[(int) (numBatches % partitions.length)];
+  }
+
+  @Override
+  public synchronized void putMetadata(ArrowBuf metadata) {
+    final Partition target = nextPartition();
+    if (target.isAttached() && !target.listener.isCancelled()) {
+      target.listener.putMetadata(metadata);
+    }
+  }
+
+  @Override
+  public synchronized void error(Throwable ex) {
+    if (aborted) {
+      // the partitions already failed
+      return;
+    }
+    done = true;
+    error = ex;
+    finishPartitions();
+  }
+
+  @Override
+  public synchronized void completed() {
+    if (aborted) {
+      return;
+    }
+    done = true;
+    finishPartitions();
+  }
+
+  private void finishPartitions() {
+    for (Partition partition : partitions) {
+      if (partition.isAttached()) {
+        finishPartition(partition);
+      } else if (error != null) {
+        // the partition fails as soon as it is requested
+        releasePending(partition);
+      }
+    }
+  }
+
+  private void finishPartition(Partition partition) {
+    try {
+      if (partition.listener.isCancelled()) {
+        return;
+      }
+      if (error != null) {
+        partition.listener.error(error);
+        return;
+      }
+      if (partition.root == null && schema != null) {
+        startPartition(partition);
+      }
+      partition.listener.completed();
+    } finally {
+      releasePending(partition);
+      if (partition.root != null) {
+        partition.root.close();
+        partition.root = null;
+      }
+    }
+  }
+}
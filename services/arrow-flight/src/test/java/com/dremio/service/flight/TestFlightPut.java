@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.flight;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.flight.FlightClient;
+import org.apache.arrow.flight.FlightDescriptor;
+import org.apache.arrow.flight.FlightRuntimeException;
+import org.apache.arrow.flight.FlightStatusCode;
+import org.apache.arrow.flight.SyncPutListener;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dremio.service.flight.impl.FlightWorkManager;
+
+/**
+ * Test puts into Iceberg tables through the Flight endpoint.
+ */
+public class TestFlightPut extends BaseFlightQueryTest {
+  private static final String TABLE = "flight_put";
+  private static final Schema SCHEMA =
+    new Schema(Collections.singletonList(Field.nullable("id", new ArrowType.Int(32, true))));
+
+  private AutoCloseable iceberg;
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    setupBaseFlightQueryTest(
+      false,
+      true,
+      "flight.endpoint.port",
+      FlightWorkManager.RunQueryResponseHandlerFactory.DEFAULT);
+  }
+
+  @Before
+  public void createTable() throws Exception {
+    iceberg = enableIcebergTables();
+    test(String.format("CREATE TABLE %s.%s (id int)", TEMP_SCHEMA_HADOOP, TABLE));
+  }
+
+  @After
+  public void dropTable() throws Exception {
+    try {
+      test(String.format("DROP TABLE %s.%s", TEMP_SCHEMA_HADOOP, TABLE));
+    } finally {
+      iceberg.close();
+    }
+  }
+
+  private static FlightDescriptor tableDescriptor() {
+    return FlightDescriptor.path(TEMP_SCHEMA_HADOOP, TABLE);
+  }
+
+  private void put(FlightDescriptor descriptor, VectorSchemaRoot root) throws Exception {
+    final FlightClientUtils.FlightClientWrapper wrapper = getFlightClientWrapper();
+    try (SyncPutListener listener = new SyncPutListener()) {
+      final FlightClient.ClientStreamListener stream = (DremioFlightService.FLIGHT_LEGACY_AUTH_MODE.equals(wrapper.getAuthMode()))?
+        wrapper.getClient().startPut(descriptor, root, listener):
+        wrapper.getClient().startPut(descriptor, root, listener, wrapper.getTokenCallOption());
+      stream.putNext();
+      stream.completed();
+      stream.getResult();
+    }
+  }
+
+  /**
+   * Put the ids in [from, from + count) into the table.
+   */
+  private void putIds(int from, int count) throws Exception {
+    try (VectorSchemaRoot root = VectorSchemaRoot.create(SCHEMA, getFlightClientWrapper().getAllocator())) {
+      final IntVector vector = (IntVector) root.getVector("id");
+      vector.allocateNew(count);
+      for (int i = 0; i < count; i++) {
+        vector.set(i, from + i);
+      }
+      root.setRowCount(count);
+      put(tableDescriptor(), root);
+    }
+  }
+
+  private static void assertPutFails(FlightStatusCode expected, ThrowingRunnable put) throws Exception {
+    try {
+      put.run();
+    } catch (FlightRuntimeException e) {
+      assertEquals(expected, e.status().code());
+      return;
+    }
+    throw new AssertionError("put should have failed");
+  }
+
+  private interface ThrowingRunnable {
+    void run() throws Exception;
+  }
+
+  private void assertIds(long count) throws Exception {
+    testBuilder()
+      .sqlQuery(String.format("SELECT count(*) c, count(DISTINCT id) d FROM %s.%s", TEMP_SCHEMA_HADOOP, TABLE))
+      .unOrdered()
+      .baselineColumns("c", "d")
+      .baselineValues(count, count)
+      .go();
+  }
+
+  /**
+   * @return the number of versions of the table's metadata, one per commit and one for its creation.
+   */
+  private static int getNumberOfTableVersions() {
+    final File metadataFolder = new File(new File(getDfsTestTmpSchemaLocation(), TABLE), "metadata");
+    return Objects.requireNonNull(metadataFolder.listFiles((dir, name) -> name.endsWith(".metadata.json"))).length;
+  }
+
+  @Test
+  public void testPutIsCommitted() throws Exception {
+    try (AutoCloseable c = withSystemOption(DremioFlightServiceOptions.PUT_COMMIT_MAX_DELAY_MILLIS, 0)) {
+      putIds(0, 100);
+      assertIds(100);
+      putIds(100, 50);
+      assertIds(150);
+    }
+    assertEquals(3, getNumberOfTableVersions());
+  }
+
+  @Test
+  public void testConcurrentPutsAreCommittedTogether() throws Exception {
+    final int numPuts = 4;
+    // the puts are committed once they all wrote their files
+    try (AutoCloseable maxRecords = withSystemOption(DremioFlightServiceOptions.PUT_COMMIT_MAX_RECORDS, numPuts * 10);
+         AutoCloseable maxDelay = withSystemOption(DremioFlightServiceOptions.PUT_COMMIT_MAX_DELAY_MILLIS,
+           TimeUnit.MINUTES.toMillis(10))) {
+      final ExecutorService executor = Executors.newFixedThreadPool(numPuts);
+      try {
+        final List<Future<?>> puts = new ArrayList<>();
+        for (int i = 0; i < numPuts; i++) {
+          final int from = i * 10;
+          puts.add(executor.submit(() -> {
+            putIds(from, 10);
+            return null;
+          }));
+        }
+        for (Future<?> put : puts) {
+          put.get(1, TimeUnit.MINUTES);
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    assertIds(numPuts * 10);
+    assertEquals(2, getNumberOfTableVersions());
+  }
+
+  @Test
+  public void testPutToMissingTable() throws Exception {
+    try (VectorSchemaRoot root = VectorSchemaRoot.create(SCHEMA, getFlightClientWrapper().getAllocator())) {
+      assertPutFails(FlightStatusCode.INVALID_ARGUMENT,
+        () -> put(FlightDescriptor.path(TEMP_SCHEMA_HADOOP, "missing_table"), root));
+    }
+  }
+
+  @Test
+  public void testPutWithCommandDescriptor() throws Exception {
+    try (VectorSchemaRoot root = VectorSchemaRoot.create(SCHEMA, getFlightClientWrapper().getAllocator())) {
+      assertPutFails(FlightStatusCode.INVALID_ARGUMENT,
+        () -> put(FlightDescriptor.command(TABLE.getBytes(StandardCharsets.UTF_8)), root));
+    }
+  }
+
+  @Test
+  public void testPutWithOtherSchema() throws Exception {
+    final Schema schema = new Schema(Collections.singletonList(Field.nullable("id", new ArrowType.Utf8())));
+    try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, getFlightClientWrapper().getAllocator())) {
+      final VarCharVector vector = (VarCharVector) root.getVector("id");
+      vector.allocateNew(1);
+      vector.setSafe(0, "a".getBytes(StandardCharsets.UTF_8));
+      root.setRowCount(1);
+      assertPutFails(FlightStatusCode.INVALID_ARGUMENT, () -> put(tableDescriptor(), root));
+    }
+    assertIds(0);
+    assertEquals(1, getNumberOfTableVersions());
+  }
+
+  @Test
+  public void testPutWithoutIceberg() throws Exception {
+    iceberg.close();
+    try {
+      try (VectorSchemaRoot root = VectorSchemaRoot.create(SCHEMA, getFlightClientWrapper().getAllocator())) {
+        assertPutFails(FlightStatusCode.INTERNAL, () -> put(tableDescriptor(), root));
+      }
+    } finally {
+      iceberg = enableIcebergTables();
+    }
+  }
+}
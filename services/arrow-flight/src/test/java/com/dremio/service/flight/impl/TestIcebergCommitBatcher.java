@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.flight.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.iceberg.DataFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for IcebergCommitBatcher.
+ */
+public class TestIcebergCommitBatcher {
+  private static final long LONG_DELAY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private ScheduledExecutorService executor;
+  private List<List<DataFile>> commits;
+
+  @Before
+  public void setUp() {
+    executor = new ScheduledThreadPoolExecutor(2);
+    commits = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static DataFile dataFile(long records) {
+    final DataFile dataFile = mock(DataFile.class);
+    when(dataFile.recordCount()).thenReturn(records);
+    return dataFile;
+  }
+
+  private long commit(List<DataFile> dataFiles) {
+    commits.add(new ArrayList<>(dataFiles));
+    return commits.size();
+  }
+
+  @Test
+  public void testCommitWhenMaxFilesReached() throws Exception {
+    final IcebergCommitBatcher batcher = new IcebergCommitBatcher(this::commit, executor, 3, Long.MAX_VALUE,
+      LONG_DELAY_MILLIS);
+    final DataFile file0 = dataFile(10);
+    final DataFile file1 = dataFile(10);
+    final DataFile file2 = dataFile(10);
+
+    final CompletableFuture<Long> first = batcher.add(Collections.singletonList(file0));
+    final CompletableFuture<Long> second = batcher.add(Arrays.asList(file1, file2));
+
+    assertEquals(1L, (long) first.get(10, TimeUnit.SECONDS));
+    assertSame(first, second);
+    assertEquals(Collections.singletonList(Arrays.asList(file0, file1, file2)), commits);
+
+    // the next puts go to a new commit
+    final CompletableFuture<Long> third = batcher.add(Collections.singletonList(dataFile(10)));
+    assertFalse(third.isDone());
+  }
+
+  @Test
+  public void testCommitWhenMaxRecordsReached() throws Exception {
+    final IcebergCommitBatcher batcher = new IcebergCommitBatcher(this::commit, executor, Long.MAX_VALUE, 100,
+      LONG_DELAY_MILLIS);
+
+    final CompletableFuture<Long> first = batcher.add(Collections.singletonList(dataFile(60)));
+    assertFalse(first.isDone());
+    final CompletableFuture<Long> second = batcher.add(Collections.singletonList(dataFile(40)));
+
+    assertEquals(1L, (long) second.get(10, TimeUnit.SECONDS));
+    assertSame(first, second);
+    assertEquals(1, commits.size());
+    assertEquals(2, commits.get(0).size());
+  }
+
+  @Test
+  public void testCommitAfterMaxDelay() throws Exception {
+    final IcebergCommitBatcher batcher = new IcebergCommitBatcher(this::commit, executor, Long.MAX_VALUE,
+      Long.MAX_VALUE, 50);
+
+    final CompletableFuture<Long> first = batcher.add(Collections.singletonList(dataFile(1)));
+    final CompletableFuture<Long> second = batcher.add(Collections.singletonList(dataFile(1)));
+
+    assertEquals(1L, (long) first.get(10, TimeUnit.SECONDS));
+    assertSame(first, second);
+    assertEquals(1, commits.size());
+    assertEquals(2, commits.get(0).size());
+  }
+
+  @Test
+  public void testNoBatchingWithoutDelay() throws Exception {
+    final IcebergCommitBatcher batcher = new IcebergCommitBatcher(this::commit, executor, Long.MAX_VALUE,
+      Long.MAX_VALUE, 0);
+
+    final CompletableFuture<Long> first = batcher.add(Collections.singletonList(dataFile(1)));
+    first.get(10, TimeUnit.SECONDS);
+    final CompletableFuture<Long> second = batcher.add(Collections.singletonList(dataFile(1)));
+    second.get(10, TimeUnit.SECONDS);
+
+    assertEquals(2, commits.size());
+  }
+
+  @Test
+  public void testCommitFailureIsSentToAllPuts() throws Exception {
+    final RuntimeException error = new RuntimeException("commit failed");
+    final IcebergCommitBatcher batcher = new IcebergCommitBatcher(dataFiles -> {
+      throw error;
+    }, executor, 2, Long.MAX_VALUE, LONG_DELAY_MILLIS);
+
+    final CompletableFuture<Long> first = batcher.add(Collections.singletonList(dataFile(1)));
+    batcher.add(Collections.singletonList(dataFile(1)));
+
+    try {
+      first.get(10, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      assertSame(error, e.getCause());
+      return;
+    }
+    throw new AssertionError("commit should have failed");
+  }
+
+  @Test
+  public void testRemovedFilesAreNotCommitted() throws Exception {
+    final IcebergCommitBatcher batcher = new IcebergCommitBatcher(this::commit, executor, 3, Long.MAX_VALUE,
+      LONG_DELAY_MILLIS);
+    final DataFile file0 = dataFile(10);
+    final List<DataFile> removed = Arrays.asList(dataFile(10), dataFile(10));
+
+    final CompletableFuture<Long> first = batcher.add(Collections.singletonList(file0));
+    batcher.add(removed);
+    assertTrue(batcher.remove(removed));
+    assertFalse(first.isDone());
+
+    final DataFile file1 = dataFile(10);
+    final DataFile file2 = dataFile(10);
+    batcher.add(Arrays.asList(file1, file2));
+    assertEquals(1L, (long) first.get(10, TimeUnit.SECONDS));
+    assertEquals(Collections.singletonList(Arrays.asList(file0, file1, file2)), commits);
+  }
+
+  @Test
+  public void testRemoveOnceCommitStarted() throws Exception {
+    final CountDownLatch committing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final IcebergCommitBatcher batcher = new IcebergCommitBatcher(dataFiles -> {
+      committing.countDown();
+      release.await();
+      return commit(dataFiles);
+    }, executor, 1, Long.MAX_VALUE, LONG_DELAY_MILLIS);
+
+    final List<DataFile> dataFiles = Collections.singletonList(dataFile(10));
+    final CompletableFuture<Long> committed = batcher.add(dataFiles);
+    assertTrue(committing.await(10, TimeUnit.SECONDS));
+    // the put can't be undone anymore
+    assertFalse(batcher.remove(dataFiles));
+
+    release.countDown();
+    assertEquals(1L, (long) committed.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testBatchOfRemovedFilesIsNotCommitted() throws Exception {
+    final IcebergCommitBatcher batcher = new IcebergCommitBatcher(this::commit, executor, Long.MAX_VALUE,
+      Long.MAX_VALUE, 50);
+
+    final List<DataFile> dataFiles = Collections.singletonList(dataFile(1));
+    batcher.add(dataFiles);
+    assertTrue(batcher.remove(dataFiles));
+    // past the delay of the batch, which is left empty
+    executor.schedule(() -> null, 200, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS);
+    assertTrue(commits.isEmpty());
+
+    final CompletableFuture<Long> next = batcher.add(Collections.singletonList(dataFile(1)));
+    assertEquals(1L, (long) next.get(10, TimeUnit.SECONDS));
+    assertEquals(1, commits.size());
+  }
+}
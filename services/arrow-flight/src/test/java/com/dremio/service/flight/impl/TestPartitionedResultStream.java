@@ -0,0 +1,426 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.flight.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.arrow.flight.FlightProducer;
+import org.apache.arrow.flight.FlightRuntimeException;
+import org.apache.arrow.flight.FlightStatusCode;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit tests for PartitionedResultStream.
+ */
+public class TestPartitionedResultStream {
+  private static final String USERNAME = "MY_USER";
+  private static final int ROWS_PER_BATCH = 10;
+  private static final long MAX_PENDING_BYTES = Long.MAX_VALUE;
+  private static final Schema SCHEMA =
+    new Schema(Collections.singletonList(Field.nullable("a", new ArrowType.Int(32, true))));
+
+  private BufferAllocator allocator;
+  private VectorSchemaRoot source;
+
+  @Before
+  public void setUp() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    source = VectorSchemaRoot.create(SCHEMA, allocator);
+    fillSource(0);
+  }
+
+  /**
+   * Loads the rows of a batch in new buffers, the way the query's results are loaded.
+   */
+  private void fillSource(int batch) {
+    fillSource(source, batch);
+  }
+
+  private static void fillSource(VectorSchemaRoot source, int batch) {
+    final IntVector vector = (IntVector) source.getVector("a");
+    vector.allocateNew(ROWS_PER_BATCH);
+    for (int i = 0; i < ROWS_PER_BATCH; i++) {
+      vector.set(i, batch * ROWS_PER_BATCH + i);
+    }
+    source.setRowCount(ROWS_PER_BATCH);
+  }
+
+  private void putBatches(PartitionedResultStream stream, int numBatches) {
+    for (int i = 0; i < numBatches; i++) {
+      fillSource(i);
+      stream.putNext();
+    }
+  }
+
+  /**
+   * Client stream recording the rows of the batches it receives.
+   */
+  private static final class RecordingListener {
+    private final FlightProducer.ServerStreamListener listener = mockListener(true);
+    private final List<Integer> rows = new ArrayList<>();
+    private VectorSchemaRoot root;
+
+    private RecordingListener() {
+      doAnswer(invocation -> {
+        root = (VectorSchemaRoot) invocation.getArguments()[0];
+        return null;
+      }).when(listener).start(any(), any(), any());
+      doAnswer(invocation -> {
+        final IntVector vector = (IntVector) root.getVector("a");
+        for (int i = 0; i < root.getRowCount(); i++) {
+          rows.add(vector.get(i));
+        }
+        return null;
+      }).when(listener).putNext(any());
+    }
+  }
+
+  private static void assertEveryRowOnce(int numBatches, RecordingListener... listeners) {
+    final List<Integer> rows = new ArrayList<>();
+    for (RecordingListener listener : listeners) {
+      rows.addAll(listener.rows);
+    }
+    Collections.sort(rows);
+    final List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < numBatches * ROWS_PER_BATCH; i++) {
+      expected.add(i);
+    }
+    assertEquals(expected, rows);
+  }
+
+  @After
+  public void tearDown() {
+    source.close();
+    // fails if a partition's root leaked
+    allocator.close();
+  }
+
+  private static FlightProducer.ServerStreamListener mockListener(boolean ready) {
+    final FlightProducer.ServerStreamListener listener = mock(FlightProducer.ServerStreamListener.class);
+    when(listener.isReady()).thenReturn(ready);
+    when(listener.isCancelled()).thenReturn(false);
+    return listener;
+  }
+
+  private static void verifyStarted(FlightProducer.ServerStreamListener listener) {
+    verify(listener).start(any(), any(), any());
+  }
+
+  @Test
+  public void testBatchesAreSpreadAcrossPartitions() {
+    final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, 2, allocator, MAX_PENDING_BYTES);
+    final FlightProducer.ServerStreamListener listener0 = mockListener(true);
+    final FlightProducer.ServerStreamListener listener1 = mockListener(true);
+
+    assertTrue(stream.attach(0, USERNAME, listener0));
+    assertFalse(stream.isFullyAttached());
+    assertFalse(stream.attach(1, USERNAME, listener1));
+    assertTrue(stream.isFullyAttached());
+
+    stream.start(source);
+    verifyStarted(listener0);
+    verifyStarted(listener1);
+
+    for (int i = 0; i < 4; i++) {
+      stream.putNext();
+    }
+    verify(listener0, times(2)).putNext(any());
+    verify(listener1, times(2)).putNext(any());
+
+    stream.completed();
+    verify(listener0).completed();
+    verify(listener1).completed();
+  }
+
+  @Test
+  public void testPartitionNotReadyHoldsBackItsBatches() {
+    final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, 2, allocator, MAX_PENDING_BYTES);
+    final FlightProducer.ServerStreamListener listener0 = mockListener(false);
+    final FlightProducer.ServerStreamListener listener1 = mockListener(true);
+    stream.attach(0, USERNAME, listener0);
+    stream.attach(1, USERNAME, listener1);
+
+    stream.start(source);
+    // the next batch belongs to partition 0, whatever the readiness of the others
+    assertFalse(stream.isReady());
+
+    when(listener0.isReady()).thenReturn(true);
+    assertTrue(stream.isReady());
+    stream.putNext();
+    verify(listener0).putNext(any());
+    verify(listener1, never()).putNext(any());
+
+    stream.completed();
+  }
+
+  @Test
+  public void testSequentialFetchReturnsEveryRowOnce() {
+    final int numBatches = 10;
+    final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, 3, allocator, MAX_PENDING_BYTES);
+    final RecordingListener listener0 = new RecordingListener();
+    final RecordingListener listener1 = new RecordingListener();
+    final RecordingListener listener2 = new RecordingListener();
+
+    // the client reads partition 0 to the end before requesting the next ones
+    assertTrue(stream.attach(0, USERNAME, listener0.listener));
+    stream.start(source);
+    for (int i = 0; i < numBatches; i++) {
+      // batches of the partitions not requested yet are kept
+      assertTrue(stream.isReady());
+      fillSource(i);
+      stream.putNext();
+    }
+    stream.completed();
+    verify(listener0.listener).completed();
+    assertEquals(4 * ROWS_PER_BATCH, listener0.rows.size());
+
+    assertFalse(stream.attach(1, USERNAME, listener1.listener));
+    verify(listener1.listener).completed();
+    assertFalse(stream.attach(2, USERNAME, listener2.listener));
+    verify(listener2.listener).completed();
+    assertTrue(stream.isFullyAttached());
+
+    assertEveryRowOnce(numBatches, listener0, listener1, listener2);
+  }
+
+  @Test
+  public void testSequentialFetchUnderAllocatorLimit() {
+    final long limit = 64 * 1024;
+    try (BufferAllocator limited = allocator.newChildAllocator("limited", 0, limit);
+         VectorSchemaRoot limitedSource = VectorSchemaRoot.create(SCHEMA, limited)) {
+      fillSource(limitedSource, 0);
+      final long batchSize;
+      try (ArrowRecordBatch batch = new VectorUnloader(limitedSource).getRecordBatch()) {
+        batchSize = batch.computeBodyLength();
+      }
+      // the batches of the partitions not requested yet would take more than the allocator's limit
+      final int numBatches = (int) (4 * limit / batchSize);
+      final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, 2, limited, limit / 4);
+      final AtomicInteger cancelled = new AtomicInteger();
+      stream.setOnCancelHandler(cancelled::incrementAndGet);
+      final RecordingListener listener0 = new RecordingListener();
+      final RecordingListener listener1 = new RecordingListener();
+
+      // the client reads partition 0 to the end before requesting partition 1
+      stream.attach(0, USERNAME, listener0.listener);
+      stream.start(limitedSource);
+      int sent = 0;
+      while (sent < numBatches && !stream.isCancelled()) {
+        fillSource(limitedSource, sent++);
+        stream.putNext();
+      }
+      assertTrue(sent < numBatches);
+      assertTrue(stream.isCancelled());
+      assertFalse(stream.isReady());
+      assertEquals(1, cancelled.get());
+      assertFailed(listener0.listener, FlightStatusCode.RESOURCE_EXHAUSTED);
+      verify(listener0.listener, never()).completed();
+
+      // the query is cancelled, its outcome doesn't change the partitions' status
+      stream.error(new RuntimeException("query cancelled"));
+      stream.attach(1, USERNAME, listener1.listener);
+      assertFailed(listener1.listener, FlightStatusCode.RESOURCE_EXHAUSTED);
+      assertTrue(listener1.rows.isEmpty());
+
+      // only the source's buffers are left
+      fillSource(limitedSource, 0);
+      assertTrue(limited.getAllocatedMemory() < limit / 4);
+    }
+  }
+
+  private static void assertFailed(FlightProducer.ServerStreamListener listener, FlightStatusCode expected) {
+    final ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+    verify(listener).error(error.capture());
+    assertEquals(expected, ((FlightRuntimeException) error.getValue()).status().code());
+  }
+
+  @Test
+  public void testConcurrentFetchReturnsEveryRowOnce() throws Exception {
+    final int numBatches = 100;
+    final int numPartitions = 4;
+    final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, numPartitions, allocator, MAX_PENDING_BYTES);
+    final RecordingListener[] listeners = new RecordingListener[numPartitions];
+    for (int i = 0; i < numPartitions; i++) {
+      listeners[i] = new RecordingListener();
+    }
+
+    // the query starts with the first partition, the others are requested while it runs
+    stream.attach(0, USERNAME, listeners[0].listener);
+    stream.start(source);
+    final ExecutorService executor = Executors.newFixedThreadPool(numPartitions);
+    try {
+      final CountDownLatch started = new CountDownLatch(1);
+      final List<Future<?>> attached = new ArrayList<>();
+      for (int i = 1; i < numPartitions; i++) {
+        final int partition = i;
+        attached.add(executor.submit(() -> {
+          started.await();
+          return stream.attach(partition, USERNAME, listeners[partition].listener);
+        }));
+      }
+      final Future<?> query = executor.submit(() -> {
+        started.await();
+        putBatches(stream, numBatches);
+        stream.completed();
+        return null;
+      });
+
+      started.countDown();
+      query.get(30, TimeUnit.SECONDS);
+      for (Future<?> future : attached) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (RecordingListener listener : listeners) {
+      verify(listener.listener).completed();
+      assertEquals(numBatches / numPartitions * ROWS_PER_BATCH, listener.rows.size());
+    }
+    assertEveryRowOnce(numBatches, listeners);
+  }
+
+  @Test
+  public void testExpiredPartitionFails() {
+    final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, 2, allocator, MAX_PENDING_BYTES);
+    final FlightProducer.ServerStreamListener listener0 = mockListener(true);
+    stream.attach(0, USERNAME, listener0);
+    stream.start(source);
+    // the second batch is kept for partition 1
+    putBatches(stream, 2);
+
+    stream.expire();
+    assertAttachFails(stream, 1, USERNAME, FlightStatusCode.NOT_FOUND);
+    assertFalse(stream.isCancelled());
+
+    // batches of the expired partition are dropped
+    putBatches(stream, 2);
+    verify(listener0, times(2)).putNext(any());
+    stream.completed();
+    verify(listener0).completed();
+  }
+
+  @Test
+  public void testPartitionAttachedAfterCompletion() {
+    final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, 2, allocator, MAX_PENDING_BYTES);
+    final FlightProducer.ServerStreamListener listener0 = mockListener(true);
+    final FlightProducer.ServerStreamListener listener1 = mockListener(true);
+    stream.attach(0, USERNAME, listener0);
+
+    stream.start(source);
+    stream.putNext();
+    stream.completed();
+    verify(listener0).putNext(any());
+    verify(listener0).completed();
+
+    // gets an empty stream
+    assertFalse(stream.attach(1, USERNAME, listener1));
+    verifyStarted(listener1);
+    verify(listener1, never()).putNext(any());
+    verify(listener1).completed();
+  }
+
+  @Test
+  public void testErrorIsSentToAllPartitions() {
+    final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, 2, allocator, MAX_PENDING_BYTES);
+    final FlightProducer.ServerStreamListener listener0 = mockListener(true);
+    final FlightProducer.ServerStreamListener listener1 = mockListener(true);
+    stream.attach(0, USERNAME, listener0);
+    stream.start(source);
+
+    final RuntimeException error = new RuntimeException("query failed");
+    stream.error(error);
+    stream.attach(1, USERNAME, listener1);
+
+    verify(listener0).error(error);
+    verify(listener1).error(error);
+  }
+
+  @Test
+  public void testCancelledOnceAllAttachedPartitionsAreCancelled() {
+    final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, 3, allocator, MAX_PENDING_BYTES);
+    final FlightProducer.ServerStreamListener listener0 = mockListener(true);
+    final FlightProducer.ServerStreamListener listener1 = mockListener(true);
+    stream.attach(0, USERNAME, listener0);
+    stream.attach(1, USERNAME, listener1);
+    assertFalse(stream.isCancelled());
+
+    when(listener0.isCancelled()).thenReturn(true);
+    assertFalse(stream.isCancelled());
+
+    when(listener1.isCancelled()).thenReturn(true);
+    // partition 2 can still be requested
+    assertFalse(stream.isCancelled());
+
+    stream.expire();
+    assertTrue(stream.isCancelled());
+    assertFalse(stream.isReady());
+  }
+
+  private static void assertAttachFails(PartitionedResultStream stream, int partition, String user,
+                                        FlightStatusCode expected) {
+    try {
+      stream.attach(partition, user, mockListener(true));
+    } catch (FlightRuntimeException e) {
+      assertEquals(expected, e.status().code());
+      return;
+    }
+    throw new AssertionError("attach should have failed");
+  }
+
+  @Test
+  public void testInvalidAttach() {
+    final PartitionedResultStream stream = new PartitionedResultStream(USERNAME, 2, allocator, MAX_PENDING_BYTES);
+    stream.attach(0, USERNAME, mockListener(true));
+
+    assertAttachFails(stream, 0, USERNAME, FlightStatusCode.INVALID_ARGUMENT);
+    assertAttachFails(stream, 2, USERNAME, FlightStatusCode.INVALID_ARGUMENT);
+    assertAttachFails(stream, 1, "OTHER_USER", FlightStatusCode.UNAUTHORIZED);
+    assertFalse(stream.isFullyAttached());
+  }
+}
@@ -18,6 +18,7 @@ package com.dremio.datastore;
 import static com.dremio.common.perf.Timer.time;
 
 import java.util.List;
+import java.util.Map;
 
 import com.dremio.common.perf.Timer.TimedBlock;
 import com.dremio.datastore.SearchTypes.SearchQuery;
@@ -78,6 +79,13 @@ abstract class CoreBaseTimedStore<K, V> implements CoreKVStore<K, V> {
     }
   }
 
+  @Override
+  public void bulkPut(Iterable<Map.Entry<KVStoreTuple<K>, KVStoreTuple<V>>> entries) {
+    try (TimedBlock b = time(name + ".bulkPut")) {
+      kvStore.bulkPut(entries);
+    }
+  }
+
   @Override
   public boolean contains(KVStoreTuple<K> key, ContainsOption... options) {
     try (TimedBlock b = time(name + ".contains")) {
@@ -92,6 +100,13 @@ abstract class CoreBaseTimedStore<K, V> implements CoreKVStore<K, V> {
     }
   }
 
+  @Override
+  public void bulkDelete(Iterable<KVStoreTuple<K>> keys) {
+    try (TimedBlock b = time(name + ".bulkDelete")) {
+      kvStore.bulkDelete(keys);
+    }
+  }
+
   @Override
   public Iterable<Document<KVStoreTuple<K>, KVStoreTuple<V>>> get(List<KVStoreTuple<K>> keys, GetOption... options) {
     try (TimedBlock b = time(name + ".get(List)")) {
@@ -17,6 +17,7 @@ package com.dremio.datastore;
 
 import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Map;
 
 import com.dremio.datastore.api.Document;
 import com.dremio.datastore.api.FindByRange;
@@ -26,6 +27,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * KVStore created by CoreStoreProvider.
@@ -89,6 +91,12 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
     return fromDocument(result);
   }
 
+  @Override
+  public void bulkPut(Iterable<Map.Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>>> entries) {
+    rawStore.bulkPut(Iterables.transform(entries,
+      entry -> Maps.immutableEntry(entry.getKey().getSerializedBytes(), entry.getValue().getSerializedBytes())));
+  }
+
   @Override
   public boolean contains(KVStoreTuple<KEY> key, ContainsOption... options) {
     return rawStore.contains(key.getSerializedBytes(), options);
@@ -109,6 +117,11 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
     }
   }
 
+  @Override
+  public void bulkDelete(Iterable<KVStoreTuple<KEY>> keys) {
+    rawStore.bulkDelete(Iterables.transform(keys, keyToBytes));
+  }
+
   @Override
   public Iterable<Document<KVStoreTuple<KEY>, KVStoreTuple<VALUE>>> find(FindByRange<KVStoreTuple<KEY>> find, FindOption... options) {
     final ImmutableFindByRange.Builder<byte[]> rangeBuilder = new ImmutableFindByRange.Builder<>();
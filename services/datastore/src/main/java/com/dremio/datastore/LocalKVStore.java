@@ -15,7 +15,9 @@
  */
 package com.dremio.datastore;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.dremio.datastore.api.Document;
@@ -24,6 +26,7 @@ import com.dremio.datastore.api.ImmutableFindByRange;
 import com.dremio.datastore.api.KVStore;
 import com.google.common.base.Objects;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 
 /**
  * Local KVStore implementation. (runs on master node)
@@ -78,6 +81,15 @@ public class LocalKVStore<K, V> implements KVStore<K, V> {
     return fromDocument(coreKVStore.put(buildKey(key), buildValue(value), options));
   }
 
+  @Override
+  public void bulkPut(Iterable<Map.Entry<K, V>> entries) {
+    final List<Map.Entry<KVStoreTuple<K>, KVStoreTuple<V>>> convertedEntries = new ArrayList<>();
+    for (Map.Entry<K, V> entry : entries) {
+      convertedEntries.add(Maps.immutableEntry(buildKey(entry.getKey()), buildValue(entry.getValue())));
+    }
+    coreKVStore.bulkPut(convertedEntries);
+  }
+
   @Override
   public boolean contains(K key, ContainsOption... options) {
     return coreKVStore.contains(buildKey(key), options);
@@ -88,6 +100,15 @@ public class LocalKVStore<K, V> implements KVStore<K, V> {
     coreKVStore.delete(buildKey(key), options);
   }
 
+  @Override
+  public void bulkDelete(Iterable<K> keys) {
+    final List<KVStoreTuple<K>> convertedKeys = new ArrayList<>();
+    for (K key : keys) {
+      convertedKeys.add(buildKey(key));
+    }
+    coreKVStore.bulkDelete(convertedKeys);
+  }
+
   @Override
   public Iterable<Document<K, V>> find(FindByRange<K> find, FindOption... options) {
     final FindByRange<KVStoreTuple<K>> convertedRange = new ImmutableFindByRange.Builder<KVStoreTuple<K>>()
@@ -27,8 +27,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -45,12 +47,15 @@ import org.rocksdb.FlushOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.xerial.snappy.SnappyInputStream;
 import org.xerial.snappy.SnappyOutputStream;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.DeferredException;
 import com.dremio.common.concurrent.AutoCloseableLock;
+import com.dremio.common.util.Closeable;
 import com.dremio.datastore.api.Document;
 import com.dremio.datastore.api.FindByRange;
 import com.dremio.datastore.api.ImmutableDocument;
@@ -62,6 +67,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteStreams;
 import com.google.common.primitives.UnsignedBytes;
@@ -303,18 +309,39 @@ class RocksDBStore implements ByteStore {
 
   }
 
-  private AutoCloseableLock sharedLock(byte[] key) {
+  private int stripe(byte[] key) {
     Preconditions.checkNotNull(key);
     final int hash = Arrays.hashCode(key);
-    AutoCloseableLock lock = sharedLocks[Math.abs(hash % parallel)];
+    return Math.abs(hash % parallel);
+  }
+
+  private AutoCloseableLock sharedLock(byte[] key) {
+    AutoCloseableLock lock = sharedLocks[stripe(key)];
     lock.open();
     return lock;
   }
 
+  /**
+   * Grab the shared locks of the stripes of all the given keys. Stripes are locked in ascending order, so that
+   * concurrent multi-key operations do not deadlock.
+   */
+  private Closeable sharedLocks(List<byte[]> keys) {
+    final boolean[] stripes = new boolean[parallel];
+    for (byte[] key : keys) {
+      stripes[stripe(key)] = true;
+    }
+
+    final List<AutoCloseableLock> locks = new ArrayList<>();
+    for (int i = 0; i < parallel; i++) {
+      if (stripes[i]) {
+        locks.add(sharedLocks[i].open());
+      }
+    }
+    return () -> Lists.reverse(locks).forEach(AutoCloseableLock::close);
+  }
+
   private AutoCloseableLock exclusiveLock(byte[] key) {
-    Preconditions.checkNotNull(key);
-    final int hash = Arrays.hashCode(key);
-    AutoCloseableLock lock = exclusiveLocks[Math.abs(hash % parallel)];
+    AutoCloseableLock lock = exclusiveLocks[stripe(key)];
     lock.open();
     return lock;
   }
@@ -483,11 +510,116 @@ class RocksDBStore implements ByteStore {
 
   @Override
   public Iterable<Document<byte[], byte[]>> get(List<byte[]> keys, GetOption... options) {
-    final List<Document<byte[], byte[]>> results = new ArrayList<>();
-    for (byte[] key : keys) {
-      results.add(get(key, options));
+    if (keys.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    // copy the keys, as values are matched to them by identity
+    final List<byte[]> keyList = new ArrayList<>(keys);
+    try (Closeable locks = sharedLocks(keyList)) {
+      throwIfClosed();
+      final Map<byte[], byte[]> valuesOrPtrs = multiGet(keyList);
+      final List<Document<byte[], byte[]>> results = new ArrayList<>(keyList.size());
+      for (byte[] key : keyList) {
+        final RocksEntry result = resolvePtrOrValue(valuesOrPtrs.get(key));
+        if (result == null) {
+          results.add(null);
+        } else {
+          final byte[] value = result.getData();
+          results.add(toDocument(key, value, toTag(result.getMeta(), value)));
+        }
+      }
+      return results;
+    } catch (RocksDBException | BlobNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Save all the entries with a single write to RocksDB, and so a single write to the WAL.
+   */
+  @Override
+  public void bulkPut(Iterable<Map.Entry<byte[], byte[]>> entries) {
+    final List<byte[]> keys = new ArrayList<>();
+    final List<byte[]> values = new ArrayList<>();
+    for (Map.Entry<byte[], byte[]> entry : entries) {
+      if (entry.getValue() == null) {
+        throw new NullPointerException("null values are not allowed in kvstore");
+      }
+      keys.add(entry.getKey());
+      values.add(entry.getValue());
+    }
+    if (keys.isEmpty()) {
+      return;
     }
-    return results;
+
+    final List<BlobHolder> blobs = new ArrayList<>(keys.size());
+    try (Closeable locks = sharedLocks(keys);
+         WriteBatch batch = new WriteBatch();
+         WriteOptions writeOptions = new WriteOptions()) {
+      throwIfClosed();
+
+      final Map<byte[], byte[]> oldValuesOrPtrs = multiGet(keys);
+      for (int i = 0; i < keys.size(); i++) {
+        final byte[] newValue = values.get(i);
+        final BlobHolder blob = metaManager.filterPut(newValue, ByteStore.generateTagFromBytes(newValue));
+        blobs.add(blob);
+        batch.put(handle, keys.get(i), blob.ptrOrValue());
+      }
+      db.write(writeOptions, batch);
+
+      for (byte[] key : keys) {
+        metaManager.deleteTranslation(meta(oldValuesOrPtrs.get(key)));
+      }
+      blobs.forEach(BlobHolder::commit);
+    } catch (RocksDBException | IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      blobs.forEach(BlobHolder::close);
+    }
+  }
+
+  /**
+   * Delete all the keys with a single write to RocksDB, and so a single write to the WAL.
+   */
+  @Override
+  public void bulkDelete(Iterable<byte[]> keys) {
+    final List<byte[]> keyList = Lists.newArrayList(keys);
+    if (keyList.isEmpty()) {
+      return;
+    }
+
+    try (Closeable locks = sharedLocks(keyList);
+         WriteBatch batch = new WriteBatch();
+         WriteOptions writeOptions = new WriteOptions()) {
+      throwIfClosed();
+
+      final Map<byte[], byte[]> oldValuesOrPtrs = multiGet(keyList);
+      if (oldValuesOrPtrs.isEmpty()) {
+        return;
+      }
+      for (byte[] key : keyList) {
+        if (oldValuesOrPtrs.containsKey(key)) {
+          batch.delete(handle, key);
+        }
+      }
+      db.write(writeOptions, batch);
+
+      for (byte[] key : keyList) {
+        metaManager.deleteTranslation(meta(oldValuesOrPtrs.get(key)));
+      }
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Read the values or blob pointers of all the keys with a single call to RocksDB.
+   *
+   * @return the values or blob pointers, keyed by the very arrays of the given list. Missing keys are absent.
+   */
+  private Map<byte[], byte[]> multiGet(List<byte[]> keys) throws RocksDBException {
+    return db.multiGet(Collections.nCopies(keys.size(), handle), keys);
   }
 
   @Override
@@ -47,8 +47,10 @@ public class TimedKVStore<K, V> implements KVStore<K, V> {
     get,
     getList,
     put,
+    bulkPut,
     contains,
     delete,
+    bulkDelete,
     findByRange,
     findAll,
     applyForAllTenants,
@@ -105,6 +107,13 @@ public class TimedKVStore<K, V> implements KVStore<K, V> {
     }
   }
 
+  @Override
+  public void bulkPut(Iterable<Map.Entry<K, V>> entries) {
+    try(final OpTimer ctx = time(Ops.bulkPut)) {
+      delegate.bulkPut(entries);
+    }
+  }
+
   @Override
   public void delete(K key, DeleteOption... options) {
     try(final OpTimer ctx = time(Ops.delete)) {
@@ -112,6 +121,13 @@ public class TimedKVStore<K, V> implements KVStore<K, V> {
     }
   }
 
+  @Override
+  public void bulkDelete(Iterable<K> keys) {
+    try(final OpTimer ctx = time(Ops.bulkDelete)) {
+      delegate.bulkDelete(keys);
+    }
+  }
+
   @Override
   public boolean contains(K key, ContainsOption... options) {
     try(final OpTimer ctx = time(Ops.contains)) {
@@ -16,6 +16,7 @@
 package com.dremio.datastore;
 
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import com.dremio.common.tracing.TracingUtils;
@@ -86,6 +87,11 @@ class TracingKVStore<K, V> implements KVStore<K, V> {
     return trace("put", () -> delegate.put(key, value, options));
   }
 
+  @Override
+  public void bulkPut(Iterable<Map.Entry<K, V>> entries) {
+    trace("bulkPut", () -> delegate.bulkPut(entries));
+  }
+
   @Override
   public Iterable<Document<K, V>> find(FindOption... options) {
     return trace("find", () -> delegate.find(options));
@@ -101,6 +107,11 @@ class TracingKVStore<K, V> implements KVStore<K, V> {
     trace("delete", () -> delegate.delete(key, options));
   }
 
+  @Override
+  public void bulkDelete(Iterable<K> keys) {
+    trace("bulkDelete", () -> delegate.bulkDelete(keys));
+  }
+
   @Override
   public KVAdmin getAdmin() {
     return trace("getAdmin", delegate::getAdmin);
@@ -84,6 +84,15 @@ public class LegacyKVStoreAdapter<K, V> implements LegacyKVStore<K, V> {
     }
   }
 
+  @Override
+  public void bulkPut(Iterable<Map.Entry<K, V>> entries) {
+    if (versionExtractor != null) {
+      LegacyKVStore.super.bulkPut(entries);
+    } else {
+      underlyingStore.bulkPut(entries);
+    }
+  }
+
   @Override
   public boolean contains(K key) {
     return underlyingStore.contains(key);
@@ -94,6 +103,11 @@ public class LegacyKVStoreAdapter<K, V> implements LegacyKVStore<K, V> {
     underlyingStore.delete(key);
   }
 
+  @Override
+  public void bulkDelete(Iterable<K> keys) {
+    underlyingStore.bulkDelete(keys);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public Iterable<Map.Entry<K, V>> find(LegacyFindByRange<K> find) {
@@ -16,6 +16,7 @@
 package com.dremio.datastore.api;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -129,6 +130,33 @@ public interface KVStore<K, V> {
    */
   void delete(K key, DeleteOption ... options);
 
+  /**
+   * Saves a set of documents to the KV Store. Stores that support it write all the documents at once, which is much
+   * cheaper than saving them one by one; others save them one by one. Each document replaces the existing value
+   * associated with its key, if any. Version tags are not checked.
+   *
+   * @param entries the keys and values to save.
+   * @throws com.dremio.datastore.DatastoreException when one or more runtime failures are encountered.
+   */
+  default void bulkPut(Iterable<Map.Entry<K, V>> entries) {
+    for (Map.Entry<K, V> entry : entries) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Removes the documents with the provided keys. Stores that support it delete all the documents at once; others
+   * delete them one by one. Version tags are not checked.
+   *
+   * @param keys the keys of the documents to be removed from the KV Store.
+   * @throws com.dremio.datastore.DatastoreException when one or more runtime failures are encountered.
+   */
+  default void bulkDelete(Iterable<K> keys) {
+    for (K key : keys) {
+      delete(key);
+    }
+  }
+
   /**
    * Checks if the KV Store contains a document corresponding to the provided key.
    *
@@ -61,6 +61,19 @@ public interface LegacyKVStore<K, V> {
    */
   void put(K key, V v);
 
+  /**
+   * Save the provided values under their keys, at once if the underlying storage system
+   * supports it. Versioned stores save them one by one, as each value's tag must be checked.
+   *
+   * @param entries the keys and values to save, values can not be null.
+   * @throws NullPointerException when a value is null.
+   */
+  default void bulkPut(Iterable<Map.Entry<K, V>> entries) {
+    for (Map.Entry<K, V> entry : entries) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
   /**
    * Indicate if the store contains an entry associated with the key. Return {@code true}
    * if such a key exist, {@code false} otherwise.
@@ -78,6 +91,18 @@ public interface LegacyKVStore<K, V> {
    */
   void delete(K key);
 
+  /**
+   * Remove the keys, and the associated values from the store, at once if the underlying
+   * storage system supports it. Keys that do not exist are ignored.
+   *
+   * @param keys the keys to remove.
+   */
+  default void bulkDelete(Iterable<K> keys) {
+    for (K key : keys) {
+      delete(key);
+    }
+  }
+
 
   /**
    * Return a iterable of keys & values for any key within the provided Range
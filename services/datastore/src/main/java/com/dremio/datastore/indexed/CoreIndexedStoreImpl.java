@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.document.Document;
@@ -318,6 +319,18 @@ public class CoreIndexedStoreImpl<K, V> implements CoreIndexedStore<K, V> {
     return doc;
   }
 
+  @Override
+  public void bulkPut(Iterable<Map.Entry<KVStoreTuple<K>, KVStoreTuple<V>>> entries) {
+    base.bulkPut(entries);
+
+    // as for a put without options, nothing to index when indexes come from the put options
+    if (!indexesViaPutOption) {
+      for (Map.Entry<KVStoreTuple<K>, KVStoreTuple<V>> entry : entries) {
+        index(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
   @Override
   public boolean contains(KVStoreTuple<K> key, ContainsOption... options) {
     return base.contains(key, options);
@@ -334,6 +347,14 @@ public class CoreIndexedStoreImpl<K, V> implements CoreIndexedStore<K, V> {
     index.deleteDocuments(keyAsTerm(key));
   }
 
+  @Override
+  public void bulkDelete(Iterable<KVStoreTuple<K>> keys) {
+    base.bulkDelete(keys);
+    for (KVStoreTuple<K> key : keys) {
+      index.deleteDocuments(keyAsTerm(key));
+    }
+  }
+
   @Override
   public Iterable<com.dremio.datastore.api.Document<KVStoreTuple<K>, KVStoreTuple<V>>> get(List<KVStoreTuple<K>> keys, GetOption... options) {
     final Iterable<com.dremio.datastore.api.Document<KVStoreTuple<K>, KVStoreTuple<V>>> documents = base.get(keys, options);
@@ -22,6 +22,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -32,9 +33,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -64,6 +67,8 @@ import com.dremio.datastore.RocksDBStore.RocksMetaManager;
 import com.dremio.datastore.api.Document;
 import com.dremio.datastore.api.options.ImmutableVersionOption;
 import com.dremio.datastore.api.options.VersionOption;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 
 /**
  * Some robustness tests for {@code RocksDBStore}
@@ -246,6 +251,69 @@ public class TestRocksDBStore {
     assertEquals(null, store.get(randomKey));
   }
 
+  @Test
+  public void testBulkOps() {
+    final Random random = new Random(7);
+    final List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      entries.add(Maps.immutableEntry(("bulk" + i).getBytes(UTF_8), newRandomValue(random)));
+    }
+    // overwrite an existing key
+    final byte[] specialValue = newRandomValue(random);
+    entries.add(Maps.immutableEntry(specialKey, specialValue));
+    store.bulkPut(entries);
+
+    final List<byte[]> keys = new ArrayList<>();
+    keys.add("missing".getBytes(UTF_8));
+    entries.forEach(entry -> keys.add(entry.getKey()));
+    final List<Document<byte[], byte[]>> documents = new ArrayList<>();
+    store.get(keys).forEach(documents::add);
+
+    assertEquals(keys.size(), documents.size());
+    assertNull(documents.get(0));
+    for (int i = 0; i < entries.size(); i++) {
+      final Document<byte[], byte[]> document = documents.get(i + 1);
+      assertArrayEquals(entries.get(i).getKey(), document.getKey());
+      assertArrayEquals(entries.get(i).getValue(), document.getValue());
+      assertEquals(ByteStore.generateTagFromBytes(entries.get(i).getValue()), document.getTag());
+    }
+    assertArrayEquals(specialValue, store.get(specialKey).getValue());
+
+    store.bulkDelete(keys);
+    assertTrue(Iterables.all(store.get(keys), document -> document == null));
+  }
+
+  @Test
+  public void checkBulkBlobOps() throws IOException {
+    final Random r = new Random(123);
+    final List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+    final List<byte[]> keys = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final byte[] key = new byte[5];
+      final byte[] value = new byte[(int) BLOB_FILTER_SIZE + 1];
+      r.nextBytes(key);
+      r.nextBytes(value);
+      entries.add(Maps.immutableEntry(key, value));
+      keys.add(key);
+    }
+
+    store.bulkPut(entries);
+    assertThat(store.getAdmin().getStats(), CoreMatchers.containsString("Estimated Blob Count: 10"));
+    final List<Document<byte[], byte[]>> documents = new ArrayList<>();
+    store.get(keys).forEach(documents::add);
+    for (int i = 0; i < entries.size(); i++) {
+      assertArrayEquals(entries.get(i).getValue(), documents.get(i).getValue());
+    }
+
+    // overwriting and deleting the entries should not result in any orphan blobs
+    store.bulkPut(entries);
+    store.bulkDelete(keys);
+
+    Path blobDir = Paths.get(rocksDBResource.getDbDir(), "blob", "test");
+    List<Path> remainingBlobFiles = Files.list(blobDir).collect(Collectors.toList());
+    assertEquals("Expected zero remaining files.", Collections.EMPTY_LIST, remainingBlobFiles);
+  }
+
   @Test()
   public void testNotClosed() throws InterruptedException, ExecutionException {
     ExecutorService executor = Executors.newFixedThreadPool(4);
@@ -15,9 +15,11 @@
  */
 package com.dremio.service.jobtelemetry.server;
 
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -28,38 +30,53 @@ import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.proto.CoordExecRPC.QueryProgressMetrics;
 import com.dremio.exec.proto.UserBitShared;
 import com.dremio.service.jobtelemetry.server.store.MetricsStore;
+import com.dremio.telemetry.api.metrics.Metrics;
 import com.google.common.annotations.VisibleForTesting;
 
 import io.opentracing.noop.NoopTracerFactory;
 
 /**
  * Publishes metrics to registered subscribers periodically.
+ *
+ * A single task publishes the metrics of the queries updated since its previous run, or newly subscribed to.
  */
 public class ProgressMetricsPublisher implements AutoCloseable {
   private static final org.slf4j.Logger logger =
     org.slf4j.LoggerFactory.getLogger(ProgressMetricsPublisher.class);
+  private static final String SUBSCRIBERS_METRIC = Metrics.join("jobtelemetry", "progress", "subscribers");
+  private static final String SUBSCRIBED_QUERIES_METRIC = Metrics.join("jobtelemetry", "progress", "subscribed_queries");
 
-  private final ConcurrentMap<Consumer<QueryProgressMetrics>, SubscriberInfo> subscriberInfoMap = new ConcurrentHashMap<>();
+  private final ConcurrentMap<UserBitShared.QueryId, Map<Consumer<QueryProgressMetrics>, SubscriberInfo>> subscriberInfoMap =
+    new ConcurrentHashMap<>();
+  // queries with subscribers which have not received the metrics yet
+  private final Set<UserBitShared.QueryId> newlySubscribedQueryIds = ConcurrentHashMap.newKeySet();
   private final MetricsStore metricsStore;
   private final CloseableSchedulerThreadPool scheduler;
   private final ScheduledContextMigratingExecutorService scheduledContextMigratingExecutorService;
-  private final int publishFrequencyMillis;
 
   public ProgressMetricsPublisher(MetricsStore metricsStore, int publishFrequencyMillis) {
     this.metricsStore = metricsStore;
-    this.publishFrequencyMillis = publishFrequencyMillis;
     this.scheduler = new CloseableSchedulerThreadPool("metrics-publisher", 1);
     this.scheduler.setRemoveOnCancelPolicy(true);
     scheduledContextMigratingExecutorService = new ScheduledContextMigratingExecutorService(scheduler, NoopTracerFactory.create());
+    scheduledContextMigratingExecutorService.scheduleWithFixedDelay(
+      this::publishUpdates, publishFrequencyMillis, publishFrequencyMillis, TimeUnit.MILLISECONDS);
+
+    Metrics.newGauge(SUBSCRIBERS_METRIC, () -> subscriberInfoMap.values().stream().mapToLong(Map::size).sum());
+    Metrics.newGauge(SUBSCRIBED_QUERIES_METRIC, subscriberInfoMap::size);
   }
 
   @VisibleForTesting
   public void addSubscriber(UserBitShared.QueryId queryId,
                      Consumer<QueryProgressMetrics> querySubscriber) {
     // subscribe for periodic updates.
-    ScheduledFuture scheduledFuture = scheduledContextMigratingExecutorService.scheduleWithFixedDelay(
-      publishToSubcriber(queryId, querySubscriber), publishFrequencyMillis, publishFrequencyMillis, TimeUnit.MILLISECONDS);
-    subscriberInfoMap.put(querySubscriber, new SubscriberInfo(scheduledFuture, QueryProgressMetrics.getDefaultInstance()));
+    subscriberInfoMap.compute(queryId, (id, subscribers) -> {
+      final Map<Consumer<QueryProgressMetrics>, SubscriberInfo> infos =
+        subscribers != null ? subscribers : new ConcurrentHashMap<>();
+      infos.put(querySubscriber, new SubscriberInfo(QueryProgressMetrics.getDefaultInstance()));
+      return infos;
+    });
+    newlySubscribedQueryIds.add(queryId);
   }
 
   @VisibleForTesting
@@ -67,10 +84,7 @@ public class ProgressMetricsPublisher implements AutoCloseable {
                         Consumer<QueryProgressMetrics> querySubscriber,
                         boolean publishFinalMetrics) {
     // unsubscribe from periodic updates.
-    if (subscriberInfoMap.containsKey(querySubscriber)) {
-      subscriberInfoMap.get(querySubscriber).getPublishTask().cancel(true);
-      subscriberInfoMap.remove(querySubscriber);
-    }
+    unsubscribe(queryId, querySubscriber);
 
     try {
       // publish final metrics.
@@ -83,24 +97,59 @@ public class ProgressMetricsPublisher implements AutoCloseable {
     }
   }
 
-  private Runnable publishToSubcriber(UserBitShared.QueryId queryId,
-    Consumer<QueryProgressMetrics> querySubscriber) {
-    return () -> {
+  private void unsubscribe(UserBitShared.QueryId queryId, Consumer<QueryProgressMetrics> querySubscriber) {
+    subscriberInfoMap.computeIfPresent(queryId, (id, subscribers) -> {
+      subscribers.remove(querySubscriber);
+      return subscribers.isEmpty() ? null : subscribers;
+    });
+  }
+
+  private void publishUpdates() {
+    try {
+      final Set<UserBitShared.QueryId> queryIds = new HashSet<>(metricsStore.pollUpdatedQueryIds());
+      for (UserBitShared.QueryId queryId : newlySubscribedQueryIds) {
+        if (newlySubscribedQueryIds.remove(queryId)) {
+          queryIds.add(queryId);
+        }
+      }
+
+      for (UserBitShared.QueryId queryId : queryIds) {
+        final Map<Consumer<QueryProgressMetrics>, SubscriberInfo> subscribers = subscriberInfoMap.get(queryId);
+        if (subscribers == null) {
+          continue;
+        }
+        publishToSubscribers(queryId, subscribers);
+      }
+    } catch (Throwable t) {
+      // a failure must not cancel the next runs
+      logger.warn("publishing metrics failed", t);
+    }
+  }
+
+  private void publishToSubscribers(UserBitShared.QueryId queryId,
+    Map<Consumer<QueryProgressMetrics>, SubscriberInfo> subscribers) {
+    final QueryProgressMetrics metrics;
+    try {
+      // combined once for all the subscribers of the query
+      metrics = fetchMetricsAndCombine(queryId);
+    } catch (Throwable t) {
+      logger.warn("publishing metrics failed for queryId " + QueryIdHelper.getQueryId(queryId), t);
+      return;
+    }
+
+    subscribers.forEach((querySubscriber, info) -> {
       try {
-        final QueryProgressMetrics metrics = fetchMetricsAndCombine(queryId);
-        SubscriberInfo info = subscriberInfoMap.get(querySubscriber);
-        if (info != null && !metrics.equals(info.getLastPublishedMetric())) {
+        if (!metrics.equals(info.getLastPublishedMetric())) {
           querySubscriber.accept(metrics);
 
           // update LastPublishedMetric for the subscriber
           info.setLastPublishedMetric(metrics);
-          subscriberInfoMap.put(querySubscriber, info);
         }
       } catch (Throwable t) {
         logger.warn("publishing metrics failed for queryId " + QueryIdHelper.getQueryId(queryId), t);
-        subscriberInfoMap.remove(querySubscriber);
+        unsubscribe(queryId, querySubscriber);
       }
-    };
+    });
   }
 
   private QueryProgressMetrics fetchMetricsAndCombine(UserBitShared.QueryId queryId) {
@@ -111,15 +160,15 @@ public class ProgressMetricsPublisher implements AutoCloseable {
 
   @Override
   public void close() throws Exception {
+    Metrics.unregister(SUBSCRIBERS_METRIC);
+    Metrics.unregister(SUBSCRIBED_QUERIES_METRIC);
     AutoCloseables.close(scheduler);
   }
 
   private static class SubscriberInfo {
-    private final ScheduledFuture publishTask;
-    private QueryProgressMetrics lastPublishedMetric;
+    private volatile QueryProgressMetrics lastPublishedMetric;
 
-    SubscriberInfo(ScheduledFuture publishTask, QueryProgressMetrics lastPublishedMetric) {
-      this.publishTask = publishTask;
+    SubscriberInfo(QueryProgressMetrics lastPublishedMetric) {
       this.lastPublishedMetric = lastPublishedMetric;
     }
 
@@ -127,10 +176,6 @@ public class ProgressMetricsPublisher implements AutoCloseable {
       this.lastPublishedMetric = lastPublishedMetric;
     }
 
-    ScheduledFuture getPublishTask() {
-      return publishTask;
-    }
-
     QueryProgressMetrics getLastPublishedMetric() {
       return lastPublishedMetric;
     }
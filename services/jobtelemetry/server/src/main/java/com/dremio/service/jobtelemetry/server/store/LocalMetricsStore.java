@@ -15,9 +15,14 @@
  */
 package com.dremio.service.jobtelemetry.server.store;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -28,15 +33,28 @@ import com.dremio.exec.proto.CoordExecRPC;
 import com.dremio.exec.proto.UserBitShared;
 import com.dremio.service.Service;
 import com.dremio.service.jobtelemetry.QueryProgressMetricsMap;
+import com.dremio.telemetry.api.metrics.Histogram;
+import com.dremio.telemetry.api.metrics.Meter;
+import com.dremio.telemetry.api.metrics.Metrics;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
 /**
  * Implementation of metrics store, keeps all metrics in-memory.
+ *
+ * Updates of different queries, or of different nodes of a query, do not contend on a common lock.
  */
 public class LocalMetricsStore implements MetricsStore, Service {
   private static final Logger LOGGER = LoggerFactory.getLogger(LocalMetricsStore.class);
-  private Map<String, QueryProgressMetricsMap> map = new ConcurrentHashMap<>();
+  private static final Meter UPDATES = Metrics.newMeter(Metrics.join("jobtelemetry", "metrics_store", "updates"));
+  private static final Histogram MERGE_TIME_NS =
+    Metrics.newHistogram(Metrics.join("jobtelemetry", "metrics_store", "merge_time_ns"), Metrics.ResetType.PERIODIC_15M);
+
+  // metrics of each node, by query
+  private final ConcurrentMap<String, ConcurrentMap<String, CoordExecRPC.QueryProgressMetrics>> map =
+    new ConcurrentHashMap<>();
+  // queries updated since the last poll
+  private final Set<UserBitShared.QueryId> updatedQueryIds = ConcurrentHashMap.newKeySet();
   private Cache<UserBitShared.QueryId, Boolean> deletedQueryIds = CacheBuilder.newBuilder()
     .expireAfterWrite(5, TimeUnit.MINUTES)
     .build();
@@ -53,7 +71,7 @@ public class LocalMetricsStore implements MetricsStore, Service {
   }
 
   @Override
-  public synchronized void put(
+  public void put(
     UserBitShared.QueryId queryId, String nodeEndPoint,
     CoordExecRPC.QueryProgressMetrics queryNodeProgressMetrics) {
 
@@ -61,23 +79,48 @@ public class LocalMetricsStore implements MetricsStore, Service {
       return;
     }
 
-    QueryProgressMetricsMap metrics =
-      QueryProgressMetricsMap.newBuilder()
-        .mergeFrom(get(queryId).orElse(QueryProgressMetricsMap.getDefaultInstance()))
-        .putMetricsMap(nodeEndPoint, queryNodeProgressMetrics)
-        .build();
-    map.put(queryIdToString(queryId), metrics);
+    final long start = System.nanoTime();
+    final String key = queryIdToString(queryId);
+    final ConcurrentMap<String, CoordExecRPC.QueryProgressMetrics> nodeMetrics =
+      map.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    nodeMetrics.put(nodeEndPoint, queryNodeProgressMetrics);
+    updatedQueryIds.add(queryId);
+
+    if (deletedQueryIds.asMap().containsKey(queryId)) {
+      // deleted concurrently, do not leak the metrics recreated above
+      map.remove(key, nodeMetrics);
+      updatedQueryIds.remove(queryId);
+    }
+
+    UPDATES.mark();
+    MERGE_TIME_NS.update(System.nanoTime() - start);
   }
 
   @Override
   public Optional<QueryProgressMetricsMap> get(UserBitShared.QueryId queryId) {
-    return Optional.ofNullable(map.get(queryIdToString(queryId)));
+    final Map<String, CoordExecRPC.QueryProgressMetrics> nodeMetrics = map.get(queryIdToString(queryId));
+    if (nodeMetrics == null) {
+      return Optional.empty();
+    }
+    return Optional.of(QueryProgressMetricsMap.newBuilder().putAllMetricsMap(nodeMetrics).build());
+  }
+
+  @Override
+  public Collection<UserBitShared.QueryId> pollUpdatedQueryIds() {
+    final List<UserBitShared.QueryId> queryIds = new ArrayList<>();
+    for (UserBitShared.QueryId queryId : updatedQueryIds) {
+      if (updatedQueryIds.remove(queryId)) {
+        queryIds.add(queryId);
+      }
+    }
+    return queryIds;
   }
 
   @Override
   public void delete(UserBitShared.QueryId queryId) {
     deletedQueryIds.put(queryId, Boolean.TRUE);
     map.remove(queryIdToString(queryId));
+    updatedQueryIds.remove(queryId);
   }
 
   private String queryIdToString(UserBitShared.QueryId queryId) {
@@ -15,6 +15,7 @@
  */
 package com.dremio.service.jobtelemetry.server.store;
 
+import java.util.Collection;
 import java.util.Optional;
 
 import com.dremio.exec.proto.CoordExecRPC.QueryProgressMetrics;
@@ -40,6 +41,12 @@ public interface MetricsStore extends Service {
    */
   Optional<QueryProgressMetricsMap> get(UserBitShared.QueryId queryId);
 
+  /**
+   * get the queries whose metrics were put since the previous call.
+   * @return ids of the updated queries
+   */
+  Collection<UserBitShared.QueryId> pollUpdatedQueryIds();
+
   /**
    * Delete the metrics entry for given queryId.
    * @param queryId
@@ -19,9 +19,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 import org.junit.After;
@@ -139,6 +142,34 @@ public class TestProgressMetricsPublisher {
     }
   }
 
+  @Test
+  public void testUnchangedMetricsAreNotPublishedAgain() throws InterruptedException {
+    UserBitShared.QueryId queryId = UserBitShared.QueryId.newBuilder()
+      .setPart1(1000)
+      .setPart2(30)
+      .build();
+
+    List<Long> published = new CopyOnWriteArrayList<>();
+    Consumer<CoordExecRPC.QueryProgressMetrics> consumer = x -> published.add(x.getRowsProcessed());
+    publisher.addSubscriber(queryId, consumer);
+
+    putMetrics(queryId, 2, 100);
+    Thread.sleep(100);
+    // same metrics from one of the nodes
+    putMetrics(queryId, 1, 100);
+    Thread.sleep(100);
+    assertEquals(Collections.singletonList(200L), published);
+
+    putMetrics(queryId, 3, 100);
+    Thread.sleep(100);
+    assertEquals(Arrays.asList(200L, 300L), published);
+
+    publisher.removeSubscriber(queryId, consumer, false);
+    putMetrics(queryId, 4, 100);
+    Thread.sleep(100);
+    assertEquals(Arrays.asList(200L, 300L), published);
+  }
+
   private void putMetrics(UserBitShared.QueryId queryId, int numNodes, int recordsPerNode) {
     for (int i = 0; i < numNodes; ++i) {
       metricsStore.put(queryId, "node" +  i,
@@ -16,8 +16,13 @@
 
 package com.dremio.service.jobtelemetry.server.store;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -115,6 +120,35 @@ public abstract class AbstractTestMetricsStore {
     metricsStore.delete(queryId2);
   }
 
+  @Test
+  public void testPollUpdatedQueries() {
+    final String node1 = "qu2nm1";
+    final String node2 = "qu2nm2";
+
+    metricsStore.put(queryId1, node1,
+      QueryProgressMetrics.newBuilder().setRowsProcessed(10).build());
+    metricsStore.put(queryId1, node2,
+      QueryProgressMetrics.newBuilder().setRowsProcessed(20).build());
+    metricsStore.put(queryId2, node1,
+      QueryProgressMetrics.newBuilder().setRowsProcessed(30).build());
+    assertEquals(new HashSet<>(Arrays.asList(queryId1, queryId2)), new HashSet<>(metricsStore.pollUpdatedQueryIds()));
+
+    // only queries updated since the previous poll
+    assertTrue(metricsStore.pollUpdatedQueryIds().isEmpty());
+    metricsStore.put(queryId2, node1,
+      QueryProgressMetrics.newBuilder().setRowsProcessed(40).build());
+    assertEquals(Collections.singletonList(queryId2), metricsStore.pollUpdatedQueryIds());
+
+    // deleted queries are not updated anymore
+    metricsStore.delete(queryId1);
+    metricsStore.put(queryId1, node1,
+      QueryProgressMetrics.newBuilder().setRowsProcessed(50).build());
+    assertTrue(metricsStore.pollUpdatedQueryIds().isEmpty());
+    assertTrue(!metricsStore.get(queryId1).isPresent());
+
+    metricsStore.delete(queryId2);
+  }
+
   @Test
   public void testNonExistentQuery() {
     assertTrue(!metricsStore.get(queryIdUnknown).isPresent());
@@ -110,6 +110,8 @@ public class NamespaceServiceImpl implements NamespaceService {
   public static final String PARTITION_CHUNKS = "metadata-dataset-splits";
   public static final String MULTI_SPLITS = "metadata-multi-splits";
   private static final int LOG_BATCH = 99;
+  // number of partition chunks a dataset metadata saver writes at once
+  private static final int PARTITION_CHUNK_WRITE_BATCH = 100;
 
   private final LegacyIndexedStore<String, NameSpaceContainer> namespace;
   private final LegacyIndexedStore<PartitionChunkId, PartitionChunk> partitionChunkStore;
@@ -541,6 +543,8 @@ public class NamespaceServiceImpl implements NamespaceService {
     private long partitionChunkCount;
     private long partitionChunkWithSingleSplitCount;
     private List<PartitionChunkId> createdPartitionChunks;
+    private final List<Map.Entry<PartitionChunkId, PartitionChunk>> pendingPartitionChunks = new ArrayList<>();
+    private final List<Map.Entry<PartitionChunkId, MultiSplit>> pendingMultiSplits = new ArrayList<>();
     private long accumulatedSizeInBytes;
     private long accumulatedRecordCount;
     private List<DatasetSplit> accumulatedSplits;
@@ -609,16 +613,29 @@ public class NamespaceServiceImpl implements NamespaceService {
         partitionChunkWithSingleSplitCount++;
       }
       PartitionChunkId chunkId = PartitionChunkId.of(datasetId, nextDatasetVersion, splitKey);
-      NamespaceServiceImpl.this.partitionChunkStore.put(chunkId, builder.build());
+      pendingPartitionChunks.add(new AbstractMap.SimpleImmutableEntry<>(chunkId, builder.build()));
       createdPartitionChunks.add(chunkId);
-      // Intentionally creating any potential multi-splits after creating the partition chunk.
-      // This makes orphan cleaning simpler, as we can key only on the existing partitionChunk(s), and remove
-      // any matching multi-splits
       if (accumulatedSplits.size() > 1 || !singleSplitPartitionAllowed) {
-        NamespaceServiceImpl.this.multiSplitStore.put(chunkId, createMultiSplitFromAccumulated(splitKey));
+        pendingMultiSplits.add(new AbstractMap.SimpleImmutableEntry<>(chunkId, createMultiSplitFromAccumulated(splitKey)));
       }
       totalNumSplits += accumulatedSplits.size();
       resetSplitAccumulation();
+      if (pendingPartitionChunks.size() >= PARTITION_CHUNK_WRITE_BATCH) {
+        writePendingPartitionChunks();
+      }
+    }
+
+    /**
+     * Write the accumulated partition chunks and multi-splits, each kind in a single batch.
+     */
+    private void writePendingPartitionChunks() {
+      // Intentionally creating any potential multi-splits after creating the partition chunks.
+      // This makes orphan cleaning simpler, as we can key only on the existing partitionChunk(s), and remove
+      // any matching multi-splits
+      NamespaceServiceImpl.this.partitionChunkStore.bulkPut(pendingPartitionChunks);
+      pendingPartitionChunks.clear();
+      NamespaceServiceImpl.this.multiSplitStore.bulkPut(pendingMultiSplits);
+      pendingMultiSplits.clear();
     }
 
     private OutputStream wrapIfNeeded(OutputStream o) throws IOException {
@@ -668,6 +685,7 @@ public class NamespaceServiceImpl implements NamespaceService {
       Preconditions.checkState(!isClosed, "Attempting to save a partition chunk after the whole dataset was saved");
       Objects.requireNonNull(datasetConfig.getId(), "ID is required");
       Objects.requireNonNull(datasetConfig.getReadDefinition(), "read_definition is required");
+      writePendingPartitionChunks();
       datasetConfig.getReadDefinition().setSplitVersion(nextDatasetVersion);
       datasetConfig.setTotalNumSplits(totalNumSplits);
       while (true) {
@@ -718,6 +736,8 @@ public class NamespaceServiceImpl implements NamespaceService {
     @Override
     public void close() {
       if (!isClosed) {
+        pendingPartitionChunks.clear();
+        pendingMultiSplits.clear();
         deleteSplits(createdPartitionChunks);
       }
     }
@@ -779,10 +799,8 @@ public class NamespaceServiceImpl implements NamespaceService {
 
   @Override
   public void deleteSplits(Iterable<PartitionChunkId> splits) {
-    for (PartitionChunkId split: splits) {
-      partitionChunkStore.delete(split);
-      multiSplitStore.delete(split);
-    }
+    partitionChunkStore.bulkDelete(splits);
+    multiSplitStore.bulkDelete(splits);
   }
 
   @Override
@@ -237,6 +237,24 @@ public class TestDatasetMetadataSaver {
     testSaveHelper(numPartitionChunksPerDataset, numSplitsPerPartitionChunk, dsPath, false, Long.MAX_VALUE, true);
   }
 
+  // More partitions than written in a single batch
+  @Test
+  public void testManyPartitions() throws Exception {
+    final int numPartitionChunksPerDataset = 250;
+    final int numSplitsPerPartitionChunk = 2;
+    final NamespaceKey dsPath = new NamespaceKey(asList("dataset_many_n"));
+    testSaveHelper(numPartitionChunksPerDataset, numSplitsPerPartitionChunk, dsPath, false, Long.MAX_VALUE, false);
+  }
+
+  // More partitions than written in a single batch, fail to save
+  @Test
+  public void testManyPartitionsFail() throws Exception {
+    final int numPartitionChunksPerDataset = 250;
+    final int numSplitsPerPartitionChunk = 1;
+    final NamespaceKey dsPath = new NamespaceKey(asList("fail_many_1"));
+    testSaveHelper(numPartitionChunksPerDataset, numSplitsPerPartitionChunk, dsPath, true, 10, false);
+  }
+
   // Single partition, single split, fail to save
   @Test
   public void testSinglePartitionSingleSplitFail() throws Exception {
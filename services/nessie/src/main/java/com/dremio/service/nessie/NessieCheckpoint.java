@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.nessie;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.projectnessie.model.Contents;
+import org.projectnessie.versioned.Hash;
+import org.projectnessie.versioned.Key;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Checkpoint of a commit, used to look up the keys and values of the commit without replaying its whole history.
+ *
+ * A checkpoint is either a snapshot of all the keys and values of the commit, or refers to the snapshot of an
+ * ancestor (or to {@link Commit#NO_ANCESTOR}) and lists the commits since that ancestor, the most recent first.
+ */
+public final class NessieCheckpoint {
+  private final Hash base;
+  private final List<Hash> commits;
+  private final Map<Key, Contents> values;
+
+  private NessieCheckpoint(Hash base, List<Hash> commits, Map<Key, Contents> values) {
+    this.base = base;
+    this.commits = commits;
+    this.values = values;
+  }
+
+  /**
+   * Creates a snapshot of all the keys and values of a commit.
+   */
+  public static NessieCheckpoint snapshot(Map<Key, Contents> values) {
+    return new NessieCheckpoint(null, ImmutableList.of(), Collections.unmodifiableMap(Preconditions.checkNotNull(values)));
+  }
+
+  /**
+   * Creates a checkpoint referring to the snapshot of an ancestor.
+   *
+   * @param base the hash of the ancestor snapshot, or {@link Commit#NO_ANCESTOR}
+   * @param commits the commits since the ancestor, the most recent first
+   */
+  public static NessieCheckpoint of(Hash base, List<Hash> commits) {
+    Preconditions.checkArgument(!commits.isEmpty(), "A checkpoint needs at least one commit");
+    return new NessieCheckpoint(Preconditions.checkNotNull(base), ImmutableList.copyOf(commits), null);
+  }
+
+  public boolean isSnapshot() {
+    return values != null;
+  }
+
+  public Hash getBase() {
+    return base;
+  }
+
+  public List<Hash> getCommits() {
+    return commits;
+  }
+
+  public Map<Key, Contents> getValues() {
+    return values;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.nessie;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.projectnessie.model.Contents;
+import org.projectnessie.model.Operations;
+import org.projectnessie.versioned.Hash;
+import org.projectnessie.versioned.ImmutablePut;
+import org.projectnessie.versioned.Key;
+import org.projectnessie.versioned.Operation;
+import org.projectnessie.versioned.Put;
+
+import com.dremio.datastore.api.KVStore;
+import com.dremio.datastore.api.KVStoreCreationFunction;
+import com.dremio.datastore.api.StoreBuildingFactory;
+import com.dremio.datastore.format.Format;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Creates the checkpoint KV store for Nessie.
+ */
+public class NessieCheckpointKVStoreBuilder implements KVStoreCreationFunction<Hash, NessieCheckpoint> {
+  static final String TABLE_NAME = "nessieCheckpoint";
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private static class SerializableCheckpoint {
+    @JsonProperty("base")
+    private String base;
+
+    @JsonProperty("commits")
+    private List<String> commits;
+
+    @JsonProperty("values")
+    private Operations values;
+  }
+
+  @Override
+  public KVStore<Hash, NessieCheckpoint> build(StoreBuildingFactory factory) {
+    return factory.<Hash, NessieCheckpoint>newStore()
+      .name(TABLE_NAME)
+      .keyFormat(Format.wrapped(
+        Hash.class,
+        Hash::asString,
+        Hash::of,
+        Format.ofString()))
+      .valueFormat(Format.wrapped(
+        NessieCheckpoint.class,
+        NessieCheckpointKVStoreBuilder::checkpointToString,
+        NessieCheckpointKVStoreBuilder::stringToCheckpoint,
+        Format.ofString()))
+      .build();
+  }
+
+  @VisibleForTesting
+  static String checkpointToString(NessieCheckpoint checkpoint) {
+    final SerializableCheckpoint serializableCheckpoint = new SerializableCheckpoint();
+    if (checkpoint.isSnapshot()) {
+      // snapshot values are stored as the puts recreating them
+      final List<Operation<Contents>> puts = checkpoint.getValues().entrySet().stream()
+        .map(e -> ImmutablePut.<Contents>builder().key(e.getKey()).value(e.getValue()).build())
+        .collect(Collectors.toList());
+      serializableCheckpoint.values = NessieCommitKVStoreBuilder.toModel(puts);
+    } else {
+      serializableCheckpoint.base = checkpoint.getBase().asString();
+      serializableCheckpoint.commits = checkpoint.getCommits().stream().map(Hash::asString).collect(Collectors.toList());
+    }
+
+    try {
+      return objectMapper.writer().writeValueAsString(serializableCheckpoint);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException();
+    }
+  }
+
+  @VisibleForTesting
+  static NessieCheckpoint stringToCheckpoint(String s) {
+    try {
+      final SerializableCheckpoint serializableCheckpoint = (SerializableCheckpoint) objectMapper
+          .readerFor(SerializableCheckpoint.class)
+          .readValue(new StringReader(s));
+
+      if (serializableCheckpoint.values != null) {
+        final Map<Key, Contents> values = new HashMap<>();
+        for (Operation<Contents> operation : NessieCommitKVStoreBuilder.fromModel(serializableCheckpoint.values)) {
+          values.put(operation.getKey(), ((Put<Contents>) operation).getValue());
+        }
+        return NessieCheckpoint.snapshot(values);
+      }
+
+      return NessieCheckpoint.of(
+        Hash.of(serializableCheckpoint.base),
+        serializableCheckpoint.commits.stream().map(Hash::of).collect(Collectors.toList()));
+    } catch (IOException e) {
+      throw new IllegalArgumentException();
+    }
+  }
+}
@@ -133,7 +133,7 @@ public class NessieCommitKVStoreBuilder implements KVStoreCreationFunction<Hash,
     }
   }
 
-  private static List<org.projectnessie.versioned.Operation<Contents>> fromModel(Operations operations) {
+  static List<org.projectnessie.versioned.Operation<Contents>> fromModel(Operations operations) {
     return operations.getOperations().stream().map(NessieCommitKVStoreBuilder::fromModel).collect(Collectors.toList());
   }
 
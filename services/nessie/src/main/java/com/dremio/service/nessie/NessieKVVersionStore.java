@@ -23,9 +23,11 @@ import static java.util.Objects.requireNonNull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -59,8 +61,12 @@ import com.dremio.datastore.api.Document;
 import com.dremio.datastore.api.KVStore;
 import com.dremio.datastore.api.options.VersionOption;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.MoreCollectors;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 
 /**
@@ -69,11 +75,23 @@ import com.google.common.collect.Streams;
 public final class NessieKVVersionStore implements VersionStore<Contents, CommitMeta> {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(NessieKVVersionStore.class);
 
+  static final int DEFAULT_CHECKPOINT_INTERVAL = 100;
+  // number of keys of the states kept in memory
+  private static final long MAX_CACHED_STATE_KEYS = 1_000_000;
+
   private final KVStore<Hash, NessieCommit> commits;
   private final KVStore<NamedRef, Hash> namedReferences;
+  private final KVStore<Hash, NessieCheckpoint> checkpoints;
+  private final int checkpointInterval;
   private final Serializer<Contents> valueSerializer;
   private final Serializer<CommitMeta> metadataSerializer;
 
+  // recently looked up states (all the keys and values) of commits
+  private final Cache<Hash, Map<Key, Contents>> states = CacheBuilder.newBuilder()
+    .maximumWeight(MAX_CACHED_STATE_KEYS)
+    .<Hash, Map<Key, Contents>>weigher((hash, state) -> state.size() + 1)
+    .build();
+
   private final Retryer retryer;
 
   /**
@@ -82,6 +100,8 @@ public final class NessieKVVersionStore implements VersionStore<Contents, Commit
   public static final class Builder {
     private KVStore<Hash, NessieCommit> commits = null;
     private KVStore<NamedRef, Hash> namedReferences = null;
+    private KVStore<Hash, NessieCheckpoint> checkpoints = null;
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
     private Serializer<Contents> valueSerializer = null;
     private Serializer<CommitMeta> metadataSerializer = null;
     private String defaultBranchName = null;
@@ -97,6 +117,22 @@ public final class NessieKVVersionStore implements VersionStore<Contents, Commit
       return this;
     }
 
+    /**
+     * Sets the store of the commit checkpoints. Without it, lookups replay the whole history of a commit.
+     */
+    public NessieKVVersionStore.Builder checkpoints(KVStore<Hash, NessieCheckpoint> checkpoints) {
+      this.checkpoints = checkpoints;
+      return this;
+    }
+
+    /**
+     * Sets the number of commits between two snapshots of all the keys and values.
+     */
+    public NessieKVVersionStore.Builder checkpointInterval(int checkpointInterval) {
+      this.checkpointInterval = checkpointInterval;
+      return this;
+    }
+
     public NessieKVVersionStore.Builder valueSerializer(Serializer<Contents> serializer) {
       this.valueSerializer = requireNonNull(serializer);
       return this;
@@ -128,6 +164,7 @@ public final class NessieKVVersionStore implements VersionStore<Contents, Commit
       checkState(this.namedReferences != null, "NamedRefs KVStore hasn't been set");
       checkState(this.defaultBranchName != null, "Default branch name hasn't been set");
       checkState(this.maxCommitRetries > 0, "Max commit retries name hasn't been set");
+      checkState(this.checkpointInterval > 0, "Checkpoint interval must be positive");
       return new NessieKVVersionStore(this);
     }
   }
@@ -135,6 +172,8 @@ public final class NessieKVVersionStore implements VersionStore<Contents, Commit
   private NessieKVVersionStore(NessieKVVersionStore.Builder builder) {
     this.commits = builder.commits;
     this.namedReferences = builder.namedReferences;
+    this.checkpoints = builder.checkpoints;
+    this.checkpointInterval = builder.checkpointInterval;
     this.valueSerializer = builder.valueSerializer;
     this.metadataSerializer = builder.metadataSerializer;
 
@@ -242,6 +281,7 @@ public final class NessieKVVersionStore implements VersionStore<Contents, Commit
           } else {
             commits.put(commitHash, commit, KVStore.PutOption.CREATE);
           }
+          addCheckpoint(commit);
           return commitHash;
         });
         return null;
@@ -332,6 +372,144 @@ public final class NessieKVVersionStore implements VersionStore<Contents, Commit
     return null;
   }
 
+  /**
+   * Reads several commits at once.
+   */
+  private List<NessieCommit> getCommitsValues(List<Hash> keys) {
+    logger.debug("getCommitsValues (hashes: {})", keys);
+    final List<NessieCommit> results = new ArrayList<>(keys.size());
+    final Iterator<Hash> keyIterator = keys.iterator();
+    for (Document<Hash, NessieCommit> entry : commits.get(keys)) {
+      final Hash key = keyIterator.next();
+      if (entry == null) {
+        throw new IllegalStateException("Missing entry for commit " + key.asString());
+      }
+      results.add(entry.getValue());
+    }
+    return results;
+  }
+
+  private NessieCheckpoint getCheckpoint(Hash key) {
+    logger.debug("getCheckpoint (hash: {})", key);
+    final Document<Hash, NessieCheckpoint> entry = checkpoints.get(key);
+    if (entry != null) {
+      return entry.getValue();
+    }
+    return null;
+  }
+
+  /**
+   * Records the checkpoint of a new commit: every checkpointInterval commits a snapshot of all the keys and values,
+   * otherwise the list of commits since the last snapshot.
+   */
+  private void addCheckpoint(NessieCommit commit) {
+    if (checkpoints == null) {
+      return;
+    }
+    final Hash hash = commit.getHash();
+    if (checkpoints.get(hash) != null) {
+      // the checkpoint of a duplicate commit is the same
+      return;
+    }
+
+    final Hash ancestor = commit.getAncestor();
+    Hash base = NO_ANCESTOR;
+    List<Hash> since = Collections.emptyList();
+    if (!ancestor.equals(NO_ANCESTOR)) {
+      final NessieCheckpoint parent = getCheckpoint(ancestor);
+      if (parent == null) {
+        // history committed before checkpoints were recorded, starting over with a snapshot
+        since = null;
+      } else if (parent.isSnapshot()) {
+        base = ancestor;
+      } else {
+        base = parent.getBase();
+        since = parent.getCommits();
+      }
+    }
+
+    final NessieCheckpoint checkpoint;
+    if (since != null && since.size() + 1 < checkpointInterval) {
+      checkpoint = NessieCheckpoint.of(base, ImmutableList.<Hash>builder().add(hash).addAll(since).build());
+    } else {
+      Map<Key, Contents> ancestorState = since != null ? getState(ancestor) : null;
+      if (ancestorState == null) {
+        ancestorState = getStateFromHistory(ancestor);
+      }
+      final Map<Key, Contents> values = new HashMap<>(ancestorState);
+      apply(values, commit);
+      checkpoint = NessieCheckpoint.snapshot(values);
+      states.put(hash, checkpoint.getValues());
+    }
+    checkpoints.put(hash, checkpoint, KVStore.PutOption.CREATE);
+  }
+
+  /**
+   * Gets all the keys and values of a commit from its checkpoint, replaying the commits since the last snapshot.
+   *
+   * @return the keys and values of the commit, or null if the commit has no checkpoint
+   */
+  private Map<Key, Contents> getState(Hash hash) {
+    if (hash.equals(NO_ANCESTOR)) {
+      return Collections.emptyMap();
+    }
+    if (checkpoints == null) {
+      return null;
+    }
+    final Map<Key, Contents> cached = states.getIfPresent(hash);
+    if (cached != null) {
+      return cached;
+    }
+
+    final NessieCheckpoint checkpoint = getCheckpoint(hash);
+    if (checkpoint == null) {
+      return null;
+    }
+    final Map<Key, Contents> state;
+    if (checkpoint.isSnapshot()) {
+      state = checkpoint.getValues();
+    } else {
+      final Map<Key, Contents> baseState = getState(checkpoint.getBase());
+      if (baseState == null) {
+        return null;
+      }
+      final Map<Key, Contents> values = new HashMap<>(baseState);
+      // commits are listed the most recent first
+      for (NessieCommit commit : getCommitsValues(Lists.reverse(checkpoint.getCommits()))) {
+        apply(values, commit);
+      }
+      state = Collections.unmodifiableMap(values);
+    }
+    states.put(hash, state);
+    return state;
+  }
+
+  /**
+   * Gets all the keys and values of a commit by replaying its whole history.
+   */
+  private Map<Key, Contents> getStateFromHistory(Hash hash) {
+    final List<Commit<Contents, CommitMeta>> history = new ArrayList<>();
+    new CommitsIterator<>(this::getCommitsValue, hash).forEachRemaining(wh -> history.add(wh.getValue()));
+
+    final Map<Key, Contents> values = new HashMap<>();
+    for (Commit<Contents, CommitMeta> commit : Lists.reverse(history)) {
+      apply(values, commit);
+    }
+    return values;
+  }
+
+  private static void apply(Map<Key, Contents> values, Commit<Contents, CommitMeta> commit) {
+    for (Operation<Contents> operation : commit.getOperations()) {
+      if (operation instanceof Put) {
+        values.put(operation.getKey(), ((Put<Contents>) operation).getValue());
+      } else if (operation instanceof Delete) {
+        values.remove(operation.getKey());
+      } else if (!(operation instanceof Unchanged)) {
+        throw new AssertionError("Unsupported operation type for " + operation);
+      }
+    }
+  }
+
   @Override
   public Stream<WithHash<CommitMeta>> getCommits(Ref ref) throws ReferenceNotFoundException {
     logger.debug("getCommits (ref: {})", ref);
@@ -346,6 +524,11 @@ public final class NessieKVVersionStore implements VersionStore<Contents, Commit
     logger.debug("getKeys (ref: {})", ref);
     final Hash hash = toHash(ref);
 
+    final Map<Key, Contents> state = getState(hash);
+    if (state != null) {
+      return state.keySet().stream();
+    }
+
     final Iterator<WithHash<Commit<Contents, CommitMeta>>> iterator = new CommitsIterator<>(this::getCommitsValue, hash);
     final Set<Key> deleted = new HashSet<>();
     return Streams.stream(iterator)
@@ -376,6 +559,11 @@ public final class NessieKVVersionStore implements VersionStore<Contents, Commit
     logger.debug("getValues (ref: {}, keys: {})", ref, keys);
     final Hash hash = toHash(ref);
 
+    final Map<Key, Contents> state = getState(hash);
+    if (state != null) {
+      return keys.stream().map(key -> Optional.ofNullable(state.get(key))).collect(Collectors.toList());
+    }
+
     final int size = keys.size();
     final List<Optional<Contents>> results = new ArrayList<>(size);
     results.addAll(Collections.nCopies(size, Optional.empty()));
@@ -417,7 +605,18 @@ public final class NessieKVVersionStore implements VersionStore<Contents, Commit
 
   @Override
   public Stream<Diff<Contents>> getDiffs(Ref from, Ref to) throws ReferenceNotFoundException {
-    throw new UnsupportedOperationException("Not yet implemented");
+    logger.debug("getDiffs (from: {}, to: {})", from, to);
+    final Map<Key, Contents> fromState = getStateOrHistory(toHash(from));
+    final Map<Key, Contents> toState = getStateOrHistory(toHash(to));
+
+    return Sets.union(fromState.keySet(), toState.keySet()).stream()
+      .filter(key -> !Objects.equals(fromState.get(key), toState.get(key)))
+      .map(key -> Diff.of(key, Optional.ofNullable(fromState.get(key)), Optional.ofNullable(toState.get(key))));
+  }
+
+  private Map<Key, Contents> getStateOrHistory(Hash hash) {
+    final Map<Key, Contents> state = getState(hash);
+    return state != null ? state : getStateFromHistory(hash);
   }
 
   @Override
@@ -100,6 +100,7 @@ public class NessieService implements Service {
       .valueSerializer(worker.getValueSerializer())
       .namedReferences(kvStoreProvider.get().getStore(NessieRefKVStoreBuilder.class))
       .commits(kvStoreProvider.get().getStore(NessieCommitKVStoreBuilder.class))
+      .checkpoints(kvStoreProvider.get().getStore(NessieCheckpointKVStoreBuilder.class))
       .defaultBranchName(serverConfig.getDefaultBranch())
       .maxCommitRetries(kvStoreMaxCommitRetries)
       .build();
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.nessie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.projectnessie.model.Contents;
+import org.projectnessie.model.IcebergTable;
+import org.projectnessie.versioned.Hash;
+import org.projectnessie.versioned.Key;
+
+import com.dremio.datastore.api.KVStoreProvider;
+import com.dremio.datastore.api.StoreBuildingFactory;
+import com.dremio.datastore.format.Format;
+
+/**
+ * Unit tests for the NessieCheckpointKVStoreBuilder class.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TestNessieCheckpointKVStoreBuilder {
+  @Mock private StoreBuildingFactory storeBuildingFactory;
+  @Mock private KVStoreProvider.StoreBuilder storeBuilder;
+
+  @Before
+  public void setup() {
+    when(storeBuildingFactory.newStore()).thenReturn(storeBuilder);
+    when(storeBuilder.name(anyString())).thenReturn(storeBuilder);
+    when(storeBuilder.keyFormat(any(Format.class))).thenReturn(storeBuilder);
+    when(storeBuilder.valueFormat(any(Format.class))).thenReturn(storeBuilder);
+  }
+
+  @Test
+  public void testBuild() {
+    new NessieCheckpointKVStoreBuilder().build(storeBuildingFactory);
+
+    verify(storeBuilder).name(NessieCheckpointKVStoreBuilder.TABLE_NAME);
+
+    verify(storeBuilder).keyFormat(any(Format.class));
+    verify(storeBuilder).valueFormat(any(Format.class));
+
+    verify(storeBuilder).build();
+  }
+
+  @Test
+  public void testConvertSnapshot() {
+    final Map<Key, Contents> values = new HashMap<>();
+    values.put(Key.of("a", "b"), IcebergTable.of("v1"));
+    values.put(Key.of("c"), IcebergTable.of("v2"));
+
+    final NessieCheckpoint converted = NessieCheckpointKVStoreBuilder.stringToCheckpoint(
+      NessieCheckpointKVStoreBuilder.checkpointToString(NessieCheckpoint.snapshot(values)));
+
+    assertTrue(converted.isSnapshot());
+    assertNull(converted.getBase());
+    assertEquals(Collections.emptyList(), converted.getCommits());
+    assertEquals(values, converted.getValues());
+  }
+
+  @Test
+  public void testConvertCommits() {
+    final NessieCheckpoint original = NessieCheckpoint.of(
+      Hash.of("0011223344556677"),
+      Arrays.asList(Hash.of("7766554433221100"), Hash.of("0123456789abcdef")));
+
+    final NessieCheckpoint converted = NessieCheckpointKVStoreBuilder.stringToCheckpoint(
+      NessieCheckpointKVStoreBuilder.checkpointToString(original));
+
+    assertFalse(converted.isSnapshot());
+    assertEquals(original.getBase(), converted.getBase());
+    assertEquals(original.getCommits(), converted.getCommits());
+    assertNull(converted.getValues());
+  }
+}
@@ -25,11 +25,15 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.hamcrest.Matchers;
 import org.junit.After;
@@ -49,6 +53,7 @@ import org.projectnessie.model.ImmutableCommitMeta;
 import org.projectnessie.server.store.TableCommitMetaStoreWorker;
 import org.projectnessie.versioned.BranchName;
 import org.projectnessie.versioned.Delete;
+import org.projectnessie.versioned.Diff;
 import org.projectnessie.versioned.Hash;
 import org.projectnessie.versioned.ImmutablePut;
 import org.projectnessie.versioned.Key;
@@ -79,6 +84,7 @@ import com.google.common.collect.ImmutableList;
 public class TestNessieKVVersionStore {
 
   private static final TableCommitMetaStoreWorker storeWorker = new TableCommitMetaStoreWorker();
+  private static final int CHECKPOINT_INTERVAL = 2;
 
   private VersionStore<Contents, CommitMeta> store;
   @Mock private KVStore<Hash, NessieCommit> mockCommitStore;
@@ -89,6 +95,8 @@ public class TestNessieKVVersionStore {
   }
 
   private LocalKVStoreProvider localKVStoreProvider;
+  private KVStore<Hash, NessieCommit> commitStore;
+  private KVStore<NamedRef, Hash> namedRefStore;
 
   @Rule
   public final TemporaryFolder temporaryFolder = new TemporaryFolder();
@@ -111,12 +119,15 @@ public class TestNessieKVVersionStore {
 
     localKVStoreProvider.start();
 
-    final KVStore<Hash, NessieCommit> commitStore = localKVStoreProvider.getStore(NessieCommitKVStoreBuilder.class);
-    final KVStore<NamedRef, Hash> namedRefStore = localKVStoreProvider.getStore(NessieRefKVStoreBuilder.class);
+    commitStore = localKVStoreProvider.getStore(NessieCommitKVStoreBuilder.class);
+    namedRefStore = localKVStoreProvider.getStore(NessieRefKVStoreBuilder.class);
 
     this.store = NessieKVVersionStore.builder()
       .commits(commitStore)
       .namedReferences(namedRefStore)
+      .checkpoints(localKVStoreProvider.getStore(NessieCheckpointKVStoreBuilder.class))
+      // snapshots every other commit
+      .checkpointInterval(CHECKPOINT_INTERVAL)
       .valueSerializer(storeWorker.getValueSerializer())
       .metadataSerializer(storeWorker.getMetadataSerializer())
       .defaultBranchName(NessieConfig.NESSIE_DEFAULT_BRANCH)
@@ -682,6 +693,116 @@ public class TestNessieKVVersionStore {
       () -> store().commit(branch2, Optional.of(commitHash), anotherCommit, Collections.emptyList()));
   }
 
+  /*
+   * Test:
+   * - Create a new branch
+   * - Add commits spanning several checkpoints, each one adding a key and deleting an older one
+   * - Check keys and values of each commit against a store replaying the whole history
+   */
+  @Test
+  public void commitAcrossCheckpoints() throws Exception {
+    final BranchName branch = BranchName.of("foo");
+    store().create(branch, Optional.empty());
+
+    final List<Hash> hashes = new ArrayList<>();
+    for (int i = 0; i < 5 * CHECKPOINT_INTERVAL + 1; i++) {
+      final CommitBuilder<Contents, CommitMeta> commit = commit("Commit " + i)
+        .put("t" + i, IcebergTable.of("v" + i))
+        .put("s", IcebergTable.of("s" + i));
+      if (i >= 2) {
+        commit.delete("t" + (i - 2));
+      }
+      hashes.add(commit.toBranch(branch));
+    }
+
+    final VersionStore<Contents, CommitMeta> historyStore = buildHistoryVersionStore();
+    final List<Key> keys = Stream.concat(Stream.of(Key.of("s")), IntStream.range(0, hashes.size()).mapToObj(i -> Key.of("t" + i)))
+      .collect(Collectors.toList());
+    for (Hash hash : hashes) {
+      assertThat(store().getKeys(hash).collect(Collectors.toList()),
+        containsInAnyOrder(historyStore.getKeys(hash).toArray()));
+      assertThat(store().getValues(hash, keys), is(historyStore.getValues(hash, keys)));
+    }
+
+    assertThat(store().getKeys(branch).collect(Collectors.toList()), containsInAnyOrder(
+      Key.of("s"),
+      Key.of("t9"),
+      Key.of("t10")
+    ));
+    assertThat(store().getValue(branch, Key.of("t10")), is(IcebergTable.of("v10")));
+    assertThat(store().getValue(hashes.get(1), Key.of("s")), is(IcebergTable.of("s1")));
+  }
+
+  /*
+   * Test:
+   * - Add commits to a branch without recording checkpoints
+   * - Add commits to the branch recording checkpoints
+   * - Check keys and values of the branch
+   */
+  @Test
+  public void commitOnHistoryWithoutCheckpoints() throws Exception {
+    final BranchName branch = BranchName.of("foo");
+    store().create(branch, Optional.empty());
+
+    final VersionStore<Contents, CommitMeta> historyStore = buildHistoryVersionStore();
+    final CommitMeta commitMeta = ImmutableCommitMeta.builder().commiter("a").message("Initial Commit").build();
+    final Hash initialCommit = new CommitBuilder<>(historyStore).withMetadata(commitMeta).fromLatest()
+      .put("t1", IcebergTable.of("v1_1"))
+      .put("t2", IcebergTable.of("v2_1"))
+      .toBranch(branch);
+
+    final Hash secondCommit = commit("Second Commit")
+      .put("t3", IcebergTable.of("v3_1"))
+      .delete("t1")
+      .toBranch(branch);
+
+    assertThat(store().getKeys(initialCommit).collect(Collectors.toList()), containsInAnyOrder(
+      Key.of("t1"),
+      Key.of("t2")
+    ));
+    assertThat(store().getKeys(secondCommit).collect(Collectors.toList()), containsInAnyOrder(
+      Key.of("t2"),
+      Key.of("t3")
+    ));
+    assertThat(store().getValues(branch, Arrays.asList(Key.of("t1"), Key.of("t2"), Key.of("t3"))),
+      contains(
+        Optional.empty(),
+        Optional.of(IcebergTable.of("v2_1")),
+        Optional.of(IcebergTable.of("v3_1"))
+      ));
+  }
+
+  @Test
+  public void getDiffs() throws Exception {
+    final BranchName branch = BranchName.of("foo");
+    store().create(branch, Optional.empty());
+
+    final Hash initialCommit = commit("Initial Commit")
+      .put("t1", IcebergTable.of("v1_1"))
+      .put("t2", IcebergTable.of("v2_1"))
+      .put("t3", IcebergTable.of("v3_1"))
+      .toBranch(branch);
+
+    commit("Second Commit")
+      .put("t1", IcebergTable.of("v1_2"))
+      .delete("t2")
+      .toBranch(branch);
+
+    final Hash thirdCommit = commit("Third Commit")
+      .put("t4", IcebergTable.of("v4_1"))
+      .unchanged("t3")
+      .toBranch(branch);
+
+    assertThat(store().getDiffs(initialCommit, thirdCommit).collect(Collectors.toList()), containsInAnyOrder(
+      Diff.of(Key.of("t1"), Optional.of(IcebergTable.of("v1_1")), Optional.of(IcebergTable.of("v1_2"))),
+      Diff.of(Key.of("t2"), Optional.of(IcebergTable.of("v2_1")), Optional.empty()),
+      Diff.of(Key.of("t4"), Optional.empty(), Optional.of(IcebergTable.of("v4_1")))
+    ));
+
+    assertThat(store().getDiffs(branch, branch).count(), is(0L));
+    assertThat(store().getDiffs(Commit.NO_ANCESTOR, initialCommit).count(), is(3L));
+  }
+
   @Test
   public void getValueForEmptyBranch() throws ReferenceNotFoundException, ReferenceAlreadyExistsException {
     BranchName branch = BranchName.of("empty-branch");
@@ -712,6 +833,20 @@ public class TestNessieKVVersionStore {
     assertThrows(ReferenceNotFoundException.class, () -> store().toRef("1234567890abcdef"));
   }
 
+  /**
+   * Builds a store over the same commits and references, replaying the whole history for lookups.
+   */
+  private VersionStore<Contents, CommitMeta> buildHistoryVersionStore() {
+    return NessieKVVersionStore.builder()
+      .commits(commitStore)
+      .namedReferences(namedRefStore)
+      .valueSerializer(storeWorker.getValueSerializer())
+      .metadataSerializer(storeWorker.getMetadataSerializer())
+      .defaultBranchName(NessieConfig.NESSIE_DEFAULT_BRANCH)
+      .maxCommitRetries(4)
+      .build();
+  }
+
   protected CommitBuilder<Contents, CommitMeta> forceCommit(String message) {
     CommitMeta commitMeta = ImmutableCommitMeta.builder().commiter("a").message(message).build();
     return new CommitBuilder<>(store()).withMetadata(commitMeta);